@@ -61,6 +61,7 @@ import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.ReadCompositeResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
 import org.eclipse.leshan.core.response.SendResponse;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,6 +86,7 @@ public class LeshanClient implements LwM2mClient {
     private final LwM2mNodeDecoder decoder;
     private final RegistrationEngine engine;
     private final LwM2mClientObserverDispatcher observers;
+    protected final TimeoutScheduler timeoutScheduler;
 
     public LeshanClient(String endpoint, InetSocketAddress localAddress,
             List<? extends LwM2mObjectEnabler> objectEnablers, NetworkConfig coapConfig, Builder dtlsConfigBuilder,
@@ -111,6 +113,20 @@ public class LeshanClient implements LwM2mClient {
             List<Certificate> trustStore, EndpointFactory endpointFactory, RegistrationEngineFactory engineFactory,
             Map<String, String> additionalAttributes, Map<String, String> bsAdditionalAttributes,
             LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder, ScheduledExecutorService sharedExecutor) {
+        this(endpoint, localAddress, objectEnablers, coapConfig, dtlsConfigBuilder, trustStore, endpointFactory,
+                engineFactory, additionalAttributes, bsAdditionalAttributes, encoder, decoder, sharedExecutor, null);
+    }
+
+    /**
+     * Create a client which uses the given {@link TimeoutScheduler} to detect response timeout of asynchronous
+     * requests. If <code>null</code>, the shared executor is used if any, else a dedicated scheduler is created.
+     */
+    public LeshanClient(String endpoint, InetSocketAddress localAddress,
+            List<? extends LwM2mObjectEnabler> objectEnablers, NetworkConfig coapConfig, Builder dtlsConfigBuilder,
+            List<Certificate> trustStore, EndpointFactory endpointFactory, RegistrationEngineFactory engineFactory,
+            Map<String, String> additionalAttributes, Map<String, String> bsAdditionalAttributes,
+            LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder, ScheduledExecutorService sharedExecutor,
+            TimeoutScheduler timeoutScheduler) {
 
         Validate.notNull(endpoint);
         Validate.notEmpty(objectEnablers);
@@ -120,6 +136,7 @@ public class LeshanClient implements LwM2mClient {
         rootEnabler = createRootEnabler(objectTree);
         this.decoder = decoder;
         this.encoder = encoder;
+        this.timeoutScheduler = timeoutScheduler;
         observers = createClientObserverDispatcher();
         bootstrapHandler = createBoostrapHandler(objectTree);
         endpointsManager = createEndpointsManager(localAddress, coapConfig, dtlsConfigBuilder, trustStore,
@@ -234,6 +251,9 @@ public class LeshanClient implements LwM2mClient {
 
     protected CaliforniumLwM2mRequestSender createRequestSender(CaliforniumEndpointsManager endpointsManager,
             ScheduledExecutorService executor, LwM2mNodeEncoder encoder, LwM2mModel model) {
+        if (timeoutScheduler != null) {
+            return new CaliforniumLwM2mRequestSender(endpointsManager, timeoutScheduler, encoder, model);
+        }
         return new CaliforniumLwM2mRequestSender(endpointsManager, executor, encoder, model);
     }
 
@@ -49,6 +49,8 @@ import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
 import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.BootstrapRequest;
+import org.eclipse.leshan.core.util.HashedWheelTimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 
 /**
@@ -73,6 +75,7 @@ public class LeshanClientBuilder {
     private Map<String, String> additionalAttributes;
 
     private ScheduledExecutorService executor;
+    private TimeoutScheduler timeoutScheduler;
 
     /** @since 1.1 */
     protected Map<String, String> bsAdditionalAttributes;
@@ -236,6 +239,24 @@ public class LeshanClientBuilder {
         return this;
     }
 
+    /**
+     * Set the {@link TimeoutScheduler} used to detect response timeout of asynchronous requests. It can be shared with
+     * other clients or servers.
+     * <p>
+     * By default, the shared executor is used if any (see {@link #setSharedExecutor(ScheduledExecutorService)}), else a
+     * {@link HashedWheelTimeoutScheduler} is created for the client.
+     * <p>
+     * Scheduler will not be destroyed automatically on {@link LeshanClient#destroy(boolean)}, this should be done
+     * manually.
+     * 
+     * @param timeoutScheduler the scheduler to share.
+     * @return the builder for fluent client creation.
+     */
+    public LeshanClientBuilder setTimeoutScheduler(TimeoutScheduler timeoutScheduler) {
+        this.timeoutScheduler = timeoutScheduler;
+        return this;
+    }
+
     public static NetworkConfig createDefaultNetworkConfig() {
         NetworkConfig networkConfig = new NetworkConfig();
         networkConfig.set(Keys.MID_TRACKER, "NULL");
@@ -358,6 +379,6 @@ public class LeshanClientBuilder {
             ScheduledExecutorService sharedExecutor) {
         return new LeshanClient(endpoint, localAddress, objectEnablers, coapConfig, dtlsConfigBuilder, trustStore,
                 endpointFactory, engineFactory, additionalAttributes, bsAdditionalAttributes, encoder, decoder,
-                executor);
+                executor, timeoutScheduler);
     }
 }
@@ -15,7 +15,6 @@
  *******************************************************************************/
 package org.eclipse.leshan.client.californium.request;
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -33,18 +32,17 @@ import org.eclipse.leshan.core.request.UplinkRequest;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.ExecutorTimeoutScheduler;
+import org.eclipse.leshan.core.util.HashedWheelTimeoutScheduler;
 import org.eclipse.leshan.core.util.NamedThreadFactory;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 
 /**
  * A {@link LwM2mRequestSender} based on Californium(CoAP implementation).
  */
 public class CaliforniumLwM2mRequestSender implements LwM2mRequestSender {
 
-    private static final Logger LOG = LoggerFactory.getLogger(CaliforniumLwM2mRequestSender.class);
-
-    private final ScheduledExecutorService executor;
+    private final TimeoutScheduler timeoutScheduler;
     private final boolean attached;
     private final CaliforniumEndpointsManager endpointsManager;
     private final LwM2mNodeEncoder encoder;
@@ -52,12 +50,28 @@ public class CaliforniumLwM2mRequestSender implements LwM2mRequestSender {
 
     public CaliforniumLwM2mRequestSender(CaliforniumEndpointsManager endpointsManager,
             ScheduledExecutorService sharedExecutor, LwM2mNodeEncoder encoder, LwM2mModel model) {
+        this(endpointsManager, sharedExecutor == null ? null : new ExecutorTimeoutScheduler(sharedExecutor), encoder,
+                model);
+    }
+
+    /**
+     * @param endpointsManager the manager providing the endpoint used to send requests.
+     * @param timeoutScheduler used to detect response timeout of asynchronous requests. It is not destroyed with this
+     *        sender. If <code>null</code> a {@link HashedWheelTimeoutScheduler} is created for this sender.
+     * @param encoder used to encode request payload.
+     * @param model the model used to encode request payload.
+     */
+    public CaliforniumLwM2mRequestSender(CaliforniumEndpointsManager endpointsManager,
+            TimeoutScheduler timeoutScheduler, LwM2mNodeEncoder encoder, LwM2mModel model) {
         this.endpointsManager = endpointsManager;
-        if (sharedExecutor == null) {
-            this.executor = Executors.newScheduledThreadPool(1, new NamedThreadFactory("Leshan Async Request timeout"));
-            this.attached = false;
+        if (timeoutScheduler == null) {
+            this.timeoutScheduler = new HashedWheelTimeoutScheduler(
+                    new NamedThreadFactory("Leshan Async Request timeout"),
+                    HashedWheelTimeoutScheduler.DEFAULT_TICK_DURATION_IN_MS, TimeUnit.MILLISECONDS,
+                    HashedWheelTimeoutScheduler.DEFAULT_WHEEL_SIZE);
+            this.attached = true;
         } else {
-            this.executor = sharedExecutor;
+            this.timeoutScheduler = timeoutScheduler;
             this.attached = false;
         }
         this.model = model;
@@ -101,7 +115,7 @@ public class CaliforniumLwM2mRequestSender implements LwM2mRequestSender {
 
         // Add CoAP request callback
         MessageObserver obs = new AsyncRequestObserver<T>(coapRequest, responseCallback, errorCallback, timeout,
-                executor) {
+                timeoutScheduler) {
             @Override
             public T buildResponse(Response coapResponse) {
                 // Build LwM2m response
@@ -119,12 +133,7 @@ public class CaliforniumLwM2mRequestSender implements LwM2mRequestSender {
     @Override
     public void destroy() {
         if (attached) {
-            executor.shutdownNow();
-            try {
-                executor.awaitTermination(5, TimeUnit.SECONDS);
-            } catch (InterruptedException e) {
-                LOG.warn("Destroying RequestSender was interrupted.", e);
-            }
+            timeoutScheduler.destroy();
         }
     }
 }
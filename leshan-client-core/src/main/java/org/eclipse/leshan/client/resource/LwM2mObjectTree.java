@@ -69,7 +69,7 @@ public class LwM2mObjectTree implements Startable, Stoppable, Destroyable {
             public ResourceModel getResourceModel(int objectId, int resourceId) {
                 ObjectModel objectModel = this.getObjectModel(objectId);
                 if (objectModel != null)
-                    return objectModel.resources.get(resourceId);
+                    return objectModel.getResourceModel(resourceId);
                 return null;
             }
 
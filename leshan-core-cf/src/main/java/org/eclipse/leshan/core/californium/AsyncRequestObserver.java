@@ -22,6 +22,8 @@ import org.eclipse.californium.core.coap.Response;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.ExecutorTimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 
 /**
  * A dedicated {@link CoapAsyncRequestObserver} for LWM2M.
@@ -50,7 +52,27 @@ public abstract class AsyncRequestObserver<T extends LwM2mResponse> extends Coap
      */
     public AsyncRequestObserver(Request coapRequest, final ResponseCallback<T> responseCallback,
             final ErrorCallback errorCallback, long timeoutInMs, ScheduledExecutorService executor) {
-        super(coapRequest, null, errorCallback, timeoutInMs, executor);
+        this(coapRequest, responseCallback, errorCallback, timeoutInMs, new ExecutorTimeoutScheduler(executor));
+    }
+
+    /**
+     * A Californium message observer for a CoAP request helping to get results asynchronously dedicated for LWM2M
+     * requests.
+     * <p>
+     * The Californium API does not ensure that message callback are exclusive. E.g. In some race condition, you can get
+     * a onReponse call and a onCancel one. The CoapAsyncRequestObserver ensure that you will receive only one event.
+     * Meaning, you get either 1 response or 1 error.
+     * 
+     * @param coapRequest The CoAP request to observe.
+     * @param responseCallback This is called when a response is received. This MUST NOT be null.
+     * @param errorCallback This is called when an error happens. This MUST NOT be null.
+     * @param timeoutInMs A response timeout(in millisecond) which is raised if neither a response or error happens (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout).
+     * @param timeoutScheduler used to scheduled timeout tasks.
+     */
+    public AsyncRequestObserver(Request coapRequest, final ResponseCallback<T> responseCallback,
+            final ErrorCallback errorCallback, long timeoutInMs, TimeoutScheduler timeoutScheduler) {
+        super(coapRequest, null, errorCallback, timeoutInMs, timeoutScheduler);
         this.responseCallback = new CoapResponseCallback() {
 
             @Override
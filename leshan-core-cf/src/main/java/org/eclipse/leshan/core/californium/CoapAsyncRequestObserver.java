@@ -19,7 +19,6 @@
 package org.eclipse.leshan.core.californium;
 
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -34,6 +33,9 @@ import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.request.exception.TimeoutException.Type;
 import org.eclipse.leshan.core.request.exception.UnconnectedPeerException;
 import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.util.ExecutorTimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,9 +55,9 @@ public class CoapAsyncRequestObserver extends AbstractRequestObserver {
     protected CoapResponseCallback responseCallback;
     private final ErrorCallback errorCallback;
     private final long timeoutInMs;
-    private ScheduledFuture<?> cleaningTask;
+    private Timeout cleaningTask;
     private boolean cancelled = false;
-    private ScheduledExecutorService executor;
+    private final TimeoutScheduler timeoutScheduler;
 
     // The Californium API does not ensure that message callback are exclusive
     // meaning that you can get a onReponse call and a onCancel one.
@@ -82,11 +84,30 @@ public class CoapAsyncRequestObserver extends AbstractRequestObserver {
      */
     public CoapAsyncRequestObserver(Request coapRequest, CoapResponseCallback responseCallback,
             ErrorCallback errorCallback, long timeoutInMs, ScheduledExecutorService executor) {
+        this(coapRequest, responseCallback, errorCallback, timeoutInMs, new ExecutorTimeoutScheduler(executor));
+    }
+
+    /**
+     * A Californium message observer for a CoAP request helping to get results asynchronously.
+     * <p>
+     * The Californium API does not ensure that message callback are exclusive. E.g. In some race condition, you can get
+     * a onReponse call and a onCancel one. The CoapAsyncRequestObserver ensure that you will receive only one event.
+     * Meaning, you get either 1 response or 1 error.
+     * 
+     * @param coapRequest The CoAP request to observe.
+     * @param responseCallback This is called when a response is received. This MUST NOT be null.
+     * @param errorCallback This is called when an error happens. This MUST NOT be null.
+     * @param timeoutInMs A response timeout(in millisecond) which is raised if neither a response or error happens (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout).
+     * @param timeoutScheduler used to scheduled timeout tasks.
+     */
+    public CoapAsyncRequestObserver(Request coapRequest, CoapResponseCallback responseCallback,
+            ErrorCallback errorCallback, long timeoutInMs, TimeoutScheduler timeoutScheduler) {
         super(coapRequest);
         this.responseCallback = responseCallback;
         this.errorCallback = errorCallback;
         this.timeoutInMs = timeoutInMs;
-        this.executor = executor;
+        this.timeoutScheduler = timeoutScheduler;
     }
 
     @Override
@@ -176,7 +197,7 @@ public class CoapAsyncRequestObserver extends AbstractRequestObserver {
         if (!cancelled)
             if (cleaningTask == null) {
                 LOG.trace("Schedule Cleaning Task for {}", coapRequest);
-                cleaningTask = executor.schedule(new Runnable() {
+                cleaningTask = timeoutScheduler.schedule(new Runnable() {
                     @Override
                     public void run() {
                         responseTimedOut.set(true);
@@ -188,7 +209,7 @@ public class CoapAsyncRequestObserver extends AbstractRequestObserver {
 
     private synchronized void cancelCleaningTask() {
         if (cleaningTask != null) {
-            cleaningTask.cancel(false);
+            cleaningTask.cancel();
         }
         cancelled = true;
     }
@@ -17,13 +17,17 @@ package org.eclipse.leshan.core;
 
 import java.io.Serializable;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
-import org.eclipse.leshan.core.util.StringUtils;
 import org.eclipse.leshan.core.util.Validate;
 
 /**
@@ -67,8 +71,15 @@ public class Link implements Serializable {
     public Link(String url, Map<String, String> attributes) {
         Validate.notNull(url);
         this.url = url;
-        if (attributes != null) {
-            this.attributes = Collections.unmodifiableMap(new HashMap<>(attributes));
+        if (attributes instanceof AttributeMap) {
+            // already immutable
+            this.attributes = attributes;
+        } else if (attributes != null && !attributes.isEmpty()) {
+            AttributesBuilder builder = new AttributesBuilder();
+            for (Entry<String, String> attr : attributes.entrySet()) {
+                builder.put(attr.getKey(), attr.getValue());
+            }
+            this.attributes = builder.build();
         } else {
             this.attributes = Collections.emptyMap();
         }
@@ -80,27 +91,17 @@ public class Link implements Serializable {
      * @param url the link URL
      * @param attributes the object link attributes or <code>null</code> if the link has no attributes
      */
-    @SuppressWarnings("unchecked")
     public <T> Link(String url, Map<String, T> attributes, Class<T> clazz) {
         Validate.notNull(url);
         this.url = url;
         if (attributes == null || attributes.isEmpty()) {
             this.attributes = Collections.emptyMap();
         } else {
-            if (String.class.equals(clazz)) {
-                this.attributes = Collections.unmodifiableMap((Map<String, String>) new HashMap<>(attributes));
-            } else {
-                HashMap<String, String> attributesMap = new HashMap<>();
-                for (Entry<String, T> attr : attributes.entrySet()) {
-                    if (attr.getValue() == null) {
-                        attributesMap.put(attr.getKey(), null);
-                    } else {
-                        attributesMap.put(attr.getKey(), attr.getValue().toString());
-                    }
-
-                }
-                this.attributes = Collections.unmodifiableMap(attributesMap);
+            AttributesBuilder builder = new AttributesBuilder();
+            for (Entry<String, T> attr : attributes.entrySet()) {
+                builder.put(attr.getKey(), attr.getValue() == null ? null : attr.getValue().toString());
             }
+            this.attributes = builder.build();
         }
     }
 
@@ -121,11 +122,11 @@ public class Link implements Serializable {
                 throw new IllegalArgumentException("Each attributes key must have a value");
             }
 
-            HashMap<String, String> attributesMap = new HashMap<>();
+            AttributesBuilder builder = new AttributesBuilder();
             for (int i = 0; i < attributes.length; i = i + 2) {
-                attributesMap.put(attributes[i], attributes[i + 1]);
+                builder.put(attributes[i], attributes[i + 1]);
             }
-            this.attributes = Collections.unmodifiableMap(attributesMap);
+            this.attributes = builder.build();
         }
     }
 
@@ -165,6 +166,9 @@ public class Link implements Serializable {
 
     /**
      * Parse a byte arrays representation of a {@code String} encoding with UTF_8 {@link Charset}.
+     * <p>
+     * Content is parsed in a single pass and delimiters between quotes are ignored. URLs and attributes are interned,
+     * so links parsed from several payloads share the same strings.
      * 
      * @param content a byte arrays representing {@code String} encoding with UTF_8 {@link Charset}.
      * @return an array of {@code Link}
@@ -173,37 +177,7 @@ public class Link implements Serializable {
         if (content == null) {
             return new Link[] {};
         }
-        String s = new String(content, StandardCharsets.UTF_8);
-        String[] links = s.split(",");
-        Link[] linksResult = new Link[links.length];
-        int index = 0;
-        for (String link : links) {
-            String[] linkParts = link.split(";");
-
-            // clean URL
-            String url = StringUtils.trim(linkParts[0]);
-            url = StringUtils.removeStart(StringUtils.removeEnd(url, ">"), "<");
-
-            // parse attributes
-            Map<String, String> attributes = new HashMap<>();
-
-            if (linkParts.length > 1) {
-                for (int i = 1; i < linkParts.length; i++) {
-                    String[] attParts = linkParts[i].split("=");
-                    if (attParts.length > 0) {
-                        String key = attParts[0];
-                        String value = null;
-                        if (attParts.length > 1) {
-                            value = attParts[1];
-                        }
-                        attributes.put(key, value);
-                    }
-                }
-            }
-            linksResult[index] = new Link(url, attributes);
-            index++;
-        }
-        return linksResult;
+        return LinkParser.parse(content);
     }
 
     private static final String TRAILER = ",";
@@ -271,4 +245,139 @@ public class Link implements Serializable {
         }
         return string;
     }
-}
\ No newline at end of file
+
+    /**
+     * Collect attributes of a link, keeping insertion order. A key added twice keeps the last value.
+     * <p>
+     * Duplicate keys are searched linearly while there are only few attributes, then using a hash index so parsing a
+     * link with a lot of attributes stays linear.
+     */
+    static class AttributesBuilder {
+        // number of attributes above which keys are indexed
+        private static final int LINEAR_SEARCH_THRESHOLD = 8;
+
+        private String[] keysAndValues = new String[8];
+        private int size = 0;
+        // key => index in keysAndValues, only created above LINEAR_SEARCH_THRESHOLD
+        private Map<String, Integer> indexes;
+
+        void put(String key, String value) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                keysAndValues[index + 1] = value;
+                return;
+            }
+            if (size == keysAndValues.length) {
+                keysAndValues = Arrays.copyOf(keysAndValues, size * 2);
+            }
+            keysAndValues[size] = key;
+            keysAndValues[size + 1] = value;
+            if (indexes != null) {
+                indexes.put(key, size);
+            }
+            size += 2;
+            if (indexes == null && size / 2 > LINEAR_SEARCH_THRESHOLD) {
+                indexes = new HashMap<>();
+                for (int i = 0; i < size; i += 2) {
+                    indexes.put(keysAndValues[i], i);
+                }
+            }
+        }
+
+        private int indexOf(String key) {
+            if (indexes != null) {
+                Integer index = indexes.get(key);
+                return index == null ? -1 : index;
+            }
+            for (int i = 0; i < size; i += 2) {
+                if (keysAndValues[i] == null ? key == null : keysAndValues[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Map<String, String> build() {
+            if (size == 0)
+                return Collections.emptyMap();
+            return new AttributeMap(Arrays.copyOf(keysAndValues, size));
+        }
+    }
+
+    /**
+     * A compact immutable map storing keys and values in a single array. Links have only few attributes, so a linear
+     * search is cheaper than hashing.
+     */
+    private static class AttributeMap extends AbstractMap<String, String> implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] keysAndValues;
+
+        AttributeMap(String[] keysAndValues) {
+            this.keysAndValues = keysAndValues;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                if (keysAndValues[i] == null ? key == null : keysAndValues[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public String get(Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : keysAndValues[index + 1];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keysAndValues.length / 2;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < keysAndValues.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Entry<String, String> entry = new SimpleImmutableEntry<>(keysAndValues[index],
+                                    keysAndValues[index + 1]);
+                            index += 2;
+                            return entry;
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return AttributeMap.this.size();
+                }
+            };
+        }
+    }
+}
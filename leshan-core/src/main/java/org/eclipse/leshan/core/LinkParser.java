@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single pass parser for the CoRE Link Format (see http://tools.ietf.org/html/rfc6690), working directly on UTF-8
+ * bytes.
+ * <p>
+ * Delimiters between quotes (e.g. a comma in <code>rt="a,b"</code>) or inside an URI reference are not interpreted.
+ * To stay compatible with the previous implementation, parsing is permissive : attribute values are kept as is
+ * (quotes included) and malformed quoted values end at the next delimiter.
+ * <p>
+ * Well known URLs, attribute keys and attribute values are shared as they are repeated in a lot of registrations. Other
+ * strings are not interned : the content comes from devices and could fill an unbounded pool.
+ */
+class LinkParser {
+
+    // ids of objects whose URLs are shared, this includes the core objects defined by OMA
+    private static final int MAX_SHARED_OBJECT_ID = 31;
+
+    private static final String[] KNOWN_ATTRIBUTES = { "rt", "ct", "ver", "pmin", "pmax", "gt", "lt", "st", "epmin",
+                            "epmax", "dim", "ssid", "uri", "obs" };
+    private static final String[] KNOWN_VALUES = { "oma.lwm2m", "\"oma.lwm2m\"", "1.0", "1.1", "1.2", "\"1.0\"",
+                            "\"1.1\"", "\"1.2\"", "0", "1", "11542", "11543", "110", "112", "1542", "1543", "60",
+                            "\"11542\"", "\"11543\"", "\"110\"", "\"112\"", "\"1542\"", "\"1543\"", "\"60\"" };
+
+    // immutable once initialized, so only a bounded set of strings is ever shared
+    private static final Map<String, String> knownStrings = new HashMap<>();
+    static {
+        for (String attribute : KNOWN_ATTRIBUTES) {
+            knownStrings.put(attribute, attribute);
+        }
+        for (String value : KNOWN_VALUES) {
+            knownStrings.put(value, value);
+        }
+        knownStrings.put("/", "/");
+        for (int objectId = 0; objectId <= MAX_SHARED_OBJECT_ID; objectId++) {
+            String objectUrl = "/" + objectId;
+            knownStrings.put(objectUrl, objectUrl);
+            String instanceUrl = objectUrl + "/0";
+            knownStrings.put(instanceUrl, instanceUrl);
+        }
+    }
+
+    private final byte[] content;
+    private int pos;
+
+    private LinkParser(byte[] content) {
+        this.content = content;
+    }
+
+    static Link[] parse(byte[] content) {
+        return new LinkParser(content).parseLinks();
+    }
+
+    static String intern(String s) {
+        if (s == null)
+            return null;
+        String known = knownStrings.get(s);
+        return known != null ? known : s;
+    }
+
+    private Link[] parseLinks() {
+        List<Link> links = new ArrayList<>();
+        boolean separatorFound = false;
+        while (true) {
+            links.add(parseLink());
+            if (pos < content.length && content[pos] == ',') {
+                pos++;
+                separatorFound = true;
+            } else {
+                break;
+            }
+        }
+
+        // as String.split(), ignore trailing empty links
+        if (separatorFound) {
+            int size = links.size();
+            while (size > 0 && isEmpty(links.get(size - 1))) {
+                size--;
+            }
+            links = links.subList(0, size);
+        }
+        return links.toArray(new Link[links.size()]);
+    }
+
+    private Link parseLink() {
+        // URI reference
+        skipWhitespaces();
+        String url = null;
+        if (pos < content.length && content[pos] == '<') {
+            int end = indexOf('>', pos + 1);
+            if (end >= 0) {
+                url = string(pos + 1, end);
+                pos = end + 1;
+            } else {
+                pos++;
+            }
+        }
+        if (url == null) {
+            int start = pos;
+            pos = indexOfDelimiter(pos);
+            url = trimmedString(start, pos);
+            if (url.endsWith(">")) {
+                url = url.substring(0, url.length() - 1);
+            }
+        } else {
+            // ignore garbage after URI reference
+            pos = indexOfDelimiter(pos);
+        }
+
+        // attributes
+        Link.AttributesBuilder attributes = null;
+        while (pos < content.length && content[pos] == ';') {
+            pos++;
+            int keyStart = pos;
+            while (pos < content.length && content[pos] != '=' && content[pos] != ';' && content[pos] != ',') {
+                pos++;
+            }
+            String key = trimmedString(keyStart, pos);
+            String value = null;
+            if (pos < content.length && content[pos] == '=') {
+                pos++;
+                value = parseValue();
+            }
+            if (!key.isEmpty()) {
+                if (attributes == null) {
+                    attributes = new Link.AttributesBuilder();
+                }
+                attributes.put(intern(key), intern(value));
+            }
+        }
+        return new Link(intern(url), attributes == null ? null : attributes.build());
+    }
+
+    private String parseValue() {
+        skipWhitespaces();
+        int start = pos;
+        int end = -1;
+        if (pos < content.length && content[pos] == '"') {
+            // quoted value ends with a quote followed by a delimiter
+            for (int i = pos + 1; i < content.length; i++) {
+                if (content[i] == '"' && (i + 1 == content.length || isDelimiterOrWhitespace(content[i + 1]))) {
+                    end = i + 1;
+                    break;
+                }
+            }
+        }
+        if (end < 0) {
+            end = indexOfDelimiter(pos);
+        }
+        pos = indexOfDelimiter(end);
+        return trimmedString(start, end);
+    }
+
+    private int indexOf(char c, int from) {
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == c)
+                return i;
+        }
+        return -1;
+    }
+
+    private int indexOfDelimiter(int from) {
+        int i = from;
+        while (i < content.length && content[i] != ';' && content[i] != ',') {
+            i++;
+        }
+        return i;
+    }
+
+    private void skipWhitespaces() {
+        while (pos < content.length && isWhitespace(content[pos])) {
+            pos++;
+        }
+    }
+
+    private String trimmedString(int start, int end) {
+        while (start < end && isWhitespace(content[start])) {
+            start++;
+        }
+        while (end > start && isWhitespace(content[end - 1])) {
+            end--;
+        }
+        return string(start, end);
+    }
+
+    private String string(int start, int end) {
+        return new String(content, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isDelimiterOrWhitespace(byte b) {
+        return b == ';' || b == ',' || isWhitespace(b);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isEmpty(Link link) {
+        return link.getUrl().isEmpty() && link.getAttributes().isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.json;
+
+/**
+ * A {@link LwM2mJsonDecoder} which is able to decode LWM2M JSON directly from bytes, without creating an intermediate
+ * {@link String}.
+ */
+public interface LwM2mJsonStreamDecoder extends LwM2mJsonDecoder {
+
+    /**
+     * Decodes the given LWM2M JSON content.
+     * 
+     * @param content the UTF-8 encoded LWM2M JSON content.
+     * @return the decoded root object.
+     * @throws LwM2mJsonException if the content is not valid LWM2M JSON.
+     */
+    JsonRootObject fromJsonLwM2m(byte[] content) throws LwM2mJsonException;
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.json;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link LwM2mJsonEncoder} which is able to write LWM2M JSON directly in an {@link OutputStream}, without creating an
+ * intermediate {@link String}.
+ */
+public interface LwM2mJsonStreamEncoder extends LwM2mJsonEncoder {
+
+    /**
+     * Encodes the given root object in the given stream using UTF-8.
+     * 
+     * @param jro the root object to encode.
+     * @param out the stream where the encoded content is written.
+     * @throws LwM2mJsonException if the object can not be encoded or if the stream can not be written.
+     */
+    void toJsonLwM2m(JsonRootObject jro, OutputStream out) throws LwM2mJsonException;
+}
@@ -15,6 +15,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.json.jackson;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -24,6 +25,9 @@ import org.eclipse.leshan.core.util.datatype.ULong;
 import org.eclipse.leshan.core.util.json.JacksonJsonSerDes;
 import org.eclipse.leshan.core.util.json.JsonException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -83,6 +87,59 @@ public class JsonArrayEntrySerDes extends JacksonJsonSerDes<JsonArrayEntry> {
         return o;
     };
 
+    /**
+     * Write the given entry in the given generator, without building an intermediate {@link JsonNode}.
+     */
+    public void serialize(JsonArrayEntry jae, JsonGenerator g) throws JsonException, IOException {
+        g.writeStartObject();
+        if (jae.getName() != null)
+            g.writeStringField("n", jae.getName());
+        Type type = jae.getType();
+        if (type != null) {
+            switch (jae.getType()) {
+            case FLOAT:
+                Number value = jae.getFloatValue();
+                // integer
+                if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+                    g.writeNumberField("v", value.intValue());
+                } else if (value instanceof Long) {
+                    g.writeNumberField("v", value.longValue());
+                } else if (value instanceof BigInteger) {
+                    g.writeFieldName("v");
+                    g.writeNumber((BigInteger) value);
+                }
+                // unsigned integer
+                else if (value instanceof ULong) {
+                    g.writeFieldName("v");
+                    g.writeNumber(((ULong) value).toBigInteger());
+                }
+                // floating-point
+                else if (value instanceof Float) {
+                    g.writeNumberField("v", value.floatValue());
+                } else if (value instanceof Double) {
+                    g.writeNumberField("v", value.doubleValue());
+                } else if (value instanceof BigDecimal) {
+                    g.writeNumberField("v", (BigDecimal) value);
+                }
+                break;
+            case BOOLEAN:
+                g.writeBooleanField("bv", jae.getBooleanValue());
+                break;
+            case OBJLNK:
+                g.writeStringField("ov", jae.getObjectLinkValue());
+                break;
+            case STRING:
+                g.writeStringField("sv", jae.getStringValue());
+                break;
+            default:
+                throw new JsonException("JsonArrayEntry MUST have a value : %s", jae);
+            }
+        }
+        if (jae.getTime() != null)
+            g.writeNumberField("t", jae.getTime());
+        g.writeEndObject();
+    }
+
     @Override
     public JsonArrayEntry deserialize(JsonNode o) throws JsonException {
         if (o == null)
@@ -119,4 +176,55 @@ public class JsonArrayEntrySerDes extends JacksonJsonSerDes<JsonArrayEntry> {
 
         return jae;
     }
+
+    /**
+     * Deserializes the entry starting at the current token of the parser, without building a {@link JsonNode} tree.
+     * When this method returns, the current token is the end of the entry.
+     */
+    public JsonArrayEntry deserialize(JsonParser p) throws JsonException, IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new JsonException("Invalid JSON entry : JsonObject expected but was %s", p.getCurrentToken());
+
+        JsonArrayEntry jae = new JsonArrayEntry();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            switch (field) {
+            case "n":
+                if (token == JsonToken.VALUE_STRING)
+                    jae.setName(p.getText());
+                break;
+            case "t":
+                if (token.isNumeric())
+                    jae.setTime(p.getValueAsLong());
+                break;
+            case "v":
+                if (token.isNumeric())
+                    jae.setFloatValue(p.getNumberValue());
+                break;
+            case "bv":
+                if (token.isBoolean())
+                    jae.setBooleanValue(p.getBooleanValue());
+                break;
+            case "sv":
+                if (token == JsonToken.VALUE_STRING)
+                    jae.setStringValue(p.getText());
+                break;
+            case "ov":
+                if (token == JsonToken.VALUE_STRING)
+                    jae.setObjectLinkValue(p.getText());
+                break;
+            default:
+                break;
+            }
+            // ignore content of unexpected objects or arrays
+            p.skipChildren();
+        }
+
+        if (jae.getType() == null) {
+            throw new JsonException("Missing value(v,bv,ov,sv) field for entry %s", jae);
+        }
+
+        return jae;
+    }
 }
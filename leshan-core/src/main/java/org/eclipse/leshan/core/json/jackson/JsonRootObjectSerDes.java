@@ -15,10 +15,18 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.json.jackson;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.leshan.core.json.JsonArrayEntry;
 import org.eclipse.leshan.core.json.JsonRootObject;
 import org.eclipse.leshan.core.util.json.JacksonJsonSerDes;
 import org.eclipse.leshan.core.util.json.JsonException;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -45,6 +53,29 @@ public class JsonRootObjectSerDes extends JacksonJsonSerDes<JsonRootObject> {
         return o;
     };
 
+    /**
+     * Write the given root object in the given generator, without building an intermediate {@link JsonNode}.
+     */
+    public void serialize(JsonRootObject jro, JsonGenerator g) throws JsonException, IOException {
+        g.writeStartObject();
+
+        if (jro.getBaseName() != null)
+            g.writeStringField("bn", jro.getBaseName());
+
+        if (jro.getResourceList() != null) {
+            g.writeArrayFieldStart("e");
+            for (JsonArrayEntry jae : jro.getResourceList()) {
+                serDes.serialize(jae, g);
+            }
+            g.writeEndArray();
+        }
+
+        if (jro.getBaseTime() != null)
+            g.writeNumberField("bt", jro.getBaseTime());
+
+        g.writeEndObject();
+    }
+
     @Override
     public JsonRootObject deserialize(JsonNode jsonNode) throws JsonException {
         if (jsonNode == null)
@@ -68,4 +99,48 @@ public class JsonRootObjectSerDes extends JacksonJsonSerDes<JsonRootObject> {
 
         return jro;
     }
+
+    /**
+     * Deserializes the root object starting at the current token of the parser, without building a {@link JsonNode}
+     * tree. When this method returns, the current token is the end of the root object.
+     */
+    public JsonRootObject deserialize(JsonParser p) throws JsonException, IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new JsonException("Invalid LWM2M JSON : JsonObject expected but was %s", p.getCurrentToken());
+
+        JsonRootObject jro = new JsonRootObject();
+        List<JsonArrayEntry> entries = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            switch (field) {
+            case "e":
+                if (token == JsonToken.START_ARRAY) {
+                    entries = new ArrayList<>();
+                    while (p.nextToken() != JsonToken.END_ARRAY) {
+                        entries.add(serDes.deserialize(p));
+                    }
+                }
+                break;
+            case "bn":
+                if (token == JsonToken.VALUE_STRING)
+                    jro.setBaseName(p.getText());
+                break;
+            case "bt":
+                if (token.isNumeric())
+                    jro.setBaseTime(p.getValueAsLong());
+                break;
+            default:
+                break;
+            }
+            // ignore content of unexpected objects or arrays
+            p.skipChildren();
+        }
+
+        if (entries == null)
+            throw new JsonException("'e' field is missing for %s", jro);
+        jro.setResourceList(entries);
+
+        return jro;
+    }
 }
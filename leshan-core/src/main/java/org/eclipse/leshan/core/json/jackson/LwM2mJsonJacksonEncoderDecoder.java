@@ -17,39 +17,74 @@
 
 package org.eclipse.leshan.core.json.jackson;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 import org.eclipse.leshan.core.json.JsonRootObject;
-import org.eclipse.leshan.core.json.LwM2mJsonDecoder;
-import org.eclipse.leshan.core.json.LwM2mJsonEncoder;
 import org.eclipse.leshan.core.json.LwM2mJsonException;
+import org.eclipse.leshan.core.json.LwM2mJsonStreamDecoder;
+import org.eclipse.leshan.core.json.LwM2mJsonStreamEncoder;
 import org.eclipse.leshan.core.util.json.JsonException;
 
-import com.eclipsesource.json.ParseException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
- * Helper for encoding/decoding LWM2M JSON format using minimal-json
+ * Helper for encoding/decoding LWM2M JSON format using Jackson streaming API
  */
-public class LwM2mJsonJacksonEncoderDecoder implements LwM2mJsonDecoder, LwM2mJsonEncoder {
+public class LwM2mJsonJacksonEncoderDecoder implements LwM2mJsonStreamDecoder, LwM2mJsonStreamEncoder {
 
     private static final JsonRootObjectSerDes serDes = new JsonRootObjectSerDes();
     private static final ObjectMapper mapper = new ObjectMapper();
 
     @Override
     public String toJsonLwM2m(JsonRootObject jro) throws LwM2mJsonException {
-        try {
-            return serDes.sSerialize(jro);
-        } catch (JsonException e) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        toJsonLwM2m(jro, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void toJsonLwM2m(JsonRootObject jro, OutputStream out) throws LwM2mJsonException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            // the stream belongs to the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            serDes.serialize(jro, generator);
+        } catch (JsonException | IOException e) {
             throw new LwM2mJsonException("Unable to serialize LWM2M JSON.", e);
         }
     }
 
     @Override
     public JsonRootObject fromJsonLwM2m(String jsonString) throws LwM2mJsonException {
+        try (JsonParser parser = mapper.getFactory().createParser(jsonString)) {
+            return fromJsonLwM2m(parser);
+        } catch (IOException e) {
+            throw new LwM2mJsonException("Unable to parse LWM2M JSON.", e);
+        }
+    }
+
+    @Override
+    public JsonRootObject fromJsonLwM2m(byte[] content) throws LwM2mJsonException {
+        try (JsonParser parser = mapper.getFactory().createParser(content)) {
+            return fromJsonLwM2m(parser);
+        } catch (IOException e) {
+            throw new LwM2mJsonException("Unable to parse LWM2M JSON.", e);
+        }
+    }
+
+    private JsonRootObject fromJsonLwM2m(JsonParser parser) throws LwM2mJsonException {
         try {
-            return serDes.deserialize(mapper.readTree(jsonString));
-        } catch (JsonException | ParseException | IOException e) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                throw new LwM2mJsonException("Unable to parse LWM2M JSON: JsonObject expected but was %s", token);
+            }
+            return serDes.deserialize(parser);
+        } catch (JsonException | IOException e) {
             throw new LwM2mJsonException("Unable to parse LWM2M JSON.", e);
         }
     }
@@ -42,6 +42,8 @@ import org.xml.sax.SAXException;
 
 /**
  * A parser for Object DDF files.
+ * <p>
+ * A parser can be used by several threads at the same time, as long as its {@link DDFFileValidator} supports it.
  */
 public class DDFFileParser {
 
@@ -81,6 +83,15 @@ public class DDFFileParser {
         this.ddfValidatorFactory = ddfFileValidatorFactory;
     }
 
+    /**
+     * @return a description of the validation done by this parser, used to know if cached models were validated the
+     *         same way.
+     */
+    String getValidationDescription() {
+        return getClass().getName() + ":" + (ddfValidator == null ? "" : ddfValidator.getClass().getName()) + ":"
+                + (ddfValidatorFactory == null ? "" : ddfValidatorFactory.getClass().getName());
+    }
+
     /**
      * Parse a DDF file.
      * 
@@ -108,8 +119,11 @@ public class DDFFileParser {
         LOG.debug("Parsing DDF file {}", streamName);
 
         try {
-            // Parse XML file
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            // Parse XML file, a DocumentBuilderFactory is not thread safe
+            DocumentBuilder builder;
+            synchronized (factory) {
+                builder = factory.newDocumentBuilder();
+            }
             Document document = builder.parse(inputStream);
 
             // Get DDF file validator
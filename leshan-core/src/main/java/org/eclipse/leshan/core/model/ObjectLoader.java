@@ -15,6 +15,8 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -22,9 +24,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.eclipse.leshan.core.LwM2m.Version;
 import org.eclipse.leshan.core.util.StringUtils;
@@ -326,6 +333,30 @@ public class ObjectLoader {
      */
     public static List<ObjectModel> loadObjectsFromDir(File modelsDir, DDFFileParser ddfFileParser,
             ObjectModelValidator modelValidator) {
+        return loadObjectsFromDir(modelsDir, ddfFileParser, modelValidator, null, null);
+    }
+
+    /**
+     * Load object definitions from directory, parsing DDF files in parallel and reusing models of DDF files which did
+     * not change since they were cached.
+     * <p>
+     * Invalid model will be logged and ignored. Models are returned in the order of DDF files as listed by
+     * {@link File#listFiles()}, whatever the order of parsing.
+     * 
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param ddfFileParser a ddfFileParser which could do validation optionally. It is used by several threads at the
+     *        same time.
+     * @param modelValidator an Object model validator to ensure model is valid, see
+     *        {@link DefaultObjectModelValidator}. If {@code null} then there will be no validation.
+     * @param executor the executor used to parse DDF files in parallel. If {@code null}, files are parsed by the
+     *        calling thread.
+     * @param cache a cache containing models of DDF files already parsed. If {@code null}, all files are parsed. The
+     *        cache is saved once all files are loaded.
+     * 
+     * @since 2.0
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, final DDFFileParser ddfFileParser,
+            final ObjectModelValidator modelValidator, ExecutorService executor, final ObjectModelCache cache) {
         List<ObjectModel> models = new ArrayList<>();
 
         // check if the folder is usable
@@ -333,24 +364,99 @@ public class ObjectLoader {
             LOG.error(MessageFormat.format(
                     "Models folder {0} is not a directory or you are not allowed to list its content",
                     modelsDir.getPath()));
-        } else {
-            // get all files
-            for (File file : modelsDir.listFiles()) {
-                if (!file.canRead())
-                    continue;
+            return models;
+        }
 
-                if (file.getName().endsWith(".xml")) {
-                    // from DDF file
-                    LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
-                    try (FileInputStream input = new FileInputStream(file)) {
-                        models.addAll(loadDdfFile(input, file.getName(), ddfFileParser, modelValidator));
-                    } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
-                        LOG.warn(MessageFormat.format("Unable to load object models for {0}", file.getAbsolutePath()),
-                                e);
+        // get all files
+        List<File> files = new ArrayList<>();
+        List<String> fileNames = new ArrayList<>();
+        for (File file : modelsDir.listFiles()) {
+            if (file.canRead() && file.getName().endsWith(".xml")) {
+                files.add(file);
+                fileNames.add(file.getName());
+            }
+        }
+
+        if (executor == null) {
+            for (File file : files) {
+                models.addAll(loadDdfFile(file, ddfFileParser, modelValidator, cache));
+            }
+        } else {
+            List<Future<List<ObjectModel>>> futures = new ArrayList<>(files.size());
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<List<ObjectModel>>() {
+                    @Override
+                    public List<ObjectModel> call() {
+                        return loadDdfFile(file, ddfFileParser, modelValidator, cache);
                     }
+                }));
+            }
+            try {
+                for (Future<List<ObjectModel>> future : futures) {
+                    models.addAll(future.get());
+                }
+            } catch (InterruptedException e) {
+                for (Future<List<ObjectModel>> future : futures) {
+                    future.cancel(true);
                 }
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while loading models", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to load models", e.getCause());
+            }
+        }
+
+        if (cache != null) {
+            cache.retainAll(fileNames);
+            try {
+                cache.save();
+            } catch (IOException e) {
+                LOG.warn("Unable to save object models cache", e);
             }
         }
         return models;
     }
+
+    private static List<ObjectModel> loadDdfFile(File file, DDFFileParser ddfFileParser,
+            ObjectModelValidator modelValidator, ObjectModelCache cache) {
+        try {
+            byte[] content = readAll(file);
+            byte[] hash = null;
+            if (cache != null) {
+                // models validated differently are not reused
+                String validation = ddfFileParser.getValidationDescription() + ":"
+                        + (modelValidator == null ? "" : modelValidator.getClass().getName());
+                hash = ObjectModelCache.hash(content, validation);
+                List<ObjectModel> cachedModels = cache.get(file.getName(), hash);
+                if (cachedModels != null) {
+                    LOG.debug("Loading object models of DDF file {} from cache", file.getAbsolutePath());
+                    return cachedModels;
+                }
+            }
+
+            // from DDF file
+            LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
+            List<ObjectModel> models = loadDdfFile(new ByteArrayInputStream(content), file.getName(), ddfFileParser,
+                    modelValidator);
+            if (cache != null) {
+                cache.put(file.getName(), hash, models);
+            }
+            return models;
+        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+            LOG.warn(MessageFormat.format("Unable to load object models for {0}", file.getAbsolutePath()), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        try (FileInputStream input = new FileInputStream(file)) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        }
+    }
 }
@@ -34,6 +34,9 @@ public class ObjectModel {
     private static final int OMA_OBJECT_MIN_ID = 0;
     private static final int OMA_OBJECT_MAX_ID = 1023;
 
+    // maximum range of resource IDs for which resources are indexed in an array
+    private static final int MAX_RESOURCES_TABLE_SIZE = 1024;
+
     public final Integer id;
     public final String name;
     public final String description;
@@ -49,6 +52,10 @@ public class ObjectModel {
 
     public final Map<Integer, ResourceModel> resources; // resources by ID
 
+    // resources indexed by (ID - firstResourceId), null if IDs are too sparse
+    private final ResourceModel[] resourcesTable;
+    private final int firstResourceId;
+
     public ObjectModel(Integer id, String name, String description, String version, Boolean multiple, Boolean mandatory,
             ResourceModel... resources) {
         this(id, name, description, version, multiple, mandatory, Arrays.asList(resources));
@@ -83,6 +90,43 @@ public class ObjectModel {
             resourcesMap.put(resource.id, resource);
         }
         this.resources = Collections.unmodifiableMap(resourcesMap);
+
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        boolean indexable = !resourcesMap.isEmpty();
+        for (Integer resourceId : resourcesMap.keySet()) {
+            if (resourceId == null) {
+                indexable = false;
+                break;
+            }
+            min = Math.min(min, resourceId);
+            max = Math.max(max, resourceId);
+        }
+        if (indexable && (long) max - min < MAX_RESOURCES_TABLE_SIZE) {
+            this.firstResourceId = min;
+            this.resourcesTable = new ResourceModel[max - min + 1];
+            for (ResourceModel resource : resourcesMap.values()) {
+                this.resourcesTable[resource.id - min] = resource;
+            }
+        } else {
+            this.firstResourceId = 0;
+            this.resourcesTable = null;
+        }
+    }
+
+    /**
+     * Get a resource model by ID. Unlike <code>resources.get(resourceId)</code>, this does not box the ID and uses an
+     * array lookup for objects whose resource IDs are not too sparse.
+     * 
+     * @param resourceId the ID of the resource
+     * @return the model of the resource or <code>null</code> if there is no resource with this ID.
+     */
+    public ResourceModel getResourceModel(int resourceId) {
+        if (resourcesTable != null) {
+            int index = resourceId - firstResourceId;
+            return index >= 0 && index < resourcesTable.length ? resourcesTable[index] : null;
+        }
+        return resources.get(resourceId);
     }
 
     public boolean isOmaObject() {
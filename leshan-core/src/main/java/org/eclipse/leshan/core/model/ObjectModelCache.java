@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A file-backed cache of {@link ObjectModel}s loaded from DDF files, used by
+ * {@link ObjectLoader#loadObjectsFromDir(File, DDFFileParser, ObjectModelValidator, java.util.concurrent.ExecutorService, ObjectModelCache)}.
+ * <p>
+ * Models are stored in a compact binary form, by DDF file name and SHA-1 hash of the file content and of the validation
+ * applied to it. When a DDF file did not change since it was cached with the same validation, its models are read from
+ * the cache and XML parsing and validation are skipped. So models are trusted as they were when cached : a cache file
+ * should only be written by the application using it.
+ * <p>
+ * This class is thread-safe.
+ */
+public class ObjectModelCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectModelCache.class);
+
+    private static final int MAGIC = 0x4C4D4443; // "LMDC"
+    private static final int FORMAT_VERSION = 1;
+
+    private final File cacheFile;
+
+    // file name => cached models
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile boolean loaded = false;
+    // modifications are counted, so a modification done while saving is not lost
+    private final AtomicLong modifications = new AtomicLong();
+    private long savedModifications = 0;
+
+    /**
+     * @param cacheFile the file where models are stored. It is created if it does not exist.
+     */
+    public ObjectModelCache(File cacheFile) {
+        Validate.notNull(cacheFile);
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Get models of a DDF file if the file did not change since they were cached.
+     * 
+     * @param fileName the name of the DDF file.
+     * @param hash the hash of the DDF file content, see {@link #hash(byte[], String)}.
+     * @return the cached models or <code>null</code> if there is no models for this content.
+     */
+    public List<ObjectModel> get(String fileName, byte[] hash) {
+        load();
+        Entry entry = entries.get(fileName);
+        if (entry != null && Arrays.equals(entry.hash, hash)) {
+            return entry.models;
+        }
+        return null;
+    }
+
+    /**
+     * Add models of a DDF file to the cache. The cache file is only written on {@link #save()}.
+     * 
+     * @param fileName the name of the DDF file.
+     * @param hash the hash of the DDF file content, see {@link #hash(byte[], String)}.
+     * @param models the models of this DDF file.
+     */
+    public void put(String fileName, byte[] hash, List<ObjectModel> models) {
+        load();
+        entries.put(fileName, new Entry(hash, Collections.unmodifiableList(new ArrayList<>(models))));
+        modifications.incrementAndGet();
+    }
+
+    /**
+     * Remove entries of DDF files which are not in the given list.
+     * 
+     * @param fileNames names of DDF files which still exist.
+     */
+    public void retainAll(List<String> fileNames) {
+        load();
+        if (entries.keySet().retainAll(fileNames)) {
+            modifications.incrementAndGet();
+        }
+    }
+
+    /**
+     * Write the cache file if the cache was modified since it was loaded.
+     * 
+     * @throws IOException if cache file can not be written.
+     */
+    public synchronized void save() throws IOException {
+        long modificationsToSave = modifications.get();
+        if (modificationsToSave == savedModifications)
+            return;
+
+        // write a temporary file first, so the cache file is never partially written
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeInt(entry.getValue().hash.length);
+                out.write(entry.getValue().hash);
+                out.writeInt(entry.getValue().models.size());
+                for (ObjectModel model : entry.getValue().models) {
+                    writeObjectModel(out, model);
+                }
+            }
+        }
+        // rename over the cache file, some platforms do not support it so delete it first in this case
+        if (!tmpFile.renameTo(cacheFile) && !(cacheFile.delete() && tmpFile.renameTo(cacheFile))) {
+            throw new IOException(String.format("Unable to replace cache file %s", cacheFile));
+        }
+        // modifications done while writing will be saved next time
+        savedModifications = modificationsToSave;
+    }
+
+    /**
+     * @param content content of a DDF file.
+     * @return the hash used to know if a DDF file changed.
+     */
+    public static byte[] hash(byte[] content) {
+        return hash(content, "");
+    }
+
+    /**
+     * @param content content of a DDF file.
+     * @param validation a description of the validation applied to models of this file, so models validated
+     *        differently are not reused.
+     * @return the hash used to know if a DDF file or its validation changed.
+     */
+    public static byte[] hash(byte[] content, String validation) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(validation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            return digest.digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported", e);
+        }
+    }
+
+    private void load() {
+        if (loaded)
+            return;
+
+        synchronized (this) {
+            if (loaded)
+                return;
+            if (cacheFile.exists()) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+                    if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                        LOG.info("Ignoring model cache {} : unsupported format", cacheFile);
+                    } else {
+                        int entryCount = in.readInt();
+                        for (int i = 0; i < entryCount; i++) {
+                            String fileName = readString(in);
+                            byte[] hash = new byte[in.readInt()];
+                            in.readFully(hash);
+                            int modelCount = in.readInt();
+                            List<ObjectModel> models = new ArrayList<>(modelCount);
+                            for (int j = 0; j < modelCount; j++) {
+                                models.add(readObjectModel(in));
+                            }
+                            entries.put(fileName, new Entry(hash, Collections.unmodifiableList(models)));
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Ignoring invalid model cache {}", cacheFile, e);
+                    entries.clear();
+                }
+            }
+            loaded = true;
+        }
+    }
+
+    private static void writeObjectModel(DataOutputStream out, ObjectModel model) throws IOException {
+        writeInteger(out, model.id);
+        writeString(out, model.name);
+        writeString(out, model.description);
+        writeString(out, model.version);
+        writeBoolean(out, model.multiple);
+        writeBoolean(out, model.mandatory);
+        writeString(out, model.urn);
+        writeString(out, model.lwm2mVersion);
+        writeString(out, model.description2);
+        out.writeInt(model.resources.size());
+        for (ResourceModel resource : model.resources.values()) {
+            writeInteger(out, resource.id);
+            writeString(out, resource.name);
+            writeString(out, resource.operations == null ? null : resource.operations.name());
+            writeBoolean(out, resource.multiple);
+            writeBoolean(out, resource.mandatory);
+            writeString(out, resource.type == null ? null : resource.type.name());
+            writeString(out, resource.rangeEnumeration);
+            writeString(out, resource.units);
+            writeString(out, resource.description);
+        }
+    }
+
+    private static ObjectModel readObjectModel(DataInputStream in) throws IOException {
+        Integer id = readInteger(in);
+        String name = readString(in);
+        String description = readString(in);
+        String version = readString(in);
+        Boolean multiple = readBoolean(in);
+        Boolean mandatory = readBoolean(in);
+        String urn = readString(in);
+        String lwm2mVersion = readString(in);
+        String description2 = readString(in);
+        int resourceCount = in.readInt();
+        List<ResourceModel> resources = new ArrayList<>(resourceCount);
+        for (int i = 0; i < resourceCount; i++) {
+            Integer resourceId = readInteger(in);
+            String resourceName = readString(in);
+            String operations = readString(in);
+            Boolean resourceMultiple = readBoolean(in);
+            Boolean resourceMandatory = readBoolean(in);
+            String type = readString(in);
+            String rangeEnumeration = readString(in);
+            String units = readString(in);
+            String resourceDescription = readString(in);
+            resources.add(new ResourceModel(resourceId, resourceName,
+                    operations == null ? null : Operations.valueOf(operations), resourceMultiple, resourceMandatory,
+                    type == null ? null : Type.valueOf(type), rangeEnumeration, units, resourceDescription));
+        }
+        return new ObjectModel(id, name, description, version, multiple, mandatory, resources, urn, lwm2mVersion,
+                description2);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeInt(value);
+    }
+
+    private static Integer readInteger(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+
+    private static class Entry {
+        final byte[] hash;
+        final List<ObjectModel> models;
+
+        Entry(byte[] hash, List<ObjectModel> models) {
+            this.hash = hash;
+            this.models = models;
+        }
+    }
+}
@@ -56,7 +56,7 @@ public class StaticModel implements LwM2mModel {
     public ResourceModel getResourceModel(int objectId, int resourceId) {
         ObjectModel object = objects.get(objectId);
         if (object != null) {
-            return object.resources.get(resourceId);
+            return object.getResourceModel(resourceId);
         }
         return null;
     }
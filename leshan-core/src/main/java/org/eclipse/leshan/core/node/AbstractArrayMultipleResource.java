@@ -0,0 +1,107 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+
+/**
+ * A {@link LwM2mMultipleResource} storing its instance ids in a sorted array, values being stored by sub-classes in
+ * arrays of the same order.
+ * <p>
+ * {@link LwM2mResourceInstance}s are only created if {@link #getInstances()} or {@link #getInstance(int)} is called.
+ */
+abstract class AbstractArrayMultipleResource extends LwM2mMultipleResource {
+
+    private final int[] instanceIds;
+    // lazily created, a race only means the map is created twice
+    private Map<Integer, LwM2mResourceInstance> instances;
+
+    AbstractArrayMultipleResource(int id, Type type, int[] sortedInstanceIds) {
+        super(id, type);
+        for (int instanceId : sortedInstanceIds) {
+            LwM2mNodeUtil.validateResourceInstanceId(instanceId);
+        }
+        this.instanceIds = sortedInstanceIds;
+    }
+
+    /**
+     * @return the number of resource instances.
+     */
+    public int getInstanceCount() {
+        return instanceIds.length;
+    }
+
+    /**
+     * @param index the index of the resource instance, between 0 and {@link #getInstanceCount()} excluded.
+     * @return the id of the resource instance at the given index, instances being sorted by id.
+     */
+    public int getInstanceIdAt(int index) {
+        return instanceIds[index];
+    }
+
+    /**
+     * @param instanceId the id of a resource instance.
+     * @return the index of the resource instance with the given id or a negative value if there is no such instance.
+     */
+    public int indexOf(int instanceId) {
+        return Arrays.binarySearch(instanceIds, instanceId);
+    }
+
+    /**
+     * @param index the index of the resource instance.
+     * @return the boxed value of the resource instance at the given index.
+     */
+    protected abstract Object getValueAt(int index);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getValue(int id) {
+        int index = indexOf(id);
+        return index < 0 ? null : getValueAt(index);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LwM2mResourceInstance getInstance(int id) {
+        return getInstances().get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Map<Integer, LwM2mResourceInstance> getInstances() {
+        Map<Integer, LwM2mResourceInstance> result = instances;
+        if (result == null) {
+            Map<Integer, LwM2mResourceInstance> map = new HashMap<>(instanceIds.length * 2);
+            for (int i = 0; i < instanceIds.length; i++) {
+                map.put(instanceIds[i], LwM2mResourceInstance.newInstance(instanceIds[i], getValueAt(i), getType()));
+            }
+            result = Collections.unmodifiableMap(map);
+            instances = result;
+        }
+        return result;
+    }
+}
@@ -92,20 +92,6 @@ public class LwM2mIncompletePath extends LwM2mPath {
 
     @Override
     public String toString() {
-        StringBuilder b = new StringBuilder();
-        b.append("/");
-        if (getObjectId() != null) {
-            b.append(getObjectId());
-            if (getObjectInstanceId() != null) {
-                b.append("/undefined");
-                if (getResourceId() != null) {
-                    b.append("/").append(getResourceId());
-                    if (getResourceInstanceId() != null) {
-                        b.append("/").append(getResourceInstanceId());
-                    }
-                }
-            }
-        }
-        return b.toString();
+        return toString("undefined");
     }
 }
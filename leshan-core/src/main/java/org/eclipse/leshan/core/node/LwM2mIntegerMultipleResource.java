@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+
+/**
+ * A {@link LwM2mMultipleResource} of type {@link Type#INTEGER} storing its values in a primitive long array.
+ * <p>
+ * Use {@link LwM2mMultipleResource#newIntegerResource(int, int[], long[], int)} to create it.
+ */
+public class LwM2mIntegerMultipleResource extends AbstractArrayMultipleResource {
+
+    private final long[] values;
+
+    LwM2mIntegerMultipleResource(int id, int[] sortedInstanceIds, long[] values) {
+        super(id, Type.INTEGER, sortedInstanceIds);
+        this.values = values;
+    }
+
+    /**
+     * @param index the index of the resource instance, between 0 and {@link #getInstanceCount()} excluded.
+     * @return the value of the resource instance at the given index without boxing it.
+     */
+    public long getLongValueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    protected Object getValueAt(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+
+/**
+ * A {@link LwM2mSingleResource} of type {@link Type#INTEGER} storing its value as a primitive long.
+ * <p>
+ * Use {@link LwM2mSingleResource#newIntegerResource(int, long)} to create it.
+ */
+public class LwM2mIntegerResource extends LwM2mSingleResource {
+
+    private final long value;
+
+    LwM2mIntegerResource(int id, long value) {
+        super(id, Type.INTEGER);
+        this.value = value;
+    }
+
+    /**
+     * @return the value of the resource without boxing it.
+     */
+    public long getLongValue() {
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getValue() {
+        return value;
+    }
+}
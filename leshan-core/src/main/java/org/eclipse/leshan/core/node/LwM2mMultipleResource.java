@@ -32,6 +32,9 @@ import org.eclipse.leshan.core.util.datatype.ULong;
  * A resource which contains several resource instances.
  * 
  * A resource instance is defined by a numeric identifier and a value. There are accessible via {@link #getInstances()}
+ * <p>
+ * {@link Type#INTEGER} and {@link Type#FLOAT} resources are created as {@link LwM2mIntegerMultipleResource} and
+ * {@link LwM2mFloatMultipleResource} which store their values in primitive arrays sorted by instance id.
  */
 public class LwM2mMultipleResource implements LwM2mResource {
 
@@ -78,15 +81,28 @@ public class LwM2mMultipleResource implements LwM2mResource {
         this.type = type;
     }
 
+    /**
+     * Constructor for resources storing instances themselves, {@link #getValue(int)}, {@link #getInstance(int)} and
+     * {@link #getInstances()} must be overridden.
+     */
+    protected LwM2mMultipleResource(int id, Type type) {
+        LwM2mNodeUtil.validateResourceId(id);
+
+        this.id = id;
+        this.type = type;
+        this.instances = null;
+    }
+
+    @SuppressWarnings("unchecked")
     public static LwM2mMultipleResource newResource(int id, Map<Integer, ?> values, Type type) {
         LwM2mNodeUtil.validateNotNull(values, "values MUST NOT be null");
         switch (type) {
         case INTEGER:
             LwM2mNodeUtil.allElementsOfType(values.values(), Long.class);
-            break;
+            return newIntegerResource(id, (Map<Integer, Long>) values);
         case FLOAT:
             LwM2mNodeUtil.allElementsOfType(values.values(), Double.class);
-            break;
+            return newFloatResource(id, (Map<Integer, Double>) values);
         case BOOLEAN:
             LwM2mNodeUtil.allElementsOfType(values.values(), Boolean.class);
             break;
@@ -117,8 +133,39 @@ public class LwM2mMultipleResource implements LwM2mResource {
     }
 
     public static LwM2mMultipleResource newIntegerResource(int id, Map<Integer, Long> values) {
+        LwM2mNodeUtil.validateNotNull(values, "values MUST NOT be null");
         LwM2mNodeUtil.noNullElements(values.values());
-        return new LwM2mMultipleResource(id, values, Type.INTEGER);
+        int[] instanceIds = new int[values.size()];
+        long[] longValues = new long[values.size()];
+        int i = 0;
+        for (Entry<Integer, Long> entry : values.entrySet()) {
+            instanceIds[i] = entry.getKey();
+            longValues[i] = entry.getValue();
+            i++;
+        }
+        return newIntegerResource(id, instanceIds, longValues, i);
+    }
+
+    /**
+     * Create a {@link Type#INTEGER} multiple resource from primitive arrays. Arrays are copied.
+     *
+     * @param id the resource id
+     * @param instanceIds the resource instance ids, in any order.
+     * @param values the values of the resource instances, in the same order as <code>instanceIds</code>.
+     * @param size the number of resource instances, only the first <code>size</code> elements of the arrays are used.
+     * @return the multiple resource
+     */
+    public static LwM2mIntegerMultipleResource newIntegerResource(int id, int[] instanceIds, long[] values,
+            int size) {
+        Validate.isTrue(size <= instanceIds.length && size <= values.length, "size MUST NOT exceed arrays length");
+        int[] order = sortOrder(instanceIds, size);
+        int[] sortedIds = new int[size];
+        long[] sortedValues = new long[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = instanceIds[order[i]];
+            sortedValues[i] = values[order[i]];
+        }
+        return new LwM2mIntegerMultipleResource(id, sortedIds, sortedValues);
     }
 
     public static LwM2mMultipleResource newBooleanResource(int id, Map<Integer, Boolean> values) {
@@ -127,8 +174,57 @@ public class LwM2mMultipleResource implements LwM2mResource {
     }
 
     public static LwM2mMultipleResource newFloatResource(int id, Map<Integer, Double> values) {
+        LwM2mNodeUtil.validateNotNull(values, "values MUST NOT be null");
         LwM2mNodeUtil.noNullElements(values.values());
-        return new LwM2mMultipleResource(id, values, Type.FLOAT);
+        int[] instanceIds = new int[values.size()];
+        double[] doubleValues = new double[values.size()];
+        int i = 0;
+        for (Entry<Integer, Double> entry : values.entrySet()) {
+            instanceIds[i] = entry.getKey();
+            doubleValues[i] = entry.getValue();
+            i++;
+        }
+        return newFloatResource(id, instanceIds, doubleValues, i);
+    }
+
+    /**
+     * Create a {@link Type#FLOAT} multiple resource from primitive arrays. Arrays are copied.
+     *
+     * @param id the resource id
+     * @param instanceIds the resource instance ids, in any order.
+     * @param values the values of the resource instances, in the same order as <code>instanceIds</code>.
+     * @param size the number of resource instances, only the first <code>size</code> elements of the arrays are used.
+     * @return the multiple resource
+     */
+    public static LwM2mFloatMultipleResource newFloatResource(int id, int[] instanceIds, double[] values, int size) {
+        Validate.isTrue(size <= instanceIds.length && size <= values.length, "size MUST NOT exceed arrays length");
+        int[] order = sortOrder(instanceIds, size);
+        int[] sortedIds = new int[size];
+        double[] sortedValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            sortedIds[i] = instanceIds[order[i]];
+            sortedValues[i] = values[order[i]];
+        }
+        return new LwM2mFloatMultipleResource(id, sortedIds, sortedValues);
+    }
+
+    /*
+     * Indexes of the given instance ids sorted by id (insertion sort as ids are generally already sorted).
+     */
+    private static int[] sortOrder(int[] instanceIds, int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            int j = i;
+            while (j > 0 && instanceIds[order[j - 1]] > instanceIds[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            if (j > 0 && instanceIds[order[j - 1]] == instanceIds[i]) {
+                throw new LwM2mNodeException("Duplicate resource instance id %d", instanceIds[i]);
+            }
+            order[j] = i;
+        }
+        return order;
     }
 
     public static LwM2mMultipleResource newDateResource(int id, Map<Integer, Date> values) {
@@ -218,6 +314,7 @@ public class LwM2mMultipleResource implements LwM2mResource {
 
     @Override
     public int hashCode() {
+        Map<Integer, LwM2mResourceInstance> instances = getInstances();
         final int prime = 31;
         int result = 1;
         result = prime * result + id;
@@ -232,24 +329,27 @@ public class LwM2mMultipleResource implements LwM2mResource {
             return true;
         if (obj == null)
             return false;
-        if (getClass() != obj.getClass())
+        // primitive resources are equal to the generic ones holding the same values
+        if (!(obj instanceof LwM2mMultipleResource))
             return false;
         LwM2mMultipleResource other = (LwM2mMultipleResource) obj;
         if (id != other.id)
             return false;
         if (type != other.type)
             return false;
+        Map<Integer, LwM2mResourceInstance> instances = getInstances();
+        Map<Integer, LwM2mResourceInstance> otherInstances = other.getInstances();
         if (instances == null) {
-            if (other.instances != null)
+            if (otherInstances != null)
                 return false;
-        } else if (!instances.equals(other.instances))
+        } else if (!instances.equals(otherInstances))
             return false;
         return true;
     }
 
     @Override
     public String toString() {
-        return String.format("LwM2mMultipleResource [id=%s, values=%s, type=%s]", id, instances, type);
+        return String.format("LwM2mMultipleResource [id=%s, values=%s, type=%s]", id, getInstances(), type);
     }
 
 }
@@ -15,10 +15,17 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.eclipse.leshan.core.util.Validate;
 
 /**
  * A path pointing to a LwM2M node (root, object, object instance, resource or resource instance).
+ * <p>
+ * Ids are stored as primitives, hash code is computed at creation and string representation is computed once. Paths
+ * used very often can be shared using {@link #valueOf(String)} or {@link #intern()}.
  */
 public class LwM2mPath {
 
@@ -28,15 +35,35 @@ public class LwM2mPath {
     public static final byte RESOURCE_DEPTH = 4;
     public static final byte RESOURCE_INSTANCE_DEPTH = 5;
 
-    private final Integer objectId;
-    private final Integer objectInstanceId;
-    private final Integer resourceId;
-    private final Integer resourceInstanceId;
+    /**
+     * The maximum number of paths kept by {@link #valueOf(String)} and {@link #intern()}. Once reached, new paths are
+     * not interned anymore.
+     * <p>
+     * As the pool is never purged, only paths from a bounded set (e.g. paths used by the application) should be
+     * interned, not paths received from devices.
+     */
+    public static final int MAX_INTERNED_PATHS = 10000;
+
+    // value used for missing ids
+    private static final int NONE = Integer.MIN_VALUE;
+
+    // intern pool
+    private static final ConcurrentMap<LwM2mPath, LwM2mPath> interned = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, LwM2mPath> internedByString = new ConcurrentHashMap<>();
+    private static final AtomicInteger internedCount = new AtomicInteger();
+
+    private final int objectId;
+    private final int objectInstanceId;
+    private final int resourceId;
+    private final int resourceInstanceId;
+    private final int hash;
+    // lazily computed, a race only means the string is computed twice
+    private String string;
 
     public final static LwM2mPath ROOTPATH = new LwM2mPath();
 
     private LwM2mPath() {
-        this(null, null, null, null);
+        this(NONE, NONE, NONE, NONE, "/");
     }
 
     /**
@@ -45,7 +72,7 @@ public class LwM2mPath {
      * @param objectId the object identifier
      */
     public LwM2mPath(int objectId) {
-        this(objectId, null, null, null);
+        this(defined(objectId), NONE, NONE, NONE, null);
         validate();
     }
 
@@ -56,7 +83,7 @@ public class LwM2mPath {
      * @param objectInstanceId the instance identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId) {
-        this(objectId, objectInstanceId, null, null);
+        this(defined(objectId), defined(objectInstanceId), NONE, NONE, null);
         validate();
     }
 
@@ -68,7 +95,7 @@ public class LwM2mPath {
      * @param resourceId the resource identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId, int resourceId) {
-        this(objectId, objectInstanceId, resourceId, null);
+        this(defined(objectId), defined(objectInstanceId), defined(resourceId), NONE, null);
         validate();
     }
 
@@ -81,7 +108,8 @@ public class LwM2mPath {
      * @param resourceInstanceId the resource instance identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId, int resourceId, int resourceInstanceId) {
-        this((Integer) objectId, (Integer) objectInstanceId, (Integer) resourceId, (Integer) resourceInstanceId);
+        this(defined(objectId), defined(objectInstanceId), defined(resourceId), defined(resourceInstanceId),
+                null);
         validate();
     }
 
@@ -92,32 +120,192 @@ public class LwM2mPath {
      */
     public LwM2mPath(String path) {
         Validate.notNull(path);
-        if (path.startsWith("/")) {
-            path = path.substring(1);
+        int start = 0;
+        int end = path.length();
+        if (start < end && path.charAt(start) == '/') {
+            start++;
         }
-        if (path.endsWith("/")) {
-            path = path.substring(0, path.length() - 1);
+        if (start < end && path.charAt(end - 1) == '/') {
+            end--;
         }
-        String[] p = path.split("/");
-        if (0 > p.length || p.length > 4) {
-            throw new IllegalArgumentException("Invalid length for path: " + path);
+
+        // count elements first to report invalid length before invalid elements
+        int length = 1;
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == '/')
+                length++;
         }
-        try {
-            this.objectId = (p.length >= 1 && !p[0].isEmpty()) ? Integer.valueOf(p[0]) : null;
-            this.objectInstanceId = (p.length >= 2) ? Integer.valueOf(p[1]) : null;
-            this.resourceId = (p.length >= 3) ? Integer.valueOf(p[2]) : null;
-            this.resourceInstanceId = (p.length == 4) ? Integer.valueOf(p[3]) : null;
-            validate();
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid elements in path: " + path, e);
+        if (length > 4) {
+            throw new IllegalArgumentException("Invalid length for path: " + path.substring(start, end));
         }
+
+        int objectId = NONE, objectInstanceId = NONE, resourceId = NONE, resourceInstanceId = NONE;
+        boolean canonical = start == 1 && end == path.length();
+        int elementStart = start;
+        for (int i = 0; i < length; i++) {
+            int elementEnd = path.indexOf('/', elementStart);
+            if (elementEnd == -1 || elementEnd > end) {
+                elementEnd = end;
+            }
+            if (i == 0 && elementStart == elementEnd) {
+                // empty first element: root path or invalid path reported by validation
+                canonical &= length == 1;
+            } else {
+                int id;
+                try {
+                    id = defined(parseId(path, elementStart, elementEnd));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid elements in path: " + path.substring(start, end), e);
+                }
+                switch (i) {
+                case 0:
+                    objectId = id;
+                    break;
+                case 1:
+                    objectInstanceId = id;
+                    break;
+                case 2:
+                    resourceId = id;
+                    break;
+                default:
+                    resourceInstanceId = id;
+                }
+                // reuse the given string only if it is the one toString() would return
+                canonical &= path.charAt(elementStart) != '+' && path.charAt(elementStart) != '-'
+                        && (path.charAt(elementStart) != '0' || elementEnd - elementStart == 1);
+            }
+            elementStart = elementEnd + 1;
+        }
+
+        this.objectId = objectId;
+        this.objectInstanceId = objectInstanceId;
+        this.resourceId = resourceId;
+        this.resourceInstanceId = resourceInstanceId;
+        this.hash = hash(objectId, objectInstanceId, resourceId, resourceInstanceId);
+        this.string = canonical ? path : null;
+        validate();
     }
 
     protected LwM2mPath(Integer objectId, Integer objectInstanceId, Integer resourceId, Integer resourceInstanceId) {
+        this(toId(objectId), toId(objectInstanceId), toId(resourceId), toId(resourceInstanceId), null);
+    }
+
+    private LwM2mPath(int objectId, int objectInstanceId, int resourceId, int resourceInstanceId, String string) {
         this.objectId = objectId;
         this.objectInstanceId = objectInstanceId;
         this.resourceId = resourceId;
         this.resourceInstanceId = resourceInstanceId;
+        this.hash = hash(objectId, objectInstanceId, resourceId, resourceInstanceId);
+        this.string = string;
+    }
+
+    private static int defined(int id) {
+        // the value used for missing ids is never a valid id
+        if (id == NONE) {
+            throw new LwM2mNodeException("Invalid id %d, It MUST be an unsigned int.", id);
+        }
+        return id;
+    }
+
+    private static int toId(Integer id) {
+        return id == null ? NONE : id;
+    }
+
+    private static Integer toInteger(int id) {
+        return id == NONE ? null : Integer.valueOf(id);
+    }
+
+    private static int hash(int objectId, int objectInstanceId, int resourceId, int resourceInstanceId) {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + objectId;
+        result = prime * result + objectInstanceId;
+        result = prime * result + resourceId;
+        result = prime * result + resourceInstanceId;
+        return result;
+    }
+
+    /*
+     * Same behavior as Integer.parseInt(path.substring(start, end)) without creating the substring.
+     */
+    private static int parseId(String path, int start, int end) {
+        if (start == end) {
+            throw new NumberFormatException("For input string: \"\"");
+        }
+        int i = start;
+        boolean negative = false;
+        char first = path.charAt(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+            if (i == end) {
+                throw new NumberFormatException("For input string: \"" + path.substring(start, end) + "\"");
+            }
+        }
+        // accumulate negatively to handle Integer.MIN_VALUE as Integer.parseInt does
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = path.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + path.substring(start, end) + "\"");
+            }
+            result = result * 10 - digit;
+            if (result < Integer.MIN_VALUE) {
+                throw new NumberFormatException("For input string: \"" + path.substring(start, end) + "\"");
+            }
+        }
+        if (!negative) {
+            result = -result;
+            if (result > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + path.substring(start, end) + "\"");
+            }
+        }
+        return (int) result;
+    }
+
+    /**
+     * Returns a {@link LwM2mPath} from a string representation, the same instance being returned for a same path as
+     * long as the intern pool is not full (see {@link #MAX_INTERNED_PATHS}).
+     *
+     * @param path the path (e.g. "/3/0/1" or "/3")
+     * @return the interned path
+     * @see #intern()
+     */
+    public static LwM2mPath valueOf(String path) {
+        Validate.notNull(path);
+        LwM2mPath result = internedByString.get(path);
+        if (result == null) {
+            result = new LwM2mPath(path).intern();
+            // only the canonical string of a pooled path is kept, so a path is counted once
+            if (interned.get(result) == result && path.equals(result.toString())) {
+                internedByString.putIfAbsent(path, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a canonical instance of this path. As for {@link String#intern()}, for two paths <code>p</code> and
+     * <code>q</code>, <code>p.intern() == q.intern()</code> if and only if <code>p.equals(q)</code>, unless the intern
+     * pool is full (see {@link #MAX_INTERNED_PATHS}). In this case this path is returned.
+     *
+     * @return the interned path
+     */
+    public LwM2mPath intern() {
+        if (getClass() != LwM2mPath.class)
+            return this;
+
+        LwM2mPath result = interned.get(this);
+        if (result != null)
+            return result;
+        if (internedCount.get() >= MAX_INTERNED_PATHS)
+            return this;
+
+        result = interned.putIfAbsent(this, this);
+        if (result != null)
+            return result;
+        internedCount.incrementAndGet();
+        return this;
     }
 
     /**
@@ -150,11 +338,11 @@ public class LwM2mPath {
         if (isRoot()) {
             return new LwM2mPath(end);
         } else if (isObject()) {
-            return new LwM2mPath(getObjectId(), end);
+            return new LwM2mPath(objectId, end);
         } else if (isObjectInstance()) {
-            return new LwM2mPath(getObjectId(), getObjectInstanceId(), end);
+            return new LwM2mPath(objectId, objectInstanceId, end);
         } else if (isResource()) {
-            return new LwM2mPath((int) getObjectId(), (int) getObjectInstanceId(), (int) getResourceId(), end);
+            return new LwM2mPath(objectId, objectInstanceId, resourceId, end);
         } else {
             throw new IllegalArgumentException(String.format(
                     "Unable to append Id(%d) to path %s. Resource instance level is the deeper one.", end, this));
@@ -167,30 +355,27 @@ public class LwM2mPath {
      */
     public boolean startWith(LwM2mPath start) {
         // object id
-        if (start.getObjectId() == null)
+        if (start.objectId == NONE)
             return true;
-        if (!start.getObjectId().equals(this.getObjectId())) {
+        if (start.objectId != this.objectId) {
             return false;
         }
         // object instance id
-        if (start.getObjectInstanceId() == null)
+        if (start.objectInstanceId == NONE)
             return true;
-        if (!start.getObjectInstanceId().equals(this.getObjectInstanceId())) {
+        if (start.objectInstanceId != this.objectInstanceId) {
             return false;
         }
         // resource id
-        if (start.getResourceId() == null)
+        if (start.resourceId == NONE)
             return true;
-        if (!start.getResourceId().equals(this.getResourceId())) {
+        if (start.resourceId != this.resourceId) {
             return false;
         }
         // resource instance id
-        if (start.getResourceInstanceId() == null)
+        if (start.resourceInstanceId == NONE)
             return true;
-        if (!start.getResourceInstanceId().equals(this.getResourceInstanceId())) {
-            return false;
-        }
-        return true;
+        return start.resourceInstanceId == this.resourceInstanceId;
     }
 
     /**
@@ -199,7 +384,7 @@ public class LwM2mPath {
      * @return the object ID. Can be <code>null</code> when this is an root path.
      */
     public Integer getObjectId() {
-        return objectId;
+        return toInteger(objectId);
     }
 
     /**
@@ -208,7 +393,7 @@ public class LwM2mPath {
      * @return the object instance ID. Can be <code>null</code> when this is an root/object path.
      */
     public Integer getObjectInstanceId() {
-        return objectInstanceId;
+        return toInteger(objectInstanceId);
     }
 
     /**
@@ -217,7 +402,7 @@ public class LwM2mPath {
      * @return the resource ID. Can be <code>null</code> when this is a root/object/object instance path.
      */
     public Integer getResourceId() {
-        return resourceId;
+        return toInteger(resourceId);
     }
 
     /**
@@ -227,50 +412,50 @@ public class LwM2mPath {
      *         path.
      */
     public Integer getResourceInstanceId() {
-        return resourceInstanceId;
+        return toInteger(resourceInstanceId);
     }
 
     /**
      * @return <code>true</code> if this is the root path ("/").
      */
     public boolean isRoot() {
-        return objectId == null && objectInstanceId == null && resourceId == null && resourceInstanceId == null;
+        return objectId == NONE && objectInstanceId == NONE && resourceId == NONE && resourceInstanceId == NONE;
     }
 
     /**
      * @return <code>true</code> if this is an Object path.
      */
     public boolean isObject() {
-        return objectId != null && objectInstanceId == null && resourceId == null && resourceInstanceId == null;
+        return objectId != NONE && objectInstanceId == NONE && resourceId == NONE && resourceInstanceId == NONE;
     }
 
     /**
      * @return <code>true</code> if this is an ObjectInstance path.
      */
     public boolean isObjectInstance() {
-        return objectId != null && objectInstanceId != null && resourceId == null && resourceInstanceId == null;
+        return objectId != NONE && objectInstanceId != NONE && resourceId == NONE && resourceInstanceId == NONE;
     }
 
     /**
      * @return <code>true</code> if this is a Resource path.
      */
     public boolean isResource() {
-        return objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId == null;
+        return objectId != NONE && objectInstanceId != NONE && resourceId != NONE && resourceInstanceId == NONE;
     }
 
     /**
      * @return <code>true</code> if this is a Resource instance path.
      */
     public boolean isResourceInstance() {
-        return objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId != null;
+        return objectId != NONE && objectInstanceId != NONE && resourceId != NONE && resourceInstanceId != NONE;
     }
 
     /**
      * @return a new {@link LwM2mPath} targeting an object from current path.
      */
     public LwM2mPath toObjectPath() {
-        if (getObjectId() != null)
-            return new LwM2mPath(getObjectId());
+        if (objectId != NONE)
+            return new LwM2mPath(objectId);
         throw new IllegalStateException(String.format("an object path can not be created from %s", this));
     }
 
@@ -278,8 +463,8 @@ public class LwM2mPath {
      * @return a new {@link LwM2mPath} targeting an object instance from current path.
      */
     public LwM2mPath toObjectInstancePath() {
-        if (getObjectInstanceId() != null)
-            return new LwM2mPath(getObjectId(), getObjectInstanceId());
+        if (objectInstanceId != NONE)
+            return new LwM2mPath(objectId, objectInstanceId);
         throw new IllegalStateException(String.format("an object instance path can not be created from %s", this));
     }
 
@@ -287,8 +472,8 @@ public class LwM2mPath {
      * @return a new {@link LwM2mPath} targeting an resource from current path.
      */
     public LwM2mPath toResourcePath() {
-        if (getResourceId() != null)
-            return new LwM2mPath(getObjectId(), getObjectInstanceId(), getResourceId());
+        if (resourceId != NONE)
+            return new LwM2mPath(objectId, objectInstanceId, resourceId);
         throw new IllegalStateException(String.format("an resource path can not be created from %s", this));
     }
 
@@ -297,16 +482,29 @@ public class LwM2mPath {
      */
     @Override
     public String toString() {
-        StringBuilder b = new StringBuilder();
-        b.append("/");
-        if (getObjectId() != null) {
-            b.append(getObjectId());
-            if (getObjectInstanceId() != null) {
-                b.append("/").append(getObjectInstanceId());
-                if (getResourceId() != null) {
-                    b.append("/").append(getResourceId());
-                    if (getResourceInstanceId() != null) {
-                        b.append("/").append(getResourceInstanceId());
+        String s = string;
+        if (s == null) {
+            s = toString(Integer.toString(objectInstanceId));
+            string = s;
+        }
+        return s;
+    }
+
+    /**
+     * @param objectInstanceId the string used for object instance id.
+     * @return the string representation of the path using given object instance id.
+     */
+    String toString(String objectInstanceId) {
+        StringBuilder b = new StringBuilder(24);
+        b.append('/');
+        if (objectId != NONE) {
+            b.append(objectId);
+            if (this.objectInstanceId != NONE) {
+                b.append('/').append(objectInstanceId);
+                if (resourceId != NONE) {
+                    b.append('/').append(resourceId);
+                    if (resourceInstanceId != NONE) {
+                        b.append('/').append(resourceInstanceId);
                     }
                 }
             }
@@ -316,13 +514,7 @@ public class LwM2mPath {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + objectId;
-        result = prime * result + ((objectInstanceId == null) ? 0 : objectInstanceId.hashCode());
-        result = prime * result + ((resourceId == null) ? 0 : resourceId.hashCode());
-        result = prime * result + ((resourceInstanceId == null) ? 0 : resourceInstanceId.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
@@ -337,35 +529,8 @@ public class LwM2mPath {
             return false;
         }
         LwM2mPath other = (LwM2mPath) obj;
-        if (objectId == null) {
-            if (other.objectId != null) {
-                return false;
-            }
-        } else if (!objectId.equals(other.objectId)) {
-            return false;
-        }
-        if (objectInstanceId == null) {
-            if (other.objectInstanceId != null) {
-                return false;
-            }
-        } else if (!objectInstanceId.equals(other.objectInstanceId)) {
-            return false;
-        }
-        if (resourceId == null) {
-            if (other.resourceId != null) {
-                return false;
-            }
-        } else if (!resourceId.equals(other.resourceId)) {
-            return false;
-        }
-        if (resourceInstanceId == null) {
-            if (other.resourceInstanceId != null) {
-                return false;
-            }
-        } else if (!resourceInstanceId.equals(other.resourceInstanceId)) {
-            return false;
-        }
-        return true;
+        return hash == other.hash && objectId == other.objectId && objectInstanceId == other.objectInstanceId
+                && resourceId == other.resourceId && resourceInstanceId == other.resourceInstanceId;
     }
 
-}
\ No newline at end of file
+}
@@ -25,6 +25,10 @@ import org.eclipse.leshan.core.util.datatype.ULong;
 
 /**
  * A resource with a single value.
+ * <p>
+ * {@link Type#INTEGER}, {@link Type#FLOAT} and {@link Type#BOOLEAN} resources are created as
+ * {@link LwM2mIntegerResource}, {@link LwM2mFloatResource} and {@link LwM2mBooleanResource} which store their value as
+ * a primitive.
  */
 public class LwM2mSingleResource implements LwM2mResource {
 
@@ -43,17 +47,28 @@ public class LwM2mSingleResource implements LwM2mResource {
         this.type = type;
     }
 
+    /**
+     * Constructor for resources storing the value themselves, {@link #getValue()} must be overridden.
+     */
+    protected LwM2mSingleResource(int id, Type type) {
+        LwM2mNodeUtil.validateResourceId(id);
+
+        this.id = id;
+        this.value = null;
+        this.type = type;
+    }
+
     public static LwM2mSingleResource newResource(int id, Object value) {
         LwM2mNodeUtil.validateNotNull(value, "value MUST NOT be null");
 
         if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
-            return new LwM2mSingleResource(id, ((Number) value).longValue(), Type.INTEGER);
+            return newIntegerResource(id, ((Number) value).longValue());
         }
         if (value instanceof Float || value instanceof Double) {
-            return new LwM2mSingleResource(id, ((Number) value).doubleValue(), Type.FLOAT);
+            return newFloatResource(id, ((Number) value).doubleValue());
         }
         if (value instanceof Boolean) {
-            return new LwM2mSingleResource(id, value, Type.BOOLEAN);
+            return newBooleanResource(id, (Boolean) value);
         }
         if (value instanceof byte[]) {
             return new LwM2mSingleResource(id, value, Type.OPAQUE);
@@ -80,15 +95,15 @@ public class LwM2mSingleResource implements LwM2mResource {
         case INTEGER:
             if (!(value instanceof Long))
                 throw new LwM2mNodeException(doesNotMatchMessage);
-            break;
+            return newIntegerResource(id, (Long) value);
         case FLOAT:
             if (!(value instanceof Double))
                 throw new LwM2mNodeException(doesNotMatchMessage);
-            break;
+            return newFloatResource(id, (Double) value);
         case BOOLEAN:
             if (!(value instanceof Boolean))
                 throw new LwM2mNodeException(doesNotMatchMessage);
-            break;
+            return newBooleanResource(id, (Boolean) value);
         case OPAQUE:
             if (!(value instanceof byte[]))
                 throw new LwM2mNodeException(doesNotMatchMessage);
@@ -121,7 +136,7 @@ public class LwM2mSingleResource implements LwM2mResource {
     }
 
     public static LwM2mSingleResource newIntegerResource(int id, long value) {
-        return new LwM2mSingleResource(id, value, Type.INTEGER);
+        return new LwM2mIntegerResource(id, value);
     }
 
     public static LwM2mSingleResource newObjectLinkResource(int id, ObjectLink objlink) {
@@ -129,11 +144,11 @@ public class LwM2mSingleResource implements LwM2mResource {
     }
 
     public static LwM2mSingleResource newBooleanResource(int id, boolean value) {
-        return new LwM2mSingleResource(id, value, Type.BOOLEAN);
+        return new LwM2mBooleanResource(id, value);
     }
 
     public static LwM2mSingleResource newFloatResource(int id, double value) {
-        return new LwM2mSingleResource(id, value, Type.FLOAT);
+        return new LwM2mFloatResource(id, value);
     }
 
     public static LwM2mSingleResource newDateResource(int id, Date value) {
@@ -218,6 +233,7 @@ public class LwM2mSingleResource implements LwM2mResource {
 
     @Override
     public int hashCode() {
+        Object value = getValue();
         final int prime = 31;
         int result = 1;
         result = prime * result + id;
@@ -237,20 +253,23 @@ public class LwM2mSingleResource implements LwM2mResource {
             return true;
         if (obj == null)
             return false;
-        if (getClass() != obj.getClass())
+        // primitive resources are equal to the generic ones holding the same value
+        if (!(obj instanceof LwM2mSingleResource))
             return false;
         LwM2mSingleResource other = (LwM2mSingleResource) obj;
         if (id != other.id)
             return false;
         if (type != other.type)
             return false;
+        Object value = getValue();
+        Object otherValue = other.getValue();
         if (value == null) {
-            if (other.value != null)
+            if (otherValue != null)
                 return false;
         } else {
             // Custom equals to handle byte arrays
-            return type == Type.OPAQUE ? Arrays.equals((byte[]) value, (byte[]) other.value)
-                    : value.equals(other.value);
+            return type == Type.OPAQUE ? Arrays.equals((byte[]) value, (byte[]) otherValue)
+                    : value.equals(otherValue);
         }
         return true;
     }
@@ -260,7 +279,7 @@ public class LwM2mSingleResource implements LwM2mResource {
         // We don't print OPAQUE value as this could be credentials one.
         // Not ideal but didn't find better way for now.
         return String.format("LwM2mSingleResource [id=%s, value=%s, type=%s]", id,
-                type == Type.OPAQUE ? ((byte[]) value).length + "Bytes" : value, type);
+                type == Type.OPAQUE ? ((byte[]) getValue()).length + "Bytes" : getValue(), type);
     }
 
 }
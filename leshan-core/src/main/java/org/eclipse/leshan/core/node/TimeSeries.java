@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.core.util.datatype.ULong;
+
+/**
+ * All the values received for a given resource or resource instance path, stored column by column in primitive arrays
+ * rather than as one {@link LwM2mSingleResource} by value.
+ * <p>
+ * Values are stored depending on the {@link Type} :
+ * <ul>
+ * <li>{@link Type#FLOAT} in {@link #getDoubleValues()},</li>
+ * <li>{@link Type#INTEGER}, {@link Type#UNSIGNED_INTEGER} (raw 64 bits), {@link Type#TIME} (milliseconds since epoch)
+ * and {@link Type#BOOLEAN} (0 or 1) in {@link #getLongValues()},</li>
+ * <li>other types in {@link #getObjectValues()}.</li>
+ * </ul>
+ * Arrays are exactly sized and are not copied by getters, so they must not be modified.
+ */
+public class TimeSeries {
+
+    /**
+     * Timestamp used for a value without time information.
+     */
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private final LwM2mPath path;
+    private final Type type;
+    private final int size;
+    private final long[] timestamps;
+    private final long[] longValues;
+    private final double[] doubleValues;
+    private final Object[] objectValues;
+
+    private TimeSeries(Builder builder) {
+        this.path = builder.path;
+        this.type = builder.type;
+        this.size = builder.size;
+        this.timestamps = Arrays.copyOf(builder.timestamps, size);
+        this.longValues = builder.longValues == null ? null : Arrays.copyOf(builder.longValues, size);
+        this.doubleValues = builder.doubleValues == null ? null : Arrays.copyOf(builder.doubleValues, size);
+        this.objectValues = builder.objectValues == null ? null : Arrays.copyOf(builder.objectValues, size);
+    }
+
+    public LwM2mPath getPath() {
+        return path;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the number of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return timestamps in seconds, {@link #NO_TIMESTAMP} for values without time information.
+     */
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * @return the values for {@link Type#INTEGER}, {@link Type#UNSIGNED_INTEGER}, {@link Type#TIME} and
+     *         {@link Type#BOOLEAN} or <code>null</code> for other types.
+     */
+    public long[] getLongValues() {
+        return longValues;
+    }
+
+    /**
+     * @return the values for {@link Type#FLOAT} or <code>null</code> for other types.
+     */
+    public double[] getDoubleValues() {
+        return doubleValues;
+    }
+
+    /**
+     * @return the values for {@link Type#STRING}, {@link Type#OPAQUE} and {@link Type#OBJLNK} or <code>null</code>
+     *         for other types.
+     */
+    public Object[] getObjectValues() {
+        return objectValues;
+    }
+
+    /**
+     * Get a value as it would be stored in a {@link LwM2mSingleResource}. This allocates a new object for primitive
+     * types.
+     */
+    public Object getValue(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(String.format("Index %d out of bounds [0, %d[", index, size));
+        }
+        switch (type) {
+        case INTEGER:
+            return longValues[index];
+        case UNSIGNED_INTEGER:
+            return ULong.valueOf(longValues[index]);
+        case TIME:
+            return new Date(longValues[index]);
+        case BOOLEAN:
+            return longValues[index] != 0;
+        case FLOAT:
+            return doubleValues[index];
+        default:
+            return objectValues[index];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimeSeries [path=%s, type=%s, size=%d]", path, type, size);
+    }
+
+    /**
+     * Builder used to append values one by one, arrays are grown as needed.
+     */
+    public static class Builder {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private final LwM2mPath path;
+        private final Type type;
+        private int size;
+        private long[] timestamps;
+        private long[] longValues;
+        private double[] doubleValues;
+        private Object[] objectValues;
+
+        public Builder(LwM2mPath path, Type type) {
+            Validate.notNull(path);
+            Validate.notNull(type);
+            this.path = path;
+            this.type = type;
+            this.timestamps = new long[INITIAL_CAPACITY];
+            switch (type) {
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+            case TIME:
+            case BOOLEAN:
+                longValues = new long[INITIAL_CAPACITY];
+                break;
+            case FLOAT:
+                doubleValues = new double[INITIAL_CAPACITY];
+                break;
+            default:
+                objectValues = new Object[INITIAL_CAPACITY];
+                break;
+            }
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * Append a value.
+         * 
+         * @param timestamp the timestamp in seconds or {@link TimeSeries#NO_TIMESTAMP}.
+         * @param value the value using the same java type as {@link LwM2mSingleResource}.
+         * @return this builder.
+         * @throws IllegalArgumentException if value does not match the type of this time series.
+         */
+        public Builder add(long timestamp, Object value) {
+            Validate.notNull(value);
+            ensureCapacity();
+            switch (type) {
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+                longValues[size] = ((Number) checkValue(value, type == Type.INTEGER ? Long.class : ULong.class))
+                        .longValue();
+                break;
+            case TIME:
+                longValues[size] = ((Date) checkValue(value, Date.class)).getTime();
+                break;
+            case BOOLEAN:
+                longValues[size] = ((Boolean) checkValue(value, Boolean.class)) ? 1 : 0;
+                break;
+            case FLOAT:
+                doubleValues[size] = ((Double) checkValue(value, Double.class));
+                break;
+            default:
+                objectValues[size] = value;
+                break;
+            }
+            timestamps[size] = timestamp;
+            size++;
+            return this;
+        }
+
+        public TimeSeries build() {
+            return new TimeSeries(this);
+        }
+
+        private Object checkValue(Object value, Class<?> expectedClass) {
+            if (!expectedClass.isInstance(value)) {
+                throw new IllegalArgumentException(String.format("%s value expected for %s time series but was %s",
+                        expectedClass.getSimpleName(), type, value.getClass().getSimpleName()));
+            }
+            return value;
+        }
+
+        private void ensureCapacity() {
+            if (size < timestamps.length)
+                return;
+
+            int newCapacity = timestamps.length << 1;
+            timestamps = Arrays.copyOf(timestamps, newCapacity);
+            if (longValues != null)
+                longValues = Arrays.copyOf(longValues, newCapacity);
+            if (doubleValues != null)
+                doubleValues = Arrays.copyOf(doubleValues, newCapacity);
+            if (objectValues != null)
+                objectValues = Arrays.copyOf(objectValues, newCapacity);
+        }
+    }
+}
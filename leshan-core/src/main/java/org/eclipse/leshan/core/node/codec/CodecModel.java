@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.util.Collection;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+
+/**
+ * A {@link LwM2mModel} used for a single encoding or decoding.
+ * <p>
+ * Resolving an {@link ObjectModel} can be costly (e.g. for a model depending on the object versions of a registration)
+ * and node codecs need the {@link ResourceModel} of each resource of a payload. This model resolves the
+ * {@link ObjectModel} once for consecutive resources of a same object, then gets resource models from the resource
+ * table of the {@link ObjectModel} (see {@link ObjectModel#getResourceModel(int)}).
+ * <p>
+ * This class is not thread-safe.
+ */
+class CodecModel implements LwM2mModel {
+
+    private final LwM2mModel model;
+
+    // last resolved object model
+    private boolean resolved = false;
+    private int objectId;
+    private ObjectModel objectModel;
+
+    private CodecModel(LwM2mModel model) {
+        this.model = model;
+    }
+
+    /**
+     * @param model the model to wrap, could be <code>null</code>.
+     * @return a new {@link CodecModel} wrapping the given one or the given model if it is <code>null</code> or already
+     *         a {@link CodecModel}.
+     */
+    static LwM2mModel of(LwM2mModel model) {
+        if (model == null || model instanceof CodecModel)
+            return model;
+        return new CodecModel(model);
+    }
+
+    @Override
+    public ResourceModel getResourceModel(int objectId, int resourceId) {
+        ObjectModel objectModel = getObjectModel(objectId);
+        return objectModel == null ? null : objectModel.getResourceModel(resourceId);
+    }
+
+    @Override
+    public ObjectModel getObjectModel(int objectId) {
+        if (!resolved || this.objectId != objectId) {
+            this.objectModel = model.getObjectModel(objectId);
+            this.objectId = objectId;
+            this.resolved = true;
+        }
+        return objectModel;
+    }
+
+    @Override
+    public Collection<ObjectModel> getObjectModels() {
+        return model.getObjectModels();
+    }
+}
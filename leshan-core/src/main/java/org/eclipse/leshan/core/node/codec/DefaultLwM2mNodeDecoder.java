@@ -29,6 +29,7 @@ import org.eclipse.leshan.core.node.LwM2mObjectInstance;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.cbor.LwM2mNodeCborDecoder;
 import org.eclipse.leshan.core.node.codec.json.LwM2mNodeJsonDecoder;
@@ -64,7 +65,7 @@ import org.slf4j.LoggerFactory;
  * <li>{@link ContentFormat#SENML_CBOR}</li>
  * </ul>
  */
-public class DefaultLwM2mNodeDecoder implements LwM2mNodeDecoder {
+public class DefaultLwM2mNodeDecoder implements LwM2mNodeTimeSeriesDecoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultLwM2mNodeDecoder.class);
 
@@ -152,7 +153,7 @@ public class DefaultLwM2mNodeDecoder implements LwM2mNodeDecoder {
         if (decoder == null) {
             throw new CodecException("Content format %s is not supported [%s]", format, path);
         }
-        return decoder.decode(content, path, model, nodeClass);
+        return decoder.decode(content, path, CodecModel.of(model), nodeClass);
     }
 
     @Override
@@ -172,13 +173,35 @@ public class DefaultLwM2mNodeDecoder implements LwM2mNodeDecoder {
         }
 
         if (decoder instanceof MultiNodeDecoder) {
-            return ((MultiNodeDecoder) decoder).decodeNodes(content, paths, model);
+            return ((MultiNodeDecoder) decoder).decodeNodes(content, paths, CodecModel.of(model));
         } else {
             throw new CodecException("Decoder does not support multi node decoding for this content format %s [%s] ",
                     format, paths);
         }
     }
 
+    @Override
+    public Map<LwM2mPath, TimeSeries> decodeTimeSeries(byte[] content, ContentFormat format, LwM2mModel model)
+            throws CodecException {
+        LOG.debug("Decoding time series for format {}: {}", format, content);
+
+        if (format == null) {
+            throw new CodecException("Content format is mandatory.");
+        }
+
+        NodeDecoder decoder = nodeDecoders.get(format);
+        if (decoder == null) {
+            throw new CodecException("Content format %s is not supported", format);
+        }
+
+        if (decoder instanceof TimeSeriesNodeDecoder) {
+            return ((TimeSeriesNodeDecoder) decoder).decodeTimeSeries(content, CodecModel.of(model));
+        } else {
+            throw new CodecException("Decoder does not support time series decoding for this content format %s",
+                    format);
+        }
+    }
+
     @Override
     public List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, ContentFormat format, LwM2mPath path,
             LwM2mModel model) throws CodecException {
@@ -195,10 +218,10 @@ public class DefaultLwM2mNodeDecoder implements LwM2mNodeDecoder {
         }
 
         if (decoder instanceof TimestampedNodeDecoder) {
-            return ((TimestampedNodeDecoder) decoder).decodeTimestampedData(content, path, model,
+            return ((TimestampedNodeDecoder) decoder).decodeTimestampedData(content, path, CodecModel.of(model),
                     nodeClassFromPath(path));
         } else {
-            return toTimestampedNodes(decoder.decode(content, path, model, nodeClassFromPath(path)));
+            return toTimestampedNodes(decoder.decode(content, path, CodecModel.of(model), nodeClassFromPath(path)));
         }
     }
 
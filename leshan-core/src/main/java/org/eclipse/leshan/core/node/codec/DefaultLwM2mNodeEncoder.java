@@ -16,6 +16,8 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +61,7 @@ import org.slf4j.LoggerFactory;
  * <li>{@link ContentFormat#SENML_CBOR}</li>
  * </ul>
  */
-public class DefaultLwM2mNodeEncoder implements LwM2mNodeEncoder {
+public class DefaultLwM2mNodeEncoder implements LwM2mNodeStreamEncoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(DefaultLwM2mNodeEncoder.class);
 
@@ -145,11 +147,49 @@ public class DefaultLwM2mNodeEncoder implements LwM2mNodeEncoder {
             throw new CodecException("Content format %s is not supported [%s]", format, path);
         }
         LOG.trace("Encoding node {} for path {} and format {}", node, path, format);
-        byte[] encoded = encoder.encode(node, path, model, converter);
+        byte[] encoded;
+        if (encoder instanceof StreamNodeEncoder) {
+            // encode in the buffer of this thread, only the final payload is allocated.
+            EncodingBuffer buffer = EncodingBuffer.acquire();
+            try {
+                ((StreamNodeEncoder) encoder).encode(node, path, CodecModel.of(model), converter, buffer);
+                encoded = buffer.toByteArray();
+            } finally {
+                buffer.release();
+            }
+        } else {
+            encoded = encoder.encode(node, path, CodecModel.of(model), converter);
+        }
         LOG.trace("Encoded node {}: {}", node, encoded);
         return encoded;
     }
 
+    @Override
+    public void encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model, OutputStream out)
+            throws CodecException {
+        Validate.notNull(node);
+        Validate.notNull(out);
+
+        if (format == null) {
+            throw new CodecException("Content format is mandatory. [%s]", path);
+        }
+
+        NodeEncoder encoder = nodeEncoders.get(format);
+        if (encoder == null) {
+            throw new CodecException("Content format %s is not supported [%s]", format, path);
+        }
+        LOG.trace("Encoding node {} for path {} and format {} in stream", node, path, format);
+        if (encoder instanceof StreamNodeEncoder) {
+            ((StreamNodeEncoder) encoder).encode(node, path, CodecModel.of(model), converter, out);
+        } else {
+            try {
+                out.write(encoder.encode(node, path, CodecModel.of(model), converter));
+            } catch (IOException e) {
+                throw new CodecException(e, "Unable to write encoded node[path:%s] : %s", path, node);
+            }
+        }
+    }
+
     @Override
     public byte[] encodeNodes(Map<LwM2mPath, LwM2mNode> nodes, ContentFormat format, LwM2mModel model)
             throws CodecException {
@@ -171,7 +211,7 @@ public class DefaultLwM2mNodeEncoder implements LwM2mNodeEncoder {
 
         // Encode nodes
         LOG.trace("Encoding nodes {} for path {} and format {}", nodes, paths, format);
-        byte[] encoded = ((MultiNodeEncoder) encoder).encodeNodes(nodes, model, converter);
+        byte[] encoded = ((MultiNodeEncoder) encoder).encodeNodes(nodes, CodecModel.of(model), converter);
         LOG.trace("Encoded nodes {}: {}", nodes, encoded);
         return encoded;
     }
@@ -192,8 +232,8 @@ public class DefaultLwM2mNodeEncoder implements LwM2mNodeEncoder {
             throw new CodecException("Cannot encode timestampedNode with format %s. [%s]", format, path);
         }
         LOG.trace("Encoding time-stamped nodes for path {} and format {}", timestampedNodes, path, format);
-        byte[] encoded = ((TimestampedNodeEncoder) encoder).encodeTimestampedData(timestampedNodes, path, model,
-                converter);
+        byte[] encoded = ((TimestampedNodeEncoder) encoder).encodeTimestampedData(timestampedNodes, path,
+                CodecModel.of(model), converter);
         LOG.trace("Encoded node timestampedNode: {}", timestampedNodes, encoded);
         return encoded;
 
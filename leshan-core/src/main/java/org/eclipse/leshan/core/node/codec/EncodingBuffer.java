@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer used to encode payloads without allocating new streams and arrays for each encoding.
+ * <p>
+ * A buffer is kept by thread and reused by successive encodings (see {@link #acquire()}). Only the final payload is
+ * copied in an exactly sized byte array by {@link #toByteArray()}.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class EncodingBuffer extends OutputStream {
+
+    public static final int DEFAULT_INITIAL_CAPACITY = 256;
+    // bigger buffers are dropped on release, to not retain too much memory by thread.
+    public static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final ThreadLocal<EncodingBuffer> BUFFERS = new ThreadLocal<EncodingBuffer>() {
+        @Override
+        protected EncodingBuffer initialValue() {
+            return new EncodingBuffer();
+        }
+    };
+
+    private byte[] buf;
+    private int count;
+    private boolean inUse;
+
+    public EncodingBuffer() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public EncodingBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initial capacity must be positive");
+        }
+        this.buf = new byte[initialCapacity];
+    }
+
+    /**
+     * Get the buffer of the current thread. If this buffer is already in use (re-entrant encoding), a new buffer is
+     * returned.
+     * <p>
+     * The buffer must be given back using {@link #release()} once the encoded payload is consumed.
+     * 
+     * @return an empty buffer.
+     */
+    public static EncodingBuffer acquire() {
+        EncodingBuffer buffer = BUFFERS.get();
+        if (buffer.inUse) {
+            return new EncodingBuffer();
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    /**
+     * Give back a buffer obtained with {@link #acquire()}. Content is discarded.
+     */
+    public void release() {
+        inUse = false;
+        count = 0;
+        if (buf.length > MAX_RETAINED_CAPACITY) {
+            buf = new byte[DEFAULT_INITIAL_CAPACITY];
+        }
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count] = (byte) b;
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * Write the content of this buffer to the given stream.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    /**
+     * @return the number of bytes written in this buffer.
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Discard the content of this buffer, allocated memory is kept.
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * @return a copy of the content of this buffer, exactly sized.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buf, count);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0) {
+            // int overflow
+            throw new OutOfMemoryError("Encoded payload is too large");
+        }
+        if (minCapacity > buf.length) {
+            int newCapacity = buf.length << 1;
+            if (newCapacity < minCapacity) {
+                newCapacity = minCapacity;
+            }
+            buf = Arrays.copyOf(buf, newCapacity);
+        }
+    }
+}
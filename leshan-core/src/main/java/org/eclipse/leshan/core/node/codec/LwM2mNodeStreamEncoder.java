@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.io.OutputStream;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.request.ContentFormat;
+
+/**
+ * A {@link LwM2mNodeEncoder} which is able to write the encoded node directly in an {@link OutputStream}.
+ * <p>
+ * This avoids to allocate a new byte array for each encoded payload when the caller is able to reuse its own buffer.
+ */
+public interface LwM2mNodeStreamEncoder extends LwM2mNodeEncoder {
+
+    /**
+     * Serializes a {@link LwM2mNode} with the given content format in the given stream.
+     *
+     * @param node the object/instance/resource to serialize
+     * @param format the content format
+     * @param path the path of the node to serialize
+     * @param model the collection of supported object models
+     * @param out the stream where the encoded node is written
+     * @throws CodecException if encoding failed or if the stream can not be written.
+     */
+    void encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model, OutputStream out)
+            throws CodecException;
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimeSeries;
+import org.eclipse.leshan.core.request.ContentFormat;
+
+/**
+ * A {@link LwM2mNodeDecoder} which is also able to decode time-stamped resource values as {@link TimeSeries}.
+ */
+public interface LwM2mNodeTimeSeriesDecoder extends LwM2mNodeDecoder {
+
+    /**
+     * Deserializes a binary content containing resource or resource instance values into one {@link TimeSeries} by
+     * path.
+     * <p>
+     * Unlike {@link #decodeNodes(byte[], ContentFormat, List, LwM2mModel)}, all the values received for a same path are
+     * kept (e.g. historical data sent by a device with "Send" operation), without creating a {@link LwM2mNode} by
+     * value.
+     *
+     * @param content the content
+     * @param format the content format
+     * @param model the collection of supported object models
+     * @return the Map of resource or resource instance {@link LwM2mPath} to {@link TimeSeries}.
+     * @throws CodecException if content is malformed or if the content format does not support it.
+     */
+    Map<LwM2mPath, TimeSeries> decodeTimeSeries(byte[] content, ContentFormat format, LwM2mModel model)
+            throws CodecException;
+}
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A {@link LwM2mNodeEncoder} which is able to encode a same {@link LwM2mNode} instance only once when it is sent to a
+ * lot of devices.
+ * <p>
+ * A node must be explicitly shared using {@link #share(LwM2mNode)}. While it is shared, the payload produced for this
+ * node is cached by content format, path and {@link ObjectModel}. As {@link ObjectModel} instances are shared by all
+ * devices using the same object version, the node is encoded once per content format and model version.
+ * <p>
+ * Any other node is directly encoded by the delegated encoder.
+ */
+public class SharedNodeEncoder implements LwM2mNodeStreamEncoder {
+
+    private final LwM2mNodeEncoder delegate;
+    private final ConcurrentMap<NodeKey, SharedNode> sharedNodes = new ConcurrentHashMap<>();
+
+    /**
+     * @param delegate the encoder used to really encode nodes.
+     */
+    public SharedNodeEncoder(LwM2mNodeEncoder delegate) {
+        Validate.notNull(delegate);
+        this.delegate = delegate;
+    }
+
+    /**
+     * Start to cache payloads encoded for the given node instance.
+     * <p>
+     * Each call must be balanced by a call to {@link #release(LwM2mNode)}.
+     *
+     * @param node the node instance which will be encoded several times.
+     */
+    public synchronized void share(LwM2mNode node) {
+        Validate.notNull(node);
+        NodeKey key = new NodeKey(node);
+        SharedNode sharedNode = sharedNodes.get(key);
+        if (sharedNode == null) {
+            sharedNode = new SharedNode();
+            sharedNodes.put(key, sharedNode);
+        }
+        sharedNode.references++;
+    }
+
+    /**
+     * Stop to cache payloads for the given node instance. Cached payloads are dropped once the node is not shared
+     * anymore.
+     *
+     * @param node the node previously shared with {@link #share(LwM2mNode)}.
+     */
+    public synchronized void release(LwM2mNode node) {
+        Validate.notNull(node);
+        NodeKey key = new NodeKey(node);
+        SharedNode sharedNode = sharedNodes.get(key);
+        if (sharedNode != null) {
+            sharedNode.references--;
+            if (sharedNode.references <= 0) {
+                sharedNodes.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public byte[] encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model) throws CodecException {
+        if (sharedNodes.isEmpty() || node == null) {
+            return delegate.encode(node, format, path, model);
+        }
+
+        SharedNode sharedNode = sharedNodes.get(new NodeKey(node));
+        if (sharedNode == null) {
+            return delegate.encode(node, format, path, model);
+        }
+
+        ObjectModel objectModel = null;
+        if (model != null && path != null && path.getObjectId() != null) {
+            objectModel = model.getObjectModel(path.getObjectId());
+        }
+        PayloadKey payloadKey = new PayloadKey(format, path, objectModel);
+        byte[] payload = sharedNode.payloads.get(payloadKey);
+        if (payload == null) {
+            payload = delegate.encode(node, format, path, model);
+            byte[] previous = sharedNode.payloads.putIfAbsent(payloadKey, payload);
+            if (previous != null) {
+                payload = previous;
+            }
+        }
+        return payload;
+    }
+
+    @Override
+    public void encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model, OutputStream out)
+            throws CodecException {
+        if (delegate instanceof LwM2mNodeStreamEncoder && (sharedNodes.isEmpty() || node == null
+                || !sharedNodes.containsKey(new NodeKey(node)))) {
+            ((LwM2mNodeStreamEncoder) delegate).encode(node, format, path, model, out);
+            return;
+        }
+
+        // shared payload is cached as byte array, so just copy it in the stream.
+        byte[] payload = encode(node, format, path, model);
+        try {
+            out.write(payload);
+        } catch (IOException e) {
+            throw new CodecException(e, "Unable to write encoded node[path:%s] : %s", path, node);
+        }
+    }
+
+    @Override
+    public byte[] encodeNodes(Map<LwM2mPath, LwM2mNode> nodes, ContentFormat format, LwM2mModel model)
+            throws CodecException {
+        return delegate.encodeNodes(nodes, format, model);
+    }
+
+    @Override
+    public byte[] encodeTimestampedData(List<TimestampedLwM2mNode> timestampedNodes, ContentFormat format,
+            LwM2mPath path, LwM2mModel model) throws CodecException {
+        return delegate.encodeTimestampedData(timestampedNodes, format, path, model);
+    }
+
+    @Override
+    public byte[] encodePaths(List<LwM2mPath> paths, ContentFormat format) throws CodecException {
+        return delegate.encodePaths(paths, format);
+    }
+
+    @Override
+    public boolean isSupported(ContentFormat format) {
+        return delegate.isSupported(format);
+    }
+
+    private static class SharedNode {
+        // only accessed when holding SharedNodeEncoder lock
+        int references = 0;
+        final ConcurrentMap<PayloadKey, byte[]> payloads = new ConcurrentHashMap<>();
+    }
+
+    // Nodes are compared by identity as deep comparison of big nodes would cost more than what we want to save.
+    private static class NodeKey {
+        private final LwM2mNode node;
+
+        public NodeKey(LwM2mNode node) {
+            this.node = node;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(node);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof NodeKey))
+                return false;
+            return node == ((NodeKey) obj).node;
+        }
+    }
+
+    // ObjectModel does not implement equals, so instances are compared by identity, which is what we want.
+    private static class PayloadKey {
+        private final ContentFormat format;
+        private final LwM2mPath path;
+        private final ObjectModel objectModel;
+
+        public PayloadKey(ContentFormat format, LwM2mPath path, ObjectModel objectModel) {
+            this.format = format;
+            this.path = path;
+            this.objectModel = objectModel;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + ((format == null) ? 0 : format.hashCode());
+            result = prime * result + ((path == null) ? 0 : path.hashCode());
+            result = prime * result + ((objectModel == null) ? 0 : System.identityHashCode(objectModel));
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof PayloadKey))
+                return false;
+            PayloadKey other = (PayloadKey) obj;
+            if (format == null) {
+                if (other.format != null)
+                    return false;
+            } else if (!format.equals(other.format))
+                return false;
+            if (path == null) {
+                if (other.path != null)
+                    return false;
+            } else if (!path.equals(other.path))
+                return false;
+            return objectModel == other.objectModel;
+        }
+    }
+}
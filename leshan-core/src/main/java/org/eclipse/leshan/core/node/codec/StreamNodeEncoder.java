@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.io.OutputStream;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+
+/**
+ * A {@link NodeEncoder} which is able to write the encoded node directly in an {@link OutputStream}.
+ * <p>
+ * {@link DefaultLwM2mNodeEncoder} uses it to encode in a reused {@link EncodingBuffer} instead of allocating
+ * intermediate streams and arrays for each encoding.
+ */
+public interface StreamNodeEncoder extends NodeEncoder {
+
+    /**
+     * Serializes a {@link LwM2mNode} in the given stream.
+     *
+     * @param node the object/instance/resource to serialize
+     * @param path the path of the node to serialize
+     * @param model the collection of supported object models
+     * @param converter a data type converter.
+     * @param out the stream where the encoded node is written
+     * 
+     * @throws CodecException if encoding failed or if the stream can not be written.
+     */
+    void encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter, OutputStream out)
+            throws CodecException;
+}
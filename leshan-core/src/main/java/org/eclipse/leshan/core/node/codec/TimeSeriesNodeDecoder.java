@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimeSeries;
+import org.eclipse.leshan.core.request.ContentFormat;
+
+/**
+ * A decoder for time-stamped resource values as {@link TimeSeries}, which supports only one {@link ContentFormat}.
+ * 
+ * @see DefaultLwM2mNodeDecoder
+ */
+public interface TimeSeriesNodeDecoder {
+
+    /**
+     * Deserializes a binary content containing resource or resource instance values, potentially with several values
+     * by path, into one {@link TimeSeries} by path.
+     * <p>
+     * Values are kept in the order of the payload.
+     *
+     * @param content the content
+     * @param model the collection of supported object models
+     * @return the Map of resource or resource instance {@link LwM2mPath} to {@link TimeSeries}.
+     * @throws CodecException if there payload is malformed.
+     */
+    Map<LwM2mPath, TimeSeries> decodeTimeSeries(byte[] content, LwM2mModel model) throws CodecException;
+}
@@ -15,6 +15,8 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.cbor;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Date;
 
 import org.eclipse.leshan.core.model.LwM2mModel;
@@ -30,7 +32,7 @@ import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.ObjectLink;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
-import org.eclipse.leshan.core.node.codec.NodeEncoder;
+import org.eclipse.leshan.core.node.codec.StreamNodeEncoder;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.core.util.datatype.NumberUtil;
 import org.eclipse.leshan.core.util.datatype.ULong;
@@ -39,7 +41,7 @@ import org.slf4j.LoggerFactory;
 
 import com.upokecenter.cbor.CBORObject;
 
-public class LwM2mNodeCborEncoder implements NodeEncoder {
+public class LwM2mNodeCborEncoder implements StreamNodeEncoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeCborEncoder.class);
 
@@ -50,6 +52,26 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
         Validate.notNull(path);
         Validate.notNull(model);
 
+        return toCbor(node, path, model, converter).EncodeToBytes();
+    }
+
+    @Override
+    public void encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter,
+            OutputStream out) throws CodecException {
+        Validate.notNull(node);
+        Validate.notNull(path);
+        Validate.notNull(model);
+        Validate.notNull(out);
+
+        CBORObject cbor = toCbor(node, path, model, converter);
+        try {
+            cbor.WriteTo(out);
+        } catch (IOException e) {
+            throw new CodecException(e, "Unable to write encoded node[path:%s] : %s", path, node);
+        }
+    }
+
+    private CBORObject toCbor(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter) {
         InternalEncoder internalEncoder = new InternalEncoder();
         internalEncoder.path = path;
         internalEncoder.model = model;
@@ -65,7 +87,7 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
         private LwM2mValueConverter converter;
 
         // visitor output
-        private byte[] encoded = null;
+        private CBORObject encoded = null;
 
         @Override
         public void visit(LwM2mObject object) {
@@ -95,7 +117,7 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
 
             CBORObject cbor = getCborValue(expectedType, val);
 
-            encoded = cbor.EncodeToBytes();
+            encoded = cbor;
         }
 
         @Override
@@ -113,7 +135,7 @@ public class LwM2mNodeCborEncoder implements NodeEncoder {
 
             CBORObject cbor = getCborValue(expectedType, val);
 
-            encoded = cbor.EncodeToBytes();
+            encoded = cbor;
         }
 
         private CBORObject getCborValue(Type expectedType, Object val) {
@@ -15,6 +15,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.json;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -31,6 +32,7 @@ import org.eclipse.leshan.core.json.JsonArrayEntry;
 import org.eclipse.leshan.core.json.JsonRootObject;
 import org.eclipse.leshan.core.json.LwM2mJsonDecoder;
 import org.eclipse.leshan.core.json.LwM2mJsonException;
+import org.eclipse.leshan.core.json.LwM2mJsonStreamDecoder;
 import org.eclipse.leshan.core.json.jackson.LwM2mJsonJacksonEncoderDecoder;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.model.ResourceModel;
@@ -73,8 +75,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
     public <T extends LwM2mNode> T decode(byte[] content, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
             throws CodecException {
         try {
-            String jsonStrValue = content != null ? new String(content) : "";
-            JsonRootObject json = decoder.fromJsonLwM2m(jsonStrValue);
+            JsonRootObject json = decodeJson(content != null ? content : new byte[0]);
             List<TimestampedLwM2mNode> timestampedNodes = parseJSON(json, path, model, nodeClass);
             if (timestampedNodes.size() == 0) {
                 return null;
@@ -91,14 +92,22 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
     public List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, LwM2mPath path, LwM2mModel model,
             Class<? extends LwM2mNode> nodeClass) throws CodecException {
         try {
-            String jsonStrValue = new String(content);
-            JsonRootObject json = decoder.fromJsonLwM2m(jsonStrValue);
+            JsonRootObject json = decodeJson(content);
             return parseJSON(json, path, model, nodeClass);
         } catch (LwM2mJsonException e) {
             throw new CodecException(e, "Unable to deserialize json [path:%s]", path);
         }
     }
 
+    private JsonRootObject decodeJson(byte[] content) throws LwM2mJsonException {
+        if (decoder instanceof LwM2mJsonStreamDecoder) {
+            // parse bytes directly, without intermediate String
+            return ((LwM2mJsonStreamDecoder) decoder).fromJsonLwM2m(content);
+        } else {
+            return decoder.fromJsonLwM2m(new String(content, StandardCharsets.UTF_8));
+        }
+    }
+
     private List<TimestampedLwM2mNode> parseJSON(JsonRootObject jsonObject, LwM2mPath requestPath, LwM2mModel model,
             Class<? extends LwM2mNode> nodeClass) throws CodecException {
 
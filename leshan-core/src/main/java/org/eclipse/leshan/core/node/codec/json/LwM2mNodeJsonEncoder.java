@@ -15,6 +15,10 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.json;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -24,6 +28,7 @@ import org.eclipse.leshan.core.json.JsonArrayEntry;
 import org.eclipse.leshan.core.json.JsonRootObject;
 import org.eclipse.leshan.core.json.LwM2mJsonEncoder;
 import org.eclipse.leshan.core.json.LwM2mJsonException;
+import org.eclipse.leshan.core.json.LwM2mJsonStreamEncoder;
 import org.eclipse.leshan.core.json.jackson.LwM2mJsonJacksonEncoderDecoder;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.model.ResourceModel;
@@ -39,13 +44,14 @@ import org.eclipse.leshan.core.node.ObjectLink;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
+import org.eclipse.leshan.core.node.codec.StreamNodeEncoder;
 import org.eclipse.leshan.core.node.codec.TimestampedNodeEncoder;
 import org.eclipse.leshan.core.util.Base64;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
+public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder, StreamNodeEncoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeJsonEncoder.class);
 
@@ -62,6 +68,32 @@ public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
     @Override
     public byte[] encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter)
             throws CodecException {
+        JsonRootObject jsonObject = toJsonRootObject(node, path, model, converter);
+        try {
+            return toBytes(jsonObject);
+        } catch (LwM2mJsonException e) {
+            throw new CodecException(e, "Unable to encode node[path:%s] : %s", path, node);
+        }
+    }
+
+    @Override
+    public void encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter,
+            OutputStream out) throws CodecException {
+        Validate.notNull(out);
+        JsonRootObject jsonObject = toJsonRootObject(node, path, model, converter);
+        try {
+            if (encoder instanceof LwM2mJsonStreamEncoder) {
+                ((LwM2mJsonStreamEncoder) encoder).toJsonLwM2m(jsonObject, out);
+            } else {
+                out.write(encoder.toJsonLwM2m(jsonObject).getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (LwM2mJsonException | IOException e) {
+            throw new CodecException(e, "Unable to encode node[path:%s] : %s", path, node);
+        }
+    }
+
+    private JsonRootObject toJsonRootObject(LwM2mNode node, LwM2mPath path, LwM2mModel model,
+            LwM2mValueConverter converter) {
         Validate.notNull(node);
         Validate.notNull(path);
         Validate.notNull(model);
@@ -75,10 +107,17 @@ public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
         JsonRootObject jsonObject = new JsonRootObject();
         jsonObject.setResourceList(internalEncoder.resourceList);
         jsonObject.setBaseName(internalEncoder.baseName);
-        try {
-            return encoder.toJsonLwM2m(jsonObject).getBytes();
-        } catch (LwM2mJsonException e) {
-            throw new CodecException(e, "Unable to encode node[path:%s] : %s", path, node);
+        return jsonObject;
+    }
+
+    private byte[] toBytes(JsonRootObject jsonObject) throws LwM2mJsonException {
+        if (encoder instanceof LwM2mJsonStreamEncoder) {
+            // write bytes directly, without intermediate String
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ((LwM2mJsonStreamEncoder) encoder).toJsonLwM2m(jsonObject, out);
+            return out.toByteArray();
+        } else {
+            return encoder.toJsonLwM2m(jsonObject).getBytes(StandardCharsets.UTF_8);
         }
     }
 
@@ -115,7 +154,7 @@ public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
         jsonObject.setResourceList(entries);
         jsonObject.setBaseName(internalEncoder.baseName);
         try {
-            return encoder.toJsonLwM2m(jsonObject).getBytes();
+            return toBytes(jsonObject);
         } catch (LwM2mJsonException e) {
             throw new CodecException(e, "Unable to encode timestamped nodes[path:%s] : %s", path, timestampedNodes);
         }
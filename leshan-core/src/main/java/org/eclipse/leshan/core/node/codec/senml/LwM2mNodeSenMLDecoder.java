@@ -14,12 +14,11 @@
 package org.eclipse.leshan.core.node.codec.senml;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -38,22 +37,32 @@ import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.DefaultLwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.MultiNodeDecoder;
+import org.eclipse.leshan.core.node.codec.TimeSeriesNodeDecoder;
 import org.eclipse.leshan.core.node.codec.TimestampedNodeDecoder;
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.core.util.datatype.NumberUtil;
 import org.eclipse.leshan.core.util.datatype.ULong;
 import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLException;
-import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeDecoder {
+/**
+ * A SenML decoder for {@link LwM2mNode}.
+ * <p>
+ * Records are resolved and added to the node they belong to as soon as they are decoded. When the given
+ * {@link SenMLDecoder} is a {@link SenMLStreamDecoder}, the whole {@link org.eclipse.leshan.senml.SenMLPack} is never
+ * built.
+ */
+public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeDecoder, TimeSeriesNodeDecoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeSenMLDecoder.class);
 
@@ -65,36 +74,33 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
 
     @SuppressWarnings("unchecked")
     @Override
-    public <T extends LwM2mNode> T decode(byte[] content, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
+    public <T extends LwM2mNode> T decode(byte[] content, final LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
             throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-            List<SenMLRecord> records = pack.getRecords();
-
-            // Resolve records
-            LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-            Collection<LwM2mResolvedSenMLRecord> resolvedRecords = new ArrayList<>(records.size());
-            for (SenMLRecord record : records) {
-                LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-                // Validate SenML resolved name
-                if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
-                    throw new CodecException(
-                            "Invalid path [%s] for resource, it should be a resource or a resource instance path",
-                            resolvedRecord.getName());
-                }
-                if (!resolvedRecord.getPath().startWith(path)) {
-                    throw new CodecException("Invalid path [%s] for resource, it should start by %s",
-                            resolvedRecord.getPath(), path);
-                }
-                if (resolvedRecord.getTimeStamp() != null) {
-                    throw new CodecException("Unable to decode node[path:%s] : value should not be timestamped", path);
+            final RecordGroup group = new RecordGroup(model);
+            decodeRecords(content, new ResolvingHandler() {
+                @Override
+                protected void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                    // Validate SenML resolved name
+                    if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
+                        throw new CodecException(
+                                "Invalid path [%s] for resource, it should be a resource or a resource instance path",
+                                resolvedRecord.getName());
+                    }
+                    if (!resolvedRecord.getPath().startWith(path)) {
+                        throw new CodecException("Invalid path [%s] for resource, it should start by %s",
+                                resolvedRecord.getPath(), path);
+                    }
+                    if (resolvedRecord.getTimeStamp() != null) {
+                        throw new CodecException("Unable to decode node[path:%s] : value should not be timestamped",
+                                path);
+                    }
+                    group.add(resolvedRecord);
                 }
-                resolvedRecords.add(resolvedRecord);
-            }
+            });
 
-            // Parse records and create node
-            return (T) parseRecords(resolvedRecords, path, model, nodeClass);
+            // Create node from records
+            return (T) group.toNode(path, nodeClass);
         } catch (SenMLException e) {
             String hexValue = content != null ? Hex.encodeHexString(content) : "";
             throw new CodecException(e, "Unable to decode node[path:%s] : %s", path, hexValue, e);
@@ -102,21 +108,35 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     }
 
     @Override
-    public Map<LwM2mPath, LwM2mNode> decodeNodes(byte[] content, List<LwM2mPath> paths, LwM2mModel model)
+    public Map<LwM2mPath, LwM2mNode> decodeNodes(byte[] content, final List<LwM2mPath> paths, final LwM2mModel model)
             throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-
-            Map<LwM2mPath, LwM2mNode> nodes = new HashMap<>();
+            final Map<LwM2mPath, LwM2mNode> nodes = new HashMap<>();
             if (paths != null) {
-                // Resolve records & Group it by time-stamp
-                Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> recordsByPath = groupByPath(pack.getRecords(),
-                        paths);
+                // Resolve records & Group it by path
+                final Map<LwM2mPath, RecordGroup> groupsByPath = new HashMap<>(paths.size());
+                decodeRecords(content, new ResolvingHandler() {
+                    @Override
+                    protected void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                        // Find the corresponding path for this record.
+                        LwM2mPath selectedPath = selectPath(resolvedRecord.getPath(), paths);
+                        if (selectedPath == null) {
+                            throw new CodecException("Invalid path [%s] for resource, it should start by one of %s",
+                                    resolvedRecord.getPath(), paths);
+                        }
+
+                        RecordGroup group = groupsByPath.get(selectedPath);
+                        if (group == null) {
+                            group = new RecordGroup(model);
+                            groupsByPath.put(selectedPath, group);
+                        }
+                        group.add(resolvedRecord);
+                    }
+                });
 
                 for (LwM2mPath path : paths) {
-                    Collection<LwM2mResolvedSenMLRecord> records = recordsByPath.get(path);
-                    if (records.isEmpty()) {
+                    RecordGroup group = groupsByPath.get(path);
+                    if (group == null) {
                         // Node can be null as the LWM2M specification says that "Read-Composite operation is
                         // treated as non-atomic and handled as best effort by the client. That is, if any of the
                         // requested
@@ -124,22 +144,21 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
                         // Meaning that a given path could have no corresponding value.
                         nodes.put(path, null);
                     } else {
-                        LwM2mNode node = parseRecords(recordsByPath.get(path), path, model,
-                                DefaultLwM2mNodeDecoder.nodeClassFromPath(path));
-                        nodes.put(path, node);
+                        nodes.put(path, group.toNode(path, DefaultLwM2mNodeDecoder.nodeClassFromPath(path)));
                     }
                 }
             } else {
                 // Paths are not given so we given so we can not regroup by path
                 // let's assume that each path refer to a single resource or single resource instances.
-                LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-                for (SenMLRecord record : pack.getRecords()) {
-                    LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-                    LwM2mPath path = resolvedRecord.getPath();
-                    LwM2mNode node = parseRecords(Arrays.asList(resolvedRecord), path, model,
-                            DefaultLwM2mNodeDecoder.nodeClassFromPath(path));
-                    nodes.put(path, node);
-                }
+                decodeRecords(content, new ResolvingHandler() {
+                    @Override
+                    protected void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                        LwM2mPath path = resolvedRecord.getPath();
+                        RecordGroup group = new RecordGroup(model);
+                        group.add(resolvedRecord);
+                        nodes.put(path, group.toNode(path, DefaultLwM2mNodeDecoder.nodeClassFromPath(path)));
+                    }
+                });
             }
             return nodes;
         } catch (SenMLException e) {
@@ -149,20 +168,67 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     }
 
     @Override
-    public List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, LwM2mPath path, LwM2mModel model,
-            Class<? extends LwM2mNode> nodeClass) throws CodecException {
+    public List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, final LwM2mPath path,
+            final LwM2mModel model, Class<? extends LwM2mNode> nodeClass) throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-
             // Resolve records & Group it by time-stamp
-            Map<Long, Collection<LwM2mResolvedSenMLRecord>> recordsByTimestamp = groupRecordByTimestamp(
-                    pack.getRecords(), path);
+            // sorted by descending time-stamp (most recent one at first place). If null time-stamp (meaning no time
+            // information) exists it always at first place.
+            final SortedMap<Long, RecordGroup> groupsByTimestamp = new TreeMap<>(new Comparator<Long>() {
+                @Override
+                public int compare(Long o1, Long o2) {
+                    // null at first place
+                    if (o1 == null && o2 == null)
+                        return 0;
+                    if (o1 == null)
+                        return -1;
+                    if (o2 == null)
+                        return 1;
+                    return Long.compare(o2, o1);
+                }
+            });
+            decodeRecords(content, new ResolvingHandler() {
+                // records with the same time-stamp are generally consecutive
+                private Long lastTimestamp;
+                private RecordGroup lastGroup;
+
+                @Override
+                protected void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                    // Validate SenML resolved name
+                    if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
+                        throw new CodecException(
+                                "Invalid path [%s] for resource, it should be a resource or a resource instance path",
+                                resolvedRecord.getName());
+                    }
+                    if (!resolvedRecord.getPath().startWith(path)) {
+                        throw new CodecException("Invalid path [%s] for resource, it should start by %s",
+                                resolvedRecord.getName(), path);
+                    }
+
+                    // Get record group for this time-stamp
+                    Long timestamp = resolvedRecord.getTimeStamp();
+                    if (lastGroup == null
+                            || (timestamp == null ? lastTimestamp != null : !timestamp.equals(lastTimestamp))) {
+                        lastGroup = groupsByTimestamp.get(timestamp);
+                        if (lastGroup == null) {
+                            lastGroup = new RecordGroup(model);
+                            groupsByTimestamp.put(timestamp, lastGroup);
+                        }
+                        lastTimestamp = timestamp;
+                    }
+                    lastGroup.add(resolvedRecord);
+                }
+            });
+
+            // Ensure there is at least one entry for null timestamp
+            if (groupsByTimestamp.isEmpty()) {
+                groupsByTimestamp.put((Long) null, new RecordGroup(model));
+            }
 
             // Fill time-stamped nodes collection
-            List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
-            for (Entry<Long, Collection<LwM2mResolvedSenMLRecord>> entryByTimestamp : recordsByTimestamp.entrySet()) {
-                LwM2mNode node = parseRecords(entryByTimestamp.getValue(), path, model, nodeClass);
+            List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>(groupsByTimestamp.size());
+            for (Entry<Long, RecordGroup> entryByTimestamp : groupsByTimestamp.entrySet()) {
+                LwM2mNode node = entryByTimestamp.getValue().toNode(path, nodeClass);
                 // add time-stamped node
                 timestampedNodes.add(new TimestampedLwM2mNode(entryByTimestamp.getKey(), node));
             }
@@ -173,116 +239,57 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
         }
     }
 
-    /**
-     * Parse records for a given LWM2M path.
-     */
-    private LwM2mNode parseRecords(Collection<LwM2mResolvedSenMLRecord> records, LwM2mPath path, LwM2mModel model,
-            Class<? extends LwM2mNode> nodeClass) throws CodecException {
-
-        LOG.trace("Parsing SenML records for path {}: {}", path, records);
-
-        // Group records by instance
-        Map<Integer, Collection<LwM2mResolvedSenMLRecord>> recordsByInstanceId = groupRecordsByInstanceId(records);
-
-        // Create lwm2m node
-        LwM2mNode node = null;
-        if (nodeClass == LwM2mObject.class) {
-            Collection<LwM2mObjectInstance> instances = new ArrayList<>();
-            for (Entry<Integer, Collection<LwM2mResolvedSenMLRecord>> entryByInstanceId : recordsByInstanceId
-                    .entrySet()) {
-                Map<Integer, LwM2mResource> resourcesMap = extractLwM2mResources(entryByInstanceId.getValue(), path,
-                        model);
-
-                instances.add(new LwM2mObjectInstance(entryByInstanceId.getKey(), resourcesMap.values()));
-            }
-
-            node = new LwM2mObject(path.getObjectId(), instances);
-        } else if (nodeClass == LwM2mObjectInstance.class) {
-            // validate we have resources for only 1 instance
-            if (recordsByInstanceId.size() != 1)
-                throw new CodecException("One instance expected in the payload [path:%s]", path);
-
-            // Extract resources
-            Entry<Integer, Collection<LwM2mResolvedSenMLRecord>> instanceEntry = recordsByInstanceId.entrySet()
-                    .iterator().next();
-            Map<Integer, LwM2mResource> resourcesMap = extractLwM2mResources(instanceEntry.getValue(), path, model);
-
-            // Create instance
-            node = new LwM2mObjectInstance(instanceEntry.getKey(), resourcesMap.values());
-        } else if (nodeClass == LwM2mResource.class) {
-            // validate we have resources for only 1 instance
-            if (recordsByInstanceId.size() > 1)
-                throw new CodecException("Only one instance expected in the payload [path:%s]", path);
-
-            // Extract resources
-            Map<Integer, LwM2mResource> resourcesMap = extractLwM2mResources(
-                    recordsByInstanceId.values().iterator().next(), path, model);
-
-            // validate there is only 1 resource
-            if (resourcesMap.size() != 1)
-                throw new CodecException("One resource should be present in the payload [path:%s]", path);
-
-            node = resourcesMap.values().iterator().next();
-        } else if (nodeClass == LwM2mResourceInstance.class) {
-            // validate we have resources for only 1 instance
-            if (recordsByInstanceId.size() > 1)
-                throw new CodecException("Only one instance expected in the payload [path:%s]", path);
-
-            // Extract resources
-            Map<Integer, LwM2mResource> resourcesMap = extractLwM2mResources(
-                    recordsByInstanceId.values().iterator().next(), path, model);
-
-            // validate there is only 1 resource
-            if (resourcesMap.size() != 1)
-                throw new CodecException("One resource should be present in the payload [path:%s]", path);
+    @Override
+    public Map<LwM2mPath, TimeSeries> decodeTimeSeries(byte[] content, final LwM2mModel model) throws CodecException {
+        try {
+            // keep paths in payload order
+            final Map<LwM2mPath, TimeSeries.Builder> builders = new LinkedHashMap<>();
+            decodeRecords(content, new ResolvingHandler() {
+                @Override
+                protected void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                    LwM2mPath path = resolvedRecord.getPath();
+                    if (!path.isResourceInstance() && !path.isResource()) {
+                        throw new CodecException(
+                                "Invalid path [%s] for resource, it should be a resource or a resource instance path",
+                                resolvedRecord.getName());
+                    }
 
-            LwM2mResource resource = resourcesMap.values().iterator().next();
-            if (!resource.isMultiInstances()) {
-                throw new CodecException("Resource should be multi Instances resource [path:%s]", path);
-            }
+                    TimeSeries.Builder builder = builders.get(path);
+                    if (builder == null) {
+                        builder = new TimeSeries.Builder(path,
+                                getResourceType(path, model, resolvedRecord.getRecord()));
+                        builders.put(path, builder);
+                    }
 
-            if (resource.getInstances().isEmpty()) {
-                throw new CodecException("Resource instances should not be not empty [path:%s]", path);
-            }
+                    Object value = parseResourceValue(resolvedRecord.getRecord().getResourceValue(),
+                            builder.getType(), path);
+                    Long timestamp = resolvedRecord.getTimeStamp();
+                    builder.add(timestamp == null ? TimeSeries.NO_TIMESTAMP : timestamp, value);
+                }
+            });
 
-            if (resource.getInstances().size() > 1) {
-                throw new CodecException("Resource instances should not be > 1 [path:%s]", path);
+            Map<LwM2mPath, TimeSeries> timeSeries = new LinkedHashMap<>(builders.size() * 4 / 3 + 1);
+            for (Entry<LwM2mPath, TimeSeries.Builder> entry : builders.entrySet()) {
+                timeSeries.put(entry.getKey(), entry.getValue().build());
             }
-
-            node = resourcesMap.values().iterator().next().getInstance(path.getResourceInstanceId());
-        } else {
-            throw new IllegalArgumentException("invalid node class: " + nodeClass);
+            return timeSeries;
+        } catch (SenMLException e) {
+            String hexValue = content != null ? Hex.encodeHexString(content) : "";
+            throw new CodecException(e, "Unable to decode time series : %s", hexValue, e);
         }
-        return node;
     }
 
     /**
-     * Resolved record then group it by LwM2mPath
+     * Decode SenML records and give them one by one to the handler.
      */
-    private Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> groupByPath(List<SenMLRecord> records,
-            List<LwM2mPath> paths) throws SenMLException {
-
-        // Prepare map result
-        Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> result = new HashMap<>(paths.size());
-        for (LwM2mPath path : paths) {
-            result.put(path, new ArrayList<LwM2mResolvedSenMLRecord>());
-        }
-
-        // Resolve record and add it to the map
-        LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-        for (SenMLRecord record : records) {
-            LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-
-            // Find the corresponding path for this record.
-            LwM2mPath selectedPath = selectPath(resolvedRecord.getPath(), paths);
-            if (selectedPath == null) {
-                throw new CodecException("Invalid path [%s] for resource, it should start by one of %s",
-                        resolvedRecord.getPath(), paths);
+    private void decodeRecords(byte[] content, SenMLRecordHandler handler) throws SenMLException {
+        if (decoder instanceof SenMLStreamDecoder) {
+            ((SenMLStreamDecoder) decoder).fromSenML(content, handler);
+        } else {
+            for (SenMLRecord record : decoder.fromSenML(content).getRecords()) {
+                handler.onRecord(record);
             }
-
-            result.get(selectedPath).add(resolvedRecord);
         }
-        return result;
     }
 
     /**
@@ -300,125 +307,71 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     }
 
     /**
-     * Resolved record then group it by time-stamp
-     * 
-     * @return a sorted map (timestamp => collection of record) order by descending time-stamp (most recent one at first
-     *         place). If null time-stamp (meaning no time information) exists it always at first place.
+     * A {@link SenMLRecordHandler} which resolves records (base name, base time) as they are decoded.
      */
-    private SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> groupRecordByTimestamp(List<SenMLRecord> records,
-            LwM2mPath requestPath) throws SenMLException {
-        SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> result = new TreeMap<>(new Comparator<Long>() {
-            @Override
-            public int compare(Long o1, Long o2) {
-                // null at first place
-                if (o1 == null && o2 == null)
-                    return 0;
-                if (o1 == null)
-                    return -1;
-                if (o2 == null)
-                    return 1;
-                return Long.compare(o2, o1);
-            }
-        });
+    private static abstract class ResolvingHandler implements SenMLRecordHandler {
+        private final LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
 
-        LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-        for (SenMLRecord record : records) {
-            LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-
-            // Validate SenML resolved name
-            if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
-                throw new CodecException(
-                        "Invalid path [%s] for resource, it should be a resource or a resource instance path",
-                        resolvedRecord.getName());
-            }
-            if (!resolvedRecord.getPath().startWith(requestPath)) {
-                throw new CodecException("Invalid path [%s] for resource, it should start by %s",
-                        resolvedRecord.getName(), requestPath);
-            }
-
-            // Get record list for this time-stamp
-            Collection<LwM2mResolvedSenMLRecord> recordList = result.get(resolvedRecord.getTimeStamp());
-            if (recordList == null) {
-                recordList = new ArrayList<>();
-                result.put(resolvedRecord.getTimeStamp(), recordList);
-            }
-            // Add it to the list
-            recordList.add(resolvedRecord);
+        @Override
+        public void onRecord(SenMLRecord record) throws SenMLException {
+            onResolvedRecord(resolver.resolve(record));
         }
 
-        // Ensure there is at least one entry for null timestamp
-        if (result.isEmpty()) {
-            Collection<LwM2mResolvedSenMLRecord> emptylist = Collections.emptyList();
-            result.put((Long) null, emptylist);
-        }
-        return result;
+        protected abstract void onResolvedRecord(LwM2mResolvedSenMLRecord resolvedRecord);
     }
 
     /**
-     * Group all SenML record by instanceId
-     * 
-     * @return a map (instanceId => collection of SenML Record)
+     * Values of records which belong to a same node, grouped by instance and resource as they are added.
      */
-    private Map<Integer, Collection<LwM2mResolvedSenMLRecord>> groupRecordsByInstanceId(
-            Collection<LwM2mResolvedSenMLRecord> records) throws CodecException {
-        Map<Integer, Collection<LwM2mResolvedSenMLRecord>> result = new HashMap<>();
-        for (LwM2mResolvedSenMLRecord record : records) {
-            // Get SenML records for this instance
-            Collection<LwM2mResolvedSenMLRecord> recordForInstance = result.get(record.getPath().getObjectInstanceId());
-            if (recordForInstance == null) {
-                recordForInstance = new ArrayList<>();
-                result.put(record.getPath().getObjectInstanceId(), recordForInstance);
-            }
+    private class RecordGroup {
+        private final LwM2mModel model;
+        // instance id => resource id => resource values
+        private final Map<Integer, Map<Integer, ResourceValues>> instances = new HashMap<>();
 
-            // Add it to the list
-            recordForInstance.add(record);
+        RecordGroup(LwM2mModel model) {
+            this.model = model;
         }
-        return result;
-    }
 
-    private Map<Integer, LwM2mResource> extractLwM2mResources(Collection<LwM2mResolvedSenMLRecord> records,
-            LwM2mPath requestPath, LwM2mModel model) throws CodecException {
-        if (records == null)
-            return Collections.emptyMap();
-
-        // Extract LWM2M resources from JSON resource list
-        Map<Integer, LwM2mResource> lwM2mResourceMap = new HashMap<>();
-        Map<LwM2mPath, Map<Integer, SenMLRecord>> multiResourceMap = new HashMap<>();
-
-        for (LwM2mResolvedSenMLRecord resolvedRecord : records) {
-            // Build resource path
+        void add(LwM2mResolvedSenMLRecord resolvedRecord) throws CodecException {
             LwM2mPath nodePath = resolvedRecord.getPath();
             SenMLRecord record = resolvedRecord.getRecord();
 
+            Map<Integer, ResourceValues> resources = instances.get(nodePath.getObjectInstanceId());
+            if (resources == null) {
+                resources = new HashMap<>();
+                instances.put(nodePath.getObjectInstanceId(), resources);
+            }
+
             // handle LWM2M resources
             if (nodePath.isResourceInstance()) {
                 // Multi-instance resource
-                // Store multi-instance resource values in a map
-                // we will deal with it later
-                LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectId(), nodePath.getObjectInstanceId(),
-                        nodePath.getResourceId());
-                Map<Integer, SenMLRecord> multiResource = multiResourceMap.get(resourcePath);
-                if (multiResource == null) {
-                    multiResource = new HashMap<>();
-                    multiResourceMap.put(resourcePath, multiResource);
+                ResourceValues resource = resources.get(nodePath.getResourceId());
+                if (resource == null) {
+                    LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectId(), nodePath.getObjectInstanceId(),
+                            nodePath.getResourceId());
+                    resource = new ResourceValues(resourcePath, getResourceType(resourcePath, model, record), true);
+                    resources.put(nodePath.getResourceId(), resource);
+                } else if (!resource.multiple) {
+                    throw new CodecException("2 RESOURCE nodes with the same identifier %d for path %s",
+                            nodePath.getResourceId(), resource.path);
                 }
-                SenMLRecord previousResInstance = multiResource.put(nodePath.getResourceInstanceId(), record);
-                if (previousResInstance != null) {
+                Object value = parseResourceValue(record.getResourceValue(), resource.type, resource.path);
+                Object previousValue = resource.instances.put(nodePath.getResourceInstanceId(), value);
+                if (previousValue != null) {
                     throw new CodecException(
                             "2 RESOURCE_INSTANCE nodes (%s,%s) with the same identifier %d for path %s",
-                            previousResInstance, record, nodePath.getResourceInstanceId(), nodePath);
+                            previousValue, value, nodePath.getResourceInstanceId(), nodePath);
                 }
             } else if (nodePath.isResource()) {
                 // Single resource
-                Type expectedType = getResourceType(nodePath, model, record);
-                Object resourceValue = parseResourceValue(record.getResourceValue(), expectedType, nodePath);
-                LwM2mResource res = LwM2mSingleResource.newResource(nodePath.getResourceId(), resourceValue,
-                        expectedType);
-                LwM2mResource previousRes = lwM2mResourceMap.put(nodePath.getResourceId(), res);
-                if (previousRes != null) {
-                    throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
-                            previousRes, res, res.getId(), nodePath);
+                if (resources.containsKey(nodePath.getResourceId())) {
+                    throw new CodecException("2 RESOURCE nodes with the same identifier %d for path %s",
+                            nodePath.getResourceId(), nodePath);
                 }
+                Type expectedType = getResourceType(nodePath, model, record);
+                ResourceValues resource = new ResourceValues(nodePath, expectedType, false);
+                resource.value = parseResourceValue(record.getResourceValue(), expectedType, nodePath);
+                resources.put(nodePath.getResourceId(), resource);
             } else {
                 throw new CodecException(
                         "Invalid path [%s] for resource, it should be a resource or a resource instance path",
@@ -426,42 +379,116 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
             }
         }
 
-        // Handle multiple resource instances.
-        for (Map.Entry<LwM2mPath, Map<Integer, SenMLRecord>> entry : multiResourceMap.entrySet()) {
-            LwM2mPath resourcePath = entry.getKey();
-            Map<Integer, SenMLRecord> entries = entry.getValue();
-
-            if (entries != null && !entries.isEmpty()) {
-                Type expectedType = getResourceType(resourcePath, model, entries.values().iterator().next());
-                Map<Integer, Object> values = new HashMap<>();
-                for (Entry<Integer, SenMLRecord> e : entries.entrySet()) {
-                    Integer resourceInstanceId = e.getKey();
-                    values.put(resourceInstanceId,
-                            parseResourceValue(e.getValue().getResourceValue(), expectedType, resourcePath));
+        /**
+         * Create the node for the given path from the values added so far.
+         */
+        LwM2mNode toNode(LwM2mPath path, Class<? extends LwM2mNode> nodeClass) throws CodecException {
+            LOG.trace("Creating node for path {} from SenML values of {} instance(s)", path, instances.size());
+
+            if (nodeClass == LwM2mObject.class) {
+                Collection<LwM2mObjectInstance> objectInstances = new ArrayList<>(instances.size());
+                for (Entry<Integer, Map<Integer, ResourceValues>> entryByInstanceId : instances.entrySet()) {
+                    Map<Integer, LwM2mResource> resourcesMap = toResources(entryByInstanceId.getValue(), path);
+                    objectInstances.add(new LwM2mObjectInstance(entryByInstanceId.getKey(), resourcesMap.values()));
                 }
-                LwM2mResource resource = LwM2mMultipleResource.newResource(resourcePath.getResourceId(), values,
-                        expectedType);
-                LwM2mResource previousRes = lwM2mResourceMap.put(resourcePath.getResourceId(), resource);
-                if (previousRes != null) {
-                    throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
-                            previousRes, resource, resource.getId(), resourcePath);
+                return new LwM2mObject(path.getObjectId(), objectInstances);
+            } else if (nodeClass == LwM2mObjectInstance.class) {
+                // validate we have resources for only 1 instance
+                if (instances.size() != 1)
+                    throw new CodecException("One instance expected in the payload [path:%s]", path);
+
+                // Extract resources
+                Entry<Integer, Map<Integer, ResourceValues>> instanceEntry = instances.entrySet().iterator().next();
+                Map<Integer, LwM2mResource> resourcesMap = toResources(instanceEntry.getValue(), path);
+
+                // Create instance
+                return new LwM2mObjectInstance(instanceEntry.getKey(), resourcesMap.values());
+            } else if (nodeClass == LwM2mResource.class) {
+                return toSingleResource(path);
+            } else if (nodeClass == LwM2mResourceInstance.class) {
+                LwM2mResource resource = toSingleResource(path);
+                if (!resource.isMultiInstances()) {
+                    throw new CodecException("Resource should be multi Instances resource [path:%s]", path);
                 }
+
+                if (resource.getInstances().isEmpty()) {
+                    throw new CodecException("Resource instances should not be not empty [path:%s]", path);
+                }
+
+                if (resource.getInstances().size() > 1) {
+                    throw new CodecException("Resource instances should not be > 1 [path:%s]", path);
+                }
+
+                return resource.getInstance(path.getResourceInstanceId());
+            } else {
+                throw new IllegalArgumentException("invalid node class: " + nodeClass);
             }
         }
 
-        // If we found nothing, we try to create an empty multi-instance resource
-        if (lwM2mResourceMap.isEmpty() && requestPath.isResource()) {
-            ResourceModel resourceModel = model.getResourceModel(requestPath.getObjectId(),
-                    requestPath.getResourceId());
-            // We create it only if this respect the model
-            if (resourceModel == null || resourceModel.multiple) {
-                Type resourceType = getResourceType(requestPath, model, null);
-                lwM2mResourceMap.put(requestPath.getResourceId(), LwM2mMultipleResource
-                        .newResource(requestPath.getResourceId(), new HashMap<Integer, Object>(), resourceType));
+        private LwM2mResource toSingleResource(LwM2mPath path) throws CodecException {
+            // validate we have resources for only 1 instance
+            if (instances.size() > 1)
+                throw new CodecException("Only one instance expected in the payload [path:%s]", path);
+
+            // Extract resources
+            Map<Integer, LwM2mResource> resourcesMap = toResources(
+                    instances.isEmpty() ? null : instances.values().iterator().next(), path);
+
+            // validate there is only 1 resource
+            if (resourcesMap.size() != 1)
+                throw new CodecException("One resource should be present in the payload [path:%s]", path);
+
+            return resourcesMap.values().iterator().next();
+        }
+
+        private Map<Integer, LwM2mResource> toResources(Map<Integer, ResourceValues> resourceValues,
+                LwM2mPath requestPath) throws CodecException {
+            Map<Integer, LwM2mResource> lwM2mResourceMap = new HashMap<>();
+            if (resourceValues != null) {
+                for (ResourceValues values : resourceValues.values()) {
+                    lwM2mResourceMap.put(values.path.getResourceId(), values.toResource());
+                }
             }
+
+            // If we found nothing, we try to create an empty multi-instance resource
+            if (lwM2mResourceMap.isEmpty() && requestPath.isResource()) {
+                ResourceModel resourceModel = model.getResourceModel(requestPath.getObjectId(),
+                        requestPath.getResourceId());
+                // We create it only if this respect the model
+                if (resourceModel == null || resourceModel.multiple) {
+                    Type resourceType = getResourceType(requestPath, model, null);
+                    lwM2mResourceMap.put(requestPath.getResourceId(), LwM2mMultipleResource
+                            .newResource(requestPath.getResourceId(), new HashMap<Integer, Object>(), resourceType));
+                }
+            }
+            return lwM2mResourceMap;
+        }
+    }
+
+    /**
+     * Parsed value(s) of a single or multiple resource.
+     */
+    private static class ResourceValues {
+        private final LwM2mPath path;
+        private final Type type;
+        private final boolean multiple;
+        private Object value;
+        private final Map<Integer, Object> instances;
+
+        ResourceValues(LwM2mPath path, Type type, boolean multiple) {
+            this.path = path;
+            this.type = type;
+            this.multiple = multiple;
+            this.instances = multiple ? new HashMap<Integer, Object>() : null;
         }
 
-        return lwM2mResourceMap;
+        LwM2mResource toResource() {
+            if (multiple) {
+                return LwM2mMultipleResource.newResource(path.getResourceId(), instances, type);
+            } else {
+                return LwM2mSingleResource.newResource(path.getResourceId(), value, type);
+            }
+        }
     }
 
     private Object parseResourceValue(Object value, Type expectedType, LwM2mPath path) throws CodecException {
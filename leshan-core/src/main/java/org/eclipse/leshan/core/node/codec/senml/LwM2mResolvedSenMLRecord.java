@@ -36,6 +36,7 @@ public class LwM2mResolvedSenMLRecord extends ResolvedSenMLRecord {
     public LwM2mResolvedSenMLRecord(SenMLRecord unresolvedRecord, String resolvedName, Long resolvedTimestamp)
             throws IllegalArgumentException, LwM2mNodeException {
         super(unresolvedRecord, resolvedName, resolvedTimestamp);
+        // names come from devices, so they are not interned
         this.path = new LwM2mPath(resolvedName);
     }
 
@@ -16,6 +16,7 @@
 package org.eclipse.leshan.core.node.codec.tlv;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,11 +36,9 @@ import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.NodeDecoder;
-import org.eclipse.leshan.core.tlv.Tlv;
 import org.eclipse.leshan.core.tlv.Tlv.TlvType;
-import org.eclipse.leshan.core.tlv.TlvDecoder;
 import org.eclipse.leshan.core.tlv.TlvException;
-import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.tlv.TlvReader;
 import org.eclipse.leshan.core.util.datatype.ULong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,47 +50,54 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
     @Override
     public <T extends LwM2mNode> T decode(byte[] content, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
             throws CodecException {
+        TlvReader reader = new TlvReader(ByteBuffer.wrap(content != null ? content : new byte[0]));
         try {
-            Tlv[] tlvs = TlvDecoder.decode(ByteBuffer.wrap(content != null ? content : new byte[0]));
-            return parseTlv(tlvs, path, model, nodeClass);
+            return parseTlv(reader, path, model, nodeClass);
         } catch (TlvException | LwM2mNodeException e) {
             throw new CodecException(String.format("Unable to decode tlv for path [%s]", path), e);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends LwM2mNode> T parseTlv(Tlv[] tlvs, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
-            throws CodecException {
-        LOG.trace("Parsing TLV content for path {}: {}", path, tlvs);
+    private <T extends LwM2mNode> T parseTlv(TlvReader reader, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
+            throws CodecException, TlvException {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Parsing TLV content for path {}: {}", path, reader.toHexString());
+        }
 
         // Object
         if (nodeClass == LwM2mObject.class) {
-            Map<Integer, LwM2mObjectInstance> instances = new HashMap<>(tlvs.length);
+            Map<Integer, LwM2mObjectInstance> instances = new HashMap<>();
 
             // is it an array of TLV resources?
-            if (tlvs.length > 0 && //
-                    (tlvs[0].getType() == TlvType.MULTIPLE_RESOURCE || tlvs[0].getType() == TlvType.RESOURCE_VALUE)) {
+            if (reader.next() && //
+                    (reader.getType() == TlvType.MULTIPLE_RESOURCE || reader.getType() == TlvType.RESOURCE_VALUE)) {
+                reader.rewind();
 
                 ObjectModel oModel = model.getObjectModel(path.getObjectId());
                 if (oModel == null) {
                     LOG.warn("No model for object {}. The tlv is decoded assuming this is a single instance object",
                             path.getObjectId());
-                    instances.put(0, parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model));
+                    instances.put(0, parseObjectInstanceTlv(reader, path.getObjectId(), 0, model));
                 } else if (!oModel.multiple) {
-                    instances.put(0, parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model));
+                    instances.put(0, parseObjectInstanceTlv(reader, path.getObjectId(), 0, model));
                 } else {
                     // this is strange "create without instance ID" case ...
                     instances.put(LwM2mObjectInstance.UNDEFINED,
-                            parseObjectInstanceTlvWithoutId(tlvs, path.getObjectId(), model));
+                            parseObjectInstanceTlvWithoutId(reader, path.getObjectId(), model));
                 }
             } else {
-                for (Tlv tlv : tlvs) {
-                    if (tlv.getType() != TlvType.OBJECT_INSTANCE)
+                reader.rewind();
+                while (reader.next()) {
+                    if (reader.getType() != TlvType.OBJECT_INSTANCE)
                         throw new CodecException("Expected TLV of type OBJECT_INSTANCE but was %s  [path:%s]",
-                                tlv.getType().name(), path);
+                                reader.getType().name(), path);
 
-                    LwM2mObjectInstance objectInstance = parseObjectInstanceTlv(tlv.getChildren(), path.getObjectId(),
-                            tlv.getIdentifier(), model);
+                    int instanceId = reader.getIdentifier();
+                    reader.enter();
+                    LwM2mObjectInstance objectInstance = parseObjectInstanceTlv(reader, path.getObjectId(),
+                            instanceId, model);
+                    reader.exit();
                     LwM2mObjectInstance previousObjectInstance = instances.put(objectInstance.getId(), objectInstance);
                     if (previousObjectInstance != null) {
                         throw new CodecException(
@@ -106,92 +112,98 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
         // Object instance
         else if (nodeClass == LwM2mObjectInstance.class) {
 
-            if (tlvs.length == 1 && tlvs[0].getType() == TlvType.OBJECT_INSTANCE) {
-                if (path.isObjectInstance() && tlvs[0].getIdentifier() != path.getObjectInstanceId()) {
+            if (reader.next() && reader.getType() == TlvType.OBJECT_INSTANCE && !reader.hasNext()) {
+                int instanceId = reader.getIdentifier();
+                if (path.isObjectInstance() && instanceId != path.getObjectInstanceId()) {
                     throw new CodecException("Id conflict between path [%s] and instance TLV [object instance id=%d]",
-                            path, tlvs[0].getIdentifier());
+                            path, instanceId);
                 }
                 // object instance TLV
-                return (T) parseObjectInstanceTlv(tlvs[0].getChildren(), path.getObjectId(), tlvs[0].getIdentifier(),
-                        model);
+                reader.enter();
+                return (T) parseObjectInstanceTlv(reader, path.getObjectId(), instanceId, model);
             } else {
                 // array of TLV resources
+                reader.rewind();
                 // try to retrieve the instanceId from the path or the model
                 Integer instanceId = path.getObjectInstanceId();
                 if (instanceId == null) {
                     // single instance object?
                     ObjectModel oModel = model.getObjectModel(path.getObjectId());
                     if (oModel != null && !oModel.multiple) {
-                        return (T) parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model);
+                        return (T) parseObjectInstanceTlv(reader, path.getObjectId(), 0, model);
                     } else {
                         throw new CodecException(
                                 "Object instance id is mandatory for multiple instances object [path:%s]", path);
                     }
                 } else {
-                    return (T) parseObjectInstanceTlv(tlvs, path.getObjectId(), instanceId, model);
+                    return (T) parseObjectInstanceTlv(reader, path.getObjectId(), instanceId, model);
                 }
             }
         }
 
         // Resource
         else if (nodeClass == LwM2mResource.class) {
+            boolean hasTlv = reader.next();
             // The object instance level should not be here, but if it is provided and consistent we tolerate it
-            if (tlvs.length == 1 && tlvs[0].getType() == TlvType.OBJECT_INSTANCE) {
-                if (tlvs[0].getIdentifier() != path.getObjectInstanceId()) {
+            if (hasTlv && reader.getType() == TlvType.OBJECT_INSTANCE && !reader.hasNext()) {
+                if (reader.getIdentifier() != path.getObjectInstanceId()) {
                     throw new CodecException("Id conflict between path [%s] and instance TLV [object instance id=%d]",
-                            path, tlvs[0].getIdentifier());
+                            path, reader.getIdentifier());
                 }
-                tlvs = tlvs[0].getChildren();
+                reader.enter();
+                hasTlv = reader.next();
             }
 
             ResourceModel resourceModel = model.getResourceModel(path.getObjectId(), path.getResourceId());
-            if (tlvs.length == 0 && resourceModel != null && !resourceModel.multiple) {
+            if (!hasTlv && resourceModel != null && !resourceModel.multiple) {
                 // If there is no TlV value and we know that this resource is a single resource we raise an exception
                 // else we consider this is a multi-instance resource
                 throw new CodecException("TLV payload is mandatory for single resource %s", path);
-            } else if (tlvs.length == 1 && tlvs[0].getType() != TlvType.RESOURCE_INSTANCE) {
-                Tlv tlv = tlvs[0];
-                if (tlv.getType() != TlvType.RESOURCE_VALUE && tlv.getType() != TlvType.MULTIPLE_RESOURCE) {
+            } else if (hasTlv && !reader.hasNext() && reader.getType() != TlvType.RESOURCE_INSTANCE) {
+                if (reader.getType() != TlvType.RESOURCE_VALUE && reader.getType() != TlvType.MULTIPLE_RESOURCE) {
                     throw new CodecException(
                             "Expected TLV of type RESOURCE_VALUE or MUlTIPLE_RESOURCE but was %s [path:%s]",
-                            tlv.getType().name(), path);
+                            reader.getType().name(), path);
                 }
-                if (path.isResource() && path.getResourceId() != tlv.getIdentifier()) {
+                if (path.isResource() && path.getResourceId() != reader.getIdentifier()) {
                     throw new CodecException("Id conflict between path [%s] and resource TLV [resource id=%s]", path,
-                            tlv.getIdentifier());
+                            reader.getIdentifier());
                 }
-                return (T) parseResourceTlv(tlv, path, model);
+                return (T) parseResourceTlv(reader, path, model);
             } else {
+                reader.rewind();
                 Type expectedRscType = getResourceType(path, model);
-                return (T) parseResourceInstancesTlv(tlvs, path, expectedRscType);
+                return (T) parseResourceInstancesTlv(reader, path, expectedRscType);
             }
         }
 
         // Resource Instance
         else if (nodeClass == LwM2mResourceInstance.class) {
-            if (tlvs.length == 0) {
+            if (!reader.next()) {
                 throw new CodecException("TLV payload is mandatory for resource instance %s", path);
-            } else if (tlvs.length > 1) {
+            } else if (reader.hasNext()) {
                 throw new CodecException("TLV payload must contain only 1 resource instance for %s", path);
             } else {
-                Tlv tlv = tlvs[0];
-                if (path.isResourceInstance() && path.getResourceInstanceId() != tlv.getIdentifier()) {
+                if (path.isResourceInstance() && path.getResourceInstanceId() != reader.getIdentifier()) {
                     throw new CodecException("Id conflict between path [%s] and resource instance TLV [resource id=%s]",
-                            path, tlv.getIdentifier());
+                            path, reader.getIdentifier());
                 }
                 Type expectedType = getResourceType(path, model);
-                return (T) parseResourceInstanceTlv(tlv, path, expectedType);
+                return (T) parseResourceInstanceTlv(reader, path, expectedType);
             }
         }
         throw new IllegalArgumentException("invalid node class: " + nodeClass);
     }
 
-    private LwM2mObjectInstance parseObjectInstanceTlv(Tlv[] rscTlvs, int objectId, int instanceId, LwM2mModel model)
-            throws CodecException {
-        Map<Integer, LwM2mResource> resources = new HashMap<>(rscTlvs.length);
-        for (Tlv rscTlv : rscTlvs) {
-            LwM2mPath resourcePath = new LwM2mPath(objectId, instanceId, rscTlv.getIdentifier());
-            LwM2mResource resource = parseResourceTlv(rscTlv, resourcePath, model);
+    /*
+     * Parse all resource TLVs of the current reader level.
+     */
+    private LwM2mObjectInstance parseObjectInstanceTlv(TlvReader reader, int objectId, int instanceId,
+            LwM2mModel model) throws CodecException, TlvException {
+        Map<Integer, LwM2mResource> resources = new HashMap<>();
+        while (reader.next()) {
+            LwM2mPath resourcePath = new LwM2mPath(objectId, instanceId, reader.getIdentifier());
+            LwM2mResource resource = parseResourceTlv(reader, resourcePath, model);
             LwM2mResource previousResource = resources.put(resource.getId(), resource);
             if (previousResource != null) {
                 throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
@@ -202,12 +214,12 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
 
     }
 
-    private LwM2mObjectInstance parseObjectInstanceTlvWithoutId(Tlv[] rscTlvs, int objectId, LwM2mModel model)
-            throws CodecException {
-        Map<Integer, LwM2mResource> resources = new HashMap<>(rscTlvs.length);
-        for (Tlv rscTlv : rscTlvs) {
-            LwM2mPath resourcePath = new LwM2mIncompletePath(objectId, rscTlv.getIdentifier());
-            LwM2mResource resource = parseResourceTlv(rscTlv, resourcePath, model);
+    private LwM2mObjectInstance parseObjectInstanceTlvWithoutId(TlvReader reader, int objectId, LwM2mModel model)
+            throws CodecException, TlvException {
+        Map<Integer, LwM2mResource> resources = new HashMap<>();
+        while (reader.next()) {
+            LwM2mPath resourcePath = new LwM2mIncompletePath(objectId, reader.getIdentifier());
+            LwM2mResource resource = parseResourceTlv(reader, resourcePath, model);
             LwM2mResource previousResource = resources.put(resource.getId(), resource);
             if (previousResource != null) {
                 throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
@@ -217,77 +229,149 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
         return new LwM2mObjectInstance(resources.values());
     }
 
-    private LwM2mResource parseResourceTlv(Tlv tlv, LwM2mPath resourcePath, LwM2mModel model) throws CodecException {
+    /*
+     * Parse the current TLV of the reader as a resource.
+     */
+    private LwM2mResource parseResourceTlv(TlvReader reader, LwM2mPath resourcePath, LwM2mModel model)
+            throws CodecException, TlvException {
         Type expectedType = getResourceType(resourcePath, model);
-        Integer resourceId = tlv.getIdentifier();
-        switch (tlv.getType()) {
+        Integer resourceId = reader.getIdentifier();
+        switch (reader.getType()) {
         case MULTIPLE_RESOURCE:
-            return parseResourceInstancesTlv(tlv.getChildren(), resourcePath, expectedType);
+            reader.enter();
+            LwM2mMultipleResource resource = parseResourceInstancesTlv(reader, resourcePath, expectedType);
+            reader.exit();
+            return resource;
         case RESOURCE_VALUE:
-            return LwM2mSingleResource.newResource(resourceId,
-                    parseTlvValue(tlv.getValue(), expectedType, resourcePath), expectedType);
+            return LwM2mSingleResource.newResource(resourceId, parseTlvValue(reader, expectedType, resourcePath),
+                    expectedType);
         default:
-            throw new CodecException("Invalid TLV type %s for resource %s", tlv.getType(), resourcePath);
+            throw new CodecException("Invalid TLV type %s for resource %s", reader.getType(), resourcePath);
         }
     }
 
-    private LwM2mMultipleResource parseResourceInstancesTlv(Tlv[] tlvs, LwM2mPath resourcePath, Type expectedType)
-            throws CodecException {
-        Map<Integer, LwM2mResourceInstance> instances = new HashMap<>(tlvs.length);
-        for (Tlv tlvChild : tlvs) {
-            if (tlvChild.getType() != TlvType.RESOURCE_INSTANCE)
+    /*
+     * Parse all resource instance TLVs of the current reader level.
+     */
+    private LwM2mMultipleResource parseResourceInstancesTlv(TlvReader reader, LwM2mPath resourcePath,
+            Type expectedType) throws CodecException, TlvException {
+        if (expectedType == Type.INTEGER || expectedType == Type.FLOAT) {
+            return parsePrimitiveResourceInstancesTlv(reader, resourcePath, expectedType);
+        }
+        Map<Integer, LwM2mResourceInstance> instances = new HashMap<>();
+        while (reader.next()) {
+            int resourceInstanceId = reader.getIdentifier();
+            if (reader.getType() != TlvType.RESOURCE_INSTANCE)
                 throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s",
-                        tlvChild.getType().name(), resourcePath.append(tlvChild.getIdentifier()));
+                        reader.getType().name(), resourcePath.append(resourceInstanceId));
 
-            LwM2mResourceInstance resourceInstance = parseResourceInstanceTlv(tlvChild,
-                    resourcePath.append(tlvChild.getIdentifier()), expectedType);
-            LwM2mResourceInstance previousResourceInstance = instances.put(tlvChild.getIdentifier(), resourceInstance);
+            LwM2mResourceInstance resourceInstance = parseResourceInstanceTlv(reader,
+                    resourcePath.append(resourceInstanceId), expectedType);
+            LwM2mResourceInstance previousResourceInstance = instances.put(resourceInstanceId, resourceInstance);
             if (previousResourceInstance != null) {
                 throw new CodecException("2 RESOURCE_INSTANCE nodes (%s,%s) with the same identifier %d for path %s",
-                        previousResourceInstance, resourceInstance, tlvChild.getIdentifier(), resourcePath);
+                        previousResourceInstance, resourceInstance, resourceInstanceId, resourcePath);
             }
         }
         return new LwM2mMultipleResource(resourcePath.getResourceId(), expectedType, instances.values());
     }
 
-    private LwM2mResourceInstance parseResourceInstanceTlv(Tlv tlv, LwM2mPath resourceInstancePath, Type expectedType)
-            throws CodecException {
-        Integer resourceInstanceId = tlv.getIdentifier();
-        if (tlv.getType() != TlvType.RESOURCE_INSTANCE) {
-            throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s", tlv.getType(),
-                    resourceInstancePath);
+    /*
+     * Parse all resource instance TLVs of the current reader level directly in primitive arrays.
+     */
+    private LwM2mMultipleResource parsePrimitiveResourceInstancesTlv(TlvReader reader, LwM2mPath resourcePath,
+            Type expectedType) throws CodecException, TlvException {
+        boolean integer = expectedType == Type.INTEGER;
+        int size = 0;
+        int[] instanceIds = new int[8];
+        long[] longValues = integer ? new long[8] : null;
+        double[] doubleValues = integer ? null : new double[8];
+        while (reader.next()) {
+            int resourceInstanceId = reader.getIdentifier();
+            if (reader.getType() != TlvType.RESOURCE_INSTANCE)
+                throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s",
+                        reader.getType().name(), resourcePath.append(resourceInstanceId));
+
+            if (size == instanceIds.length) {
+                instanceIds = Arrays.copyOf(instanceIds, size * 2);
+                if (integer)
+                    longValues = Arrays.copyOf(longValues, size * 2);
+                else
+                    doubleValues = Arrays.copyOf(doubleValues, size * 2);
+            }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("TLV value for path {} and expected type {}: {}", resourcePath.append(resourceInstanceId),
+                        expectedType, reader.getValueAsHexString());
+            }
+            instanceIds[size] = resourceInstanceId;
+            try {
+                if (integer)
+                    longValues[size] = reader.getInteger();
+                else
+                    doubleValues[size] = reader.getFloat();
+            } catch (TlvException e) {
+                throw new CodecException(e, "Invalid content [%s] for type %s for path %s",
+                        reader.getValueAsHexString(), expectedType, resourcePath.append(resourceInstanceId));
+            }
+            size++;
+        }
+        try {
+            if (integer)
+                return LwM2mMultipleResource.newIntegerResource(resourcePath.getResourceId(), instanceIds, longValues,
+                        size);
+            else
+                return LwM2mMultipleResource.newFloatResource(resourcePath.getResourceId(), instanceIds, doubleValues,
+                        size);
+        } catch (LwM2mNodeException e) {
+            throw new CodecException(e, "Invalid RESOURCE_INSTANCE nodes for path %s: %s", resourcePath,
+                    e.getMessage());
+        }
+    }
+
+    /*
+     * Parse the current TLV of the reader as a resource instance.
+     */
+    private LwM2mResourceInstance parseResourceInstanceTlv(TlvReader reader, LwM2mPath resourceInstancePath,
+            Type expectedType) throws CodecException {
+        Integer resourceInstanceId = reader.getIdentifier();
+        if (reader.getType() != TlvType.RESOURCE_INSTANCE) {
+            throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s",
+                    reader.getType(), resourceInstancePath);
         } else {
             return LwM2mResourceInstance.newInstance(resourceInstanceId,
-                    parseTlvValue(tlv.getValue(), expectedType, resourceInstancePath), expectedType);
+                    parseTlvValue(reader, expectedType, resourceInstancePath), expectedType);
         }
 
     }
 
-    private Object parseTlvValue(byte[] value, Type expectedType, LwM2mPath path) throws CodecException {
+    private Object parseTlvValue(TlvReader reader, Type expectedType, LwM2mPath path) throws CodecException {
         try {
-            LOG.trace("TLV value for path {} and expected type {}: {}", path, expectedType, value);
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("TLV value for path {} and expected type {}: {}", path, expectedType,
+                        reader.getValueAsHexString());
+            }
             switch (expectedType) {
             case STRING:
-                return TlvDecoder.decodeString(value);
+                return reader.getString();
             case INTEGER:
-                return TlvDecoder.decodeInteger(value).longValue();
+                return reader.getInteger();
             case UNSIGNED_INTEGER:
-                return ULong.valueOf(TlvDecoder.decodeInteger(value).longValue());
+                return ULong.valueOf(reader.getInteger());
             case FLOAT:
-                return TlvDecoder.decodeFloat(value).doubleValue();
+                return reader.getFloat();
             case BOOLEAN:
-                return TlvDecoder.decodeBoolean(value);
+                return reader.getBoolean();
             case TIME:
-                return TlvDecoder.decodeDate(value);
+                return reader.getDate();
             case OPAQUE:
-                return value;
+                return reader.getOpaque();
             case OBJLNK:
-                return TlvDecoder.decodeObjlnk(value);
+                return reader.getObjlnk();
             default:
                 throw new CodecException("Unsupported type %s for path %s", expectedType, path);
             }
         } catch (TlvException e) {
-            throw new CodecException(e, "Invalid content [%s] for type %s for path %s", Hex.encodeHexString(value),
+            throw new CodecException(e, "Invalid content [%s] for type %s for path %s", reader.getValueAsHexString(),
                     expectedType, path);
         }
     }
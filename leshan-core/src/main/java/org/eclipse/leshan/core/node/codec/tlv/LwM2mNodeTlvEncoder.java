@@ -15,8 +15,8 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.tlv;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map.Entry;
@@ -36,15 +36,17 @@ import org.eclipse.leshan.core.node.ObjectLink;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
 import org.eclipse.leshan.core.node.codec.NodeEncoder;
-import org.eclipse.leshan.core.tlv.Tlv;
 import org.eclipse.leshan.core.tlv.Tlv.TlvType;
-import org.eclipse.leshan.core.tlv.TlvEncoder;
+import org.eclipse.leshan.core.tlv.TlvWriter;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * TLV encoder for {@link LwM2mNode}.
+ * <p>
+ * The node is encoded in 2 passes : the first one converts values and computes the size of each TLV, the second one
+ * writes them directly in a buffer of the exact size.
  */
 public class LwM2mNodeTlvEncoder implements NodeEncoder {
 
@@ -53,6 +55,41 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
     @Override
     public byte[] encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter)
             throws CodecException {
+        InternalEncoder internalEncoder = prepare(node, path, model, converter);
+
+        byte[] encoded = new byte[internalEncoder.size];
+        internalEncoder.write(new TlvWriter(ByteBuffer.wrap(encoded)));
+        return encoded;
+    }
+
+    /**
+     * Serializes a {@link LwM2mNode} at the current position of the given buffer. The position of the buffer is moved
+     * after the written TLVs.
+     *
+     * @param node the object/instance/resource to serialize
+     * @param path the path of the node to serialize
+     * @param model the collection of supported object models
+     * @param converter a data type converter.
+     * @param out the buffer to write into.
+     * @return the number of bytes written.
+     * 
+     * @throws CodecException if the node can not be encoded or if there is not enough space remaining in the buffer,
+     *         in this case nothing is written.
+     */
+    public int encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter,
+            ByteBuffer out) throws CodecException {
+        InternalEncoder internalEncoder = prepare(node, path, model, converter);
+
+        if (internalEncoder.size > out.remaining()) {
+            throw new CodecException("Not enough space to encode %s : %d bytes needed but only %d remaining", path,
+                    internalEncoder.size, out.remaining());
+        }
+        internalEncoder.write(new TlvWriter(out));
+        return internalEncoder.size;
+    }
+
+    private InternalEncoder prepare(LwM2mNode node, LwM2mPath path, LwM2mModel model,
+            LwM2mValueConverter converter) {
         Validate.notNull(node);
         Validate.notNull(path);
         Validate.notNull(model);
@@ -62,9 +99,13 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         internalEncoder.model = model;
         internalEncoder.converter = converter;
         node.accept(internalEncoder);
-        return internalEncoder.out.toByteArray();
+        return internalEncoder;
     }
 
+    /*
+     * Visitor which flattens the node in the list of TLVs to write, in the order they must be written (a container
+     * before its children).
+     */
     private static class InternalEncoder implements LwM2mNodeVisitor {
 
         // visitor inputs
@@ -73,28 +114,22 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         private LwM2mValueConverter converter;
 
         // visitor output
-        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int count = 0;
+        private TlvType[] types = new TlvType[16];
+        private int[] identifiers = new int[16];
+        private int[] lengths = new int[16];
+        private Object[] values = new Object[16];
+        private Type[] valueTypes = new Type[16];
+        private int size = 0;
 
         @Override
         public void visit(LwM2mObject object) {
             LOG.trace("Encoding object {} into TLV", object);
 
-            Tlv[] tlvs;
-
             // encoded as an array of instances
-            tlvs = new Tlv[object.getInstances().size()];
-            int i = 0;
             for (Entry<Integer, LwM2mObjectInstance> instance : object.getInstances().entrySet()) {
-                Tlv[] resources = encodeResources(instance.getValue().getResources().values(),
+                size += addObjectInstance(instance.getKey(), instance.getValue().getResources().values(),
                         new LwM2mPath(object.getId(), instance.getKey()));
-                tlvs[i] = new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getKey());
-                i++;
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
             }
         }
 
@@ -102,23 +137,15 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mObjectInstance instance) {
             LOG.trace("Encoding object instance {} into TLV", instance);
 
-            Tlv[] tlvs;
             if (path.isObjectInstance() || instance.getId() == LwM2mObjectInstance.UNDEFINED) {
                 // the instanceId is part of the request path or is undefined
                 // so the instance TLV layer is not needed.
                 // encoded as an array of resource TLVs
-                tlvs = encodeResources(instance.getResources().values(), new LwM2mIncompletePath(path.getObjectId()));
+                size += addResources(instance.getResources().values(), new LwM2mIncompletePath(path.getObjectId()));
             } else {
                 // encoded as an instance TLV
-                Tlv[] resources = encodeResources(instance.getResources().values(),
+                size += addObjectInstance(instance.getId(), instance.getResources().values(),
                         new LwM2mPath(path.getObjectId(), instance.getId()));
-                tlvs = new Tlv[] { new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getId()) };
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
             }
         }
 
@@ -126,102 +153,157 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mResource resource) {
             LOG.trace("Encoding resource {} into TLV", resource);
 
-            Tlv rTlv = encodeResource(resource, path);
+            size += addResource(resource, path);
+        }
 
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+        @Override
+        public void visit(LwM2mResourceInstance resourceInstance) {
+            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
+
+            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
+            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
+
+            size += addResourceInstance(resourceInstance, path, expectedType);
+        }
+
+        private int addObjectInstance(int instanceId, Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            int index = add(TlvType.OBJECT_INSTANCE, instanceId, null, null);
+            return close(index, addResources(resources, instancePath), instancePath);
         }
 
-        private Tlv[] encodeResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
-            Tlv[] rTlvs = new Tlv[resources.size()];
-            int i = 0;
+        private int addResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            int length = 0;
             for (LwM2mResource resource : resources) {
-                rTlvs[i] = encodeResource(resource, instancePath.append(resource.getId()));
-                i++;
+                length += addResource(resource, instancePath.append(resource.getId()));
             }
-            return rTlvs;
+            return length;
         }
 
-        private Tlv encodeResource(LwM2mResource resource, LwM2mPath resourcePath) {
+        private int addResource(LwM2mResource resource, LwM2mPath resourcePath) {
             ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
             Type expectedType = rSpec != null ? rSpec.type : resource.getType();
 
-            Tlv rTlv;
             if (resource.isMultiInstances()) {
-                Tlv[] instances = new Tlv[resource.getInstances().size()];
-                int i = 0;
+                int index = add(TlvType.MULTIPLE_RESOURCE, resource.getId(), null, null);
+                int length = 0;
                 for (LwM2mResourceInstance resourceInstance : resource.getInstances().values()) {
                     LwM2mPath resourceInstancePath = resourcePath.append(resourceInstance.getId());
-                    instances[i] = encodeResourceInstance(resourceInstance, resourceInstancePath, expectedType);
-                    i++;
+                    length += addResourceInstance(resourceInstance, resourceInstancePath, expectedType);
                 }
-                rTlv = new Tlv(TlvType.MULTIPLE_RESOURCE, instances, null, resource.getId());
+                return close(index, length, resourcePath);
             } else {
                 Object convertedValue = converter.convertValue(resource.getValue(), resource.getType(), expectedType,
                         resourcePath);
-                rTlv = new Tlv(TlvType.RESOURCE_VALUE, null,
-                        this.encodeTlvValue(convertedValue, expectedType, resourcePath), resource.getId());
+                return addValue(TlvType.RESOURCE_VALUE, resource.getId(), convertedValue, expectedType, resourcePath);
             }
-            return rTlv;
         }
 
-        @Override
-        public void visit(LwM2mResourceInstance resourceInstance) {
-            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
-
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
-            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
+        private int addResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
+                Type expectedType) {
+            Object convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
+                    expectedType, resourceInstancePath);
+            return addValue(TlvType.RESOURCE_INSTANCE, resourceInstance.getId(), convertedValue, expectedType,
+                    resourceInstancePath);
+        }
 
-            Tlv rTlv = encodeResourceInstance(resourceInstance, path, expectedType);
+        private int addValue(TlvType type, int identifier, Object value, Type valueType, LwM2mPath path) {
+            int length = valueLength(value, valueType, path);
+            return close(add(type, identifier, value, valueType), length, path);
+        }
 
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+        private int add(TlvType type, int identifier, Object value, Type valueType) {
+            if (count == types.length) {
+                int newCapacity = count * 2;
+                types = Arrays.copyOf(types, newCapacity);
+                identifiers = Arrays.copyOf(identifiers, newCapacity);
+                lengths = Arrays.copyOf(lengths, newCapacity);
+                values = Arrays.copyOf(values, newCapacity);
+                valueTypes = Arrays.copyOf(valueTypes, newCapacity);
             }
+            types[count] = type;
+            identifiers[count] = identifier;
+            values[count] = value;
+            valueTypes[count] = valueType;
+            return count++;
         }
 
-        private Tlv encodeResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
-                Type expectedType) {
-            Object convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
-                    expectedType, resourceInstancePath);
-            return new Tlv(TlvType.RESOURCE_INSTANCE, null,
-                    this.encodeTlvValue(convertedValue, expectedType, resourceInstancePath), resourceInstance.getId());
+        /*
+         * Set the length of the TLV at the given index and return its encoded size.
+         */
+        private int close(int index, int length, LwM2mPath path) {
+            lengths[index] = length;
+            try {
+                return TlvWriter.sizeOf(identifiers[index], length);
+            } catch (IllegalArgumentException e) {
+                throw new CodecException(e, "Unable to encode %s in TLV : %d bytes value is too large", path, length);
+            }
         }
 
-        private byte[] encodeTlvValue(Object value, Type type, LwM2mPath path) {
+        private int valueLength(Object value, Type type, LwM2mPath path) {
             LOG.trace("Encoding value {} in TLV", value);
             if (type == null || type == Type.NONE) {
                 throw new CodecException(
                         "Unable to encode value for resource {} without type(probably a executable one)", path);
             }
 
-            try {
-                switch (type) {
-                case STRING:
-                    return TlvEncoder.encodeString((String) value);
-                case INTEGER:
-                case UNSIGNED_INTEGER:
-                    return TlvEncoder.encodeInteger((Number) value);
-                case FLOAT:
-                    return TlvEncoder.encodeFloat((Number) value);
-                case BOOLEAN:
-                    return TlvEncoder.encodeBoolean((Boolean) value);
-                case TIME:
-                    return TlvEncoder.encodeDate((Date) value);
-                case OPAQUE:
-                    return (byte[]) value;
-                case OBJLNK:
-                    return TlvEncoder.encodeObjlnk((ObjectLink) value);
-                default:
-                    throw new CodecException("Invalid value %s for type %s of %s", value, type, path);
+            switch (type) {
+            case STRING:
+                return TlvWriter.sizeOfString((String) value);
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+                return TlvWriter.sizeOfInteger(((Number) value).longValue());
+            case FLOAT:
+                return TlvWriter.sizeOfFloat((Number) value);
+            case BOOLEAN:
+                return 1;
+            case TIME:
+                return 4;
+            case OPAQUE:
+                return ((byte[]) value).length;
+            case OBJLNK:
+                return 4;
+            default:
+                throw new CodecException("Invalid value %s for type %s of %s", value, type, path);
+            }
+        }
+
+        private void write(TlvWriter writer) {
+            for (int i = 0; i < count; i++) {
+                writer.writeHeader(types[i], identifiers[i], lengths[i]);
+                if (valueTypes[i] != null) {
+                    writeValue(writer, values[i], valueTypes[i]);
                 }
-            } catch (IllegalArgumentException e) {
-                throw new CodecException(e, "Invalid value %s for type %s of %s", value, type, path);
+            }
+        }
+
+        private void writeValue(TlvWriter writer, Object value, Type type) {
+            switch (type) {
+            case STRING:
+                writer.writeString((String) value);
+                break;
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+                writer.writeInteger(((Number) value).longValue());
+                break;
+            case FLOAT:
+                writer.writeFloat((Number) value);
+                break;
+            case BOOLEAN:
+                writer.writeBoolean((Boolean) value);
+                break;
+            case TIME:
+                writer.writeDate((Date) value);
+                break;
+            case OPAQUE:
+                writer.writeOpaque((byte[]) value);
+                break;
+            case OBJLNK:
+                writer.writeObjlnk((ObjectLink) value);
+                break;
+            default:
+                // already checked when computing size
+                throw new IllegalStateException("Unexpected type " + type);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,384 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.eclipse.leshan.core.util.Hex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cursor-style TLV reader which walks a {@link ByteBuffer} in place.
+ * <p>
+ * Unlike {@link TlvDecoder#decode(ByteBuffer)}, no {@link Tlv} object is created and values are not copied : they can
+ * be read directly from the buffer using primitive getters (e.g. {@link #getInteger()}, {@link #getString()}).
+ * <p>
+ * Usage :
+ * 
+ * <pre>
+ * TlvReader reader = new TlvReader(buffer);
+ * while (reader.next()) {
+ *     if (reader.getType() == TlvType.OBJECT_INSTANCE) {
+ *         reader.enter();
+ *         while (reader.next()) {
+ *             // read resources
+ *         }
+ *         reader.exit();
+ *     }
+ * }
+ * </pre>
+ * 
+ * The position of the given buffer is never modified. This class is not thread-safe.
+ */
+public class TlvReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TlvReader.class);
+
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int end;
+
+    // boundaries of the current level
+    private int levelStart;
+    private int levelEnd;
+    // stack of parent levels : start, end and position of the container
+    private int[] levels = new int[9];
+    private int depth = 0;
+
+    // position of the next TLV at current level
+    private int position;
+
+    // current TLV
+    private TlvType type;
+    private int identifier;
+    private int valueOffset;
+    private int length;
+
+    /**
+     * Create a reader for the TLVs between the position and the limit of the given buffer.
+     */
+    public TlvReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.start = ((Buffer) buffer).position();
+        this.end = ((Buffer) buffer).limit();
+        this.levelStart = start;
+        this.levelEnd = end;
+        this.position = start;
+    }
+
+    /**
+     * Move to the next TLV at the current level.
+     * 
+     * @return <code>false</code> if there is no more TLV at this level.
+     * @throws TlvException if the TLV header is invalid.
+     */
+    public boolean next() throws TlvException {
+        if (position >= levelEnd) {
+            type = null;
+            return false;
+        }
+
+        int p = position;
+
+        // decode type
+        int typeByte = buffer.get(p++) & 0xFF;
+        switch (typeByte & 0b1100_0000) {
+        case 0b0000_0000:
+            type = TlvType.OBJECT_INSTANCE;
+            break;
+        case 0b0100_0000:
+            type = TlvType.RESOURCE_INSTANCE;
+            break;
+        case 0b1000_0000:
+            type = TlvType.MULTIPLE_RESOURCE;
+            break;
+        default:
+            type = TlvType.RESOURCE_VALUE;
+            break;
+        }
+
+        // decode identifier
+        if ((typeByte & 0b0010_0000) == 0) {
+            checkAvailable(p, 1, "identifier");
+            identifier = buffer.get(p++) & 0xFF;
+        } else {
+            checkAvailable(p, 2, "identifier");
+            identifier = readUnsigned(p, 2);
+            p += 2;
+        }
+
+        // decode length
+        int lengthType = typeByte & 0b0001_1000;
+        switch (lengthType) {
+        case 0b0000_0000:
+            // 3 bit length
+            length = typeByte & 0b0000_0111;
+            break;
+        case 0b0000_1000:
+            // 8 bit length
+            checkAvailable(p, 1, "length");
+            length = buffer.get(p++) & 0xFF;
+            break;
+        case 0b0001_0000:
+            // 16 bit length
+            checkAvailable(p, 2, "length");
+            length = readUnsigned(p, 2);
+            p += 2;
+            break;
+        default:
+            // 24 bit length
+            checkAvailable(p, 3, "length");
+            length = readUnsigned(p, 3);
+            p += 3;
+            break;
+        }
+
+        // check value
+        if (length > levelEnd - p) {
+            throw new TlvException("Invalid 'value' length");
+        }
+        valueOffset = p;
+        position = p + length;
+        LOG.trace("decoding {} {} of length {}", type, identifier, length);
+        return true;
+    }
+
+    /**
+     * @return <code>true</code> if there is at least one more TLV after the current one at the current level.
+     */
+    public boolean hasNext() {
+        return position < levelEnd;
+    }
+
+    /**
+     * Move back before the first TLV of the current level.
+     */
+    public void rewind() {
+        position = levelStart;
+        type = null;
+    }
+
+    /**
+     * Go down in the current TLV container (OBJECT_INSTANCE or MULTIPLE_RESOURCE). Children are then read using
+     * {@link #next()} until {@link #exit()} is called.
+     */
+    public void enter() {
+        if (!isContainer()) {
+            throw new IllegalStateException("Current TLV is not a container : " + type);
+        }
+        if (depth + 3 > levels.length) {
+            levels = Arrays.copyOf(levels, levels.length * 2);
+        }
+        levels[depth++] = levelStart;
+        levels[depth++] = levelEnd;
+        levels[depth++] = position;
+
+        levelStart = valueOffset;
+        levelEnd = valueOffset + length;
+        position = levelStart;
+        type = null;
+    }
+
+    /**
+     * Go back to the parent level, just after the container which was entered.
+     */
+    public void exit() {
+        if (depth == 0) {
+            throw new IllegalStateException("Not in a TLV container");
+        }
+        position = levels[--depth];
+        levelEnd = levels[--depth];
+        levelStart = levels[--depth];
+        type = null;
+    }
+
+    /**
+     * @return the type of the current TLV.
+     */
+    public TlvType getType() {
+        return type;
+    }
+
+    /**
+     * @return the identifier of the current TLV.
+     */
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * @return the length of the value of the current TLV.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return <code>true</code> if the current TLV contains other TLVs.
+     */
+    public boolean isContainer() {
+        return type == TlvType.OBJECT_INSTANCE || type == TlvType.MULTIPLE_RESOURCE;
+    }
+
+    /**
+     * @return a read-only view of the value of the current TLV, no data is copied.
+     */
+    public ByteBuffer getValue() {
+        ByteBuffer value = buffer.asReadOnlyBuffer();
+        // HACK the cast is necessary for binary backward compatibility bug introduce in Java 9
+        // https://github.com/apache/felix/pull/114
+        ((Buffer) value).limit(valueOffset + length);
+        ((Buffer) value).position(valueOffset);
+        return value.slice();
+    }
+
+    /**
+     * @return a copy of the value of the current TLV.
+     */
+    public byte[] getOpaque() {
+        byte[] value = new byte[length];
+        copy(valueOffset, value);
+        return value;
+    }
+
+    /**
+     * Decodes the current value as an UTF-8 string.
+     */
+    public String getString() {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + valueOffset, length, StandardCharsets.UTF_8);
+        }
+        return new String(getOpaque(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the current value as a signed integer of 1 to 8 bytes.
+     */
+    public long getInteger() throws TlvException {
+        if (length == 0 || length > 8) {
+            throw new TlvException("Invalid length for an integer value: " + length);
+        }
+        // sign extension of the first byte
+        long value = buffer.get(valueOffset);
+        for (int i = 1; i < length; i++) {
+            value = (value << 8) | (buffer.get(valueOffset + i) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the current value as a float of 4 or 8 bytes.
+     */
+    public double getFloat() throws TlvException {
+        if (length == 4) {
+            return Float.intBitsToFloat((int) readLong(valueOffset, 4));
+        } else if (length == 8) {
+            return Double.longBitsToDouble(readLong(valueOffset, 8));
+        } else {
+            throw new TlvException("Invalid length for a float value: " + length);
+        }
+    }
+
+    /**
+     * Decodes the current value as a boolean.
+     */
+    public boolean getBoolean() throws TlvException {
+        if (length == 1) {
+            byte value = buffer.get(valueOffset);
+            if (value == 0) {
+                return false;
+            } else if (value == 1) {
+                return true;
+            } else {
+                LOG.warn("Boolean value should be encoded as integer with value 0 or 1, not {}", value);
+                return false;
+            }
+        }
+        throw new TlvException("Invalid length for a boolean value: " + length);
+    }
+
+    /**
+     * Decodes the current value as a date (number of seconds since epoch).
+     */
+    public Date getDate() throws TlvException {
+        if (length == 0 || length > 8) {
+            throw new TlvException("Invalid length for a time value: " + length);
+        }
+        return new Date(getInteger() * 1000L);
+    }
+
+    /**
+     * Decodes the current value as an object link.
+     */
+    public ObjectLink getObjlnk() throws TlvException {
+        if (length != 4) {
+            throw new TlvException("Invalid length for an objlnk value: " + length);
+        }
+        return new ObjectLink(readUnsigned(valueOffset, 2), readUnsigned(valueOffset + 2, 2));
+    }
+
+    /**
+     * @return the hexadecimal representation of all the content read by this reader, used for logging and error
+     *         messages.
+     */
+    public String toHexString() {
+        byte[] content = new byte[end - start];
+        copy(start, content);
+        return Hex.encodeHexString(content);
+    }
+
+    /**
+     * @return the hexadecimal representation of the value of the current TLV.
+     */
+    public String getValueAsHexString() {
+        return Hex.encodeHexString(getOpaque());
+    }
+
+    private void checkAvailable(int p, int size, String field) throws TlvException {
+        if (p + size > levelEnd) {
+            throw new TlvException("Invalid '" + field + "' length");
+        }
+    }
+
+    private int readUnsigned(int p, int size) {
+        return (int) readLong(p, size);
+    }
+
+    private long readLong(int p, int size) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value = (value << 8) | (buffer.get(p + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private void copy(int from, byte[] destination) {
+        if (buffer.hasArray()) {
+            System.arraycopy(buffer.array(), buffer.arrayOffset() + from, destination, 0, destination.length);
+        } else {
+            for (int i = 0; i < destination.length; i++) {
+                destination[i] = buffer.get(from + i);
+            }
+        }
+    }
+}
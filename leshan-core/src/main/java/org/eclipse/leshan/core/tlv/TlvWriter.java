@@ -0,0 +1,266 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+
+/**
+ * A TLV writer which writes headers and values directly into a {@link ByteBuffer}, without creating {@link Tlv}
+ * objects or intermediate byte arrays.
+ * <p>
+ * As the length of a container TLV is written before its content, sizes must be computed before writing using the
+ * static <code>sizeOf*</code> methods. Values are written in network byte order whatever the order of the buffer.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class TlvWriter {
+
+    private static final int MAX_LENGTH_8BIT = 256;
+    private static final int MAX_LENGTH_16BIT = 65_536;
+    private static final int MAX_LENGTH_24BIT = 16_777_216;
+
+    private final ByteBuffer out;
+
+    /**
+     * Create a writer which writes at the current position of the given buffer.
+     */
+    public TlvWriter(ByteBuffer out) {
+        this.out = out;
+    }
+
+    /**
+     * @return the buffer this writer writes into.
+     */
+    public ByteBuffer getBuffer() {
+        return out;
+    }
+
+    /**
+     * Writes a TLV header. It must be followed by exactly <code>length</code> bytes of value or children TLVs.
+     * 
+     * @param type the type of the TLV
+     * @param identifier the TLV identifier (resource id, instance id,..)
+     * @param length the length of the value, or the encoded size of the children for a container.
+     */
+    public void writeHeader(TlvType type, int identifier, int length) {
+        int typeByte;
+        switch (type) {
+        case OBJECT_INSTANCE:
+            typeByte = 0b00_000000;
+            break;
+        case RESOURCE_INSTANCE:
+            typeByte = 0b01_000000;
+            break;
+        case MULTIPLE_RESOURCE:
+            typeByte = 0b10_000000;
+            break;
+        case RESOURCE_VALUE:
+            typeByte = 0b11_000000;
+            break;
+        default:
+            throw new IllegalArgumentException("unknown TLV type : '" + type + "'");
+        }
+
+        // encode identifier length
+        typeByte |= (identifier < MAX_LENGTH_8BIT) ? 0b00_0000 : 0b10_0000;
+
+        // type of length
+        if (length < 8) {
+            typeByte |= length;
+        } else if (length < MAX_LENGTH_8BIT) {
+            typeByte |= 0b0000_1000;
+        } else if (length < MAX_LENGTH_16BIT) {
+            typeByte |= 0b0001_0000;
+        } else if (length < MAX_LENGTH_24BIT) {
+            typeByte |= 0b0001_1000;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+
+        out.put((byte) typeByte);
+        if (identifier < MAX_LENGTH_8BIT) {
+            out.put((byte) identifier);
+        } else {
+            writeBigEndian(identifier, 2);
+        }
+
+        if (length >= 8) {
+            if (length < MAX_LENGTH_8BIT) {
+                out.put((byte) length);
+            } else if (length < MAX_LENGTH_16BIT) {
+                writeBigEndian(length, 2);
+            } else {
+                writeBigEndian(length, 3);
+            }
+        }
+    }
+
+    /**
+     * Writes an integer value using {@link #sizeOfInteger(long)} bytes.
+     */
+    public void writeInteger(long value) {
+        writeBigEndian(value, sizeOfInteger(value));
+    }
+
+    /**
+     * Writes a floating point value, on 4 bytes for {@link Float} else on 8 bytes.
+     */
+    public void writeFloat(Number value) {
+        if (value instanceof Float) {
+            writeBigEndian(Float.floatToIntBits(value.floatValue()), 4);
+        } else {
+            writeBigEndian(Double.doubleToLongBits(value.doubleValue()), 8);
+        }
+    }
+
+    /**
+     * Writes a boolean value.
+     */
+    public void writeBoolean(boolean value) {
+        out.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Writes a date value as a number of seconds since epoch, on 4 bytes.
+     */
+    public void writeDate(Date value) {
+        writeBigEndian((int) (value.getTime() / 1000L), 4);
+    }
+
+    /**
+     * Writes an object link value.
+     */
+    public void writeObjlnk(ObjectLink value) {
+        writeBigEndian(value.getObjectId(), 2);
+        writeBigEndian(value.getObjectInstanceId(), 2);
+    }
+
+    /**
+     * Writes a string value encoded in UTF-8, using {@link #sizeOfString(String)} bytes.
+     */
+    public void writeString(String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                // malformed, replaced as String.getBytes() does
+                out.put((byte) '?');
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Writes an opaque value.
+     */
+    public void writeOpaque(byte[] value) {
+        out.put(value);
+    }
+
+    private void writeBigEndian(long value, int size) {
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+            out.put((byte) (value >> shift));
+        }
+    }
+
+    /**
+     * @return the encoded size of a TLV (header and value) with the given identifier and value length.
+     */
+    public static int sizeOf(int identifier, int length) {
+        int size = 1 /* HEADER */;
+        size += (identifier < MAX_LENGTH_8BIT) ? 1 : 2; /* 8 bits or 16 bits identifiers */
+
+        if (length < 8) {
+            size += 0;
+        } else if (length < MAX_LENGTH_8BIT) {
+            size += 1;
+        } else if (length < MAX_LENGTH_16BIT) {
+            size += 2;
+        } else if (length < MAX_LENGTH_24BIT) {
+            size += 3;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+
+        return size + length;
+    }
+
+    /**
+     * @return the number of bytes needed to encode the given integer : 1, 2, 4 or 8.
+     */
+    public static int sizeOfInteger(long value) {
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            return 1;
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            return 2;
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return 4;
+        } else {
+            return 8;
+        }
+    }
+
+    /**
+     * @return the number of bytes needed to encode the given floating point value : 4 or 8.
+     */
+    public static int sizeOfFloat(Number value) {
+        return value instanceof Float ? 4 : 8;
+    }
+
+    /**
+     * @return the number of bytes needed to encode the given string in UTF-8.
+     */
+    public static int sizeOfString(String value) {
+        int size = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                size += 1;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+}
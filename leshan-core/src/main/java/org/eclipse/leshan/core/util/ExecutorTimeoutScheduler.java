@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link TimeoutScheduler} based on a {@link ScheduledExecutorService}.
+ * <p>
+ * The executor is not owned by this scheduler, so it is not shutdown on {@link #destroy()}.
+ */
+public class ExecutorTimeoutScheduler implements TimeoutScheduler {
+
+    private final ScheduledExecutorService executor;
+
+    public ExecutorTimeoutScheduler(ScheduledExecutorService executor) {
+        Validate.notNull(executor);
+        this.executor = executor;
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        final ScheduledFuture<?> future;
+        try {
+            future = executor.schedule(task, delay, unit);
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Executor is shutdown", e);
+        }
+        return new Timeout() {
+            @Override
+            public boolean cancel() {
+                return future.cancel(false);
+            }
+        };
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link TimeoutScheduler} based on a hashed wheel timer.
+ * <p>
+ * Timeouts are stored in a wheel of buckets, each bucket covering a tick duration. A single thread moves from one
+ * bucket to the next at each tick and executes expired tasks. Scheduling and cancelling a timeout is O(1) and does not
+ * need any lock, which makes it well suited for a large number of short-lived timeouts like request response timeouts
+ * which are mostly cancelled before they expire.
+ * <p>
+ * The precision of this scheduler is the tick duration : a task is executed between its deadline and its deadline plus
+ * one tick.
+ * <p>
+ * The thread is started on first {@link #schedule(Runnable, long, TimeUnit)} call and stopped on {@link #destroy()}.
+ * One instance can be shared by several components.
+ */
+public class HashedWheelTimeoutScheduler implements TimeoutScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HashedWheelTimeoutScheduler.class);
+
+    public static final long DEFAULT_TICK_DURATION_IN_MS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int STATE_INIT = 0;
+    private static final int STATE_STARTED = 1;
+    private static final int STATE_SHUTDOWN = 2;
+
+    // limit the number of timeouts moved to the wheel at each tick to not delay expiration
+    private static final int MAX_TRANSFER_PER_TICK = 100000;
+
+    private final ThreadFactory threadFactory;
+    private final long tickDurationInNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+
+    private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTimeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger state = new AtomicInteger(STATE_INIT);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile long startTime;
+    // created eagerly so it is safely published before the state becomes STARTED
+    private final Thread worker;
+
+    /**
+     * Create a scheduler with default tick duration (100ms) and wheel size (512).
+     */
+    public HashedWheelTimeoutScheduler() {
+        this(new NamedThreadFactory("Leshan Timeout Scheduler"), DEFAULT_TICK_DURATION_IN_MS, TimeUnit.MILLISECONDS,
+                DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param threadFactory factory used to create the thread in charge of timeout detection.
+     * @param tickDuration the duration covered by one bucket of the wheel.
+     * @param unit the unit of the tick duration.
+     * @param wheelSize the number of buckets of the wheel, rounded up to a power of 2.
+     */
+    public HashedWheelTimeoutScheduler(ThreadFactory threadFactory, long tickDuration, TimeUnit unit,
+            int wheelSize) {
+        Validate.notNull(threadFactory);
+        Validate.notNull(unit);
+        Validate.isTrue(tickDuration > 0, "tickDuration must be greater than 0");
+        Validate.isTrue(wheelSize > 0 && wheelSize <= 1 << 30, "wheelSize must be between 1 and 2^30");
+
+        this.threadFactory = threadFactory;
+        this.tickDurationInNanos = unit.toNanos(tickDuration);
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.worker = threadFactory.newThread(new Worker());
+    }
+
+    @Override
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        Validate.notNull(task);
+        Validate.notNull(unit);
+        start();
+
+        long deadline = System.nanoTime() - startTime + unit.toNanos(delay);
+        // guard against overflow
+        if (delay > 0 && deadline < 0) {
+            deadline = Long.MAX_VALUE;
+        }
+        WheelTimeout timeout = new WheelTimeout(this, task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts scheduled and not yet expired or cancelled. This is an estimate as it is
+     *         computed without lock.
+     */
+    public int getPendingCount() {
+        int count = pendingTimeouts.size();
+        for (Bucket bucket : wheel) {
+            count += bucket.size;
+        }
+        return count;
+    }
+
+    /**
+     * Stop the thread in charge of timeout detection. Tasks not yet executed are dropped.
+     */
+    @Override
+    public void destroy() {
+        int previous = state.getAndSet(STATE_SHUTDOWN);
+        if (previous == STATE_STARTED) {
+            worker.interrupt();
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                LOG.warn("Destroying HashedWheelTimeoutScheduler was interrupted.", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void start() {
+        switch (state.get()) {
+        case STATE_INIT:
+            if (state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+                startTime = System.nanoTime();
+                worker.start();
+                started.countDown();
+            }
+            break;
+        case STATE_STARTED:
+            break;
+        default:
+            throw new IllegalStateException("Timeout scheduler is destroyed");
+        }
+
+        // wait until start time is initialized
+        while (started.getCount() != 0) {
+            try {
+                started.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting timeout scheduler start", e);
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+        private long tick = 0;
+
+        @Override
+        public void run() {
+            while (state.get() == STATE_STARTED) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                removeCancelledTimeouts();
+                transferPendingTimeouts();
+                wheel[(int) (tick & mask)].expireTimeouts();
+                tick++;
+            }
+            // release references to dropped tasks
+            for (Bucket bucket : wheel) {
+                bucket.clear();
+            }
+            pendingTimeouts.clear();
+            cancelledTimeouts.clear();
+        }
+
+        /*
+         * Sleep until the end of current tick, return false if the scheduler is destroyed.
+         */
+        private boolean waitForNextTick() {
+            long deadline = tickDurationInNanos * (tick + 1);
+            while (true) {
+                long now = System.nanoTime() - startTime;
+                long sleepTimeInMs = (deadline - now + 999999) / 1000000;
+                if (sleepTimeInMs <= 0) {
+                    return true;
+                }
+                try {
+                    Thread.sleep(sleepTimeInMs);
+                } catch (InterruptedException e) {
+                    if (state.get() == STATE_SHUTDOWN) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            WheelTimeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+
+        private void transferPendingTimeouts() {
+            for (int i = 0; i < MAX_TRANSFER_PER_TICK; i++) {
+                WheelTimeout timeout = pendingTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.state != WheelTimeout.ST_INIT) {
+                    continue;
+                }
+                long expectedTick = timeout.deadline / tickDurationInNanos;
+                timeout.remainingRounds = (expectedTick - tick) / wheel.length;
+                // timeouts already expired go in current bucket
+                long bucketTick = Math.max(expectedTick, tick);
+                wheel[(int) (bucketTick & mask)].add(timeout);
+            }
+        }
+    }
+
+    private static class WheelTimeout implements Timeout {
+        static final int ST_INIT = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER = AtomicIntegerFieldUpdater
+                .newUpdater(WheelTimeout.class, "state");
+
+        final HashedWheelTimeoutScheduler scheduler;
+        final Runnable task;
+        final long deadline;
+        volatile int state = ST_INIT;
+
+        // accessed only by worker thread
+        long remainingRounds;
+        WheelTimeout next;
+        WheelTimeout prev;
+        Bucket bucket;
+
+        WheelTimeout(HashedWheelTimeoutScheduler scheduler, Runnable task, long deadline) {
+            this.scheduler = scheduler;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            // removed from its bucket at next tick
+            scheduler.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                LOG.warn("Unexpected exception while executing timeout task {}", task, e);
+            }
+        }
+    }
+
+    /*
+     * A doubly linked list of timeouts, accessed only by the worker thread (except size which is only an estimate).
+     */
+    private static class Bucket {
+        private WheelTimeout head;
+        private WheelTimeout tail;
+        volatile int size;
+
+        void add(WheelTimeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+            size++;
+        }
+
+        void expireTimeouts() {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    // deadline is before now, as timeouts are placed in the bucket of their deadline tick
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.state == WheelTimeout.ST_CANCELLED) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            WheelTimeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (next != null) {
+                next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+            size--;
+        }
+
+        void clear() {
+            head = tail = null;
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.Destroyable;
+
+/**
+ * A service used to run a task once a timeout expires (e.g. response timeout of an asynchronous request).
+ * <p>
+ * Tasks are expected to be short as they can be executed by the thread in charge of timeout detection.
+ * 
+ * @see HashedWheelTimeoutScheduler
+ * @see ExecutorTimeoutScheduler
+ */
+public interface TimeoutScheduler extends Destroyable {
+
+    /**
+     * A handle on a scheduled task.
+     */
+    interface Timeout {
+        /**
+         * Cancel the task if it was not already executed.
+         * 
+         * @return <code>true</code> if the task was cancelled by this call.
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Schedule a task to be executed once the delay expired.
+     * 
+     * @param task the task to execute.
+     * @param delay the delay before execution.
+     * @param unit the unit of the delay.
+     * @return a {@link Timeout} which can be used to cancel the task.
+     * @throws IllegalStateException if the scheduler is destroyed.
+     */
+    Timeout schedule(Runnable task, long delay, TimeUnit unit);
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+/**
+ * A callback which receives SenML records one by one, as they are decoded by a {@link SenMLStreamDecoder}.
+ */
+public interface SenMLRecordHandler {
+
+    /**
+     * Called for each record, in the order of the SenML pack.
+     * 
+     * @param record the decoded record, not resolved.
+     * @throws SenMLException to stop decoding.
+     */
+    void onRecord(SenMLRecord record) throws SenMLException;
+}
@@ -0,0 +1,34 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+/**
+ * A {@link SenMLDecoder} which is able to decode SenML records one by one, without building the whole
+ * {@link SenMLPack}.
+ * 
+ * @see <a href="https://tools.ietf.org/html/rfc8428">rfc8428 - Sensor Measurement Lists (SenML)</a>
+ */
+public interface SenMLStreamDecoder extends SenMLDecoder {
+
+    /**
+     * Decodes the given SenML pack and gives each record to the handler as soon as it is decoded.
+     * 
+     * @param encodedSenML the encoded SenML pack.
+     * @param handler the handler called for each record.
+     * @throws SenMLException if the content is not a valid SenML pack or if the handler raised it.
+     */
+    void fromSenML(byte[] encodedSenML, SenMLRecordHandler handler) throws SenMLException;
+}
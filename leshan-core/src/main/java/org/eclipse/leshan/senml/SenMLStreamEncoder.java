@@ -0,0 +1,35 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+import java.io.OutputStream;
+
+/**
+ * A {@link SenMLEncoder} which is able to write the encoded SenML pack directly in an {@link OutputStream}.
+ * 
+ * @see <a href="https://tools.ietf.org/html/rfc8428">rfc8428 - Sensor Measurement Lists (SenML)</a>
+ */
+public interface SenMLStreamEncoder extends SenMLEncoder {
+
+    /**
+     * Encodes the given SenML pack in the given stream.
+     * 
+     * @param pack the SenML pack to encode.
+     * @param out the stream where the encoded pack is written.
+     * @throws SenMLException if the pack can not be encoded or if the stream can not be written.
+     */
+    void toSenML(SenMLPack pack, OutputStream out) throws SenMLException;
+}
@@ -15,20 +15,24 @@
 package org.eclipse.leshan.senml.cbor.jackson;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
-import org.eclipse.leshan.senml.SenMLDecoder;
-import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamDecoder;
+import org.eclipse.leshan.senml.SenMLStreamEncoder;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
 
 /**
  * Helper for encoding/decoding SenML CBOR using Jackson
  */
-public class SenMLCborJacksonEncoderDecoder implements SenMLDecoder, SenMLEncoder {
+public class SenMLCborJacksonEncoderDecoder implements SenMLStreamDecoder, SenMLStreamEncoder {
     private static final SenMLCborPackSerDes serDes = new SenMLCborPackSerDes();
     private static final ObjectMapper mapper = new CBORMapper();
 
@@ -39,14 +43,35 @@ public class SenMLCborJacksonEncoderDecoder implements SenMLDecoder, SenMLEncode
         return serDes.serializeToCbor(pack);
     }
 
+    @Override
+    public void toSenML(SenMLPack pack, OutputStream out) throws SenMLException {
+        if (pack == null)
+            throw new SenMLException("Unable to serialize SenML CBOR : pack must not be null");
+        serDes.serializeToCbor(pack, out);
+    }
+
     @Override
     public SenMLPack fromSenML(byte[] jsonString) throws SenMLException {
-        try {
-            JsonNode node = mapper.readTree(jsonString);
-            if (!node.isArray()) {
-                throw new SenMLException("Unable to parse SenML CBOR: Array expected but was %s", node.getNodeType());
+        final SenMLPack pack = new SenMLPack();
+        fromSenML(jsonString, new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                pack.addRecord(record);
+            }
+        });
+        return pack;
+    }
+
+    @Override
+    public void fromSenML(byte[] data, SenMLRecordHandler handler) throws SenMLException {
+        try (JsonParser parser = mapper.getFactory().createParser(data)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                throw new SenMLException("Unable to parse SenML CBOR: Array expected but was %s", token);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                handler.onRecord(serDes.deserialize(parser));
             }
-            return serDes.deserializeFromCbor(node.iterator());
         } catch (IOException e) {
             throw new SenMLException("Unable to parse SenML CBOR.", e);
         }
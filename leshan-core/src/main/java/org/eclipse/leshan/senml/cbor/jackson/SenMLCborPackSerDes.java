@@ -16,6 +16,7 @@ package org.eclipse.leshan.senml.cbor.jackson;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Iterator;
@@ -26,12 +27,18 @@ import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.SenMLRecord;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
 
 public class SenMLCborPackSerDes {
 
+    // factories are thread-safe and costly to create
+    private final CBORFactory factory = new CBORFactory();
+
     public SenMLPack deserializeFromCbor(Iterator<JsonNode> nodes) throws SenMLException {
         SenMLPack senMLPack = new SenMLPack();
         while (nodes.hasNext()) {
@@ -100,11 +107,89 @@ public class SenMLCborPackSerDes {
         return senMLPack;
     }
 
+    /**
+     * Deserializes the record starting at the current token of the parser, without building a {@link JsonNode} tree.
+     * When this method returns, the current token is the end of the record.
+     */
+    public SenMLRecord deserialize(JsonParser p) throws SenMLException, IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new SenMLException("Invalid SenML record : Map expected but was %s", p.getCurrentToken());
+
+        SenMLRecord record = new SenMLRecord();
+        boolean hasValue = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            switch (field) {
+            case "-2":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setBaseName(p.getText());
+                break;
+            case "-3":
+                if (token.isNumeric())
+                    record.setBaseTime(p.getValueAsLong());
+                break;
+            case "0":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setName(p.getText());
+                break;
+            case "6":
+                if (token.isNumeric())
+                    record.setTime(p.getValueAsLong());
+                break;
+            case "2":
+                if (token.isNumeric()) {
+                    record.setFloatValue(p.getNumberValue());
+                    hasValue = true;
+                }
+                break;
+            case "4":
+                if (token.isBoolean()) {
+                    record.setBooleanValue(p.getBooleanValue());
+                    hasValue = true;
+                }
+                break;
+            case "3":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setStringValue(p.getText());
+                    hasValue = true;
+                }
+                break;
+            case "vlo":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setObjectLinkValue(p.getText());
+                    hasValue = true;
+                }
+                break;
+            case "8":
+                if (token == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                    record.setOpaqueValue(p.getBinaryValue());
+                    hasValue = true;
+                }
+                break;
+            default:
+                break;
+            }
+            // ignore content of unexpected maps or arrays
+            p.skipChildren();
+        }
+
+        if (!hasValue)
+            throw new SenMLException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s", record);
+
+        return record;
+    }
+
     public byte[] serializeToCbor(SenMLPack pack) throws SenMLException {
-        CBORFactory factory = new CBORFactory();
         ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializeToCbor(pack, out);
+        return out.toByteArray();
+    }
 
+    public void serializeToCbor(SenMLPack pack, OutputStream out) throws SenMLException {
         try (CBORGenerator generator = factory.createGenerator(out)) {
+            // the stream belongs to the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
             generator.writeStartArray(pack.getRecords().size());
 
             for (SenMLRecord record : pack.getRecords()) {
@@ -212,7 +297,5 @@ public class SenMLCborPackSerDes {
         } catch (Exception ex) {
             throw new SenMLException(ex, "Impossible to encode pack to CBOR: %s", pack, ex);
         }
-
-        return out.toByteArray();
     }
 }
@@ -15,7 +15,6 @@
  *******************************************************************************/
 package org.eclipse.leshan.senml.cbor.upokecenter;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
@@ -144,7 +143,20 @@ public class SenMLCborPackSerDes {
     }
 
     public byte[] serializeToCbor(SenMLPack pack) throws SenMLException {
-        try (OutputStream stream = new ByteArrayOutputStream()) {
+        return toCborArray(pack).EncodeToBytes();
+    }
+
+    public void serializeToCbor(SenMLPack pack, OutputStream out) throws SenMLException {
+        CBORObject cborArray = toCborArray(pack);
+        try {
+            cborArray.WriteTo(out);
+        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            throw new SenMLException(e, "Unable to serialize SenML in CBOR");
+        }
+    }
+
+    private CBORObject toCborArray(SenMLPack pack) throws SenMLException {
+        try {
             CBORObject cborArray = CBORObject.NewArray();
             for (SenMLRecord record : pack.getRecords()) {
                 CBORObject cborRecord = newMap();
@@ -216,8 +228,8 @@ public class SenMLCborPackSerDes {
                 }
                 cborArray.Add(cborRecord);
             }
-            return cborArray.EncodeToBytes();
-        } catch (IllegalArgumentException | IllegalStateException | IOException e) {
+            return cborArray;
+        } catch (IllegalArgumentException | IllegalStateException e) {
             throw new SenMLException(e, "Unable to serialize SenML in CBOR");
         }
     }
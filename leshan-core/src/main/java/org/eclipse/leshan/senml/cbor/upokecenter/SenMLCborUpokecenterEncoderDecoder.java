@@ -15,10 +15,12 @@
  *******************************************************************************/
 package org.eclipse.leshan.senml.cbor.upokecenter;
 
+import java.io.OutputStream;
+
 import org.eclipse.leshan.senml.SenMLDecoder;
-import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLStreamEncoder;
 
 import com.upokecenter.cbor.CBORException;
 import com.upokecenter.cbor.CBORObject;
@@ -28,7 +30,7 @@ import com.upokecenter.cbor.CBORType;
  * Helper for encoding/decoding SenML CBOR using <a href="https://github.com/peteroupc/CBOR-Java">"upokecenter"
  * CBOR-Java</a>
  */
-public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLEncoder {
+public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLStreamEncoder {
     private final SenMLCborPackSerDes serDes;
 
     public SenMLCborUpokecenterEncoderDecoder() {
@@ -68,6 +70,13 @@ public class SenMLCborUpokecenterEncoderDecoder implements SenMLDecoder, SenMLEn
         return serDes.serializeToCbor(pack);
     }
 
+    @Override
+    public void toSenML(SenMLPack pack, OutputStream out) throws SenMLException {
+        if (pack == null)
+            throw new SenMLException("Unable to serialize SenML CBOR : pack must not be null");
+        serDes.serializeToCbor(pack, out);
+    }
+
     @Override
     public SenMLPack fromSenML(byte[] data) throws SenMLException {
         try {
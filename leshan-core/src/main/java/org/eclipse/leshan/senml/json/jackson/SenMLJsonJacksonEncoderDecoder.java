@@ -14,22 +14,27 @@
 
 package org.eclipse.leshan.senml.json.jackson;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 import org.eclipse.leshan.core.util.json.JsonException;
-import org.eclipse.leshan.senml.SenMLDecoder;
-import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamDecoder;
+import org.eclipse.leshan.senml.SenMLStreamEncoder;
 
-import com.eclipsesource.json.ParseException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Helper for encoding/decoding SenML JSON using Jackson
  */
-public class SenMLJsonJacksonEncoderDecoder implements SenMLDecoder, SenMLEncoder {
+public class SenMLJsonJacksonEncoderDecoder implements SenMLStreamDecoder, SenMLStreamEncoder {
     private final SenMLJsonRecordSerDes serDes;
     private static final ObjectMapper mapper = new ObjectMapper();
 
@@ -54,23 +59,51 @@ public class SenMLJsonJacksonEncoderDecoder implements SenMLDecoder, SenMLEncode
     public byte[] toSenML(SenMLPack pack) throws SenMLException {
         if (pack == null)
             return null;
-        try {
-            return serDes.bSerialize(pack.getRecords());
-        } catch (JsonException e) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        toSenML(pack, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void toSenML(SenMLPack pack, OutputStream out) throws SenMLException {
+        if (pack == null)
+            throw new SenMLException("Unable to serialize SenML JSON : pack must not be null");
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out)) {
+            // the stream belongs to the caller
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            for (SenMLRecord record : pack.getRecords()) {
+                serDes.serialize(record, generator);
+            }
+            generator.writeEndArray();
+        } catch (JsonException | IOException e) {
             throw new SenMLException("Unable to serialize SenML JSON.", e);
         }
     }
 
     @Override
     public SenMLPack fromSenML(byte[] jsonString) throws SenMLException {
-        try {
-            JsonNode node = mapper.readTree(jsonString);
-            if (!node.isArray()) {
-                throw new SenMLException("Unable to parse SenML JSON: JsonArray expected but was %s",
-                        node.getNodeType());
+        final SenMLPack pack = new SenMLPack();
+        fromSenML(jsonString, new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                pack.addRecord(record);
+            }
+        });
+        return pack;
+    }
+
+    @Override
+    public void fromSenML(byte[] jsonString, SenMLRecordHandler handler) throws SenMLException {
+        try (JsonParser parser = mapper.getFactory().createParser(jsonString)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                throw new SenMLException("Unable to parse SenML JSON: JsonArray expected but was %s", token);
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                handler.onRecord(serDes.deserialize(parser));
             }
-            return new SenMLPack(serDes.deserialize(node.iterator()));
-        } catch (JsonException | ParseException | IOException e) {
+        } catch (JsonException | IOException e) {
             throw new SenMLException("Unable to parse SenML JSON.", e);
         }
     }
@@ -14,6 +14,7 @@
 
 package org.eclipse.leshan.senml.json.jackson;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -24,6 +25,9 @@ import org.eclipse.leshan.core.util.json.JacksonJsonSerDes;
 import org.eclipse.leshan.core.util.json.JsonException;
 import org.eclipse.leshan.senml.SenMLRecord;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -121,6 +125,84 @@ public class SenMLJsonRecordSerDes extends JacksonJsonSerDes<SenMLRecord> {
         return jsonObj;
     }
 
+    /**
+     * Write the given record in the given generator, without building an intermediate {@link JsonNode}.
+     */
+    public void serialize(SenMLRecord record, JsonGenerator g) throws JsonException, IOException {
+        g.writeStartObject();
+
+        if (record.getBaseName() != null && record.getBaseName().length() > 0) {
+            g.writeStringField("bn", record.getBaseName());
+        }
+
+        if (record.getBaseTime() != null) {
+            g.writeNumberField("bt", record.getBaseTime());
+        }
+
+        if (record.getName() != null && record.getName().length() > 0) {
+            g.writeStringField("n", record.getName());
+        }
+
+        if (record.getTime() != null) {
+            g.writeNumberField("t", record.getTime());
+        }
+
+        Type type = record.getType();
+        if (type != null) {
+            switch (record.getType()) {
+            case FLOAT:
+                Number value = record.getFloatValue();
+                g.writeFieldName("v");
+                // integer
+                if (value instanceof Byte) {
+                    g.writeNumber(value.byteValue());
+                } else if (value instanceof Short) {
+                    g.writeNumber(value.shortValue());
+                } else if (value instanceof Integer) {
+                    g.writeNumber(value.intValue());
+                } else if (value instanceof Long) {
+                    g.writeNumber(value.longValue());
+                } else if (value instanceof BigInteger) {
+                    g.writeNumber((BigInteger) value);
+                }
+                // unsigned integer
+                else if (value instanceof ULong) {
+                    g.writeNumber(((ULong) value).toBigInteger());
+                }
+                // floating-point
+                else if (value instanceof Float) {
+                    g.writeNumber(value.floatValue());
+                } else if (value instanceof Double) {
+                    g.writeNumber(value.doubleValue());
+                } else if (value instanceof BigDecimal) {
+                    g.writeNumber((BigDecimal) value);
+                } else {
+                    g.writeNull();
+                }
+                break;
+            case BOOLEAN:
+                g.writeBooleanField("vb", record.getBooleanValue());
+                break;
+            case OBJLNK:
+                g.writeStringField("vlo", record.getObjectLinkValue());
+                break;
+            case OPAQUE:
+                g.writeStringField("vd", Base64.encodeBase64String(record.getOpaqueValue()));
+                break;
+            case STRING:
+                g.writeStringField("vs", record.getStringValue());
+                break;
+            default:
+                break;
+            }
+        } else {
+            if (!allowNoValue)
+                throw new JsonException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s",
+                        record);
+        }
+        g.writeEndObject();
+    }
+
     @Override
     public SenMLRecord deserialize(JsonNode o) throws JsonException {
         if (o == null)
@@ -180,4 +262,77 @@ public class SenMLJsonRecordSerDes extends JacksonJsonSerDes<SenMLRecord> {
 
         return record;
     }
+
+    /**
+     * Deserializes the record starting at the current token of the parser, without building a {@link JsonNode} tree.
+     * When this method returns, the current token is the end of the record.
+     */
+    public SenMLRecord deserialize(JsonParser p) throws JsonException, IOException {
+        if (p.getCurrentToken() != JsonToken.START_OBJECT)
+            throw new JsonException("Invalid SenML record : JsonObject expected but was %s", p.getCurrentToken());
+
+        SenMLRecord record = new SenMLRecord();
+        boolean hasValue = false;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.getCurrentName();
+            JsonToken token = p.nextToken();
+            switch (field) {
+            case "bn":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setBaseName(p.getText());
+                break;
+            case "bt":
+                if (token.isNumeric())
+                    record.setBaseTime(p.getValueAsLong());
+                break;
+            case "n":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setName(p.getText());
+                break;
+            case "t":
+                if (token.isNumeric())
+                    record.setTime(p.getValueAsLong());
+                break;
+            case "v":
+                if (token.isNumeric()) {
+                    record.setFloatValue(p.getNumberValue());
+                    hasValue = true;
+                }
+                break;
+            case "vb":
+                if (token.isBoolean()) {
+                    record.setBooleanValue(p.getBooleanValue());
+                    hasValue = true;
+                }
+                break;
+            case "vs":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setStringValue(p.getText());
+                    hasValue = true;
+                }
+                break;
+            case "vlo":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setObjectLinkValue(p.getText());
+                    hasValue = true;
+                }
+                break;
+            case "vd":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setOpaqueValue(Base64.decodeBase64(p.getText()));
+                    hasValue = true;
+                }
+                break;
+            default:
+                break;
+            }
+            // ignore content of unexpected objects or arrays
+            p.skipChildren();
+        }
+
+        if (!allowNoValue && !hasValue)
+            throw new JsonException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s", record);
+
+        return record;
+    }
 }
@@ -154,4 +154,65 @@ public class LinkObjectTest {
         Link link = new Link("/1", att);
         assertEquals("</1>;ver=2.2", Link.serialize(link));
     }
+
+    @Test
+    public void parse_with_delimiters_in_quoted_attributes() {
+        Link[] parse = Link.parse("</1>;rt=\"a,b;c\";ct=\"60 110\",</2> ; ver = 1.1 ,".getBytes());
+        Assert.assertEquals(2, parse.length);
+        Assert.assertEquals("\"a,b;c\"", parse[0].getAttributes().get("rt"));
+        Assert.assertEquals("\"60 110\"", parse[0].getAttributes().get("ct"));
+        Assert.assertEquals("/2", parse[1].getUrl());
+        Assert.assertEquals("1.1", parse[1].getAttributes().get("ver"));
+    }
+
+    @Test
+    public void parse_keeps_attributes_order() {
+        String input = "</1>;z=1;a=2;m=3";
+        Assert.assertEquals(input, Link.serialize(Link.parse(input.getBytes())));
+    }
+
+    @Test
+    public void parse_keeps_last_value_of_duplicate_attributes() {
+        StringBuilder input = new StringBuilder("</1>");
+        for (int i = 0; i < 20; i++) {
+            input.append(";a").append(i).append("=").append(i);
+        }
+        // duplicates before and after keys are indexed
+        input.append(";a1=x;a15=y;a19=z");
+
+        Link[] parse = Link.parse(input.toString().getBytes());
+        Map<String, String> attributes = parse[0].getAttributes();
+        Assert.assertEquals(20, attributes.size());
+        Assert.assertEquals("0", attributes.get("a0"));
+        Assert.assertEquals("x", attributes.get("a1"));
+        Assert.assertEquals("y", attributes.get("a15"));
+        Assert.assertEquals("z", attributes.get("a19"));
+        Assert.assertEquals("a0", attributes.keySet().iterator().next());
+    }
+
+    @Test
+    public void parsed_strings_are_shared() {
+        Link[] first = Link.parse("</3/0>;ver=\"1.1\"".getBytes());
+        Link[] second = Link.parse("</3/0>;ver=\"1.1\"".getBytes());
+        Assert.assertSame(first[0].getUrl(), second[0].getUrl());
+        Assert.assertSame(first[0].getAttributes().get("ver"), second[0].getAttributes().get("ver"));
+        Assert.assertEquals(first[0], second[0]);
+        Assert.assertEquals(first[0].hashCode(), second[0].hashCode());
+    }
+
+    @Test
+    public void unknown_parsed_strings_are_not_shared() {
+        Link[] first = Link.parse("</12345/0>;custom=\"abc\"".getBytes());
+        Link[] second = Link.parse("</12345/0>;custom=\"abc\"".getBytes());
+        Assert.assertNotSame(first[0].getUrl(), second[0].getUrl());
+        Assert.assertNotSame(first[0].getAttributes().get("custom"), second[0].getAttributes().get("custom"));
+        Assert.assertEquals(first[0], second[0]);
+    }
+
+    @Test
+    public void parse_empty_content() {
+        Link[] parse = Link.parse(new byte[0]);
+        Assert.assertEquals(1, parse.length);
+        Assert.assertEquals("", parse[0].getUrl());
+    }
 }
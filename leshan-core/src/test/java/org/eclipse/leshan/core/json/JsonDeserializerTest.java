@@ -16,6 +16,9 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.json;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
 import org.eclipse.leshan.core.json.jackson.LwM2mJsonJacksonEncoderDecoder;
 import org.junit.Assert;
 import org.junit.Test;
@@ -108,4 +111,30 @@ public class JsonDeserializerTest {
         Assert.assertEquals(dataString.trim(), outString);
     }
 
+    @Test
+    public void deserialize_from_bytes_and_serialize_to_stream() throws LwM2mJsonException {
+        StringBuilder b = new StringBuilder();
+        b.append("{\"bn\":\"/3/0/\",");
+        b.append("\"e\":[");
+        b.append("{\"n\":\"0\",\"sv\":\"Caf\u00e9 \u2615\"},");
+        b.append("{\"n\":\"9\",\"v\":100,\"unknown\":{\"v\":[1,2]}},");
+        b.append("{\"n\":\"13\",\"v\":1.367491215E9}]}");
+        byte[] content = b.toString().getBytes(StandardCharsets.UTF_8);
+
+        JsonRootObject element = LwM2mJson.fromJsonLwM2m(content);
+        Assert.assertEquals("/3/0/", element.getBaseName());
+        Assert.assertEquals(3, element.getResourceList().size());
+        Assert.assertEquals("Caf\u00e9 \u2615", element.getResourceList().get(0).getStringValue());
+        Assert.assertEquals(100, element.getResourceList().get(1).getFloatValue());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        LwM2mJson.toJsonLwM2m(element, out);
+        Assert.assertEquals(b.toString().replace(",\"unknown\":{\"v\":[1,2]}", ""),
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = LwM2mJsonException.class)
+    public void deserialize_without_entries() throws LwM2mJsonException {
+        LwM2mJson.fromJsonLwM2m("{\"bn\":\"/3/0/\"}".getBytes(StandardCharsets.UTF_8));
+    }
 }
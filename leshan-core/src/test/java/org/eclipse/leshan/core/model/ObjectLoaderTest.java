@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void load_in_parallel_with_cache() throws IOException {
+        File modelsDir = folder.newFolder("models");
+        for (String ddfpath : ObjectLoader.ddfpaths) {
+            copyResource("/models/" + ddfpath, new File(modelsDir, ddfpath));
+        }
+        File cacheFile = new File(folder.getRoot(), "models.cache");
+
+        List<ObjectModel> expected = ObjectLoader.loadObjectsFromDir(modelsDir, true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // first load parses all files and fills the cache
+            CountingParser parser = new CountingParser();
+            List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, parser,
+                    new DefaultObjectModelValidator(), executor, new ObjectModelCache(cacheFile));
+            assertSameModels(expected, models);
+            assertEquals(ObjectLoader.ddfpaths.length, parser.count.get());
+            assertTrue(cacheFile.exists());
+
+            // next load only parses modified files
+            copyResource("/models/3-1_0.xml", new File(modelsDir, "3-1_1.xml"));
+            parser = new CountingParser();
+            models = ObjectLoader.loadObjectsFromDir(modelsDir, parser, new DefaultObjectModelValidator(), executor,
+                    new ObjectModelCache(cacheFile));
+            assertEquals(1, parser.count.get());
+            assertEquals(expected.size(), models.size());
+
+            // models validated differently are not reused
+            parser = new CountingParser();
+            ObjectLoader.loadObjectsFromDir(modelsDir, parser, null, executor, new ObjectModelCache(cacheFile));
+            assertEquals(modelsDir.listFiles().length, parser.count.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSameModels(List<ObjectModel> expected, List<ObjectModel> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ObjectModel expectedModel = expected.get(i);
+            ObjectModel actualModel = actual.get(i);
+            assertEquals(expectedModel.toString(), actualModel.toString());
+        }
+    }
+
+    private void copyResource(String resource, File destination) throws IOException {
+        try (InputStream in = ObjectLoader.class.getResourceAsStream(resource);
+                OutputStream out = new FileOutputStream(destination)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static class CountingParser extends DDFFileParser {
+        final AtomicInteger count = new AtomicInteger();
+
+        CountingParser() {
+            super(new DefaultDDFFileValidatorFactory());
+        }
+
+        @Override
+        public List<ObjectModel> parse(InputStream inputStream, String streamName)
+                throws InvalidDDFFileException, IOException {
+            count.incrementAndGet();
+            return super.parse(inputStream, streamName);
+        }
+    }
+}
@@ -156,4 +156,47 @@ public class LwM2MResourceTest {
         values.put(3, null);
         LwM2mMultipleResource.newResource(0, values, Type.BOOLEAN);
     }
+
+    @Test
+    public void primitive_resources_are_equal_to_generic_ones() {
+        LwM2mSingleResource integer = LwM2mSingleResource.newIntegerResource(10, 42);
+        assertTrue(integer instanceof LwM2mIntegerResource);
+        assertEquals(42L, ((LwM2mIntegerResource) integer).getLongValue());
+        assertEquals(42L, integer.getValue());
+        assertEquals(integer, LwM2mSingleResource.newResource(10, 42L, Type.INTEGER));
+        assertEquals(integer.hashCode(), LwM2mSingleResource.newResource(10, 42L).hashCode());
+        assertEquals(LwM2mSingleResource.newFloatResource(10, 4.5), LwM2mSingleResource.newResource(10, 4.5f));
+        assertEquals(true, LwM2mSingleResource.newBooleanResource(10, true).getValue());
+        assertNotEquals(integer, LwM2mSingleResource.newIntegerResource(10, 43));
+    }
+
+    @Test
+    public void primitive_multiple_resources_are_sorted_by_instance_id() {
+        LwM2mIntegerMultipleResource resource = LwM2mMultipleResource.newIntegerResource(10, new int[] { 5, 1, 3 },
+                new long[] { 50, 10, 30, 0 }, 3);
+        assertEquals(3, resource.getInstanceCount());
+        assertEquals(1, resource.getInstanceIdAt(0));
+        assertEquals(10, resource.getLongValueAt(0));
+        assertEquals(5, resource.getInstanceIdAt(2));
+        assertEquals(30L, resource.getValue(3));
+        assertNull(resource.getValue(2));
+        assertEquals(LwM2mResourceInstance.newIntegerInstance(5, 50), resource.getInstance(5));
+
+        Map<Integer, Long> values = new HashMap<>();
+        values.put(1, 10L);
+        values.put(3, 30L);
+        values.put(5, 50L);
+        LwM2mMultipleResource generic = new LwM2mMultipleResource(10, Type.INTEGER,
+                LwM2mResourceInstance.newIntegerInstance(1, 10), LwM2mResourceInstance.newIntegerInstance(3, 30),
+                LwM2mResourceInstance.newIntegerInstance(5, 50));
+        assertEquals(generic, resource);
+        assertEquals(resource, generic);
+        assertEquals(generic.hashCode(), resource.hashCode());
+        assertEquals(resource, LwM2mMultipleResource.newResource(10, values, Type.INTEGER));
+    }
+
+    @Test(expected = LwM2mNodeException.class)
+    public void primitive_multiple_resource_with_duplicate_instance_id() {
+        LwM2mMultipleResource.newFloatResource(10, new int[] { 1, 2, 1 }, new double[] { 1, 2, 3 }, 3);
+    }
 }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LwM2mPathTest {
+
+    @Test
+    public void parse_paths() {
+        assertTrue(new LwM2mPath("/").isRoot());
+        assertTrue(new LwM2mPath("").isRoot());
+        assertEquals(new LwM2mPath(3), new LwM2mPath("3/"));
+        assertEquals(new LwM2mPath(3, 0), new LwM2mPath("/3/0"));
+        assertEquals(new LwM2mPath(3, 0, 1), new LwM2mPath("3/0/1"));
+        assertEquals(new LwM2mPath(3, 0, 7, 1), new LwM2mPath("/3/0/7/1/"));
+        assertEquals("/3/0/7/1", new LwM2mPath("/3/0/07/+1").toString());
+        assertEquals(65535, (int) new LwM2mPath("/65535").getObjectId());
+        assertNull(new LwM2mPath("/3/0").getResourceId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_path_with_invalid_elements() {
+        new LwM2mPath("/3/a/1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_path_with_empty_element() {
+        new LwM2mPath("/3//1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_path_with_invalid_length() {
+        new LwM2mPath("/3/0/1/0/1");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_path_with_id_overflow() {
+        new LwM2mPath("/3/0/2147483648");
+    }
+
+    @Test(expected = LwM2mNodeException.class)
+    public void parse_path_with_negative_id() {
+        new LwM2mPath("/3/-1");
+    }
+
+    @Test
+    public void hash_and_equals_are_based_on_ids() {
+        LwM2mPath path = new LwM2mPath("/3/0/1");
+        assertEquals(path, new LwM2mPath(3, 0, 1));
+        assertEquals(path.hashCode(), new LwM2mPath(3, 0, 1).hashCode());
+        assertNotEquals(path, new LwM2mPath(3, 1, 0));
+        assertNotEquals(new LwM2mPath(3, 0, 1), new LwM2mIncompletePath(3, 1));
+        assertEquals("/3/undefined/1", new LwM2mIncompletePath(3, 1).toString());
+    }
+
+    @Test
+    public void start_with() {
+        LwM2mPath path = new LwM2mPath(3, 0, 1);
+        assertTrue(path.startWith(LwM2mPath.ROOTPATH));
+        assertTrue(path.startWith(new LwM2mPath(3)));
+        assertTrue(path.startWith(new LwM2mPath(3, 0, 1)));
+        assertFalse(path.startWith(new LwM2mPath(3, 1)));
+        assertFalse(path.startWith(new LwM2mPath(3, 0, 1, 0)));
+    }
+
+    @Test
+    public void intern_paths() {
+        LwM2mPath path = LwM2mPath.valueOf("/3/0/1");
+        assertSame(path, LwM2mPath.valueOf("/3/0/1"));
+        assertSame(path, LwM2mPath.valueOf("3/0/1/"));
+        assertSame(path, new LwM2mPath(3, 0, 1).intern());
+        assertNotSame(path, new LwM2mPath(3, 0, 1));
+    }
+}
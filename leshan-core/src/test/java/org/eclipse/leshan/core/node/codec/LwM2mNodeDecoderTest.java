@@ -42,6 +42,7 @@ import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.tlv.Tlv;
@@ -59,7 +60,7 @@ import org.junit.Test;
 public class LwM2mNodeDecoderTest {
 
     private static LwM2mModel model;
-    private static LwM2mNodeDecoder decoder;
+    private static LwM2mNodeTimeSeriesDecoder decoder;
 
     @BeforeClass
     public static void loadModel() {
@@ -291,6 +292,23 @@ public class LwM2mNodeDecoderTest {
         assertDeviceInstance(oInstance);
     }
 
+    @Test
+    public void tlv_device_object_instance0_resolves_object_model_once() throws CodecException {
+        final int[] objectModelLookups = new int[1];
+        LwM2mModel countingModel = new StaticModel(model.getObjectModels()) {
+            @Override
+            public ObjectModel getObjectModel(int objectId) {
+                objectModelLookups[0]++;
+                return super.getObjectModel(objectId);
+            }
+        };
+
+        LwM2mObjectInstance oInstance = (LwM2mObjectInstance) decoder.decode(ENCODED_DEVICE_WITH_INSTANCE,
+                ContentFormat.TLV, new LwM2mPath(3, 0), countingModel);
+        assertDeviceInstance(oInstance);
+        assertEquals(1, objectModelLookups[0]);
+    }
+
     @Test
     public void tlv_server_object_multi_instance_with_only_1_instance() throws Exception {
         LwM2mObject oObject = ((LwM2mObject) decoder.decode(ENCODED_SERVER, ContentFormat.TLV, new LwM2mPath(1),
@@ -1104,6 +1122,42 @@ public class LwM2mNodeDecoderTest {
         Assert.assertEquals(nodes, res);
     }
 
+    @Test
+    public void senml_json_decode_time_series() {
+        // Prepare data to decode
+        StringBuilder b = new StringBuilder();
+        b.append("[{\"bn\":\"/6/0/\",\"bt\":1610029880,\"n\":\"0\",\"v\":43.918998},");
+        b.append("{\"n\":\"1\",\"v\":2.351149},");
+        b.append("{\"n\":\"5\",\"v\":1610029880},");
+        b.append("{\"n\":\"0\",\"v\":43.92,\"t\":60},");
+        b.append("{\"n\":\"1\",\"v\":2.36,\"t\":60},");
+        b.append("{\"bn\":\"/4/0/0\",\"v\":45}]");
+
+        // Decode
+        Map<LwM2mPath, TimeSeries> res = decoder.decodeTimeSeries(b.toString().getBytes(), ContentFormat.SENML_JSON,
+                model);
+
+        // Check result
+        assertEquals(4, res.size());
+        TimeSeries latitude = res.get(new LwM2mPath("6/0/0"));
+        assertEquals(Type.FLOAT, latitude.getType());
+        assertEquals(2, latitude.size());
+        Assert.assertArrayEquals(new long[] { 1610029880l, 1610029940l }, latitude.getTimestamps());
+        Assert.assertArrayEquals(new double[] { 43.918998, 43.92 }, latitude.getDoubleValues(), 0);
+        assertNull(latitude.getLongValues());
+
+        TimeSeries timestamp = res.get(new LwM2mPath("6/0/5"));
+        assertEquals(Type.TIME, timestamp.getType());
+        Assert.assertArrayEquals(new long[] { 1610029880000l }, timestamp.getLongValues());
+        assertEquals(new Date(1610029880000l), timestamp.getValue(0));
+
+        TimeSeries battery = res.get(new LwM2mPath("4/0/0"));
+        assertEquals(Type.INTEGER, battery.getType());
+        // base time applies to following records
+        Assert.assertArrayEquals(new long[] { 1610029880l }, battery.getTimestamps());
+        assertEquals(45l, battery.getValue(0));
+    }
+
     @Test
     public void senml_json_decode_path_using_name() {
         // Prepare data to decode
@@ -16,6 +16,8 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -39,6 +41,7 @@ import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.senml.LwM2mNodeSenMLEncoder;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvEncoder;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
@@ -52,7 +55,7 @@ import org.junit.Test;
 public class LwM2mNodeEncoderTest {
 
     private static LwM2mModel model;
-    private static LwM2mNodeEncoder encoder;
+    private static LwM2mNodeStreamEncoder encoder;
 
     @BeforeClass
     public static void loadModel() {
@@ -186,6 +189,36 @@ public class LwM2mNodeEncoderTest {
         Assert.assertArrayEquals(ENCODED_DEVICE_WITH_INSTANCE, encoded);
     }
 
+    @Test
+    public void tlv_encode_device_object_into_buffer() {
+        LwM2mObject object = new LwM2mObject(3, new LwM2mObjectInstance(0, getDeviceResources()));
+        LwM2mNodeTlvEncoder tlvEncoder = new LwM2mNodeTlvEncoder();
+
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_DEVICE_WITH_INSTANCE.length + 4);
+        buffer.put(new byte[] { 1, 2 });
+        int written = tlvEncoder.encode(object, new LwM2mPath("/3"), model, new LwM2mValueChecker(), buffer);
+
+        Assert.assertEquals(ENCODED_DEVICE_WITH_INSTANCE.length, written);
+        Assert.assertEquals(ENCODED_DEVICE_WITH_INSTANCE.length + 2, buffer.position());
+        Assert.assertArrayEquals(ENCODED_DEVICE_WITH_INSTANCE,
+                Arrays.copyOfRange(buffer.array(), 2, ENCODED_DEVICE_WITH_INSTANCE.length + 2));
+    }
+
+    @Test(expected = CodecException.class)
+    public void tlv_encode_device_object_into_too_small_buffer() {
+        LwM2mObject object = new LwM2mObject(3, new LwM2mObjectInstance(0, getDeviceResources()));
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_DEVICE_WITH_INSTANCE.length - 1);
+        new LwM2mNodeTlvEncoder().encode(object, new LwM2mPath("/3"), model, new LwM2mValueChecker(), buffer);
+    }
+
+    @Test(expected = CodecException.class)
+    public void tlv_encode_too_large_opaque_value() {
+        // TLV length must fit in 24 bits
+        byte[] opaqueValue = new byte[0x1000000];
+        encoder.encode(LwM2mSingleResource.newBinaryResource(0, opaqueValue), ContentFormat.TLV,
+                new LwM2mPath("/5/0/0"), model);
+    }
+
     @Test
     public void json_encode_device_object_instance() {
 
@@ -317,6 +350,10 @@ public class LwM2mNodeEncoderTest {
         LwM2mObjectInstance oInstance = new LwM2mObjectInstance(0, getDeviceResources());
         byte[] encoded = encoder.encode(oInstance, ContentFormat.SENML_JSON, new LwM2mPath("/3/0"), model);
 
+        Assert.assertEquals(getEncodedDeviceInSenMLJson(), new String(encoded));
+    }
+
+    private String getEncodedDeviceInSenMLJson() {
         StringBuilder b = new StringBuilder();
         b.append("[{\"bn\":\"/3/0/\",\"n\":\"0\",\"vs\":\"Open Mobile Alliance\"},");
         b.append("{\"n\":\"1\",\"vs\":\"Lightweight M2M Client\"},");
@@ -334,9 +371,7 @@ public class LwM2mNodeEncoderTest {
         b.append("{\"n\":\"13\",\"v\":1367491215},");
         b.append("{\"n\":\"14\",\"vs\":\"+02:00\"},");
         b.append("{\"n\":\"16\",\"vs\":\"U\"}]");
-
-        String expected = b.toString();
-        Assert.assertEquals(expected, new String(encoded));
+        return b.toString();
     }
 
     @Test
@@ -463,4 +498,45 @@ public class LwM2mNodeEncoderTest {
         String expected = "81a221662f302f302f330843abcdef";
         Assert.assertEquals(expected, Hex.encodeHexString(cbor));
     }
+
+    @Test
+    public void senml_json_encode_device_object_instance_in_stream() {
+        LwM2mObjectInstance oInstance = new LwM2mObjectInstance(0, getDeviceResources());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(oInstance, ContentFormat.SENML_JSON, new LwM2mPath("/3/0"), model, out);
+        Assert.assertEquals(getEncodedDeviceInSenMLJson(), new String(out.toByteArray()));
+    }
+
+    @Test
+    public void tlv_encode_device_object_instance_in_stream() {
+        LwM2mObjectInstance oInstance = new LwM2mObjectInstance(0, getDeviceResources());
+        byte[] expected = ENCODED_DEVICE_WITHOUT_INSTANCE;
+
+        EncodingBuffer buffer = new EncodingBuffer(4);
+        buffer.write(0xFF);
+        encoder.encode(oInstance, ContentFormat.TLV, new LwM2mPath("/3/0"), model, buffer);
+
+        byte[] written = buffer.toByteArray();
+        Assert.assertEquals(expected.length + 1, written.length);
+        Assert.assertArrayEquals(expected, Arrays.copyOfRange(written, 1, written.length));
+    }
+
+    @Test
+    public void encoding_buffer_is_reused_by_thread() {
+        EncodingBuffer buffer = EncodingBuffer.acquire();
+        // re-entrant use get another buffer
+        EncodingBuffer other = EncodingBuffer.acquire();
+        Assert.assertNotSame(buffer, other);
+        other.release();
+
+        buffer.write(new byte[] { 1, 2, 3 }, 0, 3);
+        Assert.assertArrayEquals(new byte[] { 1, 2, 3 }, buffer.toByteArray());
+        buffer.release();
+
+        EncodingBuffer reused = EncodingBuffer.acquire();
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.size());
+        reused.release();
+    }
 }
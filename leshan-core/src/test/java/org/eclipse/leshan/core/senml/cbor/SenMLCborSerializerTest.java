@@ -22,6 +22,9 @@ import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamDecoder;
 import org.eclipse.leshan.senml.cbor.jackson.SenMLCborJacksonEncoderDecoder;
 import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
 import org.junit.Assert;
@@ -87,4 +90,20 @@ public class SenMLCborSerializerTest extends AbstractSenMLTest {
         String expected = "81a221662f302f302f330843abcdef";
         Assert.assertEquals(expected, Hex.encodeHexString(cbor));
     }
+
+    @Test
+    public void deserialize_device_object_record_by_record() throws Exception {
+        // only for decoder which support streaming
+        if (!(decoder instanceof SenMLStreamDecoder))
+            return;
+
+        final SenMLPack pack = new SenMLPack();
+        ((SenMLStreamDecoder) decoder).fromSenML(Hex.decodeHex(givenSenMLCborExample().toCharArray()), new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                pack.addRecord(record);
+            }
+        });
+        SenMLTestUtil.assertSenMLPackEquals(givenDeviceObjectInstance(), pack);
+    }
 }
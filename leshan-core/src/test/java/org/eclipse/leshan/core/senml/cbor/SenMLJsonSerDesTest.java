@@ -15,7 +15,9 @@
 package org.eclipse.leshan.core.senml.cbor;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.Collection;
 
@@ -24,6 +26,10 @@ import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamDecoder;
+import org.eclipse.leshan.senml.SenMLStreamEncoder;
 import org.eclipse.leshan.senml.json.jackson.SenMLJsonJacksonEncoderDecoder;
 import org.eclipse.leshan.senml.json.minimaljson.SenMLJsonMinimalEncoderDecoder;
 import org.junit.Test;
@@ -57,6 +63,20 @@ public class SenMLJsonSerDesTest extends AbstractSenMLTest {
         SenMLTestUtil.assertSenMLPackEquals(givenDeviceObjectInstance(), pack);
     }
 
+    @Test
+    public void serialize_null_pack_in_stream() {
+        // only some encoders are able to write in a stream
+        if (!(encoder instanceof SenMLStreamEncoder))
+            return;
+
+        try {
+            ((SenMLStreamEncoder) encoder).toSenML(null, new ByteArrayOutputStream());
+            fail("SenMLException expected");
+        } catch (SenMLException e) {
+            // expected
+        }
+    }
+
     @Test
     public void deserialize_device_object() throws SenMLException {
         String dataString = givenSenMLJsonExample();
@@ -94,4 +114,19 @@ public class SenMLJsonSerDesTest extends AbstractSenMLTest {
         assertEquals(expected, new String(json));
     }
 
+    @Test
+    public void deserialize_device_object_record_by_record() throws Exception {
+        // only for decoder which support streaming
+        if (!(decoder instanceof SenMLStreamDecoder))
+            return;
+
+        final SenMLPack pack = new SenMLPack();
+        ((SenMLStreamDecoder) decoder).fromSenML(givenSenMLJsonExample().getBytes(), new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                pack.addRecord(record);
+            }
+        });
+        SenMLTestUtil.assertSenMLPackEquals(givenDeviceObjectInstance(), pack);
+    }
 }
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.eclipse.leshan.core.util.Hex;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TlvReader}
+ */
+public class TlvReaderTest {
+
+    @Test
+    public void read_device_object() throws TlvException {
+        // the /3/0 from liwblwm2m
+        String dataStr = "C800144F70656E204D6F62696C6520416C6C69616E6365C801164C69676874776569676874204D324D20436C69656E74C80209333435303030313233C303312E30860641000141010588070842000ED842011388870841007D42010384C10964C10A0F830B410000C40D5182428FC60E2B30323A3030C10F55";
+        TlvReader reader = new TlvReader(ByteBuffer.wrap(Hex.decodeHex(dataStr.toCharArray())));
+
+        assertTrue(reader.next());
+        assertEquals(TlvType.RESOURCE_VALUE, reader.getType());
+        assertEquals(0, reader.getIdentifier());
+        assertEquals("Open Mobile Alliance", reader.getString());
+
+        // skip to available power sources
+        while (reader.next() && reader.getIdentifier() != 6) {
+        }
+        assertEquals(TlvType.MULTIPLE_RESOURCE, reader.getType());
+        reader.enter();
+        assertTrue(reader.next());
+        assertEquals(TlvType.RESOURCE_INSTANCE, reader.getType());
+        assertEquals(0, reader.getIdentifier());
+        assertEquals(1, reader.getInteger());
+        assertTrue(reader.next());
+        assertEquals(1, reader.getIdentifier());
+        assertEquals(5, reader.getInteger());
+        assertFalse(reader.next());
+        reader.exit();
+
+        // power source voltage is the next resource
+        assertTrue(reader.next());
+        assertEquals(7, reader.getIdentifier());
+
+        // current time
+        while (reader.next() && reader.getIdentifier() != 13) {
+        }
+        assertEquals(0x5182428FL * 1000, reader.getDate().getTime());
+
+        int count = 0;
+        reader.rewind();
+        while (reader.next()) {
+            count++;
+        }
+        assertEquals(13, count);
+    }
+
+    @Test
+    public void read_primitive_values() throws TlvException {
+        // integer -2 on 2 bytes, float 1.5 on 4 bytes, boolean true and objlnk 0x1234:0x5678
+        String dataStr = "C200FFFEC4013FC00000C10201C40312345678";
+        TlvReader reader = new TlvReader(ByteBuffer.wrap(Hex.decodeHex(dataStr.toCharArray())));
+
+        assertTrue(reader.next());
+        assertEquals(-2, reader.getInteger());
+        assertTrue(reader.next());
+        assertEquals(1.5d, reader.getFloat(), 0);
+        assertTrue(reader.next());
+        assertTrue(reader.getBoolean());
+        assertTrue(reader.next());
+        assertEquals(0x1234, reader.getObjlnk().getObjectId());
+        assertEquals(0x5678, reader.getObjlnk().getObjectInstanceId());
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void read_sliced_buffer_in_place() throws TlvException {
+        byte[] bytes = Hex.decodeHex("FFFFC303312E30FFFF".toCharArray());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 2, 5).slice();
+
+        TlvReader reader = new TlvReader(buffer);
+        assertTrue(reader.next());
+        assertEquals(3, reader.getIdentifier());
+        assertEquals("1.0", reader.getString());
+        assertEquals(3, reader.getValue().remaining());
+        assertFalse(reader.next());
+
+        // buffer is not modified
+        assertEquals(0, buffer.position());
+        assertEquals("C303312E30", reader.toHexString().toUpperCase());
+    }
+
+    @Test(expected = TlvException.class)
+    public void read_value_longer_than_content() throws TlvException {
+        TlvReader reader = new TlvReader(ByteBuffer.wrap(Hex.decodeHex("C303312E".toCharArray())));
+        reader.next();
+    }
+
+    @Test(expected = TlvException.class)
+    public void read_child_value_longer_than_container() throws TlvException {
+        // multiple resource of length 3 containing a resource instance of length 2
+        TlvReader reader = new TlvReader(ByteBuffer.wrap(Hex.decodeHex("8306034200011234".toCharArray())));
+        reader.next();
+        reader.enter();
+        reader.next();
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TlvWriter}
+ */
+public class TlvWriterTest {
+
+    @Test
+    public void write_string_as_utf8() {
+        // ascii, 2 bytes, 3 bytes, surrogate pair and unpaired surrogate
+        String[] values = { "Leshan", "caf\u00e9", "\u20ac10", "\ud83d\ude00", "a\ud83db" };
+        for (String value : values) {
+            byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+            assertEquals(expected.length, TlvWriter.sizeOfString(value));
+
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+            new TlvWriter(buffer).writeString(value);
+            assertArrayEquals(expected, buffer.array());
+        }
+    }
+
+    @Test
+    public void write_integer_with_minimal_size() {
+        long[] values = { 0, -128, 127, 128, -32769, Integer.MAX_VALUE, Integer.MAX_VALUE + 1L, Long.MIN_VALUE };
+        for (long value : values) {
+            byte[] expected = TlvEncoder.encodeInteger(value);
+            assertEquals(expected.length, TlvWriter.sizeOfInteger(value));
+
+            // writer does not depend on buffer order
+            ByteBuffer buffer = ByteBuffer.allocate(expected.length).order(ByteOrder.LITTLE_ENDIAN);
+            new TlvWriter(buffer).writeInteger(value);
+            assertArrayEquals(expected, buffer.array());
+        }
+    }
+
+    @Test
+    public void write_headers_like_encoder() {
+        int[] lengths = { 0, 7, 8, 255, 256, 65535, 65536 };
+        int[] identifiers = { 0, 255, 256, 65535 };
+        for (int length : lengths) {
+            for (int identifier : identifiers) {
+                Tlv tlv = new Tlv(TlvType.RESOURCE_VALUE, null, new byte[length], identifier);
+                byte[] expected = TlvEncoder.encode(new Tlv[] { tlv }).array();
+                assertEquals(expected.length, TlvWriter.sizeOf(identifier, length));
+
+                ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+                TlvWriter writer = new TlvWriter(buffer);
+                writer.writeHeader(TlvType.RESOURCE_VALUE, identifier, length);
+                writer.writeOpaque(new byte[length]);
+                assertTrue(String.format("length %d, identifier %d", length, identifier),
+                        Arrays.equals(expected, buffer.array()));
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.core.util.TimeoutScheduler.Timeout;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelTimeoutSchedulerTest {
+
+    private HashedWheelTimeoutScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        // small wheel to test timeouts needing several rounds
+        scheduler = new HashedWheelTimeoutScheduler(new NamedThreadFactory("test-timer-%d"), 10,
+                TimeUnit.MILLISECONDS, 4);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.destroy();
+    }
+
+    @Test
+    public void task_is_executed_after_delay() throws InterruptedException {
+        final CountDownLatch executed = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                executed.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(executed.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void cancelled_task_is_not_executed() throws InterruptedException {
+        final AtomicInteger executed = new AtomicInteger();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                executed.incrementAndGet();
+            }
+        };
+        Timeout cancelled = scheduler.schedule(task, 50, TimeUnit.MILLISECONDS);
+        final CountDownLatch last = new CountDownLatch(1);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                last.countDown();
+            }
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+        assertTrue(last.await(2, TimeUnit.SECONDS));
+        assertEquals(0, executed.get());
+    }
+
+    @Test
+    public void many_tasks_are_all_executed() throws InterruptedException {
+        int nbTasks = 10000;
+        final CountDownLatch executed = new CountDownLatch(nbTasks);
+        for (int i = 0; i < nbTasks; i++) {
+            scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    executed.countDown();
+                }
+            }, i % 200, TimeUnit.MILLISECONDS);
+        }
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void schedule_after_destroy_fails() {
+        scheduler.destroy();
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 10, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.integration.tests;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.eclipse.leshan.server.redis.RedisSecurityStore;
+import org.eclipse.leshan.server.security.NonUniqueSecurityInfoException;
+import org.eclipse.leshan.server.security.SecurityInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.Pool;
+
+/**
+ * Run with the <code>redis</code> profile, against the server given by the <code>REDIS_URI</code> environment
+ * variable.
+ */
+public class RedisSecurityStoreTest {
+
+    private Pool<Jedis> pool;
+    private RedisSecurityStore store;
+
+    @Before
+    public void start() {
+        String redisURI = System.getenv("REDIS_URI");
+        if (redisURI == null)
+            redisURI = "";
+        pool = new JedisPool(redisURI);
+        store = new RedisSecurityStore(pool);
+        clean();
+    }
+
+    @After
+    public void stop() {
+        clean();
+        pool.close();
+    }
+
+    private void clean() {
+        store.removeAll(Arrays.asList("ep1", "ep2", "ep3"), false);
+        try (Jedis j = pool.getResource()) {
+            j.del("PSKID#SEC");
+        }
+    }
+
+    @Test
+    public void add_all_and_remove_all() throws NonUniqueSecurityInfoException {
+        store.addAll(Arrays.asList(psk("ep1", "id1"), psk("ep2", "id2"), SecurityInfo.newX509CertInfo("ep3")));
+        assertEquals("ep1", store.getByIdentity("id1").getEndpoint());
+        assertEquals("ep2", store.getByIdentity("id2").getEndpoint());
+        assertEquals(3, store.getAll().size());
+
+        Collection<SecurityInfo> removed = store.removeAll(Arrays.asList("ep1", "ep3", "unknown"), false);
+        assertEquals(2, removed.size());
+        assertNull(store.getByEndpoint("ep1"));
+        assertNull(store.getByIdentity("id1"));
+        assertEquals("ep2", store.getByIdentity("id2").getEndpoint());
+    }
+
+    @Test
+    public void add_all_can_swap_identities() throws NonUniqueSecurityInfoException {
+        store.addAll(Arrays.asList(psk("ep1", "id1"), psk("ep2", "id2")));
+        Collection<SecurityInfo> previous = store.addAll(Arrays.asList(psk("ep1", "id2"), psk("ep2", "id1")));
+
+        assertEquals(2, previous.size());
+        assertEquals("ep2", store.getByIdentity("id1").getEndpoint());
+        assertEquals("ep1", store.getByIdentity("id2").getEndpoint());
+    }
+
+    @Test
+    public void add_all_is_not_applied_if_identity_is_used() throws NonUniqueSecurityInfoException {
+        store.add(psk("ep1", "id1"));
+        try {
+            store.addAll(Arrays.asList(psk("ep2", "id2"), psk("ep3", "id1")));
+            fail("NonUniqueSecurityInfoException expected");
+        } catch (NonUniqueSecurityInfoException e) {
+            // expected
+        }
+        assertNull(store.getByEndpoint("ep2"));
+        assertNull(store.getByIdentity("id2"));
+        assertEquals("ep1", store.getByIdentity("id1").getEndpoint());
+    }
+
+    @Test
+    public void remove_keeps_identity_given_to_another_endpoint() throws NonUniqueSecurityInfoException {
+        store.add(psk("ep1", "id1"));
+        // simulate a concurrent modification which gave the identity to another endpoint
+        store.add(psk("ep2", "id2"));
+        try (Jedis j = pool.getResource()) {
+            j.hset("PSKID#SEC", "id1", "ep2");
+        }
+
+        assertNotNull(store.remove("ep1", false));
+        assertEquals("ep2", store.getByIdentity("id1").getEndpoint());
+    }
+
+    private static SecurityInfo psk(String endpoint, String identity) {
+        return SecurityInfo.newPreSharedKeyInfo(endpoint, identity, new byte[] { 1, 2, 3 });
+    }
+}
@@ -20,19 +20,26 @@ import static org.junit.Assert.*;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.leshan.client.resource.ObjectsInitializer;
 import org.eclipse.leshan.client.servers.ServerIdentity;
 import org.eclipse.leshan.core.model.StaticModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.integration.tests.util.Callback;
 import org.eclipse.leshan.integration.tests.util.IntegrationTestHelper;
 import org.eclipse.leshan.integration.tests.util.SynchronousSendListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.send.TimeSeriesSendListener;
+import org.eclipse.leshan.server.send.TimeSeriesSendService;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -131,4 +138,36 @@ public class SendTest {
         assertEquals(serialnumber.getId(), 2);
         assertEquals(serialnumber.getValue(), "12345");
     }
+
+    @Test
+    public void can_send_resources_as_time_series() throws InterruptedException, TimeoutException {
+        // Define time series listener only
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Map<LwM2mPath, TimeSeries>> received = new AtomicReference<>();
+        TimeSeriesSendService sendService = (TimeSeriesSendService) helper.server.getSendService();
+        sendService.addTimeSeriesListener(new TimeSeriesSendListener() {
+            @Override
+            public void timeSeriesReceived(Registration registration, Map<LwM2mPath, TimeSeries> data) {
+                received.set(data);
+                latch.countDown();
+            }
+        });
+
+        // Send Data
+        helper.waitForRegistrationAtClientSide(1);
+        ServerIdentity server = helper.client.getRegisteredServers().values().iterator().next();
+        SendResponse response = helper.client.sendData(server, contentformat, Arrays.asList("/3/0/1", "/3/0/2"), 1000);
+        assertTrue(response.isSuccess());
+
+        // wait for data and check result
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        Map<LwM2mPath, TimeSeries> data = received.get();
+        TimeSeries modelnumber = data.get(new LwM2mPath("/3/0/1"));
+        assertEquals(1, modelnumber.size());
+        assertEquals("IT-TEST-123", modelnumber.getValue(0));
+
+        TimeSeries serialnumber = data.get(new LwM2mPath("/3/0/2"));
+        assertEquals(1, serialnumber.size());
+        assertEquals("12345", serialnumber.getValue(0));
+    }
 }
@@ -35,6 +35,7 @@ import org.eclipse.leshan.core.californium.CoapResponseCallback;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
+import org.eclipse.leshan.core.node.codec.SharedNodeEncoder;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.DownlinkRequest;
 import org.eclipse.leshan.core.request.SendRequest;
@@ -47,13 +48,17 @@ import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.californium.observation.ObservationServiceImpl;
 import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
 import org.eclipse.leshan.server.californium.registration.RegisterResource;
+import org.eclipse.leshan.server.californium.request.CaliforniumCoalescingRequestSender;
 import org.eclipse.leshan.server.californium.request.CaliforniumLwM2mRequestSender;
+import org.eclipse.leshan.server.californium.request.CaliforniumNegotiatingRequestSender;
 import org.eclipse.leshan.server.californium.request.CaliforniumQueueModeRequestSender;
 import org.eclipse.leshan.server.californium.request.CoapRequestSender;
+import org.eclipse.leshan.server.californium.request.RequestScheduler;
 import org.eclipse.leshan.server.californium.send.SendResource;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.observation.ObservationService;
@@ -70,12 +75,16 @@ import org.eclipse.leshan.server.registration.RegistrationService;
 import org.eclipse.leshan.server.registration.RegistrationServiceImpl;
 import org.eclipse.leshan.server.registration.RegistrationStore;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.request.ContentFormatNegotiator;
+import org.eclipse.leshan.server.request.FanOutRequestSender;
 import org.eclipse.leshan.server.request.LowerLayerConfig;
 import org.eclipse.leshan.server.request.LwM2mRequestSender;
+import org.eclipse.leshan.server.request.NegotiatingLwM2mRequestSender;
 import org.eclipse.leshan.server.security.Authorizer;
 import org.eclipse.leshan.server.security.EditableSecurityStore;
 import org.eclipse.leshan.server.security.SecurityInfo;
 import org.eclipse.leshan.server.security.SecurityStore;
+import org.eclipse.leshan.server.security.SecurityStoreAddListener;
 import org.eclipse.leshan.server.security.SecurityStoreListener;
 import org.eclipse.leshan.server.send.SendHandler;
 import org.eclipse.leshan.server.send.SendService;
@@ -114,13 +123,20 @@ public class LeshanServer {
     /** @since 1.1 */
     protected final ObservationServiceImpl observationService;
     private final SecurityStore securityStore;
+    private final Authorizer authorizer;
     private final LwM2mModelProvider modelProvider;
     private final PresenceServiceImpl presenceService;
     private final LwM2mRequestSender requestSender;
+    private final FanOutRequestSender fanOutRequestSender;
 
     // Configuration
     /** since 1.1 */
     protected final boolean updateRegistrationOnNotification;
+    protected final RequestScheduler requestScheduler;
+    protected final TimeoutScheduler timeoutScheduler;
+    protected final boolean requestCoalescing;
+    protected final long coalescingCacheDurationInMs;
+    protected final boolean contentFormatNegotiation;
 
     /**
      * Initialize a server which will bind to the specified address and port.
@@ -177,6 +193,47 @@ public class LeshanServer {
             LwM2mModelProvider modelProvider, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder,
             NetworkConfig coapConfig, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
             RegistrationIdProvider registrationIdProvider, boolean updateRegistrationOnNotification) {
+        this(unsecuredEndpoint, securedEndpoint, registrationStore, securityStore, authorizer, modelProvider, encoder,
+                decoder, coapConfig, noQueueMode, awakeTimeProvider, registrationIdProvider,
+                updateRegistrationOnNotification, null, null, false, 0, false);
+    }
+
+    /**
+     * Initialize a server which will bind to the specified address and port.
+     * <p>
+     * {@link LeshanServerBuilder} is the priviledged way to create a {@link LeshanServer}.
+     *
+     * @param unsecuredEndpoint CoAP endpoint used for <code>coap://</code> communication.
+     * @param securedEndpoint CoAP endpoint used for <code>coaps://</code> communication.
+     * @param registrationStore the {@link Registration} store.
+     * @param securityStore the {@link SecurityInfo} store.
+     * @param authorizer define which devices is allow to register on this server.
+     * @param modelProvider provides the objects description for each client.
+     * @param decoder decoder used to decode response payload.
+     * @param encoder encode used to encode request payload.
+     * @param coapConfig the CoAP {@link NetworkConfig}.
+     * @param noQueueMode true to disable presenceService.
+     * @param awakeTimeProvider to set the client awake time if queue mode is used.
+     * @param registrationIdProvider to provide registrationId using for location-path option values on response of
+     *        Register operation.
+     * @param updateRegistrationOnNotification will activate registration update on observe notification.
+     * @param requestScheduler limits the number of requests in flight, if <code>null</code> requests are sent
+     *        immediately.
+     * @param timeoutScheduler used to detect response timeout of asynchronous requests, if <code>null</code> a
+     *        dedicated one is created.
+     * @param requestCoalescing true to coalesce identical concurrent read and discover requests.
+     * @param coalescingCacheDurationInMs the duration during which a successful response of a coalesced request is
+     *        reused, 0 means no cache.
+     * @param contentFormatNegotiation true to send write requests using the content format producing the smallest
+     *        payload among the ones supported by the client.
+     */
+    public LeshanServer(CoapEndpoint unsecuredEndpoint, CoapEndpoint securedEndpoint,
+            CaliforniumRegistrationStore registrationStore, SecurityStore securityStore, Authorizer authorizer,
+            LwM2mModelProvider modelProvider, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder,
+            NetworkConfig coapConfig, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
+            RegistrationIdProvider registrationIdProvider, boolean updateRegistrationOnNotification,
+            RequestScheduler requestScheduler, TimeoutScheduler timeoutScheduler, boolean requestCoalescing,
+            long coalescingCacheDurationInMs, boolean contentFormatNegotiation) {
 
         Validate.notNull(registrationStore, "registration store cannot be null");
         Validate.notNull(authorizer, "authorizer cannot be null");
@@ -185,6 +242,7 @@ public class LeshanServer {
         Validate.notNull(decoder, "decoder cannot be null");
         Validate.notNull(coapConfig, "coapConfig cannot be null");
         Validate.notNull(registrationIdProvider, "registrationIdProvider cannot be null");
+        this.authorizer = authorizer;
 
         // Create CoAP server
         coapServer = createCoapServer(coapConfig);
@@ -207,6 +265,11 @@ public class LeshanServer {
         this.securityStore = securityStore;
         this.modelProvider = modelProvider;
         this.updateRegistrationOnNotification = updateRegistrationOnNotification;
+        this.requestScheduler = requestScheduler;
+        this.timeoutScheduler = timeoutScheduler;
+        this.requestCoalescing = requestCoalescing;
+        this.coalescingCacheDurationInMs = coalescingCacheDurationInMs;
+        this.contentFormatNegotiation = contentFormatNegotiation;
         observationService = createObservationService(registrationStore, modelProvider, decoder, unsecuredEndpoint,
                 securedEndpoint);
         if (noQueueMode) {
@@ -223,8 +286,11 @@ public class LeshanServer {
         coapServer.add(createSendResource(sendService, modelProvider, decoder, registrationStore));
 
         // create request sender
+        // payload of requests sent to a lot of devices is shared to encode it only once
+        SharedNodeEncoder sharedEncoder = new SharedNodeEncoder(encoder);
         requestSender = createRequestSender(securedEndpoint, unsecuredEndpoint, registrationService, observationService,
-                this.modelProvider, encoder, decoder, presenceService);
+                this.modelProvider, sharedEncoder, decoder, presenceService);
+        fanOutRequestSender = createFanOutRequestSender(requestSender, sharedEncoder);
 
         // connection cleaner
         createConnectionCleaner(securityStore, securedEndpoint);
@@ -295,13 +361,23 @@ public class LeshanServer {
             PresenceServiceImpl presenceService) {
 
         // if no queue mode, create a "simple" sender
-        final LwM2mRequestSender requestSender;
+        LwM2mRequestSender sender;
         if (presenceService == null)
-            requestSender = new CaliforniumLwM2mRequestSender(securedEndpoint, unsecuredEndpoint, observationService,
-                    modelProvider, encoder, decoder);
+            sender = new CaliforniumLwM2mRequestSender(securedEndpoint, unsecuredEndpoint, observationService,
+                    modelProvider, encoder, decoder, requestScheduler, timeoutScheduler);
         else
-            requestSender = new CaliforniumQueueModeRequestSender(presenceService, new CaliforniumLwM2mRequestSender(
-                    securedEndpoint, unsecuredEndpoint, observationService, modelProvider, encoder, decoder));
+            sender = new CaliforniumQueueModeRequestSender(presenceService,
+                    new CaliforniumLwM2mRequestSender(securedEndpoint, unsecuredEndpoint, observationService,
+                            modelProvider, encoder, decoder, requestScheduler, timeoutScheduler));
+
+        // identical read/discover requests share the same exchange
+        if (requestCoalescing)
+            sender = new CaliforniumCoalescingRequestSender(sender, coalescingCacheDurationInMs);
+        // write requests use the smallest supported content format
+        if (contentFormatNegotiation)
+            sender = new CaliforniumNegotiatingRequestSender(sender,
+                    new ContentFormatNegotiator(encoder, modelProvider));
+        final LwM2mRequestSender requestSender = sender;
 
         // Cancel observations on client unregistering
         registrationService.addListener(new RegistrationListener() {
@@ -329,22 +405,49 @@ public class LeshanServer {
         return requestSender;
     }
 
+    protected FanOutRequestSender createFanOutRequestSender(LwM2mRequestSender requestSender,
+            SharedNodeEncoder encoder) {
+        return new FanOutRequestSender(requestSender, encoder);
+    }
+
+    /**
+     * Listen to the {@link SecurityStore} to clean DTLS connections of compromised {@link SecurityInfo}.
+     * <p>
+     * Store events are also forwarded to the {@link Authorizer} if it is a {@link SecurityStoreListener} (e.g. to
+     * invalidate decisions cached by the default authorizer), as a store accepts only one listener.
+     */
     protected void createConnectionCleaner(SecurityStore securityStore, CoapEndpoint securedEndpoint) {
-        if (securedEndpoint != null && securedEndpoint.getConnector() instanceof DTLSConnector
-                && securityStore instanceof EditableSecurityStore) {
-
-            final ConnectionCleaner connectionCleaner = new ConnectionCleaner(
-                    (DTLSConnector) securedEndpoint.getConnector());
-
-            ((EditableSecurityStore) securityStore).setListener(new SecurityStoreListener() {
-                @Override
-                public void securityInfoRemoved(boolean infosAreCompromised, SecurityInfo... infos) {
-                    if (infosAreCompromised) {
-                        connectionCleaner.cleanConnectionFor(infos);
-                    }
+        if (!(securityStore instanceof EditableSecurityStore))
+            return;
+
+        final ConnectionCleaner connectionCleaner = securedEndpoint != null
+                && securedEndpoint.getConnector() instanceof DTLSConnector
+                        ? new ConnectionCleaner((DTLSConnector) securedEndpoint.getConnector())
+                        : null;
+        final SecurityStoreListener authorizerListener = authorizer instanceof SecurityStoreListener
+                ? (SecurityStoreListener) authorizer
+                : null;
+        if (connectionCleaner == null && authorizerListener == null)
+            return;
+
+        ((EditableSecurityStore) securityStore).setListener(new SecurityStoreAddListener() {
+            @Override
+            public void securityInfoRemoved(boolean infosAreCompromised, SecurityInfo... infos) {
+                if (authorizerListener != null) {
+                    authorizerListener.securityInfoRemoved(infosAreCompromised, infos);
                 }
-            });
-        }
+                if (infosAreCompromised && connectionCleaner != null) {
+                    connectionCleaner.cleanConnectionFor(infos);
+                }
+            }
+
+            @Override
+            public void securityInfoAdded(SecurityInfo... infos) {
+                if (authorizerListener instanceof SecurityStoreAddListener) {
+                    ((SecurityStoreAddListener) authorizerListener).securityInfoAdded(infos);
+                }
+            }
+        });
     }
 
     /**
@@ -362,6 +465,9 @@ public class LeshanServer {
         if (requestSender instanceof Startable) {
             ((Startable) requestSender).start();
         }
+        if (modelProvider instanceof Startable) {
+            ((Startable) modelProvider).start();
+        }
 
         // Start server
         coapServer.start();
@@ -390,6 +496,9 @@ public class LeshanServer {
         if (requestSender instanceof Stoppable) {
             ((Stoppable) requestSender).stop();
         }
+        if (modelProvider instanceof Stoppable) {
+            ((Stoppable) modelProvider).stop();
+        }
 
         LOG.info("LWM2M server stopped.");
     }
@@ -422,6 +531,12 @@ public class LeshanServer {
             ((Stoppable) requestSender).stop();
         }
 
+        if (modelProvider instanceof Destroyable) {
+            ((Destroyable) modelProvider).destroy();
+        } else if (modelProvider instanceof Stoppable) {
+            ((Stoppable) modelProvider).stop();
+        }
+
         presenceService.destroy();
 
         LOG.info("LWM2M server destroyed.");
@@ -477,6 +592,33 @@ public class LeshanServer {
         return this.modelProvider;
     }
 
+    /**
+     * Get the {@link FanOutRequestSender} which can be used to send a same request to a lot of clients (e.g. for a
+     * firmware update campaign).
+     */
+    public FanOutRequestSender getFanOutRequestSender() {
+        return this.fanOutRequestSender;
+    }
+
+    /**
+     * Get the {@link RequestScheduler} which limits the number of requests in flight, or <code>null</code> if requests
+     * are sent immediately. It can be used to monitor queued, in flight and rejected requests.
+     */
+    public RequestScheduler getRequestScheduler() {
+        return this.requestScheduler;
+    }
+
+    /**
+     * Get the {@link ContentFormatNegotiator} which chooses the content format of write requests, or
+     * <code>null</code> if content format negotiation is not enabled. It can be used to monitor negotiations.
+     */
+    public ContentFormatNegotiator getContentFormatNegotiator() {
+        if (requestSender instanceof NegotiatingLwM2mRequestSender) {
+            return ((NegotiatingLwM2mRequestSender) requestSender).getNegotiator();
+        }
+        return null;
+    }
+
     /**
      * Send a Lightweight M2M request synchronously using a default 2min timeout. Will block until a response is
      * received from the remote server.
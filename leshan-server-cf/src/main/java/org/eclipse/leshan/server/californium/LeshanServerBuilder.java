@@ -24,6 +24,7 @@ import java.security.PublicKey;
 import java.security.cert.Certificate;
 import java.security.cert.X509Certificate;
 import java.util.Arrays;
+import java.util.concurrent.Executor;
 
 import org.eclipse.californium.core.network.CoapEndpoint;
 import org.eclipse.californium.core.network.config.NetworkConfig;
@@ -45,8 +46,11 @@ import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.util.HashedWheelTimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
 import org.eclipse.leshan.server.californium.registration.InMemoryRegistrationStore;
+import org.eclipse.leshan.server.californium.request.RequestScheduler;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.model.StandardModelProvider;
 import org.eclipse.leshan.server.queue.ClientAwakeTimeProvider;
@@ -55,6 +59,7 @@ import org.eclipse.leshan.server.registration.RandomStringRegistrationIdProvider
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationIdProvider;
 import org.eclipse.leshan.server.registration.RegistrationStore;
+import org.eclipse.leshan.server.request.ContentFormatNegotiator;
 import org.eclipse.leshan.server.security.Authorizer;
 import org.eclipse.leshan.server.security.DefaultAuthorizer;
 import org.eclipse.leshan.server.security.InMemorySecurityStore;
@@ -100,6 +105,12 @@ public class LeshanServerBuilder {
     private boolean noQueueMode = false;
     /** @since 1.1 */
     protected boolean updateRegistrationOnNotification;
+    protected RequestScheduler requestScheduler;
+    protected TimeoutScheduler timeoutScheduler;
+    protected boolean requestCoalescing = false;
+    protected long coalescingCacheDurationInMs = 0;
+    protected boolean contentFormatNegotiation = false;
+    protected Executor securityLookupExecutor;
 
     /**
      * <p>
@@ -385,6 +396,73 @@ public class LeshanServerBuilder {
         return this;
     }
 
+    /**
+     * Set the {@link RequestScheduler} used to limit the number of requests in flight for each client (NSTART) and for
+     * all clients. Requests which can not be sent immediately are queued and clients are served in round-robin.
+     * <p>
+     * By default, no scheduler is used and requests are sent immediately.
+     */
+    public LeshanServerBuilder setRequestScheduler(RequestScheduler requestScheduler) {
+        this.requestScheduler = requestScheduler;
+        return this;
+    }
+
+    /**
+     * Set the {@link TimeoutScheduler} used to detect response timeout of asynchronous requests. It can be shared with
+     * other servers or clients and is not destroyed with the server.
+     * <p>
+     * By default, a {@link HashedWheelTimeoutScheduler} is created for the server.
+     */
+    public LeshanServerBuilder setTimeoutScheduler(TimeoutScheduler timeoutScheduler) {
+        this.timeoutScheduler = timeoutScheduler;
+        return this;
+    }
+
+    /**
+     * Activate coalescing of identical concurrent read and discover requests : a request sent while an identical one
+     * is in flight for the same client does not generate a new CoAP exchange and gets the same response.
+     * <p>
+     * Successful responses can also be reused during a short time. This cache is invalidated for a client each time a
+     * request which could modify its state is sent.
+     * <p>
+     * By default, requests are not coalesced.
+     * 
+     * @param requestCoalescing true to coalesce identical concurrent read and discover requests.
+     * @param cacheDurationInMs the duration during which a successful response is reused, 0 means no cache.
+     */
+    public LeshanServerBuilder setRequestCoalescing(boolean requestCoalescing, long cacheDurationInMs) {
+        this.requestCoalescing = requestCoalescing;
+        this.coalescingCacheDurationInMs = cacheDurationInMs;
+        return this;
+    }
+
+    /**
+     * Activate content format negotiation for write requests : the payload is sent using the content format producing
+     * the smallest payload among the ones supported by the client, the requested content format being only a
+     * preference.
+     * <p>
+     * By default, requests are sent with the requested content format.
+     * 
+     * @param contentFormatNegotiation true to choose content format of write requests.
+     * @see ContentFormatNegotiator
+     */
+    public LeshanServerBuilder setContentFormatNegotiation(boolean contentFormatNegotiation) {
+        this.contentFormatNegotiation = contentFormatNegotiation;
+        return this;
+    }
+
+    /**
+     * Set the {@link Executor} used to retrieve PSK secrets from the {@link SecurityStore} during DTLS handshakes. This
+     * is useful when the {@link SecurityStore} is remote (e.g. Redis) to not block DTLS threads while waiting for it.
+     * The executor is not shut down with the server.
+     * <p>
+     * By default, PSK secrets are retrieved synchronously by DTLS threads.
+     */
+    public LeshanServerBuilder setSecurityLookupExecutor(Executor securityLookupExecutor) {
+        this.securityLookupExecutor = securityLookupExecutor;
+        return this;
+    }
+
     /**
      * The default Californium/CoAP {@link NetworkConfig} used by the builder.
      */
@@ -447,7 +525,8 @@ public class LeshanServerBuilder {
                 LOG.warn(
                         "PskStore should be automatically set by Leshan. Using a custom implementation is not advised.");
             } else if (securityStore != null) {
-                dtlsConfigBuilder.setAdvancedPskStore(new LwM2mPskStore(this.securityStore, registrationStore));
+                dtlsConfigBuilder.setAdvancedPskStore(
+                        new LwM2mPskStore(this.securityStore, registrationStore, securityLookupExecutor));
             }
 
             // Handle secure address
@@ -618,6 +697,7 @@ public class LeshanServerBuilder {
             RegistrationIdProvider registrationIdProvider) {
         return new LeshanServer(unsecuredEndpoint, securedEndpoint, registrationStore, securityStore, authorizer,
                 modelProvider, encoder, decoder, coapConfig, noQueueMode, awakeTimeProvider, registrationIdProvider,
-                updateRegistrationOnNotification);
+                updateRegistrationOnNotification, requestScheduler, timeoutScheduler, requestCoalescing,
+                coalescingCacheDurationInMs, contentFormatNegotiation);
     }
 }
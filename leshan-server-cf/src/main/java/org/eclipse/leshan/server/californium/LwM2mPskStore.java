@@ -16,12 +16,15 @@
 package org.eclipse.leshan.server.californium;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.crypto.SecretKey;
 
 import org.eclipse.californium.scandium.dtls.ConnectionId;
 import org.eclipse.californium.scandium.dtls.PskPublicInformation;
 import org.eclipse.californium.scandium.dtls.PskSecretResult;
+import org.eclipse.californium.scandium.dtls.PskSecretResultHandler;
 import org.eclipse.californium.scandium.dtls.pskstore.AdvancedPskStore;
 import org.eclipse.californium.scandium.util.SecretUtil;
 import org.eclipse.californium.scandium.util.ServerNames;
@@ -29,22 +32,44 @@ import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationStore;
 import org.eclipse.leshan.server.security.SecurityInfo;
 import org.eclipse.leshan.server.security.SecurityStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A {@link AdvancedPskStore} which retrieve PSK information from Leshan {@link SecurityStore}.
+ * <p>
+ * If a lookup {@link Executor} is provided, PSK secrets are retrieved asynchronously on this executor and the handshake
+ * is resumed when the secret is available. This avoids to block DTLS threads when {@link SecurityStore} is remote
+ * (e.g. Redis).
  */
 public class LwM2mPskStore implements AdvancedPskStore {
 
+    private static final Logger LOG = LoggerFactory.getLogger(LwM2mPskStore.class);
+
     private SecurityStore securityStore;
     private RegistrationStore registrationStore;
+    private final Executor lookupExecutor;
+    private volatile PskSecretResultHandler resultHandler;
 
     public LwM2mPskStore(SecurityStore securityStore) {
         this(securityStore, null);
     }
 
     public LwM2mPskStore(SecurityStore securityStore, RegistrationStore registrationStore) {
+        this(securityStore, registrationStore, null);
+    }
+
+    /**
+     * @param securityStore the store used to retrieve PSK secrets.
+     * @param registrationStore the store used to retrieve the PSK identity of a registered client, can be
+     *        <code>null</code>.
+     * @param lookupExecutor the executor used to retrieve PSK secrets asynchronously. If <code>null</code>, secrets are
+     *        retrieved synchronously by DTLS threads.
+     */
+    public LwM2mPskStore(SecurityStore securityStore, RegistrationStore registrationStore, Executor lookupExecutor) {
         this.securityStore = securityStore;
         this.registrationStore = registrationStore;
+        this.lookupExecutor = lookupExecutor;
     }
 
     @Override
@@ -53,11 +78,39 @@ public class LwM2mPskStore implements AdvancedPskStore {
     }
 
     @Override
-    public PskSecretResult requestPskSecretResult(ConnectionId cid, ServerNames serverName,
-            PskPublicInformation identity, String hmacAlgorithm, SecretKey otherSecret, byte[] seed) {
+    public PskSecretResult requestPskSecretResult(final ConnectionId cid, ServerNames serverName,
+            final PskPublicInformation identity, String hmacAlgorithm, SecretKey otherSecret, byte[] seed) {
         if (securityStore == null)
             return null;
 
+        final PskSecretResultHandler handler = resultHandler;
+        if (lookupExecutor == null || handler == null) {
+            return getPskSecretResult(cid, identity);
+        }
+
+        try {
+            lookupExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    PskSecretResult result;
+                    try {
+                        result = getPskSecretResult(cid, identity);
+                    } catch (RuntimeException e) {
+                        LOG.warn("Unable to retrieve PSK for identity {}", identity, e);
+                        result = new PskSecretResult(cid, identity, null);
+                    }
+                    handler.apply(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("PSK lookup for identity {} rejected by executor, lookup is done synchronously", identity);
+            return getPskSecretResult(cid, identity);
+        }
+        // result will be provided to the handler
+        return null;
+    }
+
+    private PskSecretResult getPskSecretResult(ConnectionId cid, PskPublicInformation identity) {
         SecurityInfo info = securityStore.getByIdentity(identity.getPublicInfoAsString());
         if (info == null || info.getPreSharedKey() == null) {
             return new PskSecretResult(cid, identity, null);
@@ -68,8 +121,8 @@ public class LwM2mPskStore implements AdvancedPskStore {
     }
 
     @Override
-    public void setResultHandler(org.eclipse.californium.scandium.dtls.PskSecretResultHandler resultHandler) {
-        // we don't use async mode.
+    public void setResultHandler(PskSecretResultHandler resultHandler) {
+        this.resultHandler = resultHandler;
     }
 
     @Override
@@ -30,6 +30,7 @@ import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.server.bootstrap.BootstrapSession;
 import org.eclipse.leshan.server.bootstrap.LwM2mBootstrapRequestSender;
@@ -56,8 +57,22 @@ public class CaliforniumLwM2mBootstrapRequestSender implements LwM2mBootstrapReq
      */
     public CaliforniumLwM2mBootstrapRequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint, LwM2mModel model,
             LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder) {
+        this(secureEndpoint, nonSecureEndpoint, model, encoder, decoder, null);
+    }
+
+    /**
+     * @param secureEndpoint The endpoint used to send coaps request.
+     * @param nonSecureEndpoint The endpoint used to send coap request.
+     * @param model the {@link LwM2mModel} used to encode/decode {@link LwM2mNode}.
+     * @param encoder The {@link LwM2mNodeEncoder} used to encode {@link LwM2mNode}.
+     * @param decoder The {@link LwM2mNodeDecoder} used to encode {@link LwM2mNode}.
+     * @param timeoutScheduler The {@link TimeoutScheduler} used to detect response timeout of asynchronous requests,
+     *        if <code>null</code> a dedicated one is created.
+     */
+    public CaliforniumLwM2mBootstrapRequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint, LwM2mModel model,
+            LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder, TimeoutScheduler timeoutScheduler) {
         this.model = model;
-        this.sender = new RequestSender(secureEndpoint, nonSecureEndpoint, encoder, decoder);
+        this.sender = new RequestSender(secureEndpoint, nonSecureEndpoint, encoder, decoder, null, timeoutScheduler);
     }
 
     /**
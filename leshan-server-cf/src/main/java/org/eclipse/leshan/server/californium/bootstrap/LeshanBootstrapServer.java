@@ -26,6 +26,7 @@ import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.Startable;
@@ -58,6 +59,7 @@ public class LeshanBootstrapServer {
     private final BootstrapSecurityStore bsSecurityStore;
 
     private LwM2mBootstrapRequestSender requestSender;
+    protected final TimeoutScheduler timeoutScheduler;
 
     /**
      * /** Initialize a server which will bind to the specified address and port.
@@ -79,6 +81,33 @@ public class LeshanBootstrapServer {
             BootstrapConfigurationStore bsStore, BootstrapSecurityStore bsSecurityStore,
             BootstrapSessionManager bsSessionManager, BootstrapHandlerFactory bsHandlerFactory, LwM2mModel model,
             NetworkConfig coapConfig, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder) {
+        this(unsecuredEndpoint, securedEndpoint, bsStore, bsSecurityStore, bsSessionManager, bsHandlerFactory, model,
+                coapConfig, encoder, decoder, null);
+    }
+
+    /**
+     * Initialize a server which will bind to the specified address and port.
+     * <p>
+     * {@link LeshanBootstrapServerBuilder} is the priviledged way to create a {@link LeshanBootstrapServer}.
+     * 
+     * @param unsecuredEndpoint CoAP endpoint used for <code>coap://</code> communication.
+     * @param securedEndpoint CoAP endpoint used for <code>coaps://</code> communication.
+     * @param bsStore the store containing bootstrap configuration to apply during a bootstrap session.
+     * @param bsSecurityStore the store containing security information needed to authenticate a client.
+     * @param bsSessionManager manages life cycle of a bootstrap process
+     * @param bsHandlerFactory responsible to create the {@link BootstrapHandler}
+     * @param model the {@link LwM2mModel} used mainly to decode an encode LWM2M payload.
+     * @param coapConfig the CoAP {@link NetworkConfig}.
+     * @param encoder encode used to encode request payload.
+     * @param decoder decoder used to decode response payload.
+     * @param timeoutScheduler used to detect response timeout of asynchronous requests, if <code>null</code> a
+     *        dedicated one is created.
+     */
+    public LeshanBootstrapServer(CoapEndpoint unsecuredEndpoint, CoapEndpoint securedEndpoint,
+            BootstrapConfigurationStore bsStore, BootstrapSecurityStore bsSecurityStore,
+            BootstrapSessionManager bsSessionManager, BootstrapHandlerFactory bsHandlerFactory, LwM2mModel model,
+            NetworkConfig coapConfig, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder,
+            TimeoutScheduler timeoutScheduler) {
 
         Validate.notNull(bsStore, "bootstrap store must not be null");
         Validate.notNull(bsSessionManager, "session manager must not be null");
@@ -88,6 +117,7 @@ public class LeshanBootstrapServer {
 
         this.bsStore = bsStore;
         this.bsSecurityStore = bsSecurityStore;
+        this.timeoutScheduler = timeoutScheduler;
         this.coapApi = new CoapAPI();
 
         // init CoAP server
@@ -121,7 +151,8 @@ public class LeshanBootstrapServer {
 
     protected LwM2mBootstrapRequestSender createRequestSender(Endpoint securedEndpoint, Endpoint unsecuredEndpoint,
             LwM2mModel model, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder) {
-        return new CaliforniumLwM2mBootstrapRequestSender(securedEndpoint, unsecuredEndpoint, model, encoder, decoder);
+        return new CaliforniumLwM2mBootstrapRequestSender(securedEndpoint, unsecuredEndpoint, model, encoder, decoder,
+                timeoutScheduler);
     }
 
     protected CoapResource createBootstrapResource(BootstrapHandler handler) {
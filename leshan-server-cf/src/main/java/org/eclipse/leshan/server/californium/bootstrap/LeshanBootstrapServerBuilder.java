@@ -43,6 +43,8 @@ import org.eclipse.leshan.core.node.codec.DefaultLwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.DefaultLwM2mNodeEncoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
+import org.eclipse.leshan.core.util.HashedWheelTimeoutScheduler;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.server.bootstrap.BootstrapConfig;
 import org.eclipse.leshan.server.bootstrap.BootstrapConfigurationStore;
 import org.eclipse.leshan.server.bootstrap.BootstrapConfigurationStoreAdapter;
@@ -89,6 +91,7 @@ public class LeshanBootstrapServerBuilder {
     private EndpointFactory endpointFactory;
     private boolean noSecuredEndpoint;
     private boolean noUnsecuredEndpoint;
+    private TimeoutScheduler timeoutScheduler;
 
     /**
      * Set the address/port for unsecured CoAP communication (<code>coap://</code>).
@@ -367,6 +370,19 @@ public class LeshanBootstrapServerBuilder {
         return this;
     }
 
+    /**
+     * Set the {@link TimeoutScheduler} used to detect response timeout of asynchronous requests. It can be shared with
+     * other servers or clients and is not destroyed with the server.
+     * <p>
+     * By default, a {@link HashedWheelTimeoutScheduler} is created for the server.
+     * 
+     * @return the builder for fluent Bootstrap Server creation.
+     */
+    public LeshanBootstrapServerBuilder setTimeoutScheduler(TimeoutScheduler timeoutScheduler) {
+        this.timeoutScheduler = timeoutScheduler;
+        return this;
+    }
+
     /**
      * Deactivate secured CoAP endpoint (DTLS), meaning that <code>coaps://</code> communication will be impossible.
      * 
@@ -601,6 +617,6 @@ public class LeshanBootstrapServerBuilder {
             BootstrapSessionManager bsSessionManager, BootstrapHandlerFactory bsHandlerFactory, LwM2mModel model,
             NetworkConfig coapConfig, LwM2mNodeEncoder encoder, LwM2mNodeDecoder decoder) {
         return new LeshanBootstrapServer(unsecuredEndpoint, securedEndpoint, bsStore, bsSecurityStore, bsSessionManager,
-                bsHandlerFactory, model, coapConfig, encoder, decoder);
+                bsHandlerFactory, model, coapConfig, encoder, decoder, timeoutScheduler);
     }
 }
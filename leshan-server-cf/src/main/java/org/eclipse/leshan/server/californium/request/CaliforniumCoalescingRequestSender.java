@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import org.eclipse.californium.core.coap.CoAP.Code;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.californium.CoapResponseCallback;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.request.CoalescingLwM2mRequestSender;
+import org.eclipse.leshan.server.request.LwM2mRequestSender;
+
+/**
+ * A {@link LwM2mRequestSender} and {@link CoapRequestSender} which coalesces identical concurrent read and discover
+ * requests.
+ * <p>
+ * CoAP requests are never coalesced, they are sent using the delegated sender.
+ * 
+ * @see CoalescingLwM2mRequestSender
+ */
+public class CaliforniumCoalescingRequestSender extends CoalescingLwM2mRequestSender
+        implements CoapRequestSender, Destroyable {
+
+    /**
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     * @param cacheDurationInMs the duration during which a successful response is reused for identical requests. 0
+     *        means no cache.
+     */
+    public CaliforniumCoalescingRequestSender(LwM2mRequestSender delegatedSender, long cacheDurationInMs) {
+        super(delegatedSender, cacheDurationInMs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response sendCoapRequest(Registration destination, Request coapRequest, long timeout)
+            throws InterruptedException {
+        CoapRequestSender sender = getCoapRequestSender();
+        invalidateIfNeeded(destination, coapRequest);
+        return sender.sendCoapRequest(destination, coapRequest, timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendCoapRequest(Registration destination, Request coapRequest, long timeout,
+            CoapResponseCallback responseCallback, ErrorCallback errorCallback) {
+        CoapRequestSender sender = getCoapRequestSender();
+        invalidateIfNeeded(destination, coapRequest);
+        sender.sendCoapRequest(destination, coapRequest, timeout, responseCallback, errorCallback);
+    }
+
+    private CoapRequestSender getCoapRequestSender() {
+        // Ensure that delegated sender is able to send CoAP request
+        if (!(delegatedSender instanceof CoapRequestSender)) {
+            throw new UnsupportedOperationException("This sender does not support to send CoAP request");
+        }
+        return (CoapRequestSender) delegatedSender;
+    }
+
+    private void invalidateIfNeeded(Registration destination, Request coapRequest) {
+        // we can not know what a raw CoAP request does, so only GET is considered as harmless
+        if (coapRequest.getCode() != Code.GET) {
+            invalidateCache(destination);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (delegatedSender instanceof Destroyable) {
+            ((Destroyable) delegatedSender).destroy();
+        }
+    }
+}
@@ -36,6 +36,7 @@ import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ObserveResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.server.californium.observation.ObservationServiceImpl;
@@ -65,11 +66,48 @@ public class CaliforniumLwM2mRequestSender implements LwM2mRequestSender, CoapRe
     public CaliforniumLwM2mRequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint,
             ObservationServiceImpl observationService, LwM2mModelProvider modelProvider, LwM2mNodeEncoder encoder,
             LwM2mNodeDecoder decoder) {
+        this(secureEndpoint, nonSecureEndpoint, observationService, modelProvider, encoder, decoder, null);
+    }
+
+    /**
+     * @param secureEndpoint The endpoint used to send coaps request.
+     * @param nonSecureEndpoint The endpoint used to send coap request.
+     * @param observationService The service used to store observation.
+     * @param modelProvider the {@link LwM2mModelProvider} used retrieve the {@link LwM2mModel} used to encode/decode
+     *        {@link LwM2mNode}.
+     * @param encoder The {@link LwM2mNodeEncoder} used to encode {@link LwM2mNode}.
+     * @param decoder The {@link LwM2mNodeDecoder} used to encode {@link LwM2mNode}.
+     * @param scheduler The {@link RequestScheduler} used to limit the number of requests in flight, if
+     *        <code>null</code> requests are sent immediately.
+     */
+    public CaliforniumLwM2mRequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint,
+            ObservationServiceImpl observationService, LwM2mModelProvider modelProvider, LwM2mNodeEncoder encoder,
+            LwM2mNodeDecoder decoder, RequestScheduler scheduler) {
+        this(secureEndpoint, nonSecureEndpoint, observationService, modelProvider, encoder, decoder, scheduler, null);
+    }
+
+    /**
+     * @param secureEndpoint The endpoint used to send coaps request.
+     * @param nonSecureEndpoint The endpoint used to send coap request.
+     * @param observationService The service used to store observation.
+     * @param modelProvider the {@link LwM2mModelProvider} used retrieve the {@link LwM2mModel} used to encode/decode
+     *        {@link LwM2mNode}.
+     * @param encoder The {@link LwM2mNodeEncoder} used to encode {@link LwM2mNode}.
+     * @param decoder The {@link LwM2mNodeDecoder} used to encode {@link LwM2mNode}.
+     * @param scheduler The {@link RequestScheduler} used to limit the number of requests in flight, if
+     *        <code>null</code> requests are sent immediately.
+     * @param timeoutScheduler The {@link TimeoutScheduler} used to detect response timeout of asynchronous requests,
+     *        if <code>null</code> a dedicated one is created.
+     */
+    public CaliforniumLwM2mRequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint,
+            ObservationServiceImpl observationService, LwM2mModelProvider modelProvider, LwM2mNodeEncoder encoder,
+            LwM2mNodeDecoder decoder, RequestScheduler scheduler, TimeoutScheduler timeoutScheduler) {
         Validate.notNull(observationService);
         Validate.notNull(modelProvider);
         this.observationService = observationService;
         this.modelProvider = modelProvider;
-        this.sender = new RequestSender(secureEndpoint, nonSecureEndpoint, encoder, decoder);
+        this.sender = new RequestSender(secureEndpoint, nonSecureEndpoint, encoder, decoder, scheduler,
+                timeoutScheduler);
     }
 
     /**
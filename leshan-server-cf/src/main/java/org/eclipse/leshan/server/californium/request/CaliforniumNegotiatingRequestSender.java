@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.californium.CoapResponseCallback;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.request.ContentFormatNegotiator;
+import org.eclipse.leshan.server.request.LwM2mRequestSender;
+import org.eclipse.leshan.server.request.NegotiatingLwM2mRequestSender;
+
+/**
+ * A {@link LwM2mRequestSender} and {@link CoapRequestSender} which sends write requests using the content format
+ * producing the smallest payload.
+ * <p>
+ * CoAP requests are sent unchanged using the delegated sender.
+ * 
+ * @see NegotiatingLwM2mRequestSender
+ */
+public class CaliforniumNegotiatingRequestSender extends NegotiatingLwM2mRequestSender
+        implements CoapRequestSender, Startable, Stoppable, Destroyable {
+
+    /**
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     * @param negotiator the negotiator used to choose content format.
+     */
+    public CaliforniumNegotiatingRequestSender(LwM2mRequestSender delegatedSender,
+            ContentFormatNegotiator negotiator) {
+        super(delegatedSender, negotiator);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response sendCoapRequest(Registration destination, Request coapRequest, long timeout)
+            throws InterruptedException {
+        return getCoapRequestSender().sendCoapRequest(destination, coapRequest, timeout);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendCoapRequest(Registration destination, Request coapRequest, long timeout,
+            CoapResponseCallback responseCallback, ErrorCallback errorCallback) {
+        getCoapRequestSender().sendCoapRequest(destination, coapRequest, timeout, responseCallback, errorCallback);
+    }
+
+    private CoapRequestSender getCoapRequestSender() {
+        // Ensure that delegated sender is able to send CoAP request
+        if (!(delegatedSender instanceof CoapRequestSender)) {
+            throw new UnsupportedOperationException("This sender does not support to send CoAP request");
+        }
+        return (CoapRequestSender) delegatedSender;
+    }
+
+    @Override
+    public void start() {
+        if (delegatedSender instanceof Startable) {
+            ((Startable) delegatedSender).start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (delegatedSender instanceof Stoppable) {
+            ((Stoppable) delegatedSender).stop();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (delegatedSender instanceof Destroyable) {
+            ((Destroyable) delegatedSender).destroy();
+        } else if (delegatedSender instanceof Stoppable) {
+            ((Stoppable) delegatedSender).stop();
+        }
+    }
+}
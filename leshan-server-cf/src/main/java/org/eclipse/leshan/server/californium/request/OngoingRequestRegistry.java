@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Keep track of ongoing CoAP requests by session (e.g. registration id) to be able to cancel them all at once.
+ * <p>
+ * Each session has its own concurrent set of requests, so adding or removing a request is O(1) and cancelling all
+ * requests of a session is O(k) where k is the number of requests of this session. This is done without lock.
+ * <p>
+ * The set of a session is retired when it becomes empty or when its requests are cancelled. A request added
+ * concurrently to a retired set is moved to the new set of the session.
+ */
+class OngoingRequestRegistry {
+
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Add a request to the given session.
+     */
+    public void add(String sessionId, Request coapRequest) {
+        Validate.notNull(sessionId);
+        Validate.notNull(coapRequest);
+
+        while (true) {
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                session = new Session();
+                Session previous = sessions.putIfAbsent(sessionId, session);
+                if (previous != null) {
+                    session = previous;
+                }
+            }
+            session.requests.add(coapRequest);
+            if (!session.retired) {
+                return;
+            }
+            // the session was retired concurrently, if the request is still there it is our job to move it.
+            if (!session.requests.remove(coapRequest)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Remove a request from the given session.
+     */
+    public void remove(String sessionId, Request coapRequest) {
+        Session session = sessions.get(sessionId);
+        if (session == null)
+            return;
+
+        session.requests.remove(coapRequest);
+        if (session.requests.isEmpty() && sessions.remove(sessionId, session)) {
+            retire(sessionId, session, false);
+        }
+    }
+
+    /**
+     * Cancel all requests of the given session.
+     */
+    public void cancelAll(String sessionId) {
+        Validate.notNull(sessionId);
+
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            retire(sessionId, session, true);
+        }
+    }
+
+    /**
+     * @return the number of requests of the given session.
+     */
+    public int size(String sessionId) {
+        Session session = sessions.get(sessionId);
+        return session == null ? 0 : session.requests.size();
+    }
+
+    private void retire(String sessionId, Session session, boolean cancel) {
+        session.retired = true;
+        // requests added before the session was flagged as retired must be handled here
+        for (Request coapRequest : session.requests) {
+            if (session.requests.remove(coapRequest)) {
+                if (cancel) {
+                    coapRequest.cancel();
+                } else {
+                    add(sessionId, coapRequest);
+                }
+            }
+        }
+    }
+
+    private static class Session {
+        final Set<Request> requests = Collections.newSetFromMap(new ConcurrentHashMap<Request, Boolean>());
+        volatile boolean retired = false;
+    }
+}
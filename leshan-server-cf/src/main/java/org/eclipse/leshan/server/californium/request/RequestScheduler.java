@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.MessageObserverAdapter;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.leshan.core.request.exception.SendFailedException;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A scheduler used by {@link RequestSender} to limit the number of CoAP requests in flight.
+ * <p>
+ * It enforces :
+ * <ul>
+ * <li>a maximum number of requests in flight for a given destination (NSTART, see
+ * <a href="https://tools.ietf.org/html/rfc7252#section-4.7">RFC7252 §4.7</a>),</li>
+ * <li>a global maximum number of requests in flight.</li>
+ * </ul>
+ * Requests which can not be sent immediately are queued. When a slot is released, destinations with queued requests are
+ * served in round-robin, so a destination with a lot of queued requests can not starve other ones.
+ * <p>
+ * Requests are rejected with a {@link SendFailedException} (reported as a send error) when the queue is full.
+ */
+public class RequestScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RequestScheduler.class);
+
+    public static final int DEFAULT_NSTART = 1;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 10000;
+    public static final int DEFAULT_MAX_QUEUED = 100000;
+    public static final int DEFAULT_MAX_QUEUED_PER_DESTINATION = 100;
+
+    private final int nstart;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final int maxQueuedPerDestination;
+
+    // state protected by "this" lock
+    private final Map<Object, Destination> destinations = new HashMap<>();
+    private final ArrayDeque<Destination> readyDestinations = new ArrayDeque<>();
+    private int inFlight = 0;
+    private int queued = 0;
+
+    // metrics
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    /**
+     * Create a scheduler with default limits.
+     */
+    public RequestScheduler() {
+        this(DEFAULT_NSTART, DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED, DEFAULT_MAX_QUEUED_PER_DESTINATION);
+    }
+
+    /**
+     * @param nstart the maximum number of requests in flight for a given destination.
+     * @param maxInFlight the maximum number of requests in flight for all destinations.
+     * @param maxQueued the maximum number of requests waiting to be sent for all destinations.
+     * @param maxQueuedPerDestination the maximum number of requests waiting to be sent for a given destination.
+     */
+    public RequestScheduler(int nstart, int maxInFlight, int maxQueued, int maxQueuedPerDestination) {
+        Validate.isTrue(nstart > 0, "nstart must be greater than 0");
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be greater than 0");
+        Validate.isTrue(maxQueued >= 0, "maxQueued must be positive");
+        Validate.isTrue(maxQueuedPerDestination >= 0, "maxQueuedPerDestination must be positive");
+        this.nstart = nstart;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.maxQueuedPerDestination = maxQueuedPerDestination;
+    }
+
+    /**
+     * Send the request as soon as limits allow it.
+     *
+     * @param destinationKey an object identifying the destination (e.g. registration id).
+     * @param coapRequest the request to send.
+     * @param endpoint the endpoint used to send the request.
+     */
+    public void send(Object destinationKey, Request coapRequest, Endpoint endpoint) {
+        Validate.notNull(destinationKey);
+        if (coapRequest.isCanceled())
+            return;
+
+        ScheduledRequest scheduledRequest = new ScheduledRequest(destinationKey, coapRequest, endpoint);
+        coapRequest.addMessageObserver(scheduledRequest);
+
+        boolean sendNow = false;
+        boolean reject = false;
+        synchronized (this) {
+            Destination destination = destinations.get(destinationKey);
+            if (destination == null) {
+                destination = new Destination(destinationKey);
+                destinations.put(destinationKey, destination);
+            }
+
+            if (inFlight < maxInFlight && destination.inFlight < nstart && destination.queue.isEmpty()) {
+                sendNow = true;
+                scheduledRequest.state = State.IN_FLIGHT;
+                destination.inFlight++;
+                inFlight++;
+            } else if (queued >= maxQueued || destination.queue.size() >= maxQueuedPerDestination) {
+                reject = true;
+                scheduledRequest.state = State.DONE;
+                removeIfUnused(destination);
+            } else {
+                scheduledRequest.state = State.QUEUED;
+                destination.queue.add(scheduledRequest);
+                queued++;
+                markReadyIfNeeded(destination);
+            }
+        }
+
+        if (sendNow) {
+            sent.incrementAndGet();
+            endpoint.sendRequest(coapRequest);
+        } else if (reject) {
+            rejected.incrementAndGet();
+            LOG.debug("Request {} rejected : too many requests queued", coapRequest);
+            coapRequest.setSendError(new SendFailedException("Too many requests queued for %s", destinationKey));
+        }
+    }
+
+    /**
+     * @return the number of requests waiting to be sent.
+     */
+    public synchronized int getQueuedCount() {
+        return queued;
+    }
+
+    /**
+     * @return the number of requests sent and waiting for a response.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight;
+    }
+
+    /**
+     * @return the number of requests rejected since this scheduler was created.
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * @return the number of requests sent since this scheduler was created.
+     */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    private void onCompletion(ScheduledRequest request) {
+        synchronized (this) {
+            Destination destination = destinations.get(request.destinationKey);
+            switch (request.state) {
+            case QUEUED:
+                // cancelled before being sent
+                destination.queue.remove(request);
+                queued--;
+                break;
+            case IN_FLIGHT:
+                destination.inFlight--;
+                inFlight--;
+                markReadyIfNeeded(destination);
+                break;
+            default:
+                // already completed
+                return;
+            }
+            request.state = State.DONE;
+            removeIfUnused(destination);
+        }
+        drain();
+    }
+
+    /*
+     * Send queued requests while limits allow it. A request can fail synchronously when sent, so re-entrant calls only
+     * increment the drain counter and the thread already draining does the work.
+     */
+    private void drain() {
+        if (drainRequests.getAndIncrement() != 0)
+            return;
+
+        int missed = 1;
+        do {
+            for (ScheduledRequest request : pollSendable()) {
+                sent.incrementAndGet();
+                request.endpoint.sendRequest(request.coapRequest);
+            }
+            missed = drainRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized List<ScheduledRequest> pollSendable() {
+        List<ScheduledRequest> toSend = new ArrayList<>();
+        while (inFlight < maxInFlight && !readyDestinations.isEmpty()) {
+            Destination destination = readyDestinations.poll();
+            destination.ready = false;
+
+            ScheduledRequest request = destination.queue.poll();
+            queued--;
+            request.state = State.IN_FLIGHT;
+            destination.inFlight++;
+            inFlight++;
+            toSend.add(request);
+
+            // put it back at the end of the queue to serve other destinations first
+            markReadyIfNeeded(destination);
+        }
+        return toSend;
+    }
+
+    private void markReadyIfNeeded(Destination destination) {
+        if (!destination.ready && !destination.queue.isEmpty() && destination.inFlight < nstart) {
+            destination.ready = true;
+            readyDestinations.add(destination);
+        }
+    }
+
+    private void removeIfUnused(Destination destination) {
+        if (destination.inFlight == 0 && destination.queue.isEmpty()) {
+            destinations.remove(destination.key);
+            if (destination.ready) {
+                readyDestinations.remove(destination);
+                destination.ready = false;
+            }
+        }
+    }
+
+    private enum State {
+        NEW, QUEUED, IN_FLIGHT, DONE
+    }
+
+    private static class Destination {
+        final Object key;
+        final ArrayDeque<ScheduledRequest> queue = new ArrayDeque<>();
+        int inFlight = 0;
+        boolean ready = false;
+
+        Destination(Object key) {
+            this.key = key;
+        }
+    }
+
+    private class ScheduledRequest extends MessageObserverAdapter {
+        final Object destinationKey;
+        final Request coapRequest;
+        final Endpoint endpoint;
+        // protected by RequestScheduler lock
+        State state = State.NEW;
+
+        ScheduledRequest(Object destinationKey, Request coapRequest, Endpoint endpoint) {
+            this.destinationKey = destinationKey;
+            this.coapRequest = coapRequest;
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void onResponse(Response response) {
+            // for observe request, only the first response releases the slot
+            onCompletion(this);
+        }
+
+        @Override
+        public void onCancel() {
+            onCompletion(this);
+        }
+
+        @Override
+        protected void failed() {
+            onCompletion(this);
+        }
+    }
+}
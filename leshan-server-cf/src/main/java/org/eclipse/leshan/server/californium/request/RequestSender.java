@@ -15,13 +15,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.californium.request;
 
-import java.util.SortedMap;
-import java.util.concurrent.ConcurrentNavigableMap;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.californium.core.coap.MessageObserver;
 import org.eclipse.californium.core.coap.MessageObserverAdapter;
@@ -51,7 +45,9 @@ import org.eclipse.leshan.core.request.exception.UnconnectedPeerException;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.HashedWheelTimeoutScheduler;
 import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.TimeoutScheduler;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.server.request.LowerLayerConfig;
@@ -67,17 +63,18 @@ public class RequestSender implements Destroyable {
 
     static final Logger LOG = LoggerFactory.getLogger(RequestSender.class);
 
-    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(1,
-            new NamedThreadFactory("Leshan Async Request timeout"));
+    private final TimeoutScheduler timeoutScheduler;
+    private final boolean ownTimeoutScheduler;
 
     private final Endpoint nonSecureEndpoint;
     private final Endpoint secureEndpoint;
     private final LwM2mNodeDecoder decoder;
     private final LwM2mNodeEncoder encoder;
+    private final RequestScheduler scheduler;
 
-    // A map which contains all ongoing CoAP requests
+    // All ongoing CoAP requests by sessionId
     // This is used to be able to cancel request
-    private final ConcurrentNavigableMap<String/* sessionId#requestId */, Request /* ongoing coap Request */> ongoingRequests = new ConcurrentSkipListMap<>();
+    private final OngoingRequestRegistry ongoingRequests = new OngoingRequestRegistry();
 
     /**
      * @param secureEndpoint The endpoint used to send coaps request.
@@ -87,10 +84,50 @@ public class RequestSender implements Destroyable {
      */
     public RequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint, LwM2mNodeEncoder encoder,
             LwM2mNodeDecoder decoder) {
+        this(secureEndpoint, nonSecureEndpoint, encoder, decoder, null);
+    }
+
+    /**
+     * @param secureEndpoint The endpoint used to send coaps request.
+     * @param nonSecureEndpoint The endpoint used to send coap request.
+     * @param encoder The {@link LwM2mNodeEncoder} used to encode {@link LwM2mNode}.
+     * @param decoder The {@link LwM2mNodeDecoder} used to encode {@link LwM2mNode}.
+     * @param scheduler The {@link RequestScheduler} used to limit the number of requests in flight, if
+     *        <code>null</code> requests are sent immediately.
+     */
+    public RequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint, LwM2mNodeEncoder encoder,
+            LwM2mNodeDecoder decoder, RequestScheduler scheduler) {
+        this(secureEndpoint, nonSecureEndpoint, encoder, decoder, scheduler, null);
+    }
+
+    /**
+     * @param secureEndpoint The endpoint used to send coaps request.
+     * @param nonSecureEndpoint The endpoint used to send coap request.
+     * @param encoder The {@link LwM2mNodeEncoder} used to encode {@link LwM2mNode}.
+     * @param decoder The {@link LwM2mNodeDecoder} used to encode {@link LwM2mNode}.
+     * @param scheduler The {@link RequestScheduler} used to limit the number of requests in flight, if
+     *        <code>null</code> requests are sent immediately.
+     * @param timeoutScheduler The {@link TimeoutScheduler} used to detect response timeout of asynchronous requests.
+     *        It is not destroyed with this sender. If <code>null</code> a {@link HashedWheelTimeoutScheduler} is
+     *        created for this sender.
+     */
+    public RequestSender(Endpoint secureEndpoint, Endpoint nonSecureEndpoint, LwM2mNodeEncoder encoder,
+            LwM2mNodeDecoder decoder, RequestScheduler scheduler, TimeoutScheduler timeoutScheduler) {
         this.secureEndpoint = secureEndpoint;
         this.nonSecureEndpoint = nonSecureEndpoint;
         this.encoder = encoder;
         this.decoder = decoder;
+        this.scheduler = scheduler;
+        if (timeoutScheduler == null) {
+            this.timeoutScheduler = new HashedWheelTimeoutScheduler(
+                    new NamedThreadFactory("Leshan Async Request timeout"),
+                    HashedWheelTimeoutScheduler.DEFAULT_TICK_DURATION_IN_MS, TimeUnit.MILLISECONDS,
+                    HashedWheelTimeoutScheduler.DEFAULT_WHEEL_SIZE);
+            this.ownTimeoutScheduler = true;
+        } else {
+            this.timeoutScheduler = timeoutScheduler;
+            this.ownTimeoutScheduler = false;
+        }
     }
 
     /**
@@ -151,10 +188,7 @@ public class RequestSender implements Destroyable {
         addOngoingRequest(sessionId, coapRequest);
 
         // Send CoAP request asynchronously
-        if (destination.isSecure())
-            secureEndpoint.sendRequest(coapRequest);
-        else
-            nonSecureEndpoint.sendRequest(coapRequest);
+        sendRequest(destination, sessionId, coapRequest);
 
         // Wait for response, then return it
         return syncMessageObserver.waitForResponse();
@@ -212,7 +246,7 @@ public class RequestSender implements Destroyable {
 
         // Add CoAP request callback
         MessageObserver obs = new AsyncRequestObserver<T>(coapRequest, responseCallback, errorCallback, timeoutInMs,
-                executor) {
+                timeoutScheduler) {
             @Override
             public T buildResponse(Response coapResponse) {
                 // Build LwM2m response
@@ -228,10 +262,7 @@ public class RequestSender implements Destroyable {
         addOngoingRequest(sessionId, coapRequest);
 
         // Send CoAP request asynchronously
-        if (destination.isSecure())
-            secureEndpoint.sendRequest(coapRequest);
-        else
-            nonSecureEndpoint.sendRequest(coapRequest);
+        sendRequest(destination, sessionId, coapRequest);
     }
 
     /**
@@ -278,10 +309,7 @@ public class RequestSender implements Destroyable {
         addOngoingRequest(sessionId, coapRequest);
 
         // Send CoAP request asynchronously
-        if (destination.isSecure())
-            secureEndpoint.sendRequest(coapRequest);
-        else
-            nonSecureEndpoint.sendRequest(coapRequest);
+        sendRequest(destination, sessionId, coapRequest);
 
         // Wait for response, then return it
         return syncMessageObserver.waitForCoapResponse();
@@ -333,17 +361,14 @@ public class RequestSender implements Destroyable {
 
         // Add CoAP request callback
         MessageObserver obs = new CoapAsyncRequestObserver(coapRequest, responseCallback, errorCallback, timeoutInMs,
-                executor);
+                timeoutScheduler);
         coapRequest.addMessageObserver(obs);
 
         // Store pending request to be able to cancel it later
         addOngoingRequest(sessionId, coapRequest);
 
         // Send CoAP request asynchronously
-        if (destination.isSecure())
-            secureEndpoint.sendRequest(coapRequest);
-        else
-            nonSecureEndpoint.sendRequest(coapRequest);
+        sendRequest(destination, sessionId, coapRequest);
     }
 
     /**
@@ -355,64 +380,44 @@ public class RequestSender implements Destroyable {
      */
     public void cancelRequests(String sessionID) {
         Validate.notNull(sessionID);
-        SortedMap<String, Request> requests = ongoingRequests.subMap(getFloorKey(sessionID), getCeilingKey(sessionID));
-        for (Request coapRequest : requests.values()) {
-            coapRequest.cancel();
-        }
-        requests.clear();
-    }
-
-    private static String getFloorKey(String sessionID) {
-        // The key format is sessionid#long, So we need a key which is always before this pattern (in natural order).
-        return sessionID + '#';
-    }
-
-    private static String getCeilingKey(String sessionID) {
-        // The key format is sessionid#long, So we need a key which is always after this pattern (in natural order).
-        return sessionID + "#A";
+        ongoingRequests.cancelAll(sessionID);
     }
 
-    private static String getKey(String sessionID, long requestId) {
-        return sessionID + '#' + requestId;
+    private void sendRequest(Identity destination, String sessionId, Request coapRequest) {
+        Endpoint endpoint = destination.isSecure() ? secureEndpoint : nonSecureEndpoint;
+        if (scheduler == null) {
+            endpoint.sendRequest(coapRequest);
+        } else {
+            // use session (e.g. registration) as destination if available, else peer address
+            scheduler.send(sessionId != null ? sessionId : destination.getPeerAddress(), coapRequest, endpoint);
+        }
     }
 
     private void addOngoingRequest(String sessionID, Request coapRequest) {
         if (sessionID != null) {
-            CleanerMessageObserver observer = new CleanerMessageObserver(sessionID, coapRequest);
-            coapRequest.addMessageObserver(observer);
-            ongoingRequests.put(observer.getRequestKey(), coapRequest);
+            coapRequest.addMessageObserver(new CleanerMessageObserver(sessionID, coapRequest));
+            ongoingRequests.add(sessionID, coapRequest);
         }
     }
 
-    private void removeOngoingRequest(String key, Request coapRequest) {
-        Validate.notNull(key);
-        ongoingRequests.remove(key, coapRequest);
-    }
-
-    private AtomicLong idGenerator = new AtomicLong(0l);
-
     private class CleanerMessageObserver extends MessageObserverAdapter {
 
-        private final String requestKey;
+        private final String sessionID;
         private final Request coapRequest;
 
         public CleanerMessageObserver(String sessionID, Request coapRequest) {
             super();
-            requestKey = getKey(sessionID, idGenerator.incrementAndGet());
+            this.sessionID = sessionID;
             this.coapRequest = coapRequest;
         }
 
-        public String getRequestKey() {
-            return requestKey;
-        }
-
         @Override
         public void onRetransmission() {
         }
 
         @Override
         public void onResponse(Response response) {
-            removeOngoingRequest(requestKey, coapRequest);
+            ongoingRequests.remove(sessionID, coapRequest);
         }
 
         @Override
@@ -421,22 +426,19 @@ public class RequestSender implements Destroyable {
 
         @Override
         protected void failed() {
-            removeOngoingRequest(requestKey, coapRequest);
+            ongoingRequests.remove(sessionID, coapRequest);
         }
 
         @Override
         public void onCancel() {
-            removeOngoingRequest(requestKey, coapRequest);
+            ongoingRequests.remove(sessionID, coapRequest);
         }
     }
 
     @Override
     public void destroy() {
-        executor.shutdownNow();
-        try {
-            executor.awaitTermination(5, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            LOG.warn("Destroying RequestSender was interrupted.", e);
+        if (ownTimeoutScheduler) {
+            timeoutScheduler.destroy();
         }
     }
 }
@@ -27,7 +27,9 @@ import org.eclipse.leshan.core.californium.LwM2mCoapResource;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.node.codec.LwM2mNodeDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mNodeTimeSeriesDecoder;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.Identity;
 import org.eclipse.leshan.core.request.SendRequest;
@@ -78,11 +80,22 @@ public class SendResource extends LwM2mCoapResource {
             exchange.respond(ResponseCode.BAD_REQUEST, "Unsupported content format");
             return;
         }
-        Map<LwM2mPath, LwM2mNode> data = decoder.decodeNodes(payload, contentFormat, (List<LwM2mPath>) null, model);
+        // as time series, only if someone needs it and the decoder supports it
+        Map<LwM2mPath, TimeSeries> timeSeries = null;
+        if (sendHandler.hasTimeSeriesListeners() && decoder instanceof LwM2mNodeTimeSeriesDecoder) {
+            timeSeries = ((LwM2mNodeTimeSeriesDecoder) decoder).decodeTimeSeries(payload, contentFormat, model);
+        }
+        // as nodes, if someone needs it or to validate the payload
+        SendRequest sendRequest = null;
+        if (sendHandler.hasListeners() || timeSeries == null) {
+            Map<LwM2mPath, LwM2mNode> data = decoder.decodeNodes(payload, contentFormat, (List<LwM2mPath>) null,
+                    model);
+            sendRequest = new SendRequest(contentFormat, data, coapRequest);
+        }
 
         // Handle "send op request
-        SendRequest sendRequest = new SendRequest(contentFormat, data, coapRequest);
-        SendableResponse<SendResponse> sendableResponse = sendHandler.handleSend(registration, sendRequest);
+        SendableResponse<SendResponse> sendableResponse = sendHandler.handleSend(registration, sendRequest,
+                timeSeries);
         SendResponse response = sendableResponse.getResponse();
 
         // send reponse
@@ -16,10 +16,14 @@
 package org.eclipse.leshan.server.californium;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 
 import java.net.InetSocketAddress;
 import java.util.EnumSet;
 
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.core.californium.CoapResponseCallback;
 import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.Identity;
 import org.eclipse.leshan.core.request.ReadRequest;
@@ -81,9 +85,43 @@ public class LeshanServerTest {
         assertEquals("All news created threads must be destroyed", numberOfThreadbefore, Thread.activeCount());
     }
 
-    private void forceThreadsCreation(LeshanServer server) {
-        Registration reg = new Registration.Builder("id", "endpoint", Identity.unsecure(new InetSocketAddress(5555)))
+    @Test
+    public void testCoapSendAndDestroyWithContentFormatNegotiation() throws InterruptedException {
+        // look at nb active thread before.
+        int numberOfThreadbefore = Thread.activeCount();
+
+        LeshanServer server = new LeshanServerBuilder().setLocalAddress(new InetSocketAddress(0))
+                .setContentFormatNegotiation(true).build();
+        assertNotNull(server.getContentFormatNegotiator());
+        server.start();
+        Thread.sleep(100);
+        // HACK force creation thread creation.
+        forceThreadsCreation(server);
+        // CoAP requests are sent by the delegated sender
+        server.coap().send(givenRegistration(), Request.newGet(), new CoapResponseCallback() {
+            @Override
+            public void onResponse(Response response) {
+            }
+        }, new ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+            }
+        });
+        Thread.sleep(100);
+        server.destroy();
+
+        // ensure all thread are destroyed
+        Thread.sleep(500);
+        assertEquals("All news created threads must be destroyed", numberOfThreadbefore, Thread.activeCount());
+    }
+
+    private Registration givenRegistration() {
+        return new Registration.Builder("id", "endpoint", Identity.unsecure(new InetSocketAddress(5555)))
                 .bindingMode(EnumSet.of(BindingMode.U, BindingMode.Q)).build();
+    }
+
+    private void forceThreadsCreation(LeshanServer server) {
+        Registration reg = givenRegistration();
         // Force timer thread creation of preference service.
         ((PresenceServiceImpl) server.getPresenceService()).setAwake(reg);
         // Force time thread creation of CoapAsyncRequestObserver
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.eclipse.californium.scandium.dtls.ConnectionId;
+import org.eclipse.californium.scandium.dtls.PskPublicInformation;
+import org.eclipse.californium.scandium.dtls.PskSecretResult;
+import org.eclipse.californium.scandium.dtls.PskSecretResultHandler;
+import org.eclipse.leshan.server.security.InMemorySecurityStore;
+import org.eclipse.leshan.server.security.SecurityInfo;
+import org.junit.Test;
+
+public class LwM2mPskStoreTest {
+
+    @Test
+    public void psk_is_retrieved_asynchronously_with_executor() throws Exception {
+        InMemorySecurityStore securityStore = new InMemorySecurityStore();
+        securityStore.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity", new byte[] { 1, 2, 3 }));
+        final List<Runnable> tasks = new ArrayList<>();
+        LwM2mPskStore pskStore = new LwM2mPskStore(securityStore, null, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        });
+        final List<PskSecretResult> results = new ArrayList<>();
+        pskStore.setResultHandler(new PskSecretResultHandler() {
+            @Override
+            public void apply(PskSecretResult secretResult) {
+                results.add(secretResult);
+            }
+        });
+
+        assertNull(pskStore.requestPskSecretResult(ConnectionId.EMPTY, null, new PskPublicInformation("identity"), null,
+                null, null));
+        assertNull(pskStore.requestPskSecretResult(ConnectionId.EMPTY, null, new PskPublicInformation("unknown"), null,
+                null, null));
+        assertEquals(2, tasks.size());
+        assertTrue(results.isEmpty());
+
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        assertEquals(2, results.size());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, results.get(0).getSecret().getEncoded());
+        assertNull(results.get(1).getSecret());
+    }
+
+    @Test
+    public void psk_is_retrieved_synchronously_without_executor() throws Exception {
+        InMemorySecurityStore securityStore = new InMemorySecurityStore();
+        securityStore.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity", new byte[] { 1, 2, 3 }));
+        LwM2mPskStore pskStore = new LwM2mPskStore(securityStore);
+
+        PskSecretResult result = pskStore.requestPskSecretResult(ConnectionId.EMPTY, null,
+                new PskPublicInformation("identity"), null, null, null);
+        assertArrayEquals(new byte[] { 1, 2, 3 }, result.getSecret().getEncoded());
+    }
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.californium.core.coap.Request;
+import org.junit.Test;
+
+/**
+ * A micro-benchmark which compares {@link OngoingRequestRegistry} with the previous implementation based on a
+ * {@link ConcurrentSkipListMap} keyed by "sessionId#requestId" strings.
+ * <p>
+ * This is not run by the default build, launch it using the <code>benchmark</code> profile :
+ * 
+ * <pre>
+ * mvn test -Pbenchmark -pl leshan-server-cf [-Dbenchmark.requests=100000] [-Dbenchmark.sessions=10000]
+ * </pre>
+ */
+public class OngoingRequestRegistryBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    interface Registry {
+        Object add(String sessionId, Request request);
+
+        void remove(String sessionId, Object handle, Request request);
+
+        void cancelAll(String sessionId);
+    }
+
+    static class SkipListRegistry implements Registry {
+        private final ConcurrentNavigableMap<String, Request> ongoingRequests = new ConcurrentSkipListMap<>();
+        private final AtomicLong idGenerator = new AtomicLong(0l);
+
+        @Override
+        public Object add(String sessionId, Request request) {
+            String key = sessionId + '#' + idGenerator.incrementAndGet();
+            ongoingRequests.put(key, request);
+            return key;
+        }
+
+        @Override
+        public void remove(String sessionId, Object handle, Request request) {
+            ongoingRequests.remove(handle, request);
+        }
+
+        @Override
+        public void cancelAll(String sessionId) {
+            SortedMap<String, Request> requests = ongoingRequests.subMap(sessionId + '#', sessionId + "#A");
+            for (Request coapRequest : requests.values()) {
+                coapRequest.cancel();
+            }
+            requests.clear();
+        }
+    }
+
+    static class SessionRegistry implements Registry {
+        private final OngoingRequestRegistry registry = new OngoingRequestRegistry();
+
+        @Override
+        public Object add(String sessionId, Request request) {
+            registry.add(sessionId, request);
+            return null;
+        }
+
+        @Override
+        public void remove(String sessionId, Object handle, Request request) {
+            registry.remove(sessionId, request);
+        }
+
+        @Override
+        public void cancelAll(String sessionId) {
+            registry.cancelAll(sessionId);
+        }
+    }
+
+    @Test
+    public void compare_with_skip_list_map() {
+        int nbRequests = Integer.getInteger("benchmark.requests", 100000);
+        int nbSessions = Integer.getInteger("benchmark.sessions", 10000);
+
+        String[] sessions = new String[nbSessions];
+        for (int i = 0; i < nbSessions; i++) {
+            sessions[i] = "reg" + i;
+        }
+        Request[] requests = new Request[nbRequests];
+        for (int i = 0; i < nbRequests; i++) {
+            requests[i] = Request.newGet();
+        }
+
+        // warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            run(new SkipListRegistry(), sessions, requests);
+            run(new SessionRegistry(), sessions, requests);
+        }
+
+        long skipList = 0;
+        long session = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            skipList += run(new SkipListRegistry(), sessions, requests);
+            session += run(new SessionRegistry(), sessions, requests);
+        }
+        System.out.printf("%d ongoing requests for %d sessions (average of %d iterations)%n", nbRequests, nbSessions,
+                ITERATIONS);
+        System.out.printf("  ConcurrentSkipListMap  : %d ms%n", skipList / ITERATIONS / 1000000);
+        System.out.printf("  OngoingRequestRegistry : %d ms%n", session / ITERATIONS / 1000000);
+    }
+
+    /*
+     * add all requests, complete half of them, then cancel all sessions
+     */
+    private static long run(Registry registry, String[] sessions, Request[] requests) {
+        Object[] handles = new Object[requests.length];
+        long start = System.nanoTime();
+        for (int i = 0; i < requests.length; i++) {
+            handles[i] = registry.add(sessions[i % sessions.length], requests[i]);
+        }
+        for (int i = 0; i < requests.length; i += 2) {
+            registry.remove(sessions[i % sessions.length], handles[i], requests[i]);
+        }
+        for (String session : sessions) {
+            registry.cancelAll(session);
+        }
+        return System.nanoTime() - start;
+    }
+}
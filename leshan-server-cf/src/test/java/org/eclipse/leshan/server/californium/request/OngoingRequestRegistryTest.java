@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import static org.junit.Assert.*;
+
+import org.eclipse.californium.core.coap.Request;
+import org.junit.Test;
+
+public class OngoingRequestRegistryTest {
+
+    @Test
+    public void cancel_all_cancels_only_requests_of_session() {
+        OngoingRequestRegistry registry = new OngoingRequestRegistry();
+        Request r1 = Request.newGet();
+        Request r2 = Request.newGet();
+        Request other = Request.newGet();
+        registry.add("reg1", r1);
+        registry.add("reg1", r2);
+        registry.add("reg10", other);
+
+        registry.cancelAll("reg1");
+
+        assertTrue(r1.isCanceled());
+        assertTrue(r2.isCanceled());
+        assertFalse(other.isCanceled());
+        assertEquals(0, registry.size("reg1"));
+        assertEquals(1, registry.size("reg10"));
+    }
+
+    @Test
+    public void removed_request_is_not_cancelled() {
+        OngoingRequestRegistry registry = new OngoingRequestRegistry();
+        Request r1 = Request.newGet();
+        Request r2 = Request.newGet();
+        registry.add("reg1", r1);
+        registry.add("reg1", r2);
+
+        registry.remove("reg1", r1);
+        assertEquals(1, registry.size("reg1"));
+        registry.cancelAll("reg1");
+
+        assertFalse(r1.isCanceled());
+        assertTrue(r2.isCanceled());
+    }
+
+    @Test
+    public void session_can_be_reused_once_empty() {
+        OngoingRequestRegistry registry = new OngoingRequestRegistry();
+        Request r1 = Request.newGet();
+        registry.add("reg1", r1);
+        registry.remove("reg1", r1);
+        assertEquals(0, registry.size("reg1"));
+
+        Request r2 = Request.newGet();
+        registry.add("reg1", r2);
+        registry.cancelAll("reg1");
+        assertTrue(r2.isCanceled());
+    }
+
+    @Test
+    public void concurrent_add_and_remove_do_not_lose_requests() throws InterruptedException {
+        final OngoingRequestRegistry registry = new OngoingRequestRegistry();
+        final int nbThreads = 4;
+        final Request[] kept = new Request[nbThreads];
+
+        Thread[] threads = new Thread[nbThreads];
+        for (int t = 0; t < nbThreads; t++) {
+            final int index = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    // session becomes empty often, so it is retired concurrently to add
+                    for (int i = 0; i < 10000; i++) {
+                        Request request = Request.newGet();
+                        registry.add("reg1", request);
+                        registry.remove("reg1", request);
+                    }
+                    kept[index] = Request.newGet();
+                    registry.add("reg1", kept[index]);
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(nbThreads, registry.size("reg1"));
+        registry.cancelAll("reg1");
+        for (Request request : kept) {
+            assertTrue(request.isCanceled());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.request;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.MessageObserverAdapter;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Endpoint;
+import org.eclipse.leshan.core.request.exception.SendFailedException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestSchedulerTest {
+
+    private List<Request> sent;
+    private Endpoint endpoint;
+
+    @Before
+    public void setUp() {
+        sent = new ArrayList<>();
+        // an endpoint which only records sent requests
+        endpoint = (Endpoint) Proxy.newProxyInstance(Endpoint.class.getClassLoader(), new Class<?>[] { Endpoint.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().equals("sendRequest")) {
+                            sent.add((Request) args[0]);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    @Test
+    public void nstart_limits_requests_in_flight_per_destination() {
+        RequestScheduler scheduler = new RequestScheduler(1, 10, 10, 10);
+
+        Request first = Request.newGet();
+        Request second = Request.newGet();
+        scheduler.send("reg1", first, endpoint);
+        scheduler.send("reg1", second, endpoint);
+
+        assertEquals(1, sent.size());
+        assertEquals(1, scheduler.getInFlightCount());
+        assertEquals(1, scheduler.getQueuedCount());
+
+        respond(first);
+        assertEquals(2, sent.size());
+        assertSame(second, sent.get(1));
+        assertEquals(1, scheduler.getInFlightCount());
+        assertEquals(0, scheduler.getQueuedCount());
+
+        respond(second);
+        assertEquals(0, scheduler.getInFlightCount());
+        assertEquals(2, scheduler.getSentCount());
+    }
+
+    @Test
+    public void destinations_are_served_in_round_robin() {
+        RequestScheduler scheduler = new RequestScheduler(1, 1, 10, 10);
+
+        Request first = Request.newGet();
+        scheduler.send("reg1", first, endpoint);
+        Request[] reg1 = new Request[] { Request.newGet(), Request.newGet() };
+        Request[] reg2 = new Request[] { Request.newGet(), Request.newGet() };
+        for (int i = 0; i < 2; i++) {
+            scheduler.send("reg1", reg1[i], endpoint);
+            scheduler.send("reg2", reg2[i], endpoint);
+        }
+        assertEquals(4, scheduler.getQueuedCount());
+
+        respond(first);
+        respond(sent.get(sent.size() - 1));
+        respond(sent.get(sent.size() - 1));
+        respond(sent.get(sent.size() - 1));
+
+        // reg2 was waiting before reg1 released its slot
+        assertEquals(5, sent.size());
+        assertSame(reg2[0], sent.get(1));
+        assertSame(reg1[0], sent.get(2));
+        assertSame(reg2[1], sent.get(3));
+        assertSame(reg1[1], sent.get(4));
+    }
+
+    @Test
+    public void request_is_rejected_when_queue_is_full() {
+        RequestScheduler scheduler = new RequestScheduler(1, 10, 10, 1);
+
+        scheduler.send("reg1", Request.newGet(), endpoint);
+        scheduler.send("reg1", Request.newGet(), endpoint);
+        Request rejected = Request.newGet();
+        final Throwable[] error = new Throwable[1];
+        rejected.addMessageObserver(new MessageObserverAdapter() {
+            @Override
+            public void onSendError(Throwable e) {
+                error[0] = e;
+            }
+        });
+        scheduler.send("reg1", rejected, endpoint);
+
+        assertEquals(1, sent.size());
+        assertEquals(1, scheduler.getRejectedCount());
+        assertTrue(error[0] instanceof SendFailedException);
+    }
+
+    @Test
+    public void cancelled_request_is_removed_from_queue() {
+        RequestScheduler scheduler = new RequestScheduler(1, 10, 10, 10);
+
+        Request first = Request.newGet();
+        Request queued = Request.newGet();
+        scheduler.send("reg1", first, endpoint);
+        scheduler.send("reg1", queued, endpoint);
+
+        queued.cancel();
+        assertEquals(0, scheduler.getQueuedCount());
+
+        first.cancel();
+        assertEquals(0, scheduler.getInFlightCount());
+        assertEquals(1, sent.size());
+    }
+
+    private void respond(Request request) {
+        request.setResponse(new Response(ResponseCode.CONTENT));
+    }
+}
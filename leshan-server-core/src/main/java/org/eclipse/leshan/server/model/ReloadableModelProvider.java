@@ -0,0 +1,262 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.model;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.model.DDFFileParser;
+import org.eclipse.leshan.core.model.DefaultDDFFileValidatorFactory;
+import org.eclipse.leshan.core.model.DefaultObjectModelValidator;
+import org.eclipse.leshan.core.model.InvalidDDFFileException;
+import org.eclipse.leshan.core.model.InvalidModelException;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.LwM2mModelRepository;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ObjectModelValidator;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.Registration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link VersionedModelProvider} like provider whose models can be reloaded from directories of DDF files without
+ * restarting the server.
+ * <p>
+ * Once started, directories are polled periodically. Only DDF files added or modified (based on their last
+ * modification date and size) since the previous scan are parsed, then a new repository snapshot is built and swapped
+ * atomically. Models returned by {@link #getObjectModel(Registration)} are immutable : an encoding or decoding started
+ * before a reload keeps using the models it got. Registrations are not stored by this provider, so they are not
+ * affected by a reload.
+ * <p>
+ * A DDF file which can not be loaded (e.g. because it is being written) is ignored and its previous models are kept
+ * until a valid version is found. Models from directories override base models with the same id and version.
+ */
+public class ReloadableModelProvider implements LwM2mModelProvider, Startable, Stoppable, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReloadableModelProvider.class);
+
+    private final List<ObjectModel> baseModels;
+    private final List<File> modelsDirs;
+    private final DDFFileParser ddfFileParser;
+    private final ObjectModelValidator modelValidator;
+    private final ScheduledExecutorService schedExecutor;
+    private final long pollPeriodInMs;
+
+    // DDF files loaded by last scan, protected by "this" lock
+    private Map<File, LoadedFile> loadedFiles = new HashMap<>();
+    private volatile VersionedModelProvider snapshot;
+
+    private boolean started = false;
+    private ScheduledFuture<?> pollTask;
+
+    private final AtomicLong reloadCount = new AtomicLong();
+
+    /**
+     * Create a provider validating DDF files and models.
+     * 
+     * @param baseModels models always available (e.g. {@link ObjectLoader#loadAllDefault()}), can be
+     *        <code>null</code>.
+     * @param pollPeriodInMs the delay between 2 scans of directories.
+     * @param modelsDirs the directories containing DDF files.
+     */
+    public ReloadableModelProvider(Collection<ObjectModel> baseModels, long pollPeriodInMs, File... modelsDirs) {
+        this(baseModels, Arrays.asList(modelsDirs), new DDFFileParser(new DefaultDDFFileValidatorFactory()),
+                new DefaultObjectModelValidator(),
+                Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("ReloadableModelProvider Poller")),
+                pollPeriodInMs);
+    }
+
+    /**
+     * @param baseModels models always available (e.g. {@link ObjectLoader#loadAllDefault()}), can be
+     *        <code>null</code>.
+     * @param modelsDirs the directories containing DDF files.
+     * @param ddfFileParser the parser used to load DDF files.
+     * @param modelValidator the validator used to validate loaded models, can be <code>null</code>.
+     * @param schedExecutor the executor used to poll directories.
+     * @param pollPeriodInMs the delay between 2 scans of directories.
+     */
+    public ReloadableModelProvider(Collection<ObjectModel> baseModels, List<File> modelsDirs,
+            DDFFileParser ddfFileParser, ObjectModelValidator modelValidator, ScheduledExecutorService schedExecutor,
+            long pollPeriodInMs) {
+        Validate.notNull(modelsDirs);
+        Validate.notNull(ddfFileParser);
+        Validate.notNull(schedExecutor);
+        Validate.isTrue(pollPeriodInMs > 0, "poll period must be greater than 0");
+        this.baseModels = baseModels == null ? Collections.<ObjectModel> emptyList() : new ArrayList<>(baseModels);
+        this.modelsDirs = new ArrayList<>(modelsDirs);
+        this.ddfFileParser = ddfFileParser;
+        this.modelValidator = modelValidator;
+        this.schedExecutor = schedExecutor;
+        this.pollPeriodInMs = pollPeriodInMs;
+        reload();
+    }
+
+    @Override
+    public LwM2mModel getObjectModel(Registration registration) {
+        return snapshot.getObjectModel(registration);
+    }
+
+    /**
+     * Scan directories and swap the repository if a DDF file was added, modified or removed.
+     * 
+     * @return <code>true</code> if models changed.
+     */
+    public synchronized boolean reload() {
+        boolean changed = snapshot == null;
+        Map<File, LoadedFile> files = new HashMap<>();
+        for (File modelsDir : modelsDirs) {
+            File[] dirFiles = modelsDir.listFiles();
+            if (dirFiles == null) {
+                LOG.warn("Models folder {} is not a directory or you are not allowed to list its content", modelsDir);
+                continue;
+            }
+            for (File file : dirFiles) {
+                if (!file.isFile() || !file.getName().endsWith(".xml"))
+                    continue;
+
+                LoadedFile previous = loadedFiles.get(file);
+                if (previous != null && previous.lastModified == file.lastModified()
+                        && previous.length == file.length()) {
+                    files.put(file, previous);
+                } else {
+                    LoadedFile loaded = load(file, previous);
+                    files.put(file, loaded);
+                    changed |= previous == null || previous.models != loaded.models;
+                }
+            }
+        }
+        changed |= !files.keySet().containsAll(loadedFiles.keySet());
+        loadedFiles = files;
+
+        if (changed) {
+            // sort files to have a deterministic override order
+            List<File> sortedFiles = new ArrayList<>(files.keySet());
+            Collections.sort(sortedFiles);
+            List<ObjectModel> models = new ArrayList<>(baseModels);
+            for (File file : sortedFiles) {
+                models.addAll(files.get(file).models);
+            }
+            snapshot = new VersionedModelProvider(new LwM2mModelRepository(models));
+            reloadCount.incrementAndGet();
+            LOG.info("Object models loaded from {} DDF files", sortedFiles.size());
+        }
+        return changed;
+    }
+
+    /**
+     * @return the number of times models were (re)loaded.
+     */
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    private LoadedFile load(File file, LoadedFile previous) {
+        long lastModified = file.lastModified();
+        long length = file.length();
+        try (InputStream input = new FileInputStream(file)) {
+            LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
+            List<ObjectModel> models = ObjectLoader.loadDdfFile(input, file.getName(), ddfFileParser,
+                    modelValidator);
+            return new LoadedFile(lastModified, length, models);
+        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+            LOG.warn("Unable to load object models for {}", file.getAbsolutePath(), e);
+            List<ObjectModel> previousModels = previous == null ? Collections.<ObjectModel> emptyList()
+                    : previous.models;
+            return new LoadedFile(lastModified, length, previousModels);
+        }
+    }
+
+    /**
+     * Start to poll directories.
+     */
+    @Override
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            pollTask = schedExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        LOG.error("Unable to reload object models", e);
+                    }
+                }
+            }, pollPeriodInMs, pollPeriodInMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop to poll directories.
+     */
+    @Override
+    public synchronized void stop() {
+        if (started) {
+            started = false;
+            if (pollTask != null) {
+                pollTask.cancel(false);
+                pollTask = null;
+            }
+        }
+    }
+
+    /**
+     * Destroy poll scheduler.
+     */
+    @Override
+    public void destroy() {
+        // do not hold the lock while waiting, a running poll could wait for it to reload
+        stop();
+        schedExecutor.shutdownNow();
+        try {
+            schedExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Destroying ReloadableModelProvider was interrupted.", e);
+        }
+    }
+
+    private static class LoadedFile {
+        final long lastModified;
+        final long length;
+        final List<ObjectModel> models;
+
+        LoadedFile(long lastModified, long length, List<ObjectModel> models) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.models = models;
+        }
+    }
+}
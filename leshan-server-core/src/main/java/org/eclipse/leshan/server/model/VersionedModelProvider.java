@@ -17,73 +17,203 @@ package org.eclipse.leshan.server.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.model.LwM2mModelRepository;
 import org.eclipse.leshan.core.model.ObjectModel;
 import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.registration.Registration;
 
 /**
  * A LwM2mModelProvider which supports object versioning. It returns a LwM2mModel taking into account object version
  * given in registration.
+ * <p>
+ * Models are cached by supported objects (object id {@literal =>} version), so all registrations supporting the same
+ * objects in the same versions share a same model where object models are resolved once. As the cache key is the
+ * content of {@link Registration#getSupportedObject()}, a registration update changing its object links gets a model
+ * matching its new supported objects. When the maximum number of cached models is reached, the least recently used
+ * model is evicted.
  */
 public class VersionedModelProvider implements LwM2mModelProvider {
 
-    private LwM2mModelRepository repository;
+    public static final int DEFAULT_MAX_CACHED_MODELS = 1000;
+
+    // object ids lower than this are indexed in an array, sized to the highest indexed id
+    private static final int INDEXED_OBJECT_ID_LIMIT = 1024;
+
+    private final LwM2mModelRepository repository;
+    private final int maxCachedModels;
+
+    private final ConcurrentMap<Map<Integer, String>, CachedModel> models = new ConcurrentHashMap<>();
+
+    // metrics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
 
     public VersionedModelProvider(Collection<ObjectModel> objectModels) {
-        this.repository = new LwM2mModelRepository(objectModels);
+        this(new LwM2mModelRepository(objectModels));
     }
 
     public VersionedModelProvider(LwM2mModelRepository repository) {
+        this(repository, DEFAULT_MAX_CACHED_MODELS);
+    }
+
+    /**
+     * @param repository the repository containing all object models.
+     * @param maxCachedModels the maximum number of cached models, 0 means no cache.
+     */
+    public VersionedModelProvider(LwM2mModelRepository repository, int maxCachedModels) {
+        Validate.isTrue(maxCachedModels >= 0, "maxCachedModels must be positive");
         this.repository = repository;
+        this.maxCachedModels = maxCachedModels;
     }
 
     @Override
     public LwM2mModel getObjectModel(Registration registration) {
-        return new DynamicModel(registration);
+        Map<Integer, String> supportedObjects = registration.getSupportedObject();
+        CachedModel cached = models.get(supportedObjects);
+        if (cached != null) {
+            hitCount.incrementAndGet();
+            cached.lastAccess = System.nanoTime();
+            return cached.model;
+        }
+
+        missCount.incrementAndGet();
+        LwM2mModel model = new ResolvedModel(supportedObjects);
+        if (maxCachedModels > 0) {
+            CachedModel previous = models.putIfAbsent(supportedObjects, new CachedModel(model));
+            if (previous != null)
+                return previous.model;
+            while (models.size() > maxCachedModels) {
+                if (!evictLeastRecentlyUsed(supportedObjects))
+                    break;
+            }
+        }
+        return model;
+    }
+
+    /*
+     * Evict the least recently used model, except the one given. Models are only scanned on cache miss when the cache
+     * is full, which is cheap compared to resolving a model.
+     */
+    private boolean evictLeastRecentlyUsed(Map<Integer, String> excluded) {
+        Entry<Map<Integer, String>, CachedModel> eldest = null;
+        for (Entry<Map<Integer, String>, CachedModel> entry : models.entrySet()) {
+            if (!entry.getKey().equals(excluded)
+                    && (eldest == null || entry.getValue().lastAccess - eldest.getValue().lastAccess < 0)) {
+                eldest = entry;
+            }
+        }
+        return eldest != null && models.remove(eldest.getKey(), eldest.getValue());
+    }
+
+    /**
+     * Remove all cached models.
+     */
+    public void clearCache() {
+        models.clear();
+    }
+
+    /**
+     * @return the number of calls to {@link #getObjectModel(Registration)} which reused a cached model.
+     */
+    public long getCacheHitCount() {
+        return hitCount.get();
     }
 
-    private class DynamicModel implements LwM2mModel {
+    /**
+     * @return the number of calls to {@link #getObjectModel(Registration)} which needed to build a new model.
+     */
+    public long getCacheMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the ratio of calls to {@link #getObjectModel(Registration)} which reused a cached model, between 0 and 1.
+     */
+    public double getCacheHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static class CachedModel {
+        final LwM2mModel model;
+        volatile long lastAccess = System.nanoTime();
+
+        CachedModel(LwM2mModel model) {
+            this.model = model;
+        }
+    }
+
+    /**
+     * A model where object models of supported objects are resolved once.
+     */
+    private class ResolvedModel implements LwM2mModel {
+
+        private final ObjectModel[] indexedObjects;
+        private final Map<Integer, ObjectModel> otherObjects;
+        private final Collection<ObjectModel> objectModels;
 
-        private final Registration registration;
+        public ResolvedModel(Map<Integer, String> supportedObjects) {
+            Collection<ObjectModel> result = new ArrayList<>(supportedObjects.size());
+            int maxIndexedId = -1;
+            for (Entry<Integer, String> supportedObject : supportedObjects.entrySet()) {
+                int objectId = supportedObject.getKey();
+                ObjectModel objectModel = repository.getObjectModel(objectId, supportedObject.getValue());
+                if (objectModel != null) {
+                    result.add(objectModel);
+                    if (objectId >= 0 && objectId < INDEXED_OBJECT_ID_LIMIT && objectId > maxIndexedId) {
+                        maxIndexedId = objectId;
+                    }
+                }
+            }
 
-        public DynamicModel(Registration registration) {
-            this.registration = registration;
+            indexedObjects = new ObjectModel[maxIndexedId + 1];
+            Map<Integer, ObjectModel> others = null;
+            for (ObjectModel objectModel : result) {
+                int objectId = objectModel.id;
+                if (objectId >= 0 && objectId < indexedObjects.length) {
+                    indexedObjects[objectId] = objectModel;
+                } else {
+                    if (others == null) {
+                        others = new HashMap<>();
+                    }
+                    others.put(objectId, objectModel);
+                }
+            }
+            this.otherObjects = others == null ? Collections.<Integer, ObjectModel> emptyMap() : others;
+            this.objectModels = Collections.unmodifiableCollection(result);
         }
 
         @Override
         public ResourceModel getResourceModel(int objectId, int resourceId) {
             ObjectModel objectModel = getObjectModel(objectId);
             if (objectModel != null)
-                return objectModel.resources.get(resourceId);
+                return objectModel.getResourceModel(resourceId);
             else
                 return null;
         }
 
         @Override
         public ObjectModel getObjectModel(int objectId) {
-            String version = registration.getSupportedVersion(objectId);
-            if (version != null) {
-                return repository.getObjectModel(objectId, version);
+            if (objectId >= 0 && objectId < indexedObjects.length) {
+                return indexedObjects[objectId];
             }
-            return null;
+            return otherObjects.get(objectId);
         }
 
         @Override
         public Collection<ObjectModel> getObjectModels() {
-            Map<Integer, String> supportedObjects = registration.getSupportedObject();
-            Collection<ObjectModel> result = new ArrayList<>(supportedObjects.size());
-            for (Entry<Integer, String> supportedObject : supportedObjects.entrySet()) {
-                ObjectModel objectModel = repository.getObjectModel(supportedObject.getKey(),
-                        supportedObject.getValue());
-                if (objectModel != null)
-                    result.add(objectModel);
-            }
-            return result;
+            return objectModels;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * A cache allowing {@link Registration}s with identical object links to share the same {@link Link} array and the same
+ * map of supported objects.
+ * <p>
+ * Devices of a same model generally register with the same object links, so with a lot of devices this saves a lot of
+ * memory and the supported objects are computed only once per distinct object links.
+ * <p>
+ * The shared {@link Link} arrays are only weakly referenced : they are evicted once no {@link Registration} uses them
+ * anymore. While the maximum number of entries is reached, new object links are not shared.
+ */
+public class ObjectLinksCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+
+    private static final ObjectLinksCache DEFAULT = new ObjectLinksCache();
+
+    private final int maxEntries;
+    // an entry is its own key, so the map does not strongly reference shared arrays
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Link[]> collected = new ReferenceQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // metrics
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * @return the cache used by default by {@link Registration.Builder}.
+     */
+    public static ObjectLinksCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Create a cache with {@link #DEFAULT_MAX_ENTRIES}.
+     */
+    public ObjectLinksCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxEntries the maximum number of distinct object links kept by this cache.
+     */
+    public ObjectLinksCache(int maxEntries) {
+        Validate.isTrue(maxEntries >= 0, "maxEntries must be positive");
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the shared version of the given object links.
+     * <p>
+     * The returned object links stay shared as long as a strong reference to the {@link Link} array is kept (e.g. by a
+     * {@link Registration}).
+     * 
+     * @param objectLinks object links of a registration.
+     * @return a shared instance if identical object links are already known or if there is room for new ones, else a
+     *         not shared one.
+     */
+    public SharedObjectLinks get(Link[] objectLinks) {
+        Validate.notNull(objectLinks);
+        purge();
+
+        Entry entry = entries.get(new LookupKey(objectLinks));
+        Link[] sharedLinks = entry == null ? null : entry.get();
+        if (sharedLinks != null) {
+            hitCount.incrementAndGet();
+            return new SharedObjectLinks(sharedLinks, entry.supportedObjects);
+        }
+
+        missCount.incrementAndGet();
+        // copy the array as the one given could be modified by the caller
+        Link[] links = Arrays.copyOf(objectLinks, objectLinks.length);
+        Map<Integer, String> supportedObjects = Collections
+                .unmodifiableMap(Registration.getSupportedObject(Registration.extractRootPath(links), links));
+        if (size.get() >= maxEntries)
+            return new SharedObjectLinks(links, supportedObjects);
+
+        Entry newEntry = new Entry(links, supportedObjects, collected);
+        Entry previous = entries.putIfAbsent(newEntry, newEntry);
+        if (previous == null) {
+            size.incrementAndGet();
+            return new SharedObjectLinks(links, supportedObjects);
+        }
+        Link[] previousLinks = previous.get();
+        if (previousLinks != null)
+            return new SharedObjectLinks(previousLinks, previous.supportedObjects);
+        // previous entry was collected but not purged yet
+        if (entries.remove(previous, previous)) {
+            size.decrementAndGet();
+        }
+        return get(objectLinks);
+    }
+
+    /**
+     * @return the number of distinct object links in this cache.
+     */
+    public int size() {
+        purge();
+        return size.get();
+    }
+
+    /**
+     * @return the number of time object links were already known.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of time object links were not known.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Remove all entries. Registrations already built keep their object links.
+     */
+    public void clear() {
+        entries.clear();
+        size.set(0);
+    }
+
+    /*
+     * Behave as if all shared arrays were garbage collected. Visible for testing.
+     */
+    void clearReferences() {
+        for (Entry entry : entries.values()) {
+            entry.clear();
+            entry.enqueue();
+        }
+    }
+
+    /*
+     * Remove entries whose object links are not used anymore.
+     */
+    private void purge() {
+        Reference<? extends Link[]> reference;
+        while ((reference = collected.poll()) != null) {
+            Entry entry = (Entry) reference;
+            if (entries.remove(entry, entry)) {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Object links and the supported objects computed from them.
+     */
+    public static class SharedObjectLinks {
+        private final Link[] objectLinks;
+        private final Map<Integer, String> supportedObjects;
+
+        SharedObjectLinks(Link[] objectLinks, Map<Integer, String> supportedObjects) {
+            this.objectLinks = objectLinks;
+            this.supportedObjects = supportedObjects;
+        }
+
+        // the shared array is only given to registrations
+        Link[] getObjectLinks() {
+            return objectLinks;
+        }
+
+        public Map<Integer, String> getSupportedObjects() {
+            return supportedObjects;
+        }
+    }
+
+    /*
+     * Keys compare object links by content. A collected entry is only equal to itself.
+     */
+    private interface Key {
+        Link[] getLinks();
+    }
+
+    private static boolean keyEquals(Key key, int hashCode, Object obj) {
+        if (key == obj)
+            return true;
+        if (!(obj instanceof Key) || obj.hashCode() != hashCode)
+            return false;
+        Link[] links = key.getLinks();
+        Link[] otherLinks = ((Key) obj).getLinks();
+        return links != null && otherLinks != null && Arrays.equals(links, otherLinks);
+    }
+
+    private static class LookupKey implements Key {
+        private final Link[] objectLinks;
+        private final int hashCode;
+
+        LookupKey(Link[] objectLinks) {
+            this.objectLinks = objectLinks;
+            this.hashCode = Arrays.hashCode(objectLinks);
+        }
+
+        @Override
+        public Link[] getLinks() {
+            return objectLinks;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return keyEquals(this, hashCode, obj);
+        }
+    }
+
+    private static class Entry extends WeakReference<Link[]> implements Key {
+        private final Map<Integer, String> supportedObjects;
+        private final int hashCode;
+
+        Entry(Link[] objectLinks, Map<Integer, String> supportedObjects, ReferenceQueue<Link[]> queue) {
+            super(objectLinks, queue);
+            this.supportedObjects = supportedObjects;
+            this.hashCode = Arrays.hashCode(objectLinks);
+        }
+
+        @Override
+        public Link[] getLinks() {
+            return get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return keyEquals(this, hashCode, obj);
+        }
+    }
+}
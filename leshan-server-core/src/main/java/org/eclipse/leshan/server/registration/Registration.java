@@ -27,8 +27,6 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.leshan.core.Link;
 import org.eclipse.leshan.core.LwM2m.Version;
@@ -97,19 +95,7 @@ public class Registration implements Serializable {
         this.smsNumber = smsNumber;
 
         this.objectLinks = objectLinks;
-        // Parse object link to extract root path.
-        String rootPath = "/";
-        if (objectLinks != null) {
-            for (Link link : objectLinks) {
-                if (link != null && "oma.lwm2m".equals(Link.unquote(link.getAttributes().get("rt")))) {
-                    rootPath = link.getUrl();
-                    break;
-                }
-            }
-        }
-        if (!rootPath.endsWith("/"))
-            rootPath = rootPath + "/";
-        this.rootPath = rootPath;
+        this.rootPath = extractRootPath(objectLinks);
         this.supportedObjects = new AtomicReference<Map<Integer, String>>(supportedObjects);
         this.lifeTimeInSec = lifetimeInSec == null ? DEFAULT_LIFETIME_IN_SEC : lifetimeInSec;
         this.lwM2mVersion = lwM2mVersion == null ? Version.getDefault().toString() : lwM2mVersion;
@@ -172,6 +158,10 @@ public class Registration implements Serializable {
         return identity.getPeerAddress().getPort();
     }
 
+    /**
+     * @return the object links of this registration. This array can be shared with other registrations (see
+     *         {@link ObjectLinksCache}), so it must not be modified.
+     */
     public Link[] getObjectLinks() {
         return objectLinks;
     }
@@ -367,6 +357,27 @@ public class Registration implements Serializable {
         }
     }
 
+    /**
+     * Parse object links to extract root path.
+     * 
+     * @param objectLinks the registration object links payload.
+     * @return the path where LWM2M objects are hosted, always ending with a {@code /}.
+     */
+    static String extractRootPath(Link[] objectLinks) {
+        String rootPath = "/";
+        if (objectLinks != null) {
+            for (Link link : objectLinks) {
+                if (link != null && "oma.lwm2m".equals(Link.unquote(link.getAttributes().get("rt")))) {
+                    rootPath = link.getUrl();
+                    break;
+                }
+            }
+        }
+        if (!rootPath.endsWith("/"))
+            rootPath = rootPath + "/";
+        return rootPath;
+    }
+
     /**
      * Build a Map {@code objectId} {@literal =>} {@code supportedVersion} from root path and registration object links.
      * 
@@ -376,36 +387,31 @@ public class Registration implements Serializable {
      */
     public static Map<Integer, String> getSupportedObject(String rootPath, Link[] objectLinks) {
         Map<Integer, String> objects = new HashMap<>();
+        if (objectLinks == null)
+            return objects;
         for (Link link : objectLinks) {
             if (link != null) {
-                Pattern p = Pattern.compile("^\\Q" + rootPath + "\\E(\\d+)(?:/\\d+)*$");
-                Matcher m = p.matcher(link.getUrl());
-                if (m.matches()) {
-                    try {
-                        // extract object id and version
-                        int objectId = Integer.parseInt(m.group(1));
-                        String version = link.getAttributes().get(Attribute.OBJECT_VERSION);
-                        // un-quote version (see https://github.com/eclipse/leshan/issues/732)
-                        version = Link.unquote(version);
-                        String currentVersion = objects.get(objectId);
-
-                        // store it in map
-                        if (currentVersion == null) {
-                            // we never find version for this object add it
-                            if (version != null) {
-                                objects.put(objectId, version);
-                            } else {
-                                objects.put(objectId, ObjectModel.DEFAULT_VERSION);
-                            }
+                int objectId = getObjectId(rootPath, link.getUrl());
+                if (objectId >= 0) {
+                    // extract version
+                    String version = link.getAttributes().get(Attribute.OBJECT_VERSION);
+                    // un-quote version (see https://github.com/eclipse/leshan/issues/732)
+                    version = Link.unquote(version);
+                    String currentVersion = objects.get(objectId);
+
+                    // store it in map
+                    if (currentVersion == null) {
+                        // we never find version for this object add it
+                        if (version != null) {
+                            objects.put(objectId, version);
                         } else {
-                            // if version is already set, we override it only if new version is not DEFAULT_VERSION
-                            if (version != null && !version.equals(ObjectModel.DEFAULT_VERSION)) {
-                                objects.put(objectId, version);
-                            }
+                            objects.put(objectId, ObjectModel.DEFAULT_VERSION);
+                        }
+                    } else {
+                        // if version is already set, we override it only if new version is not DEFAULT_VERSION
+                        if (version != null && !version.equals(ObjectModel.DEFAULT_VERSION)) {
+                            objects.put(objectId, version);
                         }
-                    } catch (NumberFormatException e) {
-                        // This should not happened except maybe if the number in url is too long...
-                        // In this case we just ignore it because this is not an object id.
                     }
                 }
             }
@@ -413,6 +419,47 @@ public class Registration implements Serializable {
         return objects;
     }
 
+    /**
+     * Extract object id from an url like {@code <rootPath>objectId[/id]*}.
+     * 
+     * @return the object id or -1 if the url does not target an object or an object child.
+     */
+    private static int getObjectId(String rootPath, String url) {
+        if (!url.startsWith(rootPath))
+            return -1;
+
+        int start = rootPath.length();
+        int end = start;
+        while (end < url.length() && isDigit(url.charAt(end))) {
+            end++;
+        }
+        if (end == start)
+            return -1;
+
+        // following segments must be ids
+        int i = end;
+        while (i < url.length()) {
+            if (url.charAt(i) != '/' || i + 1 == url.length() || !isDigit(url.charAt(i + 1)))
+                return -1;
+            i++;
+            while (i < url.length() && isDigit(url.charAt(i))) {
+                i++;
+            }
+        }
+
+        try {
+            return Integer.parseInt(url.substring(start, end));
+        } catch (NumberFormatException e) {
+            // This should not happened except maybe if the number in url is too long...
+            // In this case we just ignore it because this is not an object id.
+            return -1;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
     public static class Builder {
         private final String registrationId;
         private final String endpoint;
@@ -428,6 +475,7 @@ public class Registration implements Serializable {
         private Link[] objectLinks;
         private Map<Integer, String> supportedObjects;
         private Map<String, String> additionalRegistrationAttributes;
+        private ObjectLinksCache objectLinksCache = ObjectLinksCache.getDefault();
 
         public Builder(String registrationId, String endpoint, Identity identity) {
 
@@ -489,11 +537,32 @@ public class Registration implements Serializable {
             return this;
         }
 
+        /**
+         * Set the cache used to share object links and supported objects between registrations with identical object
+         * links. {@link ObjectLinksCache#getDefault()} is used by default.
+         * 
+         * @param objectLinksCache the cache to use or <code>null</code> to not share object links.
+         * @return this builder
+         */
+        public Builder objectLinksCache(ObjectLinksCache objectLinksCache) {
+            this.objectLinksCache = objectLinksCache;
+            return this;
+        }
+
         public Registration build() {
+            Link[] objectLinks = this.objectLinks;
+            Map<Integer, String> supportedObjects = this.supportedObjects;
+            if (objectLinks != null && objectLinksCache != null) {
+                ObjectLinksCache.SharedObjectLinks shared = objectLinksCache.get(objectLinks);
+                objectLinks = shared.getObjectLinks();
+                if (supportedObjects == null) {
+                    supportedObjects = shared.getSupportedObjects();
+                }
+            }
             return new Registration(Builder.this.registrationId, Builder.this.endpoint, Builder.this.identity,
                     Builder.this.lwM2mVersion, Builder.this.lifeTimeInSec, Builder.this.smsNumber, this.bindingMode,
-                    this.queueMode, this.objectLinks, this.registrationDate, this.lastUpdate,
-                    this.additionalRegistrationAttributes, this.supportedObjects);
+                    this.queueMode, objectLinks, this.registrationDate, this.lastUpdate,
+                    this.additionalRegistrationAttributes, supportedObjects);
         }
 
     }
@@ -0,0 +1,440 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.core.request.CreateRequest;
+import org.eclipse.leshan.core.request.DeleteRequest;
+import org.eclipse.leshan.core.request.DiscoverRequest;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.ExecuteRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteAttributesRequest;
+import org.eclipse.leshan.core.request.WriteCompositeRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.exception.RequestCanceledException;
+import org.eclipse.leshan.core.request.exception.SendFailedException;
+import org.eclipse.leshan.core.request.exception.TimeoutException;
+import org.eclipse.leshan.core.request.exception.TimeoutException.Type;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * A {@link LwM2mRequestSender} which coalesces identical concurrent {@link ReadRequest}s and {@link DiscoverRequest}s
+ * sent to a same {@link Registration}.
+ * <p>
+ * When a request is sent while an identical one (same registration, path and content format) is in flight, no new
+ * request is sent to the device : the request is attached to the in flight one and completed with the same response.
+ * Requests using a {@link LowerLayerConfig} are never coalesced.
+ * <p>
+ * Optionally, successful responses can be cached during a short time. The cache of a registration is invalidated as
+ * soon as a request which could modify the device state (write, create, delete, execute, ...) is sent through this
+ * sender.
+ * <p>
+ * Note that an attached request is completed when the in flight request completes, so its own timeout is not applied
+ * for asynchronous sending.
+ */
+public class CoalescingLwM2mRequestSender implements LwM2mRequestSender {
+
+    protected final LwM2mRequestSender delegatedSender;
+    private final long cacheDurationInNanos;
+
+    private final ConcurrentMap<ExchangeKey, Exchange<?>> ongoingExchanges = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, RegistrationCache> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+
+    /**
+     * Create a sender which coalesces requests without caching responses.
+     * 
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     */
+    public CoalescingLwM2mRequestSender(LwM2mRequestSender delegatedSender) {
+        this(delegatedSender, 0);
+    }
+
+    /**
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     * @param cacheDurationInMs the duration during which a successful response is reused for identical requests. 0
+     *        means no cache.
+     */
+    public CoalescingLwM2mRequestSender(LwM2mRequestSender delegatedSender, long cacheDurationInMs) {
+        Validate.notNull(delegatedSender);
+        Validate.isTrue(cacheDurationInMs >= 0, "cache duration must be positive");
+        this.delegatedSender = delegatedSender;
+        this.cacheDurationInNanos = TimeUnit.MILLISECONDS.toNanos(cacheDurationInMs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+            LowerLayerConfig lowerLayerConfig, long timeoutInMs) throws InterruptedException {
+        if (!isCoalescable(request, lowerLayerConfig)) {
+            invalidateIfNeeded(destination, request);
+            return delegatedSender.send(destination, request, lowerLayerConfig, timeoutInMs);
+        }
+
+        T cached = getCachedResponse(destination, request);
+        if (cached != null) {
+            return cached;
+        }
+
+        ExchangeKey key = new ExchangeKey(destination.getId(), request);
+        Exchange<T> exchange = new Exchange<>(getRegistrationCache(destination.getId()));
+        @SuppressWarnings("unchecked")
+        Exchange<T> ongoing = (Exchange<T>) ongoingExchanges.putIfAbsent(key, exchange);
+        if (ongoing != null) {
+            coalescedCount.incrementAndGet();
+            return ongoing.waitForResponse(timeoutInMs);
+        }
+
+        T response;
+        try {
+            response = delegatedSender.send(destination, request, lowerLayerConfig, timeoutInMs);
+        } catch (InterruptedException e) {
+            complete(key, exchange, null,
+                    new RequestCanceledException("Request %s cancelled : sending thread was interrupted", request));
+            throw e;
+        } catch (RuntimeException e) {
+            complete(key, exchange, null, e);
+            throw e;
+        }
+        complete(key, exchange, response, null);
+        return response;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+            LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+            ErrorCallback errorCallback) {
+        if (!isCoalescable(request, lowerLayerConfig)) {
+            invalidateIfNeeded(destination, request);
+            delegatedSender.send(destination, request, lowerLayerConfig, timeoutInMs, responseCallback,
+                    errorCallback);
+            return;
+        }
+
+        T cached = getCachedResponse(destination, request);
+        if (cached != null) {
+            responseCallback.onResponse(cached);
+            return;
+        }
+
+        final ExchangeKey key = new ExchangeKey(destination.getId(), request);
+        final Exchange<T> exchange = new Exchange<>(getRegistrationCache(destination.getId()));
+        while (true) {
+            @SuppressWarnings("unchecked")
+            Exchange<T> ongoing = (Exchange<T>) ongoingExchanges.putIfAbsent(key, exchange);
+            if (ongoing == null) {
+                break;
+            }
+            if (ongoing.addCallbacks(responseCallback, errorCallback)) {
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            // exchange completed concurrently, it should be removed soon
+            ongoingExchanges.remove(key, ongoing);
+        }
+
+        // register callbacks first as the delegated sender could complete the request synchronously
+        exchange.addCallbacks(responseCallback, errorCallback);
+        try {
+            delegatedSender.send(destination, request, lowerLayerConfig, timeoutInMs, new ResponseCallback<T>() {
+                @Override
+                public void onResponse(T response) {
+                    complete(key, exchange, response, null);
+                }
+            }, new ErrorCallback() {
+                @Override
+                public void onError(Exception e) {
+                    complete(key, exchange, null, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // the exception is raised to the caller, so do not call its callbacks
+            exchange.removeCallbacks(responseCallback, errorCallback);
+            complete(key, exchange, null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancelOngoingRequests(Registration registration) {
+        RegistrationCache registrationCache = cache.remove(registration.getId());
+        if (registrationCache != null) {
+            registrationCache.invalidate();
+        }
+        delegatedSender.cancelOngoingRequests(registration);
+    }
+
+    /**
+     * Remove all cached responses of the given registration.
+     */
+    public void invalidateCache(Registration registration) {
+        RegistrationCache registrationCache = cache.get(registration.getId());
+        if (registrationCache != null) {
+            registrationCache.invalidate();
+        }
+    }
+
+    /**
+     * @return the number of requests which were attached to an identical in flight request.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return the number of requests completed using a cached response.
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    protected boolean isCoalescable(DownlinkRequest<?> request, LowerLayerConfig lowerLayerConfig) {
+        return lowerLayerConfig == null && (request instanceof ReadRequest || request instanceof DiscoverRequest);
+    }
+
+    protected boolean mayChangeState(DownlinkRequest<?> request) {
+        return request instanceof WriteRequest || request instanceof WriteCompositeRequest
+                || request instanceof CreateRequest || request instanceof DeleteRequest
+                || request instanceof ExecuteRequest || request instanceof WriteAttributesRequest;
+    }
+
+    private void invalidateIfNeeded(Registration destination, DownlinkRequest<?> request) {
+        if (cacheDurationInNanos > 0 && mayChangeState(request)) {
+            invalidateCache(destination);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends LwM2mResponse> T getCachedResponse(Registration destination, DownlinkRequest<T> request) {
+        if (cacheDurationInNanos == 0)
+            return null;
+
+        RegistrationCache registrationCache = cache.get(destination.getId());
+        if (registrationCache == null)
+            return null;
+
+        ConcurrentMap<DownlinkRequest<?>, CachedResponse> responses = registrationCache.responses;
+        CachedResponse cached = responses.get(request);
+        if (cached == null)
+            return null;
+        if (cached.isExpired(System.nanoTime())) {
+            responses.remove(request, cached);
+            return null;
+        }
+        cacheHitCount.incrementAndGet();
+        return (T) cached.response;
+    }
+
+    private RegistrationCache getRegistrationCache(String registrationId) {
+        if (cacheDurationInNanos == 0)
+            return null;
+
+        RegistrationCache registrationCache = cache.get(registrationId);
+        if (registrationCache == null) {
+            registrationCache = new RegistrationCache();
+            RegistrationCache previous = cache.putIfAbsent(registrationId, registrationCache);
+            if (previous != null) {
+                registrationCache = previous;
+            }
+        }
+        return registrationCache;
+    }
+
+    private void cacheResponse(String registrationId, Exchange<?> exchange, DownlinkRequest<?> request,
+            LwM2mResponse response) {
+        // the cache was invalidated or removed since the request was sent : the response may be stale
+        RegistrationCache registrationCache = exchange.registrationCache;
+        if (registrationCache.invalidations.get() != exchange.invalidations
+                || cache.get(registrationId) != registrationCache)
+            return;
+
+        // remove expired responses of this registration
+        ConcurrentMap<DownlinkRequest<?>, CachedResponse> responses = registrationCache.responses;
+        long now = System.nanoTime();
+        for (Iterator<Entry<DownlinkRequest<?>, CachedResponse>> it = responses.entrySet().iterator(); it.hasNext();) {
+            if (it.next().getValue().isExpired(now)) {
+                it.remove();
+            }
+        }
+        CachedResponse cached = new CachedResponse(response, now + cacheDurationInNanos);
+        responses.put(request, cached);
+
+        // an invalidation could happen between the check and the put
+        if (registrationCache.invalidations.get() != exchange.invalidations) {
+            responses.remove(request, cached);
+        }
+    }
+
+    private <T extends LwM2mResponse> void complete(ExchangeKey key, Exchange<T> exchange, T response,
+            Exception exception) {
+        // cache response before removing the exchange, so a new request finds one or the other
+        if (exchange.registrationCache != null && response != null && response.isSuccess()) {
+            cacheResponse(key.registrationId, exchange, key.request, response);
+        }
+        ongoingExchanges.remove(key, exchange);
+        exchange.complete(response, exception);
+    }
+
+    private static class ExchangeKey {
+        final String registrationId;
+        final DownlinkRequest<?> request;
+
+        ExchangeKey(String registrationId, DownlinkRequest<?> request) {
+            this.registrationId = registrationId;
+            this.request = request;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * registrationId.hashCode() + request.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ExchangeKey))
+                return false;
+            ExchangeKey other = (ExchangeKey) obj;
+            return registrationId.equals(other.registrationId) && request.equals(other.request);
+        }
+    }
+
+    /*
+     * Cached responses of a registration and the number of times they were invalidated.
+     */
+    private static class RegistrationCache {
+        final ConcurrentMap<DownlinkRequest<?>, CachedResponse> responses = new ConcurrentHashMap<>();
+        final AtomicLong invalidations = new AtomicLong();
+
+        void invalidate() {
+            invalidations.incrementAndGet();
+            responses.clear();
+        }
+    }
+
+    private static class CachedResponse {
+        final LwM2mResponse response;
+        final long expirationTime;
+
+        CachedResponse(LwM2mResponse response, long expirationTime) {
+            this.response = response;
+            this.expirationTime = expirationTime;
+        }
+
+        boolean isExpired(long now) {
+            return now - expirationTime >= 0;
+        }
+    }
+
+    /*
+     * An in flight request and the callbacks of requests attached to it.
+     */
+    private static class Exchange<T extends LwM2mResponse> {
+        // invalidation counter of the registration cache when the request was sent
+        private final RegistrationCache registrationCache;
+        private final long invalidations;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final List<ResponseCallback<T>> responseCallbacks = new ArrayList<>(2);
+        private final List<ErrorCallback> errorCallbacks = new ArrayList<>(2);
+        private boolean completed = false;
+        private T response;
+        private Exception exception;
+
+        Exchange(RegistrationCache registrationCache) {
+            this.registrationCache = registrationCache;
+            this.invalidations = registrationCache == null ? 0 : registrationCache.invalidations.get();
+        }
+
+        synchronized boolean addCallbacks(ResponseCallback<T> responseCallback, ErrorCallback errorCallback) {
+            if (completed)
+                return false;
+            responseCallbacks.add(responseCallback);
+            errorCallbacks.add(errorCallback);
+            return true;
+        }
+
+        synchronized void removeCallbacks(ResponseCallback<T> responseCallback, ErrorCallback errorCallback) {
+            responseCallbacks.remove(responseCallback);
+            errorCallbacks.remove(errorCallback);
+        }
+
+        void complete(T response, Exception exception) {
+            List<ResponseCallback<T>> responseCallbacksToCall;
+            List<ErrorCallback> errorCallbacksToCall;
+            synchronized (this) {
+                if (completed)
+                    return;
+                completed = true;
+                this.response = response;
+                this.exception = exception;
+                responseCallbacksToCall = new ArrayList<>(responseCallbacks);
+                errorCallbacksToCall = new ArrayList<>(errorCallbacks);
+            }
+            done.countDown();
+
+            if (response != null) {
+                for (ResponseCallback<T> callback : responseCallbacksToCall) {
+                    callback.onResponse(response);
+                }
+            } else {
+                Exception e = exception != null ? exception
+                        : new TimeoutException(Type.RESPONSE_TIMEOUT, "Request timed out : no response received");
+                for (ErrorCallback callback : errorCallbacksToCall) {
+                    callback.onError(e);
+                }
+            }
+        }
+
+        T waitForResponse(long timeoutInMs) throws InterruptedException {
+            if (!done.await(timeoutInMs, TimeUnit.MILLISECONDS))
+                return null;
+            synchronized (this) {
+                if (exception instanceof RuntimeException) {
+                    throw (RuntimeException) exception;
+                } else if (exception != null) {
+                    throw new SendFailedException(exception, "Unable to send request");
+                }
+                return response;
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mNodeStreamEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.model.LwM2mModelProvider;
+import org.eclipse.leshan.server.registration.Registration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Choose the {@link ContentFormat} producing the smallest payload to send a {@link LwM2mNode} to a given
+ * {@link Registration}.
+ * <p>
+ * Content formats supported by a registration are extracted from the <code>ct</code> attribute of its root link (see
+ * LWM2M 1.1 §6.2.1). When this attribute is missing, only the formats made mandatory by its LWM2M version are
+ * considered supported. The node is then encoded with each supported candidate format, only counting bytes, and the
+ * format producing the smallest payload is chosen. The requested format is kept if no supported format can be used.
+ * <p>
+ * Candidate formats are tried in the given order, so in case of equality the first one wins.
+ * <p>
+ * As the best format mainly depends on the structure of the node, the chosen format is cached by registration, path,
+ * kind of node and requested format : next nodes written to the same path are not encoded again. This cache is
+ * dropped when the registration is updated or removed.
+ */
+public class ContentFormatNegotiator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ContentFormatNegotiator.class);
+
+    // maximum number of chosen formats cached for one registration
+    private static final int MAX_CACHED_FORMATS = 64;
+
+    /**
+     * Default candidate formats, binary formats first.
+     */
+    public static final List<ContentFormat> DEFAULT_CANDIDATES = Collections.unmodifiableList(
+            Arrays.asList(ContentFormat.TLV, ContentFormat.SENML_CBOR, ContentFormat.CBOR, ContentFormat.OPAQUE,
+                    ContentFormat.TEXT, ContentFormat.SENML_JSON, ContentFormat.JSON));
+
+    private final LwM2mNodeEncoder encoder;
+    private final LwM2mModelProvider modelProvider;
+    private final List<ContentFormat> candidates;
+
+    // registration id => supported formats of this registration
+    private final ConcurrentMap<String, SupportedFormats> supportedFormats = new ConcurrentHashMap<>();
+
+    // metrics
+    private final AtomicLong negotiationCount = new AtomicLong();
+    private final AtomicLong changedFormatCount = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    /**
+     * Create a negotiator using {@link #DEFAULT_CANDIDATES}.
+     * 
+     * @param encoder the encoder used to estimate payload size.
+     * @param modelProvider the provider of the model used to encode nodes.
+     */
+    public ContentFormatNegotiator(LwM2mNodeEncoder encoder, LwM2mModelProvider modelProvider) {
+        this(encoder, modelProvider, DEFAULT_CANDIDATES);
+    }
+
+    /**
+     * @param encoder the encoder used to estimate payload size.
+     * @param modelProvider the provider of the model used to encode nodes.
+     * @param candidates the content formats which can be chosen, by order of preference.
+     */
+    public ContentFormatNegotiator(LwM2mNodeEncoder encoder, LwM2mModelProvider modelProvider,
+            List<ContentFormat> candidates) {
+        Validate.notNull(encoder);
+        Validate.notNull(modelProvider);
+        Validate.notEmpty(candidates);
+        this.encoder = encoder;
+        this.modelProvider = modelProvider;
+        this.candidates = new ArrayList<>(candidates);
+    }
+
+    /**
+     * Choose the content format producing the smallest payload for the given node.
+     * 
+     * @param registration the registration of the device which will receive the node.
+     * @param path the path of the node.
+     * @param node the node to send.
+     * @param requestedFormat the format initially requested, used as fallback and as reference to compute saved bytes.
+     * @return the chosen content format, <code>requestedFormat</code> if it is supported and no candidate is better
+     *         or if no candidate can be used.
+     */
+    public ContentFormat negotiate(Registration registration, LwM2mPath path, LwM2mNode node,
+            ContentFormat requestedFormat) {
+        negotiationCount.incrementAndGet();
+        SupportedFormats formats = getSupportedFormats(registration);
+        ChosenFormatKey key = new ChosenFormatKey(path, node.getClass(), requestedFormat);
+        ContentFormat chosenFormat = formats.chosenFormats.get(key);
+        if (chosenFormat == null) {
+            chosenFormat = choose(registration, formats.formats, path, node, requestedFormat);
+            if (chosenFormat != null && formats.chosenFormats.size() < MAX_CACHED_FORMATS) {
+                formats.chosenFormats.put(key, chosenFormat);
+            }
+        } else if (!chosenFormat.equals(requestedFormat)) {
+            changedFormatCount.incrementAndGet();
+        }
+        return chosenFormat;
+    }
+
+    private ContentFormat choose(Registration registration, Set<ContentFormat> supported, LwM2mPath path,
+            LwM2mNode node, ContentFormat requestedFormat) {
+        LwM2mModel model = modelProvider.getObjectModel(registration);
+        CountingOutputStream counter = new CountingOutputStream();
+
+        long requestedSize = requestedFormat == null ? -1 : size(node, requestedFormat, path, model, counter);
+        // requested format is only kept if the device supports it
+        ContentFormat bestFormat = null;
+        long bestSize = -1;
+        if (requestedSize >= 0 && supported.contains(requestedFormat)) {
+            bestFormat = requestedFormat;
+            bestSize = requestedSize;
+        }
+        for (ContentFormat candidate : candidates) {
+            if (candidate.equals(requestedFormat) || !supported.contains(candidate) || !isApplicable(candidate, node)
+                    || !encoder.isSupported(candidate)) {
+                continue;
+            }
+            long size = size(node, candidate, path, model, counter);
+            if (size >= 0 && (bestSize < 0 || size < bestSize)) {
+                bestFormat = candidate;
+                bestSize = size;
+            }
+        }
+
+        if (bestFormat == null) {
+            return requestedFormat;
+        }
+        if (!bestFormat.equals(requestedFormat)) {
+            changedFormatCount.incrementAndGet();
+            if (requestedSize > bestSize) {
+                bytesSaved.addAndGet(requestedSize - bestSize);
+            }
+            LOG.trace("{} chosen instead of {} for {} on {} : {} bytes instead of {}", bestFormat, requestedFormat,
+                    path, registration.getEndpoint(), bestSize, requestedSize);
+        }
+        return bestFormat;
+    }
+
+    /**
+     * @param registration the registration of the device.
+     * @return the content formats supported by this device.
+     */
+    public Set<ContentFormat> getSupportedContentFormats(Registration registration) {
+        return getSupportedFormats(registration).formats;
+    }
+
+    private SupportedFormats getSupportedFormats(Registration registration) {
+        SupportedFormats formats = supportedFormats.get(registration.getId());
+        // registration object changes on each update, so recompute if needed
+        if (formats == null || formats.registration != registration) {
+            formats = new SupportedFormats(registration, extractSupportedContentFormats(registration));
+            supportedFormats.put(registration.getId(), formats);
+        }
+        return formats;
+    }
+
+    /**
+     * Forget content formats supported by a registration, typically when it is removed.
+     * 
+     * @param registration the removed registration.
+     */
+    public void remove(Registration registration) {
+        supportedFormats.remove(registration.getId());
+    }
+
+    /**
+     * @return the number of negotiations done since this negotiator was created.
+     */
+    public long getNegotiationCount() {
+        return negotiationCount.get();
+    }
+
+    /**
+     * @return the number of negotiations where a content format different from the requested one was chosen.
+     */
+    public long getChangedFormatCount() {
+        return changedFormatCount.get();
+    }
+
+    /**
+     * @return the number of payload bytes saved compared to the requested content formats. Negotiations choosing a
+     *         bigger payload because the requested format is not supported are not counted, nor negotiations using a
+     *         cached format as the node is not encoded.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    /**
+     * Extract supported content formats from the <code>ct</code> attribute of the registration root link. If there is
+     * no such attribute, mandatory formats of the registration LWM2M version are returned.
+     * 
+     * @param registration the registration of the device.
+     * @return the content formats supported by this device.
+     */
+    protected Set<ContentFormat> extractSupportedContentFormats(Registration registration) {
+        Set<ContentFormat> formats = new HashSet<>();
+        // plain text and opaque are mandatory
+        formats.add(ContentFormat.TEXT);
+        formats.add(ContentFormat.OPAQUE);
+
+        String ct = getRootContentTypes(registration);
+        if (ct != null) {
+            for (String code : ct.trim().split("\\s+")) {
+                try {
+                    formats.add(ContentFormat.fromCode(Integer.parseInt(code)));
+                } catch (NumberFormatException e) {
+                    LOG.debug("Invalid ct attribute {} for {}", ct, registration.getEndpoint());
+                }
+            }
+        } else if (!Version.get(registration.getLwM2mVersion()).newerThan(Version.V1_0)) {
+            // TLV is mandatory in LWM2M 1.0.
+            // Since LWM2M 1.1, a client must support one of TLV, SenML CBOR or SenML JSON, but we can not know
+            // which one.
+            formats.add(ContentFormat.TLV);
+        }
+        return Collections.unmodifiableSet(formats);
+    }
+
+    private String getRootContentTypes(Registration registration) {
+        Link[] objectLinks = registration.getObjectLinks();
+        if (objectLinks == null)
+            return null;
+
+        String rootPath = registration.getRootPath();
+        for (Link link : objectLinks) {
+            if (link == null)
+                continue;
+            String url = link.getUrl().endsWith("/") ? link.getUrl() : link.getUrl() + "/";
+            if (url.equals(rootPath) || "oma.lwm2m".equals(Link.unquote(link.getAttributes().get("rt")))) {
+                String ct = link.getAttributes().get("ct");
+                if (ct != null) {
+                    return Link.unquote(ct);
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean isApplicable(ContentFormat format, LwM2mNode node) {
+        // single value formats
+        if (ContentFormat.TEXT.equals(format) || ContentFormat.CBOR.equals(format)) {
+            return node instanceof LwM2mSingleResource || node instanceof LwM2mResourceInstance;
+        }
+        if (ContentFormat.OPAQUE.equals(format)) {
+            return (node instanceof LwM2mSingleResource && ((LwM2mSingleResource) node).getType() == Type.OPAQUE)
+                    || (node instanceof LwM2mResourceInstance
+                            && ((LwM2mResourceInstance) node).getType() == Type.OPAQUE);
+        }
+        return true;
+    }
+
+    private long size(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model,
+            CountingOutputStream counter) {
+        try {
+            if (encoder instanceof LwM2mNodeStreamEncoder) {
+                counter.count = 0;
+                ((LwM2mNodeStreamEncoder) encoder).encode(node, format, path, model, counter);
+                return counter.count;
+            } else {
+                return encoder.encode(node, format, path, model).length;
+            }
+        } catch (CodecException e) {
+            LOG.trace("Unable to encode {} using {}", path, format, e);
+            return -1;
+        }
+    }
+
+    private static class SupportedFormats {
+        final Registration registration;
+        final Set<ContentFormat> formats;
+        final ConcurrentMap<ChosenFormatKey, ContentFormat> chosenFormats = new ConcurrentHashMap<>();
+
+        SupportedFormats(Registration registration, Set<ContentFormat> formats) {
+            this.registration = registration;
+            this.formats = formats;
+        }
+    }
+
+    private static class ChosenFormatKey {
+        final LwM2mPath path;
+        final Class<?> nodeClass;
+        final ContentFormat requestedFormat;
+
+        ChosenFormatKey(LwM2mPath path, Class<?> nodeClass, ContentFormat requestedFormat) {
+            this.path = path;
+            this.nodeClass = nodeClass;
+            this.requestedFormat = requestedFormat;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + nodeClass.hashCode();
+            result = 31 * result + (requestedFormat == null ? 0 : requestedFormat.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof ChosenFormatKey))
+                return false;
+            ChosenFormatKey other = (ChosenFormatKey) obj;
+            return path.equals(other.path) && nodeClass.equals(other.nodeClass)
+                    && (requestedFormat == null ? other.requestedFormat == null
+                            : requestedFormat.equals(other.requestedFormat));
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
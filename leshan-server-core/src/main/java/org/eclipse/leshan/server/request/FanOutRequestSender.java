@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import java.util.Iterator;
+
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.codec.SharedNodeEncoder;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Send a same {@link DownlinkRequest} to a lot of {@link Registration}s (e.g. for a firmware update campaign).
+ * <p>
+ * Requests are sent asynchronously using a {@link LwM2mRequestSender}, so queue mode or any other behavior of this
+ * sender still applies. The number of requests in flight is limited by a window for unsecured (coap://) and one for
+ * secured (coaps://) endpoints.
+ * <p>
+ * If a {@link SharedNodeEncoder} is used by the {@link LwM2mRequestSender}, the payload of a {@link WriteRequest} is
+ * encoded only once per content format and model version.
+ */
+public class FanOutRequestSender {
+
+    public static final int DEFAULT_UNSECURED_WINDOW = 256;
+    public static final int DEFAULT_SECURED_WINDOW = 64;
+
+    private final LwM2mRequestSender sender;
+    private final SharedNodeEncoder encoder;
+    private final int defaultUnsecuredWindow;
+    private final int defaultSecuredWindow;
+
+    /**
+     * @param sender the sender used to send each request.
+     * @param encoder the encoder used by the sender, can be <code>null</code> if payload should be encoded for each
+     *        request.
+     */
+    public FanOutRequestSender(LwM2mRequestSender sender, SharedNodeEncoder encoder) {
+        this(sender, encoder, DEFAULT_UNSECURED_WINDOW, DEFAULT_SECURED_WINDOW);
+    }
+
+    /**
+     * @param sender the sender used to send each request.
+     * @param encoder the encoder used by the sender, can be <code>null</code> if payload should be encoded for each
+     *        request.
+     * @param defaultUnsecuredWindow the default maximum number of requests in flight to unsecured (coap://) endpoints.
+     * @param defaultSecuredWindow the default maximum number of requests in flight to secured (coaps://) endpoints.
+     */
+    public FanOutRequestSender(LwM2mRequestSender sender, SharedNodeEncoder encoder, int defaultUnsecuredWindow,
+            int defaultSecuredWindow) {
+        Validate.notNull(sender);
+        Validate.isTrue(defaultUnsecuredWindow > 0, "window must be greater than 0");
+        Validate.isTrue(defaultSecuredWindow > 0, "window must be greater than 0");
+        this.sender = sender;
+        this.encoder = encoder;
+        this.defaultUnsecuredWindow = defaultUnsecuredWindow;
+        this.defaultSecuredWindow = defaultSecuredWindow;
+    }
+
+    /**
+     * Send a Lightweight M2M {@link DownlinkRequest} to several LWM2M clients using default windows.
+     *
+     * @param destinations the {@link Registration}s of the devices targeted. The iterator is consumed lazily as
+     *        requests are sent.
+     * @param request The request to send to each client.
+     * @param lowerLayerConfig to tweak lower layer request (e.g. coap request)
+     * @param timeoutInMs The global timeout of each request in milliseconds (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout)
+     * @param <T> The expected type of the responses received.
+     * @return a {@link FanOutTask} to track progress and get results.
+     */
+    public <T extends LwM2mResponse> FanOutTask<T> send(Iterator<Registration> destinations,
+            DownlinkRequest<T> request, LowerLayerConfig lowerLayerConfig, long timeoutInMs) {
+        return send(destinations, request, lowerLayerConfig, timeoutInMs, defaultUnsecuredWindow,
+                defaultSecuredWindow);
+    }
+
+    /**
+     * Send a Lightweight M2M {@link DownlinkRequest} to several LWM2M clients.
+     *
+     * @param destinations the {@link Registration}s of the devices targeted. The iterator is consumed lazily as
+     *        requests are sent.
+     * @param request The request to send to each client.
+     * @param lowerLayerConfig to tweak lower layer request (e.g. coap request)
+     * @param timeoutInMs The global timeout of each request in milliseconds (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout)
+     * @param unsecuredWindow the maximum number of requests in flight to unsecured (coap://) endpoints.
+     * @param securedWindow the maximum number of requests in flight to secured (coaps://) endpoints.
+     * @param <T> The expected type of the responses received.
+     * @return a {@link FanOutTask} to track progress and get results.
+     */
+    public <T extends LwM2mResponse> FanOutTask<T> send(Iterator<Registration> destinations,
+            DownlinkRequest<T> request, LowerLayerConfig lowerLayerConfig, long timeoutInMs, int unsecuredWindow,
+            int securedWindow) {
+        Validate.notNull(destinations);
+        Validate.notNull(request);
+        Validate.isTrue(unsecuredWindow > 0, "window must be greater than 0");
+        Validate.isTrue(securedWindow > 0, "window must be greater than 0");
+
+        // Share node payload to encode it only once
+        Runnable onCompletion = null;
+        if (encoder != null && request instanceof WriteRequest) {
+            final LwM2mNode node = ((WriteRequest) request).getNode();
+            encoder.share(node);
+            onCompletion = new Runnable() {
+                @Override
+                public void run() {
+                    encoder.release(node);
+                }
+            };
+        }
+
+        FanOutTask<T> task = new FanOutTask<>(sender, destinations, request, lowerLayerConfig, timeoutInMs,
+                unsecuredWindow, securedWindow, onCompletion);
+        task.start();
+        return task;
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * The result of a request sent to one of the {@link Registration} targeted by a {@link FanOutTask}.
+ * <p>
+ * Either a response or an exception is available.
+ *
+ * @param <T> the type of the expected {@link LwM2mResponse}.
+ */
+public class FanOutResult<T extends LwM2mResponse> {
+
+    private final Registration registration;
+    private final T response;
+    private final Exception exception;
+
+    public FanOutResult(Registration registration, T response, Exception exception) {
+        this.registration = registration;
+        this.response = response;
+        this.exception = exception;
+    }
+
+    /**
+     * @return the registration to which the request was sent.
+     */
+    public Registration getRegistration() {
+        return registration;
+    }
+
+    /**
+     * @return the response received or <code>null</code> if the request failed.
+     */
+    public T getResponse() {
+        return response;
+    }
+
+    /**
+     * @return the exception raised if the request failed, <code>null</code> if a response was received.
+     */
+    public Exception getException() {
+        return exception;
+    }
+
+    /**
+     * @return <code>true</code> if a successful response was received.
+     */
+    public boolean isSuccess() {
+        return response != null && response.isSuccess();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FanOutResult [registration=%s, response=%s, exception=%s]", registration.getEndpoint(),
+                response, exception);
+    }
+}
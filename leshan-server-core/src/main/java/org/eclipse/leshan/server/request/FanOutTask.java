@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.server.registration.Registration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A same {@link DownlinkRequest} sent to a lot of {@link Registration}s by a {@link FanOutRequestSender}.
+ * <p>
+ * Requests are sent asynchronously, the number of requests in flight being limited by a window for unsecured (coap://)
+ * and one for secured (coaps://) endpoints. This object allows to track progress, to cancel the remaining requests and
+ * to consume results as they come using {@link #results()}.
+ *
+ * @param <T> the type of the expected {@link LwM2mResponse}.
+ */
+public class FanOutTask<T extends LwM2mResponse> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FanOutTask.class);
+
+    private static final int UNSECURED = 0;
+    private static final int SECURED = 1;
+
+    // used to signal the end of the results
+    private final FanOutResult<T> endOfResults = new FanOutResult<>(null, null, null);
+
+    private final LwM2mRequestSender sender;
+    private final DownlinkRequest<T> request;
+    private final LowerLayerConfig lowerLayerConfig;
+    private final long timeoutInMs;
+    private final Runnable onCompletion;
+
+    // state protected by "this" lock
+    private final Iterator<Registration> registrations;
+    private final int[] windows = new int[2];
+    private final int[] inFlight = new int[2];
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Registration>[] parked = new ArrayDeque[] { new ArrayDeque<Registration>(),
+                            new ArrayDeque<Registration>() };
+    private final int maxParked;
+    private int parkedCount = 0;
+    private boolean cancelled = false;
+    private boolean done = false;
+
+    // progress
+    private final AtomicInteger dispatched = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicInteger errorResponses = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private final AtomicInteger pumpRequests = new AtomicInteger();
+    private final CountDownLatch completion = new CountDownLatch(1);
+    private final BlockingQueue<FanOutResult<T>> results = new LinkedBlockingQueue<>();
+
+    FanOutTask(LwM2mRequestSender sender, Iterator<Registration> registrations, DownlinkRequest<T> request,
+            LowerLayerConfig lowerLayerConfig, long timeoutInMs, int unsecuredWindow, int securedWindow,
+            Runnable onCompletion) {
+        this.sender = sender;
+        this.registrations = registrations;
+        this.request = request;
+        this.lowerLayerConfig = lowerLayerConfig;
+        this.timeoutInMs = timeoutInMs;
+        this.windows[UNSECURED] = unsecuredWindow;
+        this.windows[SECURED] = securedWindow;
+        this.maxParked = unsecuredWindow + securedWindow;
+        this.onCompletion = onCompletion;
+    }
+
+    void start() {
+        pump();
+    }
+
+    /**
+     * Stop to send the request to the remaining registrations. Requests already sent are not cancelled.
+     */
+    public void cancel() {
+        synchronized (this) {
+            cancelled = true;
+        }
+        pump();
+    }
+
+    /**
+     * @return <code>true</code> if {@link #cancel()} was called.
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return <code>true</code> if there is no more request to send and no more request in flight.
+     */
+    public synchronized boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Wait until all requests are completed.
+     *
+     * @param timeoutInMs the maximum time to wait in milliseconds.
+     * @return <code>true</code> if the task is done, <code>false</code> if the timeout expired before.
+     * @throws InterruptedException if the thread was interrupted.
+     */
+    public boolean waitForCompletion(long timeoutInMs) throws InterruptedException {
+        return completion.await(timeoutInMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the number of requests sent so far.
+     */
+    public int getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * @return the number of successful responses received so far.
+     */
+    public int getSuccessCount() {
+        return successes.get();
+    }
+
+    /**
+     * @return the number of error responses received so far.
+     */
+    public int getErrorResponseCount() {
+        return errorResponses.get();
+    }
+
+    /**
+     * @return the number of requests which failed without response so far (timeout, sleeping client, ...).
+     */
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return the number of requests for which a result is available.
+     */
+    public int getCompletedCount() {
+        return successes.get() + errorResponses.get() + failures.get();
+    }
+
+    /**
+     * @return the number of requests currently waiting for a response.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlight[UNSECURED] + inFlight[SECURED];
+    }
+
+    /**
+     * Results are available as soon as a response or an error is received. Calls to {@link Iterator#hasNext()} block
+     * until a new result is available or the task is done.
+     * <p>
+     * Results are kept until they are consumed, so this iterator should be consumed when sending the request to a huge
+     * number of devices. If the waiting thread is interrupted, the iteration ends and the interrupt flag is restored.
+     * <p>
+     * This iterator should be used by only one thread.
+     *
+     * @return a blocking {@link Iterator} on results.
+     */
+    public Iterator<FanOutResult<T>> results() {
+        return new Iterator<FanOutResult<T>>() {
+            private FanOutResult<T> next;
+            private boolean ended = false;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null)
+                    return true;
+                if (ended)
+                    return false;
+                try {
+                    FanOutResult<T> result = results.take();
+                    if (result == endOfResults) {
+                        ended = true;
+                        return false;
+                    }
+                    next = result;
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    ended = true;
+                    return false;
+                }
+            }
+
+            @Override
+            public FanOutResult<T> next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                FanOutResult<T> result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /*
+     * Dispatch as many requests as the windows allow. Response callbacks can be called synchronously, so re-entrant
+     * calls only increment the pump counter and the thread already pumping does the work.
+     */
+    private void pump() {
+        if (pumpRequests.getAndIncrement() != 0)
+            return;
+
+        int missed = 1;
+        do {
+            for (Registration registration : pollDispatchable()) {
+                dispatch(registration);
+            }
+            missed = pumpRequests.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private synchronized List<Registration> pollDispatchable() {
+        List<Registration> toDispatch = new ArrayList<>();
+        if (done)
+            return toDispatch;
+
+        if (cancelled) {
+            parked[UNSECURED].clear();
+            parked[SECURED].clear();
+            parkedCount = 0;
+        } else {
+            // first registrations which were waiting for a free slot
+            for (int type = UNSECURED; type <= SECURED; type++) {
+                while (!parked[type].isEmpty() && inFlight[type] < windows[type]) {
+                    toDispatch.add(parked[type].poll());
+                    parkedCount--;
+                    inFlight[type]++;
+                }
+            }
+            // then new ones
+            while (parkedCount < maxParked && registrations.hasNext()) {
+                Registration registration = registrations.next();
+                int type = typeOf(registration);
+                if (parked[type].isEmpty() && inFlight[type] < windows[type]) {
+                    toDispatch.add(registration);
+                    inFlight[type]++;
+                } else {
+                    parked[type].add(registration);
+                    parkedCount++;
+                }
+            }
+        }
+
+        if (toDispatch.isEmpty() && parkedCount == 0 && inFlight[UNSECURED] == 0 && inFlight[SECURED] == 0
+                && (cancelled || !registrations.hasNext())) {
+            done = true;
+            results.add(endOfResults);
+            completion.countDown();
+            if (onCompletion != null) {
+                onCompletion.run();
+            }
+        }
+        return toDispatch;
+    }
+
+    private void dispatch(final Registration registration) {
+        dispatched.incrementAndGet();
+        try {
+            sender.send(registration, request, lowerLayerConfig, timeoutInMs, new ResponseCallback<T>() {
+                @Override
+                public void onResponse(T response) {
+                    complete(registration, response, null);
+                }
+            }, new ErrorCallback() {
+                @Override
+                public void onError(Exception e) {
+                    complete(registration, null, e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // e.g. ClientSleepingException or CodecException
+            LOG.debug("Unable to send {} to {}", request, registration.getEndpoint(), e);
+            complete(registration, null, e);
+        }
+    }
+
+    private void complete(Registration registration, T response, Exception exception) {
+        if (response != null) {
+            if (response.isSuccess()) {
+                successes.incrementAndGet();
+            } else {
+                errorResponses.incrementAndGet();
+            }
+        } else {
+            failures.incrementAndGet();
+        }
+        results.add(new FanOutResult<>(registration, response, exception));
+
+        synchronized (this) {
+            inFlight[typeOf(registration)]--;
+        }
+        pump();
+    }
+
+    private static int typeOf(Registration registration) {
+        return registration.getIdentity().isSecure() ? SECURED : UNSECURED;
+    }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.WriteRequest.Mode;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * A {@link LwM2mRequestSender} which uses a {@link ContentFormatNegotiator} to send {@link WriteRequest}s with the
+ * content format producing the smallest payload among the ones supported by the destination.
+ * <p>
+ * The content format of the request is only a preference : it is kept if no supported format produces a smaller
+ * payload. Other requests are sent unchanged.
+ */
+public class NegotiatingLwM2mRequestSender implements LwM2mRequestSender {
+
+    protected final LwM2mRequestSender delegatedSender;
+    protected final ContentFormatNegotiator negotiator;
+
+    /**
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     * @param negotiator the negotiator used to choose content format.
+     */
+    public NegotiatingLwM2mRequestSender(LwM2mRequestSender delegatedSender, ContentFormatNegotiator negotiator) {
+        Validate.notNull(delegatedSender);
+        Validate.notNull(negotiator);
+        this.delegatedSender = delegatedSender;
+        this.negotiator = negotiator;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+            LowerLayerConfig lowerLayerConfig, long timeoutInMs) throws InterruptedException {
+        return delegatedSender.send(destination, negotiate(destination, request), lowerLayerConfig, timeoutInMs);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+            LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+            ErrorCallback errorCallback) {
+        delegatedSender.send(destination, negotiate(destination, request), lowerLayerConfig, timeoutInMs,
+                responseCallback, errorCallback);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void cancelOngoingRequests(Registration registration) {
+        negotiator.remove(registration);
+        delegatedSender.cancelOngoingRequests(registration);
+    }
+
+    /**
+     * @return the negotiator used by this sender.
+     */
+    public ContentFormatNegotiator getNegotiator() {
+        return negotiator;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected <T extends LwM2mResponse> DownlinkRequest<T> negotiate(Registration destination,
+            DownlinkRequest<T> request) {
+        if (!(request instanceof WriteRequest))
+            return request;
+
+        WriteRequest writeRequest = (WriteRequest) request;
+        ContentFormat format = negotiator.negotiate(destination, writeRequest.getPath(), writeRequest.getNode(),
+                writeRequest.getContentFormat());
+        if (format == null || format.equals(writeRequest.getContentFormat()))
+            return request;
+
+        return (DownlinkRequest<T>) new WriteRequest(writeRequest.isReplaceRequest() ? Mode.REPLACE : Mode.UPDATE,
+                format, writeRequest.getPath(), writeRequest.getNode(), writeRequest.getCoapRequest());
+    }
+}
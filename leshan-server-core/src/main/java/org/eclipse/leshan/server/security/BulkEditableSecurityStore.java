@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import java.util.Collection;
+
+/**
+ * An {@link EditableSecurityStore} optimized for bulk provisioning.
+ * <p>
+ * Use {@link SecurityStoreUtil} to add or remove several {@link SecurityInfo} from any {@link EditableSecurityStore}.
+ */
+public interface BulkEditableSecurityStore extends EditableSecurityStore {
+
+    /**
+     * Registers security information for several client end-points at once.
+     * <p>
+     * This is equivalent to calling {@link #add(SecurityInfo)} for each {@link SecurityInfo}, but implementations are
+     * optimized for bulk provisioning. Uniqueness of identifiers is checked for the whole batch before any
+     * modification : if a {@link NonUniqueSecurityInfoException} is raised, no security information is added.
+     * 
+     * @param infos the new security information, if several of them are given for the same end-point, the last one is
+     *        used.
+     * @return the {@link SecurityInfo} previously stored for the given end-points.
+     * @throws NonUniqueSecurityInfoException if some identifiers (PSK identity, RPK public key...) are not unique among
+     *         all end-points.
+     */
+    Collection<SecurityInfo> addAll(Collection<SecurityInfo> infos) throws NonUniqueSecurityInfoException;
+
+    /**
+     * Removes the security information for several end-points at once.
+     * 
+     * @param endpoints the client end-points
+     * @param infosAreCompromised if the {@link SecurityInfo} removed should be considered as compromised and so must
+     *        not be used anymore immediately.
+     * @return the removed {@link SecurityInfo}.
+     */
+    Collection<SecurityInfo> removeAll(Collection<String> endpoints, boolean infosAreCompromised);
+}
@@ -15,8 +15,14 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.security;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.eclipse.leshan.core.request.Identity;
 import org.eclipse.leshan.core.request.UplinkRequest;
+import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.registration.Registration;
 
 /**
@@ -25,32 +31,142 @@ import org.eclipse.leshan.server.registration.Registration;
  * It checks in {@link SecurityStore} if there is a corresponding {@link SecurityInfo} for this registration endpoint.
  * If there is a {@link SecurityInfo} it check the identity is correct, else it checks if the LWM2M client use an
  * unsecure connection.
+ * <p>
+ * Positive decisions can be cached to avoid to request the {@link SecurityStore} for each uplink request (e.g. when
+ * it is remote). A decision is cached by end-point for the {@link Identity} which was authorized. It is invalidated
+ * when {@link SecurityInfo} of the end-point is added, replaced or removed (this authorizer must be registered as
+ * {@link SecurityStoreListener}, which is done by the server) or when it expires. Expiration bounds the time during
+ * which a modification done by another server sharing the same {@link SecurityStore} could be ignored.
  */
-public class DefaultAuthorizer implements Authorizer {
+public class DefaultAuthorizer implements Authorizer, SecurityStoreAddListener {
 
     private SecurityStore securityStore;
     private SecurityChecker securityChecker;
 
+    private final int maxCachedDecisions;
+    private final long cacheExpirationInNanos;
+    private final ConcurrentMap<String, CachedDecision> cachedDecisions;
+    // incremented on each invalidation to detect decisions taken with outdated security info
+    private final AtomicLong invalidations = new AtomicLong();
+
+    // metrics
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+
     public DefaultAuthorizer(SecurityStore store) {
         this(store, new SecurityChecker());
     }
 
     public DefaultAuthorizer(SecurityStore store, SecurityChecker checker) {
+        this(store, checker, 0, 0);
+    }
+
+    /**
+     * @param store the store used to get {@link SecurityInfo} of clients.
+     * @param checker the checker used to validate client identity against {@link SecurityInfo}.
+     * @param maxCachedDecisions the maximum number of cached decisions, 0 means no cache.
+     * @param cacheExpirationInMs the duration during which a decision is cached.
+     */
+    public DefaultAuthorizer(SecurityStore store, SecurityChecker checker, int maxCachedDecisions,
+            long cacheExpirationInMs) {
+        Validate.isTrue(maxCachedDecisions >= 0, "maxCachedDecisions must be positive");
+        Validate.isTrue(maxCachedDecisions == 0 || cacheExpirationInMs > 0, "cacheExpirationInMs must be positive");
         securityStore = store;
         securityChecker = checker;
+        this.maxCachedDecisions = maxCachedDecisions;
+        this.cacheExpirationInNanos = TimeUnit.MILLISECONDS.toNanos(cacheExpirationInMs);
+        this.cachedDecisions = maxCachedDecisions > 0 ? new ConcurrentHashMap<String, CachedDecision>() : null;
     }
 
     @Override
     public Registration isAuthorized(UplinkRequest<?> request, Registration registration, Identity senderIdentity) {
+        if (cachedDecisions == null) {
+            return checkSecurityInfo(registration, senderIdentity) ? registration : null;
+        }
 
+        String endpoint = registration.getEndpoint();
+        CachedDecision cached = cachedDecisions.get(endpoint);
+        if (cached != null && cached.identity.equals(senderIdentity) && System.nanoTime() - cached.expiration < 0) {
+            cacheHits.incrementAndGet();
+            return registration;
+        }
+        cacheMisses.incrementAndGet();
+
+        long invalidationsBefore = invalidations.get();
+        if (!checkSecurityInfo(registration, senderIdentity)) {
+            return null;
+        }
+
+        if (cachedDecisions.size() >= maxCachedDecisions) {
+            cachedDecisions.clear();
+        }
+        CachedDecision decision = new CachedDecision(senderIdentity, System.nanoTime() + cacheExpirationInNanos);
+        cachedDecisions.put(endpoint, decision);
+        // security info could have been modified while we were checking it
+        if (invalidations.get() != invalidationsBefore) {
+            cachedDecisions.remove(endpoint, decision);
+        }
+        return registration;
+    }
+
+    protected boolean checkSecurityInfo(Registration registration, Identity senderIdentity) {
         // do we have security information for this client?
         SecurityInfo expectedSecurityInfo = null;
         if (securityStore != null)
             expectedSecurityInfo = securityStore.getByEndpoint(registration.getEndpoint());
-        if (securityChecker.checkSecurityInfo(registration.getEndpoint(), senderIdentity, expectedSecurityInfo)) {
-            return registration;
-        } else {
-            return null;
+        return securityChecker.checkSecurityInfo(registration.getEndpoint(), senderIdentity, expectedSecurityInfo);
+    }
+
+    @Override
+    public void securityInfoRemoved(boolean infosAreCompromised, SecurityInfo... infos) {
+        invalidate(infos);
+    }
+
+    @Override
+    public void securityInfoAdded(SecurityInfo... infos) {
+        invalidate(infos);
+    }
+
+    private void invalidate(SecurityInfo... infos) {
+        if (cachedDecisions == null)
+            return;
+        invalidations.incrementAndGet();
+        for (SecurityInfo info : infos) {
+            cachedDecisions.remove(info.getEndpoint());
+        }
+    }
+
+    /**
+     * Remove all cached decisions.
+     */
+    public void clearCache() {
+        if (cachedDecisions != null) {
+            invalidations.incrementAndGet();
+            cachedDecisions.clear();
+        }
+    }
+
+    /**
+     * @return the number of authorizations decided using the cache.
+     */
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * @return the number of authorizations which needed to request the {@link SecurityStore}.
+     */
+    public long getCacheMissCount() {
+        return cacheMisses.get();
+    }
+
+    private static class CachedDecision {
+        final Identity identity;
+        final long expiration;
+
+        CachedDecision(Identity identity, long expiration) {
+            this.identity = identity;
+            this.expiration = expiration;
         }
     }
 }
@@ -15,13 +15,26 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.security;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
+import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,27 +42,76 @@ import org.slf4j.LoggerFactory;
 /**
  * A {@link SecurityStore} which persists {@link SecurityInfo} in a file.
  * <p>
- * This implementation serializes the store content into a file to be able to re-load the {@link SecurityInfo} when the
- * server is restarted.
- * </p>
+ * The file is a journal : each {@link #add(SecurityInfo)} or {@link #remove(String, boolean)} appends a record to it.
+ * Records are written outside of the store lock, so lookups are not blocked by I/O, and records from concurrent
+ * modifications are written together (group commit). When the journal contains too much obsolete records, it is
+ * compacted by rewriting the current content of the store.
+ * <p>
+ * Files written by previous versions (using Java serialization) are still loaded and are converted to the journal
+ * format.
+ * <p>
+ * Only a truncated last record (e.g. after a crash) is silently dropped. If the file can not be decoded, it is moved
+ * aside (with a <code>.corrupt</code> suffix) so it can be recovered manually, and a new file is written with the
+ * security infos which could be loaded.
  */
-public class FileSecurityStore extends InMemorySecurityStore {
+public class FileSecurityStore extends InMemorySecurityStore implements Destroyable {
 
     private static final Logger LOG = LoggerFactory.getLogger(FileSecurityStore.class);
 
+    // default location for persistence
+    private static final String DEFAULT_FILE = "data/security.data";
+
+    /**
+     * The default minimum number of records in the journal before compaction.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+    private static final int MAGIC = 0x4C534543; // "LSEC"
+    private static final byte FORMAT_VERSION = 1;
+    private static final short JAVA_SERIALIZATION_MAGIC = (short) 0xACED;
+
+    private static final byte ADD_RECORD = 1;
+    private static final byte REMOVE_RECORD = 2;
+
+    private static final byte PSK = 1;
+    private static final byte RPK = 2;
+    private static final byte X509 = 3;
+
     // the name of the file used to persist the store content
     private final String filename;
+    private final int compactionThreshold;
 
-    // default location for persistence
-    private static final String DEFAULT_FILE = "data/security.data";
+    // records waiting to be written, protected by "pendingRecords" lock
+    private final List<byte[]> pendingRecords = new ArrayList<>();
+    private long appendedSeq = 0;
+
+    // journal state, protected by "journalLock"
+    private final Object journalLock = new Object();
+    private long writtenSeq = 0;
+    private DataOutputStream journal;
+    private int journalRecords = 0;
+    private boolean compactionNeeded = false;
+    // true if the file could not be decoded nor moved aside : modifications are not persisted to avoid losing it
+    private boolean persistenceDisabled = false;
 
     public FileSecurityStore() {
         this(DEFAULT_FILE);
     }
 
     public FileSecurityStore(String file) {
+        this(file, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * @param file the file used to persist the store content.
+     * @param compactionThreshold the minimum number of records in the journal before compaction. Compaction also
+     *        requires the journal to contain twice more records than the store.
+     */
+    public FileSecurityStore(String file, int compactionThreshold) {
         Validate.notEmpty(file);
+        Validate.isTrue(compactionThreshold > 0, "compaction threshold must be greater than 0");
         filename = file;
+        this.compactionThreshold = compactionThreshold;
         loadFromFile();
     }
 
@@ -59,67 +121,392 @@ public class FileSecurityStore extends InMemorySecurityStore {
 
     @Override
     public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
+        SecurityInfo previous;
+        long seq;
         writeLock.lock();
         try {
-            SecurityInfo previous = addToStore(info);
-            saveToFile();
-            return previous;
+            previous = addToStore(info);
+            seq = appendRecord(encodeAddRecord(info));
         } finally {
             writeLock.unlock();
         }
+        writeJournal(seq);
+        return previous;
     }
 
     @Override
     public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+        SecurityInfo info;
+        long seq = 0;
         writeLock.lock();
         try {
-            SecurityInfo info = super.remove(endpoint, infosAreCompromised);
+            info = super.remove(endpoint, infosAreCompromised);
             if (info != null) {
-                saveToFile();
+                seq = appendRecord(encodeRemoveRecord(endpoint));
             }
-            return info;
         } finally {
             writeLock.unlock();
         }
+        if (info != null) {
+            writeJournal(seq);
+        }
+        return info;
+    }
+
+    @Override
+    public Collection<SecurityInfo> addAll(Collection<SecurityInfo> infos) throws NonUniqueSecurityInfoException {
+        Collection<SecurityInfo> previous;
+        long seq = 0;
+        writeLock.lock();
+        try {
+            previous = super.addAll(infos);
+            for (SecurityInfo info : infos) {
+                seq = appendRecord(encodeAddRecord(info));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (seq != 0) {
+            writeJournal(seq);
+        }
+        return previous;
+    }
+
+    @Override
+    public Collection<SecurityInfo> removeAll(Collection<String> endpoints, boolean infosAreCompromised) {
+        Collection<SecurityInfo> removed;
+        long seq = 0;
+        writeLock.lock();
+        try {
+            removed = super.removeAll(endpoints, infosAreCompromised);
+            for (SecurityInfo info : removed) {
+                seq = appendRecord(encodeRemoveRecord(info.getEndpoint()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (seq != 0) {
+            writeJournal(seq);
+        }
+        return removed;
+    }
+
+    /**
+     * Close the journal file.
+     */
+    @Override
+    public void destroy() {
+        synchronized (journalLock) {
+            closeJournal();
+        }
     }
 
     protected void loadFromFile() {
         File file = new File(filename);
-        if (!file.exists()) {
+        if (!file.exists() || file.length() == 0) {
             return;
         }
 
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));) {
-            SecurityInfo[] infos = (SecurityInfo[]) in.readObject();
+        boolean corrupted = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.mark(2);
+            if (in.readShort() == JAVA_SERIALIZATION_MAGIC) {
+                in.reset();
+                loadSerializedInfos(in);
+                // convert to journal format
+                compactionNeeded = true;
+            } else {
+                in.reset();
+                if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+                    throw new IOException("Unsupported format");
+                }
+                loadJournal(in);
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            LOG.error("Could not load security infos from file {}", filename, e);
+            corrupted = true;
+        }
 
-            if (infos != null) {
-                for (SecurityInfo info : infos) {
+        if (corrupted) {
+            // never rewrite a file we can not read : keep it for manual recovery
+            File corruptFile = new File(filename + ".corrupt");
+            if (corruptFile.exists()) {
+                corruptFile = new File(filename + ".corrupt." + System.currentTimeMillis());
+            }
+            if (!file.renameTo(corruptFile)) {
+                LOG.error("Unable to move {} to {} : security infos modifications will not be persisted", filename,
+                        corruptFile);
+                persistenceDisabled = true;
+                return;
+            }
+            LOG.error("{} moved to {}, {} security infos could be loaded from it", filename, corruptFile,
+                    getAll().size());
+            compactionNeeded = true;
+        }
+
+        if (compactionNeeded) {
+            saveToFile();
+        }
+    }
+
+    private void loadSerializedInfos(DataInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream objectIn = new ObjectInputStream(in);
+        SecurityInfo[] infos = (SecurityInfo[]) objectIn.readObject();
+        if (infos != null) {
+            for (SecurityInfo info : infos) {
+                try {
                     addToStore(info);
+                } catch (NonUniqueSecurityInfoException e) {
+                    LOG.error("Could not load security info {}", info, e);
                 }
-                if (infos.length > 0) {
-                    LOG.debug("{} security infos loaded", infos.length);
+            }
+            if (infos.length > 0) {
+                LOG.debug("{} security infos loaded", infos.length);
+            }
+        }
+    }
+
+    private void loadJournal(DataInputStream in) throws IOException {
+        int records = 0;
+        while (true) {
+            int type = in.read();
+            if (type == -1)
+                break;
+            try {
+                if (type == ADD_RECORD) {
+                    SecurityInfo info = decodeSecurityInfo(in);
+                    try {
+                        addToStore(info);
+                    } catch (NonUniqueSecurityInfoException e) {
+                        LOG.error("Could not load security info {}", info, e);
+                    }
+                } else if (type == REMOVE_RECORD) {
+                    super.remove(in.readUTF(), false);
+                } else {
+                    throw new IOException("Unknown record type " + type);
                 }
+                records++;
+            } catch (EOFException e) {
+                // last record was not completely written, rewrite a clean file
+                LOG.warn("Ignoring truncated security info record at the end of {} after {} valid records", filename,
+                        records);
+                compactionNeeded = true;
+                break;
+            } catch (IOException e) {
+                throw new IOException("Invalid security info record in " + filename + " after " + records
+                        + " valid records", e);
             }
-        } catch (NonUniqueSecurityInfoException | IOException | ClassNotFoundException e) {
-            LOG.error("Could not load security infos from file", e);
         }
+        journalRecords = records;
+        LOG.debug("{} security infos loaded from {} records", getAll().size(), records);
     }
 
+    /**
+     * Rewrite the file with the current content of the store.
+     * <p>
+     * This method must not be called while holding {@link #writeLock}.
+     */
     protected void saveToFile() {
-        try {
+        synchronized (journalLock) {
+            if (persistenceDisabled) {
+                return;
+            }
+
+            // snapshot the store : pending records are included in it
+            Collection<SecurityInfo> infos;
+            long lastSeq;
+            writeLock.lock();
+            try {
+                infos = getAll();
+                synchronized (pendingRecords) {
+                    pendingRecords.clear();
+                    lastSeq = appendedSeq;
+                }
+            } finally {
+                writeLock.unlock();
+            }
+
+            closeJournal();
             File file = new File(filename);
-            if (!file.exists()) {
-                File parent = file.getParentFile();
+            File tmpFile = new File(filename + ".tmp");
+            try {
+                File parent = file.getAbsoluteFile().getParentFile();
                 if (parent != null) {
                     parent.mkdirs();
                 }
-                file.createNewFile();
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                    out.writeInt(MAGIC);
+                    out.writeByte(FORMAT_VERSION);
+                    for (SecurityInfo info : infos) {
+                        out.write(encodeAddRecord(info));
+                    }
+                }
+                if (!tmpFile.renameTo(file) && !(file.delete() && tmpFile.renameTo(file))) {
+                    throw new IOException("Unable to rename " + tmpFile + " to " + file);
+                }
+                journalRecords = infos.size();
+                compactionNeeded = false;
+            } catch (IOException e) {
+                LOG.error("Could not save security infos to file", e);
+                compactionNeeded = true;
             }
-            try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(filename));) {
-                out.writeObject(this.getAll().toArray(new SecurityInfo[0]));
+            writtenSeq = lastSeq;
+        }
+    }
+
+    private long appendRecord(byte[] record) {
+        synchronized (pendingRecords) {
+            pendingRecords.add(record);
+            return ++appendedSeq;
+        }
+    }
+
+    /*
+     * Write pending records until the given one. If another thread is already writing, records appended meanwhile are
+     * written in one batch by the next writer.
+     */
+    private void writeJournal(long seq) {
+        synchronized (journalLock) {
+            if (writtenSeq >= seq)
+                return;
+
+            if (persistenceDisabled) {
+                synchronized (pendingRecords) {
+                    pendingRecords.clear();
+                    writtenSeq = appendedSeq;
+                }
+                return;
+            }
+
+            if (!compactionNeeded) {
+                List<byte[]> records;
+                long lastSeq;
+                synchronized (pendingRecords) {
+                    records = new ArrayList<>(pendingRecords);
+                    pendingRecords.clear();
+                    lastSeq = appendedSeq;
+                }
+                try {
+                    if (journal == null) {
+                        journal = openJournal();
+                    }
+                    for (byte[] record : records) {
+                        journal.write(record);
+                    }
+                    journal.flush();
+                    journalRecords += records.size();
+                } catch (IOException e) {
+                    LOG.error("Could not write security infos to file, file will be rewritten", e);
+                    closeJournal();
+                    compactionNeeded = true;
+                }
+                writtenSeq = lastSeq;
+            }
+
+            if (compactionNeeded
+                    || (journalRecords > compactionThreshold && journalRecords > 2 * securityByEp.size())) {
+                saveToFile();
+            }
+        }
+    }
+
+    private DataOutputStream openJournal() throws IOException {
+        File file = new File(filename);
+        if (!file.exists() || file.length() == 0) {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            return out;
+        }
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOG.warn("Could not close security infos file", e);
+            }
+            journal = null;
+        }
+    }
+
+    private static byte[] encodeAddRecord(SecurityInfo info) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ADD_RECORD);
+            out.writeUTF(info.getEndpoint());
+            if (info.usePSK()) {
+                out.writeByte(PSK);
+                out.writeUTF(info.getIdentity());
+                writeBytes(out, info.getPreSharedKey());
+            } else if (info.useRPK()) {
+                out.writeByte(RPK);
+                out.writeUTF(info.getRawPublicKey().getAlgorithm());
+                writeBytes(out, info.getRawPublicKey().getEncoded());
+            } else if (info.useX509Cert()) {
+                out.writeByte(X509);
+            } else {
+                throw new IllegalArgumentException("Unsupported security info " + info);
             }
         } catch (IOException e) {
-            LOG.error("Could not save security infos to file", e);
+            throw new IllegalStateException("Unable to encode security info", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeRemoveRecord(String endpoint) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(REMOVE_RECORD);
+            out.writeUTF(endpoint);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode security info removal", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SecurityInfo decodeSecurityInfo(DataInputStream in) throws IOException {
+        String endpoint = in.readUTF();
+        byte type = in.readByte();
+        switch (type) {
+        case PSK:
+            String identity = in.readUTF();
+            return SecurityInfo.newPreSharedKeyInfo(endpoint, identity, readBytes(in));
+        case RPK:
+            String algorithm = in.readUTF();
+            byte[] encodedKey = readBytes(in);
+            try {
+                PublicKey key = KeyFactory.getInstance(algorithm).generatePublic(new X509EncodedKeySpec(encodedKey));
+                return SecurityInfo.newRawPublicKeyInfo(endpoint, key);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Invalid raw public key for " + endpoint, e);
+            }
+        case X509:
+            return SecurityInfo.newX509CertInfo(endpoint);
+        default:
+            throw new IOException("Unknown security info type " + type);
+        }
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 65536) {
+            throw new IOException("Invalid length " + length);
         }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
     }
 }
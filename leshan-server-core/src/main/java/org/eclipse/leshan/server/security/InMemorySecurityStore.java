@@ -15,32 +15,56 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.security;
 
+import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * A {@link SecurityStore} which store {@link SecurityInfo} in memory.
+ * <p>
+ * {@link SecurityInfo} are indexed by end-point, PSK identity, raw public key and X.509 common name. Lookups do not
+ * take any lock, so they do not contend with each other nor with modifications (which are serialized using
+ * {@link #writeLock}). Subclasses replacing the indexes must use maps supporting concurrent reads.
  */
-public class InMemorySecurityStore implements EditableSecurityStore {
+public class InMemorySecurityStore implements BulkEditableSecurityStore {
 
-    // lock for the two maps
+    /**
+     * @deprecated lookups do not use this lock anymore, only {@link #writeLock} is used to serialize modifications.
+     */
+    @Deprecated
     protected final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    /**
+     * @deprecated lookups do not take this lock anymore. Holding it still prevents modifications.
+     */
+    @Deprecated
     protected final Lock readLock = readWriteLock.readLock();
+    // lock used to serialize modifications of the indexes
     protected final Lock writeLock = readWriteLock.writeLock();
 
     // by client end-point
-    protected Map<String, SecurityInfo> securityByEp = new HashMap<>();
+    protected Map<String, SecurityInfo> securityByEp = new ConcurrentHashMap<>();
 
     // by PSK identity
-    protected Map<String, SecurityInfo> securityByIdentity = new HashMap<>();
+    protected Map<String, SecurityInfo> securityByIdentity = new ConcurrentHashMap<>();
+
+    // by raw public key, several end-points may share the same key (last added first)
+    private final ConcurrentMap<PublicKey, SecurityInfo[]> securityByRpk = new ConcurrentHashMap<>();
 
-    private SecurityStoreListener listener;
+    // by X.509 certificate common name
+    private final ConcurrentMap<String, SecurityInfo> securityByX509CommonName = new ConcurrentHashMap<>();
+
+    private volatile SecurityStoreListener listener;
 
     public InMemorySecurityStore() {
     }
@@ -50,12 +74,7 @@ public class InMemorySecurityStore implements EditableSecurityStore {
      */
     @Override
     public SecurityInfo getByEndpoint(String endpoint) {
-        readLock.lock();
-        try {
-            return securityByEp.get(endpoint);
-        } finally {
-            readLock.unlock();
-        }
+        return endpoint == null ? null : securityByEp.get(endpoint);
     }
 
     /**
@@ -63,60 +82,145 @@ public class InMemorySecurityStore implements EditableSecurityStore {
      */
     @Override
     public SecurityInfo getByIdentity(String identity) {
-        readLock.lock();
-        try {
-            return securityByIdentity.get(identity);
-        } finally {
-            readLock.unlock();
-        }
+        return identity == null ? null : securityByIdentity.get(identity);
+    }
+
+    /**
+     * Returns the security information for a raw public key.
+     * <p>
+     * If several end-points use the same key, the last added {@link SecurityInfo} is returned.
+     * 
+     * @param rawPublicKey the raw public key of the client
+     * @return the security information of <code>null</code> if not found.
+     */
+    public SecurityInfo getByRawPublicKey(PublicKey rawPublicKey) {
+        if (rawPublicKey == null)
+            return null;
+        SecurityInfo[] infos = securityByRpk.get(rawPublicKey);
+        return infos == null ? null : infos[0];
+    }
+
+    /**
+     * Returns the security information for a X.509 certificate subject common name.
+     * 
+     * @param commonName the common name of the client certificate subject
+     * @return the security information of <code>null</code> if not found.
+     */
+    public SecurityInfo getByX509CommonName(String commonName) {
+        return commonName == null ? null : securityByX509CommonName.get(commonName);
     }
 
     @Override
     public Collection<SecurityInfo> getAll() {
-        readLock.lock();
+        return Collections.unmodifiableCollection(new ArrayList<>(securityByEp.values()));
+    }
+
+    @Override
+    public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
+        writeLock.lock();
         try {
-            return Collections.unmodifiableCollection(new ArrayList<>(securityByEp.values()));
+            checkUniqueness(Collections.singletonMap(info.getEndpoint(), info));
+            SecurityInfo previous = put(info);
+            SecurityStoreListener listener = this.listener;
+            if (listener instanceof SecurityStoreAddListener) {
+                ((SecurityStoreAddListener) listener).securityInfoAdded(info);
+            }
+            return previous;
         } finally {
-            readLock.unlock();
+            writeLock.unlock();
         }
     }
 
     @Override
-    public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
+    public Collection<SecurityInfo> addAll(Collection<SecurityInfo> infos) throws NonUniqueSecurityInfoException {
+        Map<String, SecurityInfo> infosByEp = new LinkedHashMap<>();
+        for (SecurityInfo info : infos) {
+            infosByEp.put(info.getEndpoint(), info);
+        }
+
         writeLock.lock();
         try {
+            checkUniqueness(infosByEp);
+            List<SecurityInfo> previousInfos = new ArrayList<>();
+            for (SecurityInfo info : infosByEp.values()) {
+                SecurityInfo previous = put(info);
+                if (previous != null) {
+                    previousInfos.add(previous);
+                }
+            }
+            SecurityStoreListener listener = this.listener;
+            if (listener instanceof SecurityStoreAddListener && !infosByEp.isEmpty()) {
+                ((SecurityStoreAddListener) listener)
+                        .securityInfoAdded(infosByEp.values().toArray(new SecurityInfo[infosByEp.size()]));
+            }
+            return previousInfos;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * Check that PSK identities of the given security infos are not used by other end-points, taking into account that
+     * end-points of the batch could release their current identity.
+     */
+    private void checkUniqueness(Map<String, SecurityInfo> infosByEp) throws NonUniqueSecurityInfoException {
+        Map<String, String> endpointsByIdentity = new HashMap<>();
+        for (SecurityInfo info : infosByEp.values()) {
             String identity = info.getIdentity();
             if (identity != null) {
-                SecurityInfo infoByIdentity = securityByIdentity.get(info.getIdentity());
-                if (infoByIdentity != null && !info.getEndpoint().equals(infoByIdentity.getEndpoint())) {
-                    throw new NonUniqueSecurityInfoException("PSK Identity " + info.getIdentity() + " is already used");
+                SecurityInfo current = securityByIdentity.get(identity);
+                boolean usedByOther = current != null && !current.getEndpoint().equals(info.getEndpoint())
+                        && !infosByEp.containsKey(current.getEndpoint());
+                if (usedByOther || endpointsByIdentity.put(identity, info.getEndpoint()) != null) {
+                    throw new NonUniqueSecurityInfoException("PSK Identity " + identity + " is already used");
                 }
-
-                securityByIdentity.put(info.getIdentity(), info);
             }
+        }
+    }
 
-            SecurityInfo previous = securityByEp.put(info.getEndpoint(), info);
-            String previousIdentity = previous == null ? null : previous.getIdentity();
-            if (previousIdentity != null && !previousIdentity.equals(identity)) {
-                securityByIdentity.remove(previousIdentity);
+    private SecurityInfo put(SecurityInfo info) {
+        SecurityInfo previous = securityByEp.put(info.getEndpoint(), info);
+        if (previous != null) {
+            // remove previous identity only if it was not taken by another end-point
+            String previousIdentity = previous.getIdentity();
+            if (previousIdentity != null && !previousIdentity.equals(info.getIdentity())) {
+                removeIfSame(securityByIdentity, previousIdentity, previous);
             }
-
-            return previous;
-        } finally {
-            writeLock.unlock();
+            removeFromRpkIndex(previous);
+            if (previous.useX509Cert()) {
+                securityByX509CommonName.remove(previous.getEndpoint());
+            }
+        }
+        if (info.getIdentity() != null) {
+            securityByIdentity.put(info.getIdentity(), info);
         }
+        if (info.getRawPublicKey() != null) {
+            SecurityInfo[] others = securityByRpk.get(info.getRawPublicKey());
+            SecurityInfo[] infos;
+            if (others == null) {
+                infos = new SecurityInfo[] { info };
+            } else {
+                infos = new SecurityInfo[others.length + 1];
+                infos[0] = info;
+                System.arraycopy(others, 0, infos, 1, others.length);
+            }
+            securityByRpk.put(info.getRawPublicKey(), infos);
+        }
+        if (info.useX509Cert()) {
+            securityByX509CommonName.put(info.getEndpoint(), info);
+        }
+        return previous;
     }
 
     @Override
     public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+        if (endpoint == null)
+            return null;
         writeLock.lock();
         try {
-            SecurityInfo info = securityByEp.get(endpoint);
+            SecurityInfo info = removeFromIndexes(endpoint);
             if (info != null) {
-                if (info.getIdentity() != null) {
-                    securityByIdentity.remove(info.getIdentity());
-                }
-                securityByEp.remove(endpoint);
+                SecurityStoreListener listener = this.listener;
                 if (listener != null) {
                     listener.securityInfoRemoved(infosAreCompromised, info);
                 }
@@ -127,6 +231,72 @@ public class InMemorySecurityStore implements EditableSecurityStore {
         }
     }
 
+    @Override
+    public Collection<SecurityInfo> removeAll(Collection<String> endpoints, boolean infosAreCompromised) {
+        List<SecurityInfo> removed = new ArrayList<>();
+        writeLock.lock();
+        try {
+            for (String endpoint : endpoints) {
+                SecurityInfo info = endpoint == null ? null : removeFromIndexes(endpoint);
+                if (info != null) {
+                    removed.add(info);
+                }
+            }
+            SecurityStoreListener listener = this.listener;
+            if (listener != null && !removed.isEmpty()) {
+                listener.securityInfoRemoved(infosAreCompromised, removed.toArray(new SecurityInfo[removed.size()]));
+            }
+            return removed;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private SecurityInfo removeFromIndexes(String endpoint) {
+        SecurityInfo info = securityByEp.remove(endpoint);
+        if (info != null) {
+            if (info.getIdentity() != null) {
+                removeIfSame(securityByIdentity, info.getIdentity(), info);
+            }
+            removeFromRpkIndex(info);
+            if (info.useX509Cert()) {
+                securityByX509CommonName.remove(info.getEndpoint());
+            }
+        }
+        return info;
+    }
+
+    /*
+     * Remove the given security info from the raw public key index, keeping the other end-points sharing its key.
+     * Must be called while holding the write lock.
+     */
+    private void removeFromRpkIndex(SecurityInfo info) {
+        PublicKey key = info.getRawPublicKey();
+        if (key == null)
+            return;
+        SecurityInfo[] infos = securityByRpk.get(key);
+        if (infos == null)
+            return;
+        List<SecurityInfo> remaining = new ArrayList<>(Arrays.asList(infos));
+        if (!remaining.remove(info))
+            return;
+        if (remaining.isEmpty()) {
+            securityByRpk.remove(key);
+        } else {
+            securityByRpk.put(key, remaining.toArray(new SecurityInfo[remaining.size()]));
+        }
+    }
+
+    /*
+     * Remove the entry only if it is still bound to the given value (it may have been taken by another end-point).
+     * Must be called while holding the write lock.
+     */
+    private static void removeIfSame(Map<String, SecurityInfo> index, String key, SecurityInfo value) {
+        if (index.get(key) == value) {
+            index.remove(key);
+        }
+    }
+
     @Override
     public void setListener(SecurityStoreListener listener) {
         this.listener = listener;
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+/**
+ * A {@link SecurityStoreListener} which is also notified when {@link SecurityInfo} are added.
+ * <p>
+ * Stores notify additions only to listeners implementing this interface.
+ */
+public interface SecurityStoreAddListener extends SecurityStoreListener {
+
+    /**
+     * Called when {@link SecurityInfo} are added or replaced.
+     * 
+     * @param infos Array of added {@link SecurityInfo}
+     */
+    void securityInfoAdded(SecurityInfo... infos);
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Bulk operations on any {@link EditableSecurityStore}, using {@link BulkEditableSecurityStore} when available.
+ */
+public class SecurityStoreUtil {
+
+    private SecurityStoreUtil() {
+    }
+
+    /**
+     * Registers security information for several client end-points.
+     * <p>
+     * If the store is not a {@link BulkEditableSecurityStore}, {@link SecurityInfo} are added one by one, so
+     * {@link SecurityInfo} added before a {@link NonUniqueSecurityInfoException} is raised are kept.
+     * 
+     * @see BulkEditableSecurityStore#addAll(Collection)
+     */
+    public static Collection<SecurityInfo> addAll(EditableSecurityStore store, Collection<SecurityInfo> infos)
+            throws NonUniqueSecurityInfoException {
+        if (store instanceof BulkEditableSecurityStore) {
+            return ((BulkEditableSecurityStore) store).addAll(infos);
+        }
+        List<SecurityInfo> previousInfos = new ArrayList<>();
+        for (SecurityInfo info : infos) {
+            SecurityInfo previous = store.add(info);
+            if (previous != null) {
+                previousInfos.add(previous);
+            }
+        }
+        return previousInfos;
+    }
+
+    /**
+     * Removes the security information for several end-points.
+     * 
+     * @see BulkEditableSecurityStore#removeAll(Collection, boolean)
+     */
+    public static Collection<SecurityInfo> removeAll(EditableSecurityStore store, Collection<String> endpoints,
+            boolean infosAreCompromised) {
+        if (store instanceof BulkEditableSecurityStore) {
+            return ((BulkEditableSecurityStore) store).removeAll(endpoints, infosAreCompromised);
+        }
+        List<SecurityInfo> removed = new ArrayList<>();
+        for (String endpoint : endpoints) {
+            SecurityInfo info = store.remove(endpoint, infosAreCompromised);
+            if (info != null) {
+                removed.add(info);
+            }
+        }
+        return removed;
+    }
+}
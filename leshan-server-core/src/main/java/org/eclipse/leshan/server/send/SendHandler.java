@@ -24,6 +24,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimeSeries;
 import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.response.SendableResponse;
@@ -34,9 +35,10 @@ import org.eclipse.leshan.server.registration.Registration;
  * 
  * @see SendRequest
  */
-public class SendHandler implements SendService {
+public class SendHandler implements TimeSeriesSendService {
 
     private final List<SendListener> listeners = new CopyOnWriteArrayList<>();;
+    private final List<TimeSeriesSendListener> timeSeriesListeners = new CopyOnWriteArrayList<>();
 
     @Override
     public void addListener(SendListener listener) {
@@ -48,11 +50,57 @@ public class SendHandler implements SendService {
         listeners.remove(listener);
     }
 
+    @Override
+    public void addTimeSeriesListener(TimeSeriesSendListener listener) {
+        timeSeriesListeners.add(listener);
+    }
+
+    @Override
+    public void removeTimeSeriesListener(TimeSeriesSendListener listener) {
+        timeSeriesListeners.remove(listener);
+    }
+
+    /**
+     * @return <code>true</code> if at least one {@link SendListener} is registered, meaning that data must be decoded
+     *         as {@link LwM2mNode}.
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    /**
+     * @return <code>true</code> if at least one {@link TimeSeriesSendListener} is registered, meaning that data must be
+     *         decoded as {@link TimeSeries}.
+     */
+    public boolean hasTimeSeriesListeners() {
+        return !timeSeriesListeners.isEmpty();
+    }
+
     public SendableResponse<SendResponse> handleSend(final Registration registration, final SendRequest request) {
+        return handleSend(registration, request, null);
+    }
+
+    /**
+     * Handle data received with a "Send" request.
+     * 
+     * @param registration Registration of the client which send the data.
+     * @param request the request decoded as {@link LwM2mNode}, can be <code>null</code> if there is no
+     *        {@link SendListener}.
+     * @param timeSeries the data decoded as {@link TimeSeries}, can be <code>null</code> if there is no
+     *        {@link TimeSeriesSendListener}.
+     * @return the response to send.
+     */
+    public SendableResponse<SendResponse> handleSend(final Registration registration, final SendRequest request,
+            final Map<LwM2mPath, TimeSeries> timeSeries) {
         SendableResponse<SendResponse> response = new SendableResponse<>(SendResponse.success(), new Runnable() {
             @Override
             public void run() {
-                fireDataReceived(registration, request.getNodes(), request);
+                if (request != null) {
+                    fireDataReceived(registration, request.getNodes(), request);
+                }
+                if (timeSeries != null) {
+                    fireTimeSeriesReceived(registration, timeSeries);
+                }
             }
         });
         return response;
@@ -68,4 +116,11 @@ public class SendHandler implements SendService {
             listener.dataReceived(registration, Collections.unmodifiableMap(nodes), request);
         }
     }
+
+    protected void fireTimeSeriesReceived(Registration registration, Map<LwM2mPath, TimeSeries> timeSeries) {
+        Map<LwM2mPath, TimeSeries> data = Collections.unmodifiableMap(timeSeries);
+        for (TimeSeriesSendListener listener : timeSeriesListeners) {
+            listener.timeSeriesReceived(registration, data);
+        }
+    }
 }
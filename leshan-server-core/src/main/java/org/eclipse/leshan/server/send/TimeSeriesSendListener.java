@@ -0,0 +1,42 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.send;
+
+import java.util.Map;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimeSeries;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Listener used to be aware of new data sent by LWM2M client with "Send" Request, as {@link TimeSeries}.
+ * <p>
+ * Unlike {@link SendListener}, all values received for a same path are available (e.g. historical data batched by the
+ * device) and values are stored in primitive arrays. This is intended to ingest data in time-series databases.
+ * 
+ * @see SendRequest
+ */
+public interface TimeSeriesSendListener {
+
+    /**
+     * Called when new data are received from a LWM2M client via a {@link SendRequest}
+     * 
+     * @param registration Registration of the client which send the data.
+     * @param data The data received by resource or resource instance path
+     */
+    void timeSeriesReceived(Registration registration, Map<LwM2mPath, TimeSeries> data);
+}
@@ -0,0 +1,30 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.send;
+
+import org.eclipse.leshan.core.node.TimeSeries;
+
+/**
+ * A {@link SendService} which is also able to notify data received with "Send Operation" as {@link TimeSeries}.
+ * 
+ * @see TimeSeriesSendListener
+ */
+public interface TimeSeriesSendService extends SendService {
+
+    void addTimeSeriesListener(TimeSeriesSendListener listener);
+
+    void removeTimeSeriesListener(TimeSeriesSendListener listener);
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.model;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Inet4Address;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.DDFFileParser;
+import org.eclipse.leshan.core.model.DefaultDDFFileValidatorFactory;
+import org.eclipse.leshan.core.model.DefaultObjectModelValidator;
+import org.eclipse.leshan.core.model.InvalidDDFFileException;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReloadableModelProviderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Registration registration = new Registration.Builder("ep", "ep",
+            Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683))
+                    .objectLinks(Link.parse("</3/0>,</4/0>".getBytes())).build();
+
+    private File modelsDir;
+    private CountingParser parser;
+    private ReloadableModelProvider provider;
+
+    @Before
+    public void setup() throws IOException {
+        modelsDir = folder.newFolder("models");
+        copyResource("/models/3-1_0.xml", new File(modelsDir, "3-1_0.xml"));
+        parser = new CountingParser();
+        provider = new ReloadableModelProvider(null, Arrays.asList(modelsDir), parser,
+                new DefaultObjectModelValidator(), Executors.newSingleThreadScheduledExecutor(), 1000);
+    }
+
+    @After
+    public void destroy() {
+        provider.destroy();
+    }
+
+    @Test
+    public void only_modified_files_are_parsed() throws IOException {
+        LwM2mModel model = provider.getObjectModel(registration);
+        assertNotNull(model.getObjectModel(3));
+        assertNull(model.getObjectModel(4));
+        assertEquals(1, parser.count);
+        assertEquals(1, provider.getReloadCount());
+
+        // nothing changed
+        assertFalse(provider.reload());
+        assertEquals(1, parser.count);
+
+        // new file
+        copyResource("/models/4-1_0.xml", new File(modelsDir, "4-1_0.xml"));
+        assertTrue(provider.reload());
+        assertEquals(2, parser.count);
+        assertNotNull(provider.getObjectModel(registration).getObjectModel(4));
+        // model got before reload is not modified
+        assertNull(model.getObjectModel(4));
+
+        // removed file
+        assertTrue(new File(modelsDir, "3-1_0.xml").delete());
+        assertTrue(provider.reload());
+        assertEquals(2, parser.count);
+        assertNull(provider.getObjectModel(registration).getObjectModel(3));
+        assertNotNull(provider.getObjectModel(registration).getObjectModel(4));
+        assertEquals(3, provider.getReloadCount());
+    }
+
+    @Test
+    public void invalid_file_keeps_previous_models() throws IOException {
+        File ddfFile = new File(modelsDir, "3-1_0.xml");
+        try (OutputStream out = new FileOutputStream(ddfFile)) {
+            out.write("<LWM2M>".getBytes());
+        }
+
+        assertFalse(provider.reload());
+        assertEquals(2, parser.count);
+        assertNotNull(provider.getObjectModel(registration).getObjectModel(3));
+
+        // invalid file is not parsed again until it is modified
+        assertFalse(provider.reload());
+        assertEquals(2, parser.count);
+    }
+
+    private void copyResource(String resource, File destination) throws IOException {
+        try (InputStream in = ObjectLoader.class.getResourceAsStream(resource);
+                OutputStream out = new FileOutputStream(destination)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private static class CountingParser extends DDFFileParser {
+        int count = 0;
+
+        CountingParser() {
+            super(new DefaultDDFFileValidatorFactory());
+        }
+
+        @Override
+        public List<ObjectModel> parse(InputStream inputStream, String streamName)
+                throws InvalidDDFFileException, IOException {
+            count++;
+            return super.parse(inputStream, streamName);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.model;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.util.Arrays;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.LwM2mModelRepository;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.junit.Test;
+
+public class VersionedModelProviderTest {
+
+    private final VersionedModelProvider provider = new VersionedModelProvider(
+            Arrays.asList(givenObjectModel(3, "1.0"), givenObjectModel(3, "1.1"), givenObjectModel(3303, "1.0")));
+
+    @Test
+    public void registrations_with_same_supported_objects_share_model() {
+        Registration reg1 = givenRegistration("ep1", "</3/0>;ver=1.1,</3303/0>");
+        // do not share object links to check models are shared anyway
+        Registration reg2 = new Registration.Builder("ep2", "ep2",
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683))
+                        .objectLinks(Link.parse("</3/0>;ver=1.1,</3303/0>".getBytes())).objectLinksCache(null)
+                        .build();
+
+        LwM2mModel model = provider.getObjectModel(reg1);
+        assertSame(model, provider.getObjectModel(reg2));
+        assertEquals("1.1", model.getObjectModel(3).version);
+        assertEquals(3303, (int) model.getObjectModel(3303).id);
+        assertNull(model.getObjectModel(4));
+        assertEquals(2, model.getObjectModels().size());
+
+        assertEquals(1, provider.getCacheMissCount());
+        assertEquals(1, provider.getCacheHitCount());
+        assertEquals(0.5, provider.getCacheHitRate(), 0);
+    }
+
+    @Test
+    public void updated_registration_gets_model_of_new_objects() {
+        Registration registration = givenRegistration("ep", "</3/0>");
+        assertEquals("1.0", provider.getObjectModel(registration).getObjectModel(3).version);
+
+        Registration updated = new RegistrationUpdate(registration.getId(), registration.getIdentity(), null, null,
+                null, Link.parse("</3/0>;ver=\"1.1\"".getBytes()), null).update(registration);
+        assertEquals("1.1", provider.getObjectModel(updated).getObjectModel(3).version);
+        // previous registration still uses its own model
+        assertEquals("1.0", provider.getObjectModel(registration).getObjectModel(3).version);
+    }
+
+    @Test
+    public void least_recently_used_model_is_evicted_when_cache_is_full() {
+        VersionedModelProvider provider = new VersionedModelProvider(new LwM2mModelRepository(
+                Arrays.asList(givenObjectModel(3, "1.0"), givenObjectModel(3, "1.1"), givenObjectModel(3303, "1.0"))),
+                2);
+        Registration reg1 = givenRegistration("ep1", "</3/0>");
+        Registration reg2 = givenRegistration("ep2", "</3303/0>");
+        Registration reg3 = givenRegistration("ep3", "</3/0>;ver=1.1");
+
+        LwM2mModel model1 = provider.getObjectModel(reg1);
+        LwM2mModel model2 = provider.getObjectModel(reg2);
+        assertSame(model1, provider.getObjectModel(reg1));
+        provider.getObjectModel(reg3);
+
+        // only the least recently used model is evicted
+        assertSame(model1, provider.getObjectModel(reg1));
+        assertNotSame(model2, provider.getObjectModel(reg2));
+        assertEquals(4, provider.getCacheMissCount());
+    }
+
+    private static Registration givenRegistration(String endpoint, String objectLinks) {
+        return new Registration.Builder(endpoint, endpoint,
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683))
+                        .objectLinks(Link.parse(objectLinks.getBytes())).build();
+    }
+
+    private static ObjectModel givenObjectModel(int id, String version) {
+        return new ObjectModel(id, "object" + id, "", version, true, false);
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.request.Identity;
+import org.junit.Test;
+
+public class ObjectLinksCacheTest {
+
+    @Test
+    public void registrations_with_identical_links_share_them() {
+        ObjectLinksCache cache = new ObjectLinksCache();
+        Registration reg1 = givenRegistration("ep1", cache, "</1/0>,</3/0>;ver=\"1.1\"");
+        Registration reg2 = givenRegistration("ep2", cache, "</1/0>,</3/0>;ver=\"1.1\"");
+
+        assertSame(reg1.getObjectLinks()[0], reg2.getObjectLinks()[0]);
+        assertSame(reg1.getSupportedObject(), reg2.getSupportedObject());
+        assertEquals("1.1", reg1.getSupportedObject().get(3));
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        Registration reg3 = givenRegistration("ep3", cache, "</1/0>");
+        assertNotSame(reg1.getObjectLinks()[0], reg3.getObjectLinks()[0]);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void shared_links_do_not_depend_on_given_array() {
+        ObjectLinksCache cache = new ObjectLinksCache();
+        Link[] links = Link.parse("</1/0>,</3/0>".getBytes());
+        Link[] shared = cache.get(links).getObjectLinks();
+        links[0] = new Link("/4/0");
+        assertEquals("/1/0", shared[0].getUrl());
+    }
+
+    @Test
+    public void links_are_not_shared_when_cache_is_full() {
+        ObjectLinksCache cache = new ObjectLinksCache(1);
+        cache.get(Link.parse("</1/0>".getBytes()));
+        Link[] links = Link.parse("</3/0>".getBytes());
+        assertNotSame(cache.get(links).getObjectLinks(), cache.get(links).getObjectLinks());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void sharing_survives_gc_while_registrations_are_alive() {
+        ObjectLinksCache cache = new ObjectLinksCache();
+        Registration reg1 = givenRegistration("ep1", cache, "</1/0>,</3/0>");
+
+        // nothing but the registration references the shared links
+        System.gc();
+        System.gc();
+
+        Registration reg2 = givenRegistration("ep2", cache, "</1/0>,</3/0>");
+        assertSame(reg1.getObjectLinks(), reg2.getObjectLinks());
+        assertSame(reg1.getSupportedObject(), reg2.getSupportedObject());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void unused_links_are_evicted() {
+        ObjectLinksCache cache = new ObjectLinksCache(1);
+        givenRegistration("ep1", cache, "</1/0>");
+        assertEquals(1, cache.size());
+
+        // links of the registration are collected
+        cache.clearReferences();
+        assertEquals(0, cache.size());
+
+        // so there is room for new links
+        Registration reg2 = givenRegistration("ep2", cache, "</3/0>");
+        Registration reg3 = givenRegistration("ep3", cache, "</3/0>");
+        assertSame(reg2.getObjectLinks(), reg3.getObjectLinks());
+    }
+
+    private Registration givenRegistration(String endpoint, ObjectLinksCache cache, String objectLinks) {
+        return new Registration.Builder(endpoint, endpoint,
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683))
+                        .objectLinks(Link.parse(objectLinks.getBytes())).objectLinksCache(cache).build();
+    }
+}
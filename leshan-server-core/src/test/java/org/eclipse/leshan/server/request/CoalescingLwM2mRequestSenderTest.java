@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class CoalescingLwM2mRequestSenderTest {
+
+    private final Registration registration = new Registration.Builder("id", "urn:client",
+            Identity.unsecure(Inet4Address.getLoopbackAddress(), 10000)).build();
+    private final Registration otherRegistration = new Registration.Builder("id2", "urn:client2",
+            Identity.unsecure(Inet4Address.getLoopbackAddress(), 10001)).build();
+
+    @Test
+    public void identical_requests_are_coalesced() {
+        FakeSender sender = new FakeSender();
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender);
+
+        Collector<ReadResponse> collector = new Collector<>();
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        // different path or registration are not coalesced
+        coalescing.send(registration, new ReadRequest(3, 0, 2), null, 1000, collector, collector);
+        coalescing.send(otherRegistration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+
+        assertEquals(3, sender.pending.size());
+        assertEquals(1, coalescing.getCoalescedCount());
+
+        ReadResponse response = ReadResponse.success(LwM2mSingleResource.newStringResource(1, "model"));
+        sender.respondToFirst(response);
+        assertEquals(2, collector.responses.size());
+        assertSame(response, collector.responses.get(0));
+        assertSame(response, collector.responses.get(1));
+
+        // once completed, a new request is sent
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        assertEquals(3, sender.pending.size());
+    }
+
+    @Test
+    public void errors_are_propagated_to_all_coalesced_requests() {
+        FakeSender sender = new FakeSender();
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender);
+
+        Collector<ReadResponse> collector = new Collector<>();
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+
+        sender.failFirst(new RuntimeException("failed"));
+        assertEquals(2, collector.errors.size());
+        assertTrue(collector.responses.isEmpty());
+    }
+
+    @Test
+    public void synchronous_failure_is_only_raised_to_caller() {
+        FakeSender sender = new FakeSender();
+        sender.sleeping = true;
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender);
+
+        Collector<ReadResponse> collector = new Collector<>();
+        try {
+            coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+            fail("exception expected");
+        } catch (ClientSleepingException e) {
+            // expected
+        }
+        assertTrue(collector.errors.isEmpty());
+
+        // exchange was removed
+        sender.sleeping = false;
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        assertEquals(1, sender.pending.size());
+    }
+
+    @Test
+    public void successful_responses_are_cached_until_write() {
+        FakeSender sender = new FakeSender();
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender, 60000);
+
+        Collector<ReadResponse> collector = new Collector<>();
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        sender.respondToFirst(ReadResponse.success(LwM2mSingleResource.newStringResource(1, "model")));
+
+        // response is served from cache
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        assertTrue(sender.pending.isEmpty());
+        assertEquals(2, collector.responses.size());
+        assertEquals(1, coalescing.getCacheHitCount());
+
+        // a write invalidates the cache
+        Collector<WriteResponse> writeCollector = new Collector<>();
+        coalescing.send(registration, new WriteRequest(3, 0, 14, "+02"), null, 1000, writeCollector, writeCollector);
+        sender.respondToFirst(WriteResponse.success());
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        assertEquals(1, sender.pending.size());
+    }
+
+    @Test
+    public void read_response_is_not_cached_if_write_is_sent_while_in_flight() {
+        FakeSender sender = new FakeSender();
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender, 60000);
+
+        // read is sent, then a write while the read is in flight
+        Collector<ReadResponse> collector = new Collector<>();
+        coalescing.send(registration, new ReadRequest(3, 0, 14), null, 1000, collector, collector);
+        Collector<WriteResponse> writeCollector = new Collector<>();
+        coalescing.send(registration, new WriteRequest(3, 0, 14, "+02"), null, 1000, writeCollector, writeCollector);
+
+        // read completes with the value before the write
+        sender.respondToFirst(ReadResponse.success(LwM2mSingleResource.newStringResource(14, "+01")));
+        sender.respondToFirst(WriteResponse.success());
+        assertEquals(1, collector.responses.size());
+
+        // stale value must not be served from cache
+        coalescing.send(registration, new ReadRequest(3, 0, 14), null, 1000, collector, collector);
+        assertEquals(1, sender.pending.size());
+        assertEquals(0, coalescing.getCacheHitCount());
+    }
+
+    @Test
+    public void error_responses_are_not_cached() {
+        FakeSender sender = new FakeSender();
+        CoalescingLwM2mRequestSender coalescing = new CoalescingLwM2mRequestSender(sender, 60000);
+
+        Collector<ReadResponse> collector = new Collector<>();
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        sender.respondToFirst(ReadResponse.notFound());
+
+        coalescing.send(registration, new ReadRequest(3, 0, 1), null, 1000, collector, collector);
+        assertEquals(1, sender.pending.size());
+        assertEquals(0, coalescing.getCacheHitCount());
+    }
+
+    private static class Collector<T extends LwM2mResponse> implements ResponseCallback<T>, ErrorCallback {
+        List<T> responses = new ArrayList<>();
+        List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onResponse(T response) {
+            responses.add(response);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+    }
+
+    private static class Pending {
+        ResponseCallback<LwM2mResponse> responseCallback;
+        ErrorCallback errorCallback;
+    }
+
+    private static class FakeSender implements LwM2mRequestSender {
+        LinkedList<Pending> pending = new LinkedList<>();
+        boolean sleeping = false;
+
+        @Override
+        public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs) throws InterruptedException {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+                ErrorCallback errorCallback) {
+            if (sleeping) {
+                throw new ClientSleepingException("sleeping");
+            }
+            Pending p = new Pending();
+            p.responseCallback = (ResponseCallback<LwM2mResponse>) responseCallback;
+            p.errorCallback = errorCallback;
+            pending.add(p);
+        }
+
+        void respondToFirst(LwM2mResponse response) {
+            pending.removeFirst().responseCallback.onResponse(response);
+        }
+
+        void failFirst(Exception e) {
+            pending.removeFirst().errorCallback.onError(e);
+        }
+
+        @Override
+        public void cancelOngoingRequests(Registration registration) {
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.net.Inet4Address;
+import java.util.Set;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mNodeEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.WriteRequest.Mode;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.server.model.LwM2mModelProvider;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class ContentFormatNegotiatorTest {
+
+    private final LwM2mModel model = new StaticModel(ObjectLoader.loadDefault());
+    private final ContentFormatNegotiator negotiator = new ContentFormatNegotiator(new DefaultLwM2mNodeEncoder(),
+            new LwM2mModelProvider() {
+                @Override
+                public LwM2mModel getObjectModel(Registration registration) {
+                    return model;
+                }
+            });
+
+    @Test
+    public void supported_formats_depend_on_version_without_ct_attribute() {
+        Set<ContentFormat> v10 = negotiator.getSupportedContentFormats(givenRegistration("1.0"));
+        assertTrue(v10.contains(ContentFormat.TLV));
+        assertTrue(v10.contains(ContentFormat.TEXT));
+        assertFalse(v10.contains(ContentFormat.CBOR));
+
+        // only plain text and opaque are mandatory for all LWM2M 1.1 clients
+        Set<ContentFormat> v11 = negotiator.getSupportedContentFormats(givenRegistration("1.1"));
+        assertTrue(v11.contains(ContentFormat.TEXT));
+        assertFalse(v11.contains(ContentFormat.CBOR));
+        assertFalse(v11.contains(ContentFormat.TLV));
+        assertFalse(v11.contains(ContentFormat.SENML_CBOR));
+    }
+
+    @Test
+    public void requested_format_is_kept_if_no_supported_format_can_be_used() {
+        ContentFormat format = negotiator.negotiate(givenRegistration("1.1"), new LwM2mPath(3, 0),
+                new WriteRequest(Mode.UPDATE, 3, 0, LwM2mSingleResource.newStringResource(14, "+02")).getNode(),
+                ContentFormat.TLV);
+        assertEquals(ContentFormat.TLV, format);
+        assertEquals(0, negotiator.getChangedFormatCount());
+    }
+
+    @Test
+    public void supported_formats_are_extracted_from_ct_attribute() {
+        Set<ContentFormat> formats = negotiator
+                .getSupportedContentFormats(givenRegistration("1.1", new Link("/", "rt", "\"oma.lwm2m\"", "ct",
+                        "\"60 110\""), new Link("/3/0")));
+        assertTrue(formats.contains(ContentFormat.CBOR));
+        assertTrue(formats.contains(ContentFormat.SENML_JSON));
+        assertTrue(formats.contains(ContentFormat.TEXT));
+        assertFalse(formats.contains(ContentFormat.TLV));
+    }
+
+    @Test
+    public void smallest_supported_format_is_chosen() {
+        // "300" in plain text is smaller than TLV
+        ContentFormat format = negotiator.negotiate(givenRegistration("1.0"), new LwM2mPath(1, 0, 1),
+                LwM2mSingleResource.newIntegerResource(1, 300), ContentFormat.TLV);
+        assertEquals(ContentFormat.TEXT, format);
+        assertEquals(1, negotiator.getNegotiationCount());
+        assertEquals(1, negotiator.getChangedFormatCount());
+        assertEquals(1, negotiator.getBytesSaved());
+    }
+
+    @Test
+    public void unsupported_requested_format_is_replaced() {
+        Registration registration = givenRegistration("1.1", new Link("/", "ct", "110"));
+        ContentFormat format = negotiator.negotiate(registration, new LwM2mPath(3, 0),
+                new WriteRequest(Mode.UPDATE, 3, 0, LwM2mSingleResource.newStringResource(14, "+02")).getNode(),
+                ContentFormat.TLV);
+        assertEquals(ContentFormat.SENML_JSON, format);
+        // SenML JSON is bigger than TLV : nothing saved
+        assertEquals(0, negotiator.getBytesSaved());
+    }
+
+    @Test
+    public void chosen_format_is_cached_by_registration_and_path() {
+        final int[] encodings = new int[1];
+        ContentFormatNegotiator negotiator = new ContentFormatNegotiator(new DefaultLwM2mNodeEncoder() {
+            @Override
+            public void encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model,
+                    OutputStream out) throws CodecException {
+                encodings[0]++;
+                super.encode(node, format, path, model, out);
+            }
+        }, new LwM2mModelProvider() {
+            @Override
+            public LwM2mModel getObjectModel(Registration registration) {
+                return model;
+            }
+        });
+        Registration registration = givenRegistration("1.0");
+        LwM2mPath path = new LwM2mPath(1, 0, 1);
+
+        assertEquals(ContentFormat.TEXT,
+                negotiator.negotiate(registration, path, LwM2mSingleResource.newIntegerResource(1, 300), null));
+        int encodingsForOneNegotiation = encodings[0];
+        assertTrue(encodingsForOneNegotiation > 1);
+
+        // same path : cached
+        assertEquals(ContentFormat.TEXT,
+                negotiator.negotiate(registration, path, LwM2mSingleResource.newIntegerResource(1, 301), null));
+        assertEquals(encodingsForOneNegotiation, encodings[0]);
+        assertEquals(2, negotiator.getChangedFormatCount());
+
+        // other path or updated registration : negotiated again
+        negotiator.negotiate(registration, new LwM2mPath(1, 0, 2), LwM2mSingleResource.newIntegerResource(2, 1),
+                null);
+        assertEquals(2 * encodingsForOneNegotiation, encodings[0]);
+        negotiator.negotiate(givenRegistration("1.0"), path, LwM2mSingleResource.newIntegerResource(1, 300), null);
+        assertEquals(3 * encodingsForOneNegotiation, encodings[0]);
+    }
+
+    @Test
+    public void sender_rewrites_write_requests() throws InterruptedException {
+        final DownlinkRequest<?>[] sent = new DownlinkRequest<?>[1];
+        LwM2mRequestSender delegate = new LwM2mRequestSender() {
+            @Override
+            public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+                    LowerLayerConfig lowerLayerConfig, long timeoutInMs) {
+                sent[0] = request;
+                return null;
+            }
+
+            @Override
+            public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                    LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+                    ErrorCallback errorCallback) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void cancelOngoingRequests(Registration registration) {
+            }
+        };
+        NegotiatingLwM2mRequestSender sender = new NegotiatingLwM2mRequestSender(delegate, negotiator);
+
+        WriteRequest request = new WriteRequest(1, 0, 1, 300l);
+        WriteResponse response = sender.send(givenRegistration("1.0"), request, null, 1000);
+        assertNull(response);
+
+        WriteRequest sentRequest = (WriteRequest) sent[0];
+        assertEquals(ContentFormat.TEXT, sentRequest.getContentFormat());
+        assertTrue(sentRequest.isReplaceRequest());
+        assertEquals(request.getPath(), sentRequest.getPath());
+        assertEquals((LwM2mResource) request.getNode(), sentRequest.getNode());
+    }
+
+    private Registration givenRegistration(String version, Link... objectLinks) {
+        return new Registration.Builder("id", "urn:client", Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683))
+                .lwM2mVersion(version).objectLinks(objectLinks).build();
+    }
+}
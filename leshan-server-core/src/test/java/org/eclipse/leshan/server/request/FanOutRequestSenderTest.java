@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.request;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mNodeEncoder;
+import org.eclipse.leshan.core.node.codec.SharedNodeEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class FanOutRequestSenderTest {
+
+    @Test
+    public void window_limits_requests_in_flight() throws InterruptedException {
+        FakeSender sender = new FakeSender();
+        FanOutRequestSender fanOut = new FanOutRequestSender(sender, null);
+
+        List<Registration> registrations = givenRegistrations(10, 5);
+        FanOutTask<WriteResponse> task = fanOut.send(registrations.iterator(), new WriteRequest(3, 0, 14, "+02"), null,
+                1000, 3, 2);
+
+        // only windows size requests are sent
+        assertEquals(5, sender.pending.size());
+        assertEquals(5, task.getInFlightCount());
+
+        // complete all requests one by one
+        while (!sender.pending.isEmpty()) {
+            sender.respondToFirst(WriteResponse.success());
+            assertTrue(task.getInFlightCount() <= 5);
+        }
+
+        assertTrue(task.waitForCompletion(1000));
+        assertTrue(task.isDone());
+        assertEquals(15, task.getDispatchedCount());
+        assertEquals(15, task.getSuccessCount());
+        assertEquals(3, sender.maxUnsecuredInFlight);
+        assertEquals(2, sender.maxSecuredInFlight);
+
+        // all results are available
+        int count = 0;
+        for (Iterator<FanOutResult<WriteResponse>> it = task.results(); it.hasNext();) {
+            assertTrue(it.next().isSuccess());
+            count++;
+        }
+        assertEquals(15, count);
+    }
+
+    @Test
+    public void synchronous_failures_are_reported_as_results() throws InterruptedException {
+        FakeSender sender = new FakeSender();
+        sender.sleeping = true;
+        FanOutRequestSender fanOut = new FanOutRequestSender(sender, null);
+
+        FanOutTask<WriteResponse> task = fanOut.send(givenRegistrations(1000, 0).iterator(),
+                new WriteRequest(3, 0, 14, "+02"), null, 1000, 1, 1);
+
+        assertTrue(task.isDone());
+        assertEquals(1000, task.getFailureCount());
+        FanOutResult<WriteResponse> first = task.results().next();
+        assertTrue(first.getException() instanceof ClientSleepingException);
+    }
+
+    @Test
+    public void cancel_stops_remaining_requests() throws InterruptedException {
+        FakeSender sender = new FakeSender();
+        FanOutRequestSender fanOut = new FanOutRequestSender(sender, null);
+
+        FanOutTask<WriteResponse> task = fanOut.send(givenRegistrations(10, 0).iterator(),
+                new WriteRequest(3, 0, 14, "+02"), null, 1000, 2, 2);
+        task.cancel();
+        assertFalse(task.isDone());
+
+        sender.respondToFirst(WriteResponse.badRequest(null));
+        sender.respondToFirst(WriteResponse.success());
+
+        assertTrue(task.isDone());
+        assertEquals(2, task.getDispatchedCount());
+        assertEquals(1, task.getErrorResponseCount());
+        assertEquals(1, task.getSuccessCount());
+    }
+
+    @Test
+    public void payload_is_encoded_once() throws InterruptedException {
+        CountingEncoder countingEncoder = new CountingEncoder();
+        final SharedNodeEncoder encoder = new SharedNodeEncoder(countingEncoder);
+        final LwM2mModel model = new StaticModel();
+
+        // a sender which encodes payload as the real one
+        FakeSender sender = new FakeSender() {
+            @Override
+            public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                    LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+                    ErrorCallback errorCallback) {
+                WriteRequest writeRequest = (WriteRequest) request;
+                encoder.encode(writeRequest.getNode(), writeRequest.getContentFormat(), writeRequest.getPath(), model);
+                super.send(destination, request, lowerLayerConfig, timeoutInMs, responseCallback, errorCallback);
+            }
+        };
+        FanOutRequestSender fanOut = new FanOutRequestSender(sender, encoder);
+
+        WriteRequest request = new WriteRequest(3, 0, 14, "+02");
+        FanOutTask<WriteResponse> task = fanOut.send(givenRegistrations(50, 0).iterator(), request, null, 1000);
+        while (!sender.pending.isEmpty()) {
+            sender.respondToFirst(WriteResponse.success());
+        }
+        assertTrue(task.isDone());
+        assertEquals(1, countingEncoder.count);
+
+        // once task is done, node is not shared anymore
+        encoder.encode(request.getNode(), request.getContentFormat(), request.getPath(), model);
+        assertEquals(2, countingEncoder.count);
+    }
+
+    private List<Registration> givenRegistrations(int unsecured, int secured) {
+        // interleave unsecured and secured registrations
+        List<Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < Math.max(unsecured, secured); i++) {
+            if (i < unsecured) {
+                registrations.add(new Registration.Builder("id" + i, "urn:client:" + i,
+                        Identity.unsecure(Inet4Address.getLoopbackAddress(), 10000 + i)).build());
+            }
+            if (i < secured) {
+                registrations.add(new Registration.Builder("sid" + i, "urn:secured:" + i,
+                        Identity.psk(Inet4Address.getLoopbackAddress(), 20000 + i, "psk" + i)).build());
+            }
+        }
+        return registrations;
+    }
+
+    private static class Pending {
+        Registration registration;
+        ResponseCallback<LwM2mResponse> responseCallback;
+    }
+
+    private static class FakeSender implements LwM2mRequestSender {
+        LinkedList<Pending> pending = new LinkedList<>();
+        boolean sleeping = false;
+        int maxUnsecuredInFlight = 0;
+        int maxSecuredInFlight = 0;
+
+        @Override
+        public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs) throws InterruptedException {
+            throw new UnsupportedOperationException();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeoutInMs, ResponseCallback<T> responseCallback,
+                ErrorCallback errorCallback) {
+            if (sleeping) {
+                throw new ClientSleepingException("sleeping");
+            }
+            Pending p = new Pending();
+            p.registration = destination;
+            p.responseCallback = (ResponseCallback<LwM2mResponse>) responseCallback;
+            pending.add(p);
+
+            int unsecured = 0;
+            int secured = 0;
+            for (Pending inFlight : pending) {
+                if (inFlight.registration.getIdentity().isSecure())
+                    secured++;
+                else
+                    unsecured++;
+            }
+            maxUnsecuredInFlight = Math.max(maxUnsecuredInFlight, unsecured);
+            maxSecuredInFlight = Math.max(maxSecuredInFlight, secured);
+        }
+
+        void respondToFirst(LwM2mResponse response) {
+            pending.removeFirst().responseCallback.onResponse(response);
+        }
+
+        @Override
+        public void cancelOngoingRequests(Registration registration) {
+        }
+    }
+
+    private static class CountingEncoder implements LwM2mNodeEncoder {
+        int count = 0;
+
+        @Override
+        public byte[] encode(LwM2mNode node, ContentFormat format, LwM2mPath path, LwM2mModel model)
+                throws CodecException {
+            count++;
+            return new byte[] { 1 };
+        }
+
+        @Override
+        public byte[] encodeNodes(Map<LwM2mPath, LwM2mNode> nodes, ContentFormat format, LwM2mModel model)
+                throws CodecException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] encodeTimestampedData(List<TimestampedLwM2mNode> timestampedNodes, ContentFormat format,
+                LwM2mPath path, LwM2mModel model) throws CodecException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] encodePaths(List<LwM2mPath> paths, ContentFormat format) throws CodecException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isSupported(ContentFormat format) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class DefaultAuthorizerTest {
+
+    private final CountingSecurityStore store = new CountingSecurityStore();
+    private final DefaultAuthorizer authorizer = new DefaultAuthorizer(store, new SecurityChecker(), 100, 60000);
+
+    @Test
+    public void cached_decision_is_invalidated_when_security_info_changes() throws Exception {
+        store.setListener(authorizer);
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity", new byte[] { 1 }));
+        Registration registration = givenRegistration("ep",
+                Identity.psk(Inet4Address.getLoopbackAddress(), 5684, "identity"));
+
+        // second decision comes from cache
+        assertNotNull(authorizer.isAuthorized(null, registration, registration.getIdentity()));
+        assertNotNull(authorizer.isAuthorized(null, registration, registration.getIdentity()));
+        assertEquals(1, store.count);
+        assertEquals(1, authorizer.getCacheHitCount());
+
+        // other identity is not authorized by cache
+        assertNull(authorizer.isAuthorized(null, registration,
+                Identity.psk(Inet4Address.getLoopbackAddress(), 5684, "other")));
+        assertEquals(2, store.count);
+
+        // modified security info
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity2", new byte[] { 1 }));
+        assertNull(authorizer.isAuthorized(null, registration, registration.getIdentity()));
+
+        // unsecured client which gets security info
+        Registration unsecured = givenRegistration("ep2",
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683));
+        assertNotNull(authorizer.isAuthorized(null, unsecured, unsecured.getIdentity()));
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep2", "identity3", new byte[] { 1 }));
+        assertNull(authorizer.isAuthorized(null, unsecured, unsecured.getIdentity()));
+
+        // removed security info
+        Registration secured = givenRegistration("ep2",
+                Identity.psk(Inet4Address.getLoopbackAddress(), 5684, "identity3"));
+        assertNotNull(authorizer.isAuthorized(null, secured, secured.getIdentity()));
+        store.remove("ep2", false);
+        assertNull(authorizer.isAuthorized(null, secured, secured.getIdentity()));
+    }
+
+    @Test
+    public void decisions_are_not_cached_by_default() {
+        DefaultAuthorizer authorizer = new DefaultAuthorizer(store);
+        Registration registration = givenRegistration("ep",
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 5683));
+        assertNotNull(authorizer.isAuthorized(null, registration, registration.getIdentity()));
+        assertNotNull(authorizer.isAuthorized(null, registration, registration.getIdentity()));
+        assertEquals(2, store.count);
+    }
+
+    private static Registration givenRegistration(String endpoint, Identity identity) {
+        return new Registration.Builder("id-" + endpoint, endpoint, identity).build();
+    }
+
+    private static class CountingSecurityStore extends InMemorySecurityStore {
+        int count = 0;
+
+        @Override
+        public SecurityInfo getByEndpoint(String endpoint) {
+            count++;
+            return super.getByEndpoint(endpoint);
+        }
+    }
+}
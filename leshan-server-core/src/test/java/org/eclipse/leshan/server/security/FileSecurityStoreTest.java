@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileSecurityStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void journal_is_replayed_on_load() throws Exception {
+        String filename = new File(folder.getRoot(), "data/security.data").getPath();
+        PublicKey key = KeyPairGenerator.getInstance("EC").generateKeyPair().getPublic();
+
+        FileSecurityStore store = new FileSecurityStore(filename);
+        store.add(SecurityInfo.newPreSharedKeyInfo("psk", "identity", new byte[] { 1, 2 }));
+        store.add(SecurityInfo.newRawPublicKeyInfo("rpk", key));
+        store.add(SecurityInfo.newX509CertInfo("x509"));
+        store.add(SecurityInfo.newPreSharedKeyInfo("removed", "other", new byte[] { 3 }));
+        store.remove("removed", false);
+        store.destroy();
+
+        FileSecurityStore loaded = new FileSecurityStore(filename);
+        assertEquals(3, loaded.getAll().size());
+        assertEquals(store.getByEndpoint("psk"), loaded.getByIdentity("identity"));
+        assertEquals(store.getByEndpoint("rpk"), loaded.getByRawPublicKey(key));
+        assertEquals(store.getByEndpoint("x509"), loaded.getByX509CommonName("x509"));
+        assertNull(loaded.getByEndpoint("removed"));
+        loaded.destroy();
+    }
+
+    @Test
+    public void batch_is_persisted() throws Exception {
+        String filename = new File(folder.getRoot(), "security.data").getPath();
+        List<SecurityInfo> infos = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            infos.add(SecurityInfo.newPreSharedKeyInfo("ep" + i, "identity" + i, new byte[] { 1 }));
+        }
+        FileSecurityStore store = new FileSecurityStore(filename);
+        store.addAll(infos);
+        store.removeAll(Arrays.asList("ep0", "ep1"), false);
+        store.destroy();
+
+        FileSecurityStore loaded = new FileSecurityStore(filename);
+        assertEquals(98, loaded.getAll().size());
+        assertNull(loaded.getByEndpoint("ep1"));
+        assertEquals("ep99", loaded.getByIdentity("identity99").getEndpoint());
+        loaded.destroy();
+    }
+
+    @Test
+    public void journal_is_compacted() throws Exception {
+        File file = new File(folder.getRoot(), "security.data");
+        FileSecurityStore store = new FileSecurityStore(file.getPath(), 10);
+        for (int i = 0; i < 100; i++) {
+            store.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity" + i, new byte[] { 1 }));
+        }
+        store.destroy();
+
+        // at most threshold + 1 records in the file
+        assertTrue(file.length() < 12 * 30);
+        FileSecurityStore loaded = new FileSecurityStore(file.getPath(), 10);
+        assertEquals("identity99", loaded.getByEndpoint("ep").getIdentity());
+        loaded.destroy();
+    }
+
+    @Test
+    public void truncated_record_is_ignored() throws Exception {
+        File file = new File(folder.getRoot(), "security.data");
+        FileSecurityStore store = new FileSecurityStore(file.getPath());
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "identity1", new byte[] { 1 }));
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep2", "identity2", new byte[] { 2 }));
+        store.destroy();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        FileSecurityStore loaded = new FileSecurityStore(file.getPath());
+        assertNotNull(loaded.getByEndpoint("ep1"));
+        assertNull(loaded.getByEndpoint("ep2"));
+        // file was rewritten, new records can be appended
+        loaded.add(SecurityInfo.newPreSharedKeyInfo("ep3", "identity3", new byte[] { 3 }));
+        loaded.destroy();
+        assertEquals(2, new FileSecurityStore(file.getPath()).getAll().size());
+    }
+
+    @Test
+    public void corrupted_file_is_moved_aside() throws Exception {
+        File file = new File(folder.getRoot(), "security.data");
+        FileSecurityStore store = new FileSecurityStore(file.getPath());
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "identity1", new byte[] { 1 }));
+        long firstRecordEnd = file.length();
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep2", "identity2", new byte[] { 2 }));
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep3", "identity3", new byte[] { 3 }));
+        store.destroy();
+
+        // corrupt the type of the second record
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(firstRecordEnd);
+            raf.writeByte(42);
+        }
+        byte[] content = readContent(file);
+
+        FileSecurityStore loaded = new FileSecurityStore(file.getPath());
+        assertNotNull(loaded.getByEndpoint("ep1"));
+        assertNull(loaded.getByEndpoint("ep2"));
+        assertNull(loaded.getByEndpoint("ep3"));
+        loaded.destroy();
+
+        // original file is kept for recovery
+        assertArrayEquals(content, readContent(new File(file.getPath() + ".corrupt")));
+        assertEquals(1, new FileSecurityStore(file.getPath()).getAll().size());
+    }
+
+    @Test
+    public void java_serialized_file_is_converted() throws Exception {
+        File file = new File(folder.getRoot(), "security.data");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(new SecurityInfo[] { SecurityInfo.newPreSharedKeyInfo("ep", "identity", new byte[] { 1 }),
+                                    SecurityInfo.newX509CertInfo("x509") });
+        }
+
+        FileSecurityStore store = new FileSecurityStore(file.getPath());
+        assertEquals(2, store.getAll().size());
+        store.destroy();
+        assertEquals(0x4C534543, readMagic(file));
+    }
+
+    private static byte[] readContent(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            byte[] content = new byte[(int) raf.length()];
+            raf.readFully(content);
+            return content;
+        }
+    }
+
+    private static int readMagic(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            return in.readInt();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import static org.junit.Assert.*;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+
+public class InMemorySecurityStoreTest {
+
+    private final InMemorySecurityStore store = new InMemorySecurityStore();
+
+    @Test
+    public void indexes_are_updated_when_security_info_is_replaced() throws Exception {
+        PublicKey key = givenPublicKey();
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity", new byte[] { 1 }));
+        assertEquals("ep", store.getByIdentity("identity").getEndpoint());
+
+        // replace PSK by RPK
+        SecurityInfo rpkInfo = SecurityInfo.newRawPublicKeyInfo("ep", key);
+        store.add(rpkInfo);
+        assertNull(store.getByIdentity("identity"));
+        assertSame(rpkInfo, store.getByRawPublicKey(key));
+        assertSame(rpkInfo, store.getByEndpoint("ep"));
+        assertNull(store.getByX509CommonName("ep"));
+
+        // replace RPK by X509
+        store.add(SecurityInfo.newX509CertInfo("ep"));
+        assertNull(store.getByRawPublicKey(key));
+        assertEquals("ep", store.getByX509CommonName("ep").getEndpoint());
+
+        // replace X509 by PSK
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep", "identity2", new byte[] { 1 }));
+        assertNull(store.getByX509CommonName("ep"));
+        assertEquals("ep", store.getByIdentity("identity2").getEndpoint());
+
+        store.remove("ep", false);
+        assertNull(store.getByEndpoint("ep"));
+        assertNull(store.getByIdentity("identity2"));
+        assertTrue(store.getAll().isEmpty());
+    }
+
+    @Test(expected = NonUniqueSecurityInfoException.class)
+    public void psk_identity_must_be_unique() throws NonUniqueSecurityInfoException {
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "identity", new byte[] { 1 }));
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep2", "identity", new byte[] { 2 }));
+    }
+
+    @Test
+    public void endpoints_sharing_a_rpk_keep_it_indexed() throws Exception {
+        PublicKey key = givenPublicKey();
+        SecurityInfo info1 = SecurityInfo.newRawPublicKeyInfo("ep1", key);
+        SecurityInfo info2 = SecurityInfo.newRawPublicKeyInfo("ep2", key);
+        store.add(info1);
+        store.add(info2);
+        assertSame(info2, store.getByRawPublicKey(key));
+
+        // removing the last added end-point falls back to the other one
+        store.remove("ep2", false);
+        assertSame(info1, store.getByRawPublicKey(key));
+
+        // replacing the key of an end-point keeps the other one
+        store.add(info2);
+        store.add(SecurityInfo.newRawPublicKeyInfo("ep2", givenPublicKey()));
+        assertSame(info1, store.getByRawPublicKey(key));
+
+        store.removeAll(Arrays.asList("ep1", "ep2"), false);
+        assertNull(store.getByRawPublicKey(key));
+    }
+
+    @Test
+    public void identities_can_be_exchanged_in_a_batch() throws Exception {
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "identity1", new byte[] { 1 }));
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep2", "identity2", new byte[] { 2 }));
+
+        Collection<SecurityInfo> previous = store
+                .addAll(Arrays.asList(SecurityInfo.newPreSharedKeyInfo("ep2", "identity1", new byte[] { 2 }),
+                        SecurityInfo.newPreSharedKeyInfo("ep1", "identity2", new byte[] { 1 }),
+                        SecurityInfo.newPreSharedKeyInfo("ep3", "identity3", new byte[] { 3 })));
+        assertEquals(2, previous.size());
+        assertEquals("ep2", store.getByIdentity("identity1").getEndpoint());
+        assertEquals("ep1", store.getByIdentity("identity2").getEndpoint());
+        assertEquals(3, store.getAll().size());
+
+        Collection<SecurityInfo> removed = store.removeAll(Arrays.asList("ep1", "ep3", "unknown"), false);
+        assertEquals(2, removed.size());
+        assertNull(store.getByIdentity("identity2"));
+        assertEquals("ep2", store.getByIdentity("identity1").getEndpoint());
+    }
+
+    @Test
+    public void batch_with_non_unique_identity_is_not_added() throws Exception {
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "identity1", new byte[] { 1 }));
+        try {
+            store.addAll(Arrays.asList(SecurityInfo.newPreSharedKeyInfo("ep2", "identity2", new byte[] { 2 }),
+                    SecurityInfo.newPreSharedKeyInfo("ep3", "identity1", new byte[] { 3 })));
+            fail("NonUniqueSecurityInfoException expected");
+        } catch (NonUniqueSecurityInfoException e) {
+            assertNull(store.getByEndpoint("ep2"));
+            assertEquals(1, store.getAll().size());
+        }
+    }
+
+    private static PublicKey givenPublicKey() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        return generator.generateKeyPair().getPublic();
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.security;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Test;
+
+public class SecurityStoreUtilTest {
+
+    @Test
+    public void bulk_operations_fall_back_to_add_and_remove() throws Exception {
+        // only implements EditableSecurityStore
+        final InMemorySecurityStore delegate = new InMemorySecurityStore();
+        EditableSecurityStore store = new EditableSecurityStore() {
+            @Override
+            public SecurityInfo getByEndpoint(String endpoint) {
+                return delegate.getByEndpoint(endpoint);
+            }
+
+            @Override
+            public SecurityInfo getByIdentity(String pskIdentity) {
+                return delegate.getByIdentity(pskIdentity);
+            }
+
+            @Override
+            public Collection<SecurityInfo> getAll() {
+                return delegate.getAll();
+            }
+
+            @Override
+            public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
+                return delegate.add(info);
+            }
+
+            @Override
+            public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+                return delegate.remove(endpoint, infosAreCompromised);
+            }
+
+            @Override
+            public void setListener(SecurityStoreListener listener) {
+                delegate.setListener(listener);
+            }
+        };
+
+        SecurityStoreUtil.addAll(store, Arrays.asList(SecurityInfo.newPreSharedKeyInfo("ep1", "id1", new byte[] { 1 }),
+                SecurityInfo.newPreSharedKeyInfo("ep2", "id2", new byte[] { 2 })));
+        Collection<SecurityInfo> previous = SecurityStoreUtil.addAll(store,
+                Arrays.asList(SecurityInfo.newPreSharedKeyInfo("ep2", "id3", new byte[] { 2 })));
+        assertEquals(1, previous.size());
+        assertEquals("id3", store.getByEndpoint("ep2").getIdentity());
+        assertEquals(2, store.getAll().size());
+
+        Collection<SecurityInfo> removed = SecurityStoreUtil.removeAll(store, Arrays.asList("ep1", "unknown"), false);
+        assertEquals(1, removed.size());
+        assertEquals("ep1", removed.iterator().next().getEndpoint());
+        assertEquals(1, store.getAll().size());
+    }
+
+    @Test
+    public void bulk_store_adds_batch_atomically() throws Exception {
+        InMemorySecurityStore store = new InMemorySecurityStore();
+        store.add(SecurityInfo.newPreSharedKeyInfo("ep1", "id1", new byte[] { 1 }));
+        try {
+            SecurityStoreUtil.addAll(store,
+                    Arrays.asList(SecurityInfo.newPreSharedKeyInfo("ep2", "id2", new byte[] { 2 }),
+                            SecurityInfo.newPreSharedKeyInfo("ep3", "id1", new byte[] { 3 })));
+            fail("NonUniqueSecurityInfoException expected");
+        } catch (NonUniqueSecurityInfoException e) {
+            assertNull(store.getByEndpoint("ep2"));
+        }
+    }
+}
@@ -15,32 +15,97 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.redis;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.leshan.server.redis.serialization.SecurityInfoSerDes;
-import org.eclipse.leshan.server.security.EditableSecurityStore;
+import org.eclipse.leshan.server.security.BulkEditableSecurityStore;
 import org.eclipse.leshan.server.security.NonUniqueSecurityInfoException;
 import org.eclipse.leshan.server.security.SecurityInfo;
 import org.eclipse.leshan.server.security.SecurityStore;
+import org.eclipse.leshan.server.security.SecurityStoreAddListener;
 import org.eclipse.leshan.server.security.SecurityStoreListener;
 
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.util.Pool;
 
 /**
  * A {@link SecurityStore} implementation based on Redis.
  * 
  * Security info are stored using the endpoint as primary key and a secondary index is created for psk-identity lookup.
+ * Modifications are done by Lua scripts which update security infos and the index atomically. All keys are passed to
+ * the scripts, but with Redis Cluster they must be in the same hash slot.
  */
-public class RedisSecurityStore implements EditableSecurityStore {
+public class RedisSecurityStore implements BulkEditableSecurityStore {
 
     private static final String SEC_EP = "SEC#EP#";
 
     private static final String PSKID_SEC = "PSKID#SEC";
 
+    private static final String NON_UNIQUE_ERROR = "NON_UNIQUE ";
+
+    // KEYS[1] : PSK identity index, then security info keys
+    // ARGV : (endpoint, PSK identity, data) triples, in the same order than security info keys
+    private static final String ADD_ALL_SCRIPT = "" //
+            + "local index = KEYS[1]\n" //
+            + "local batch = {}\n" //
+            + "for i = 1, #ARGV, 3 do batch[ARGV[i]] = ARGV[i + 1] end\n" //
+            // check uniqueness : an identity can be released by an endpoint of the batch
+            + "local owners = {}\n" //
+            + "for ep, id in pairs(batch) do\n" //
+            + "  if id ~= '' then\n" //
+            + "    local current = redis.call('HGET', index, id)\n" //
+            + "    if owners[id] or (current and current ~= ep and batch[current] == nil) then\n" //
+            + "      return redis.error_reply('" + NON_UNIQUE_ERROR + "PSK Identity ' .. id .. ' is already used')\n" //
+            + "    end\n" //
+            + "    owners[id] = ep\n" //
+            + "  end\n" //
+            + "end\n" //
+            // store security infos and update index
+            + "local previous = {}\n" //
+            + "for k = 2, #KEYS do\n" //
+            + "  local i = (k - 2) * 3 + 1\n" //
+            + "  local ep, id = ARGV[i], ARGV[i + 1]\n" //
+            + "  local old = redis.call('GETSET', KEYS[k], ARGV[i + 2])\n" //
+            + "  if old then\n" //
+            + "    local oldId = cjson.decode(old)['id']\n" //
+            + "    if oldId and oldId ~= id and redis.call('HGET', index, oldId) == ep then\n" //
+            + "      redis.call('HDEL', index, oldId)\n" //
+            + "    end\n" //
+            + "  end\n" //
+            + "  if id ~= '' then redis.call('HSET', index, id, ep) end\n" //
+            + "  previous[#previous + 1] = old\n" //
+            + "end\n" //
+            + "return previous\n";
+
+    // KEYS[1] : PSK identity index, then security info keys
+    // ARGV : endpoints, in the same order than security info keys
+    private static final String REMOVE_ALL_SCRIPT = "" //
+            + "local index = KEYS[1]\n" //
+            + "local removed = {}\n" //
+            + "for k = 2, #KEYS do\n" //
+            + "  local ep = ARGV[k - 1]\n" //
+            + "  local data = redis.call('GET', KEYS[k])\n" //
+            + "  if data then\n" //
+            // identity may have been given to another endpoint meanwhile
+            + "    local id = cjson.decode(data)['id']\n" //
+            + "    if id and redis.call('HGET', index, id) == ep then\n" //
+            + "      redis.call('HDEL', index, id)\n" //
+            + "    end\n" //
+            + "    redis.call('DEL', KEYS[k])\n" //
+            + "    removed[#removed + 1] = data\n" //
+            + "  end\n" //
+            + "end\n" //
+            + "return removed\n";
+
     private final Pool<Jedis> pool;
     private SecurityStoreListener listener;
 
@@ -85,9 +150,14 @@ public class RedisSecurityStore implements EditableSecurityStore {
             String cursor = "0";
             do {
                 ScanResult<byte[]> res = j.scan(cursor.getBytes(), params);
-                for (byte[] key : res.getResult()) {
-                    byte[] element = j.get(key);
-                    list.add(deserialize(element));
+                if (!res.getResult().isEmpty()) {
+                    // one round-trip for each page of keys
+                    for (byte[] element : j.mget(res.getResult().toArray(new byte[][] {}))) {
+                        // could have been removed since scan
+                        if (element != null) {
+                            list.add(deserialize(element));
+                        }
+                    }
                 }
                 cursor = res.getCursor();
             } while (!"0".equals(cursor));
@@ -97,46 +167,91 @@ public class RedisSecurityStore implements EditableSecurityStore {
 
     @Override
     public SecurityInfo add(SecurityInfo info) throws NonUniqueSecurityInfoException {
-        byte[] data = serialize(info);
+        Collection<SecurityInfo> previous = addAll(Collections.singletonList(info));
+        return previous.isEmpty() ? null : previous.iterator().next();
+    }
+
+    @Override
+    public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+        Collection<SecurityInfo> removed = removeAll(Collections.singletonList(endpoint), infosAreCompromised);
+        return removed.isEmpty() ? null : removed.iterator().next();
+    }
+
+    @Override
+    public Collection<SecurityInfo> addAll(Collection<SecurityInfo> infos) throws NonUniqueSecurityInfoException {
+        // keep only last security info for each endpoint
+        Map<String, SecurityInfo> infosByEp = new LinkedHashMap<>();
+        for (SecurityInfo info : infos) {
+            infosByEp.put(info.getEndpoint(), info);
+        }
+        if (infosByEp.isEmpty())
+            return Collections.emptyList();
+
+        // all keys are passed to the script, as required by Redis Cluster
+        List<byte[]> keys = new ArrayList<>(infosByEp.size() + 1);
+        keys.add(PSKID_SEC.getBytes());
+        List<byte[]> args = new ArrayList<>(infosByEp.size() * 3);
+        for (SecurityInfo info : infosByEp.values()) {
+            keys.add((SEC_EP + info.getEndpoint()).getBytes());
+            args.add(info.getEndpoint().getBytes());
+            args.add(info.getIdentity() == null ? new byte[0] : info.getIdentity().getBytes());
+            args.add(serialize(info));
+        }
+
+        Object result;
         try (Jedis j = pool.getResource()) {
-            if (info.getIdentity() != null) {
-                // populate the secondary index (security info by PSK id)
-                String oldEndpoint = j.hget(PSKID_SEC, info.getIdentity());
-                if (oldEndpoint != null && !oldEndpoint.equals(info.getEndpoint())) {
-                    throw new NonUniqueSecurityInfoException("PSK Identity " + info.getIdentity() + " is already used");
-                }
-                j.hset(PSKID_SEC.getBytes(), info.getIdentity().getBytes(), info.getEndpoint().getBytes());
+            // uniqueness check and modifications are done atomically by the script in one round-trip
+            result = j.eval(ADD_ALL_SCRIPT.getBytes(), keys, args);
+        } catch (JedisDataException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith(NON_UNIQUE_ERROR)) {
+                throw new NonUniqueSecurityInfoException(e.getMessage().substring(NON_UNIQUE_ERROR.length()));
             }
+            throw e;
+        }
 
-            byte[] previousData = j.getSet((SEC_EP + info.getEndpoint()).getBytes(), data);
-            SecurityInfo previous = previousData == null ? null : deserialize(previousData);
-            String previousIdentity = previous == null ? null : previous.getIdentity();
-            if (previousIdentity != null && !previousIdentity.equals(info.getIdentity())) {
-                j.hdel(PSKID_SEC, previousIdentity);
+        List<SecurityInfo> previousInfos = new ArrayList<>();
+        for (Object previousData : (List<?>) result) {
+            if (previousData instanceof byte[]) {
+                previousInfos.add(deserialize((byte[]) previousData));
             }
-
-            return previous;
         }
+        if (listener instanceof SecurityStoreAddListener) {
+            ((SecurityStoreAddListener) listener)
+                    .securityInfoAdded(infosByEp.values().toArray(new SecurityInfo[infosByEp.size()]));
+        }
+        return previousInfos;
     }
 
     @Override
-    public SecurityInfo remove(String endpoint, boolean infosAreCompromised) {
+    public Collection<SecurityInfo> removeAll(Collection<String> endpoints, boolean infosAreCompromised) {
+        if (endpoints.isEmpty())
+            return Collections.emptyList();
+
+        List<byte[]> keys = new ArrayList<>(endpoints.size() + 1);
+        keys.add(PSKID_SEC.getBytes());
+        List<byte[]> args = new ArrayList<>(endpoints.size());
+        for (String endpoint : endpoints) {
+            keys.add((SEC_EP + endpoint).getBytes());
+            args.add(endpoint.getBytes());
+        }
+
+        Object result;
         try (Jedis j = pool.getResource()) {
-            byte[] data = j.get((SEC_EP + endpoint).getBytes());
+            // index entries are removed only if they still point to the removed endpoint, atomically
+            result = j.eval(REMOVE_ALL_SCRIPT.getBytes(), keys, args);
+        }
 
-            if (data != null) {
-                SecurityInfo info = deserialize(data);
-                if (info.getIdentity() != null) {
-                    j.hdel(PSKID_SEC.getBytes(), info.getIdentity().getBytes());
-                }
-                j.del((SEC_EP + endpoint).getBytes());
-                if (listener != null) {
-                    listener.securityInfoRemoved(infosAreCompromised, info);
-                }
-                return info;
+        List<SecurityInfo> removed = new ArrayList<>();
+        for (Object data : (List<?>) result) {
+            if (data instanceof byte[]) {
+                removed.add(deserialize((byte[]) data));
             }
         }
-        return null;
+
+        if (listener != null && !removed.isEmpty()) {
+            listener.securityInfoRemoved(infosAreCompromised, removed.toArray(new SecurityInfo[removed.size()]));
+        }
+        return removed;
     }
 
     private byte[] serialize(SecurityInfo secInfo) {